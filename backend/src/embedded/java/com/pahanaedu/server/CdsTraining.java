@@ -0,0 +1,89 @@
+package com.pahanaedu.server;
+
+import com.pahanaedu.service.StartupWarmup;
+import com.pahanaedu.utils.AppConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Logger;
+
+/**
+ * Training run for the AppCDS archive built by the cds profile. Started with
+ * -XX:DumpLoadedClassList, it boots the embedded server, waits for the startup warm-up, sends
+ * the kinds of requests a till makes and exits, so the class list, and the archive dumped from
+ * it, hold every class those paths load. No database is needed: requests that reach a DAO fail, but only after the driver,
+ * pool and DAO classes have been loaded.
+ */
+public final class CdsTraining {
+    private static final Logger LOGGER = Logger.getLogger(CdsTraining.class.getName());
+    private static final long WARMUP_TIMEOUT_MS = 60000;
+
+    private static final String[][] REQUESTS = {
+            {"GET", "/", null},
+            {"GET", "/health/live", null},
+            {"GET", "/health/ready", null},
+            {"POST", "/auth/login", "{\"username\":\"cds-training\",\"password\":\"cds-training\"}"},
+            {"POST", "/auth/login", "{\"username\":"},
+            {"GET", "/auth/profile", null},
+            {"GET", "/books", null},
+            {"GET", "/books/1", null},
+            {"GET", "/categories", null},
+            {"GET", "/billing/bootstrap", null},
+            {"POST", "/carts", "{}"},
+            {"GET", "/metrics/routes", null},
+            {"GET", "/metrics", null},
+            {"GET", "/metrics/sql", null},
+            {"GET", "/no-such-resource", null},
+            {"OPTIONS", "/books", null},
+    };
+
+    private CdsTraining() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String contextPath = AppConfig.getString("app.server.context-path", "/api");
+        EmbeddedServer server = new EmbeddedServer(0, contextPath, 0);
+        server.start();
+        try {
+            if (!StartupWarmup.getInstance().awaitReady(WARMUP_TIMEOUT_MS)) {
+                LOGGER.warning("Warm-up did not finish within " + WARMUP_TIMEOUT_MS + " ms");
+            }
+            String base = "http://localhost:" + server.getPort() + ("/".equals(contextPath) ? "" : contextPath);
+            for (String[] request : REQUESTS) {
+                int status = send(base + request[1], request[0], request[2]);
+                LOGGER.info("Training " + request[0] + " " + request[1] + " -> " + status);
+            }
+        } finally {
+            server.stop();
+        }
+        // The archive is written as the JVM exits
+        System.exit(0);
+    }
+
+    private static int send(String url, String method, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        connection.setRequestProperty("Origin", "http://localhost:5173");
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        int status = connection.getResponseCode();
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            if (in != null) {
+                in.readAllBytes();
+            }
+        }
+        connection.disconnect();
+        return status;
+    }
+}
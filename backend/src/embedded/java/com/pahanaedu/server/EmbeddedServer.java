@@ -0,0 +1,154 @@
+package com.pahanaedu.server;
+
+import com.pahanaedu.controller.ApiDispatcherServlet;
+import com.pahanaedu.utils.AppConfig;
+import com.pahanaedu.utils.ApplicationInitializer;
+import com.pahanaedu.utils.CORSFilter;
+import com.pahanaedu.utils.CompressionFilter;
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.core.StandardContext;
+import org.apache.catalina.session.StandardManager;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.tomcat.util.descriptor.web.FilterDef;
+import org.apache.tomcat.util.descriptor.web.FilterMap;
+
+import javax.servlet.Filter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the API on an embedded Tomcat instead of a deployed WAR, for tills and integration tests.
+ * The context is built in code with the same listener, filters and dispatcher as web.xml, and
+ * nothing is scanned, so startup is bounded by the database initialisation.
+ * <p>
+ * On shutdown the connector stops accepting connections, requests in flight get up to
+ * app.server.shutdown-drain-ms to finish, and then the context is stopped, which shuts the
+ * worker pools down through {@link ApplicationInitializer}.
+ * <p>
+ * Build and run with: mvn -Pembedded package, then
+ * java -cp "target/classes:target/lib/*" com.pahanaedu.server.EmbeddedServer
+ */
+public class EmbeddedServer {
+    private static final Logger LOGGER = Logger.getLogger(EmbeddedServer.class.getName());
+    private static final String DISPATCHER = "ApiDispatcherServlet";
+
+    private final Tomcat tomcat = new Tomcat();
+    private final InFlightRequestValve inFlight = new InFlightRequestValve();
+    private final int port;
+    private final String contextPath;
+    private final long drainMillis;
+    private boolean stopped;
+
+    public EmbeddedServer() {
+        this(AppConfig.getInt("app.server.port", 8080),
+                AppConfig.getString("app.server.context-path", "/api"),
+                AppConfig.getLong("app.server.shutdown-drain-ms", 10000));
+    }
+
+    /**
+     * @param port the HTTP port, or 0 for any free port (see {@link #getPort()})
+     */
+    public EmbeddedServer(int port, String contextPath, long drainMillis) {
+        this.port = port;
+        this.contextPath = "/".equals(contextPath) ? "" : contextPath;
+        this.drainMillis = drainMillis;
+    }
+
+    public static void main(String[] args) throws Exception {
+        long started = System.nanoTime();
+        EmbeddedServer server = new EmbeddedServer();
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "embedded-server-shutdown"));
+        LOGGER.info("API listening on port " + server.getPort() + server.contextPath + " after "
+                + (System.nanoTime() - started) / 1_000_000 + " ms");
+        server.tomcat.getServer().await();
+    }
+
+    public void start() throws LifecycleException, IOException {
+        File baseDir = Files.createTempDirectory("pahana-edu-tomcat").toFile();
+        baseDir.deleteOnExit();
+        tomcat.setBaseDir(baseDir.getAbsolutePath());
+        tomcat.setPort(port);
+        tomcat.getHost().setAutoDeploy(false);
+
+        Connector connector = tomcat.getConnector();
+        connector.setURIEncoding("UTF-8");
+
+        StandardContext context = (StandardContext) tomcat.addContext(contextPath, baseDir.getAbsolutePath());
+        context.setSessionTimeout(30);
+        // The context is never redeployed, so the class loader leak checks are not needed
+        context.setClearReferencesObjectStreamClassCaches(false);
+        context.setClearReferencesRmiTargets(false);
+        context.setClearReferencesThreadLocals(false);
+        // Sessions only live as long as the process
+        StandardManager sessions = new StandardManager();
+        sessions.setPathname(null);
+        context.setManager(sessions);
+        context.getPipeline().addValve(inFlight);
+
+        context.addApplicationListener(ApplicationInitializer.class.getName());
+        addFilter(context, "CORSFilter", CORSFilter.class);
+        addFilter(context, "CompressionFilter", CompressionFilter.class);
+
+        Wrapper dispatcher = Tomcat.addServlet(context, DISPATCHER, ApiDispatcherServlet.class.getName());
+        dispatcher.setAsyncSupported(true);
+        dispatcher.setLoadOnStartup(1);
+        context.addServletMappingDecoded("/", DISPATCHER);
+
+        tomcat.start();
+    }
+
+    /**
+     * The port actually bound, which differs from the configured one when that was 0
+     */
+    public int getPort() {
+        return tomcat.getConnector().getLocalPort();
+    }
+
+    /**
+     * Stop accepting connections, let requests in flight finish, then stop the server
+     */
+    public synchronized void stop() {
+        if (stopped) {
+            return;
+        }
+        stopped = true;
+
+        try {
+            tomcat.getConnector().pause();
+            if (!inFlight.awaitIdle(drainMillis)) {
+                LOGGER.warning("Stopping with " + inFlight.getActive() + " requests still in flight after "
+                        + drainMillis + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            tomcat.stop();
+            tomcat.destroy();
+        } catch (LifecycleException e) {
+            LOGGER.log(Level.WARNING, "Error stopping embedded server", e);
+        }
+        LOGGER.info("Embedded server stopped");
+    }
+
+    private static void addFilter(Context context, String name, Class<? extends Filter> filterClass) {
+        FilterDef definition = new FilterDef();
+        definition.setFilterName(name);
+        definition.setFilterClass(filterClass.getName());
+        definition.setAsyncSupported("true");
+        context.addFilterDef(definition);
+
+        FilterMap mapping = new FilterMap();
+        mapping.setFilterName(name);
+        mapping.addURLPattern("/*");
+        context.addFilterMap(mapping);
+    }
+}
@@ -0,0 +1,111 @@
+package com.pahanaedu.server;
+
+import org.apache.catalina.connector.Request;
+import org.apache.catalina.connector.Response;
+import org.apache.catalina.valves.ValveBase;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Counts the requests the context is serving, including async requests until they complete,
+ * so shutdown can wait for them to finish.
+ */
+public class InFlightRequestValve extends ValveBase {
+    private final Object lock = new Object();
+    private int active;
+
+    public InFlightRequestValve() {
+        super(true);
+    }
+
+    @Override
+    public void invoke(Request request, Response response) throws IOException, ServletException {
+        enter();
+        boolean async = false;
+        try {
+            getNext().invoke(request, response);
+            // An async cycle completed by the handler on another thread does not end (and fire
+            // onComplete) until this container thread has returned, so the listener is not missed
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ExitListener());
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                exit();
+            }
+        }
+    }
+
+    public int getActive() {
+        synchronized (lock) {
+            return active;
+        }
+    }
+
+    /**
+     * Wait until no requests are in flight
+     * @return false if some were still running when the timeout ran out
+     */
+    public boolean awaitIdle(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        synchronized (lock) {
+            while (active > 0) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    return false;
+                }
+                lock.wait(remaining);
+            }
+            return true;
+        }
+    }
+
+    private void enter() {
+        synchronized (lock) {
+            active++;
+        }
+    }
+
+    private void exit() {
+        synchronized (lock) {
+            active--;
+            if (active == 0) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private final class ExitListener implements AsyncListener {
+        private final AtomicBoolean done = new AtomicBoolean(false);
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            if (done.compareAndSet(false, true)) {
+                exit();
+            }
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            if (done.compareAndSet(false, true)) {
+                exit();
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // A re-started cycle keeps the request in flight; listen to the new one
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.pahanaedu.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold-start benchmark for the embedded server, run by the cds profile after the archive is built.
+ * <p>
+ * Each run starts a new JVM and measures the time until the port accepts a request (startup)
+ * and how long that first request takes (first request), once with class data sharing off,
+ * once with only the JDK's default archive and once with the application archive. The startup
+ * warm-up is switched off so the first request shows the cost of loading classes on demand.
+ * <p>
+ * Arguments: java executable, server jar, archive file, runs per mode
+ */
+public final class StartupBenchmark {
+    private static final long START_TIMEOUT_MS = 60000;
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: StartupBenchmark <java> <server jar> <archive> [runs]");
+            System.exit(2);
+        }
+        String java = args[0];
+        String jar = args[1];
+        String archive = args[2];
+        int runs = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+        String[][] modes = {
+                {"CDS off", "-Xshare:off"},
+                {"JDK CDS only", "-Xshare:auto"},
+                {"AppCDS", "-XX:SharedArchiveFile=" + archive},
+        };
+
+        System.out.println();
+        System.out.println(String.format("%-14s %20s %26s", "Mode", "Startup ms (median)", "First request ms (median)"));
+        for (String[] mode : modes) {
+            List<Long> startup = new ArrayList<>();
+            List<Long> firstRequest = new ArrayList<>();
+            for (int i = 0; i < runs; i++) {
+                long[] result = measure(java, mode[1], jar);
+                startup.add(result[0]);
+                firstRequest.add(result[1]);
+            }
+            System.out.println(String.format("%-14s %20d %26d", mode[0], median(startup), median(firstRequest)));
+        }
+        System.out.println();
+    }
+
+    /**
+     * Start one server and return its startup time and first request time in milliseconds
+     */
+    private static long[] measure(String java, String shareOption, String jar) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>(Arrays.asList(java, shareOption,
+                "-Dapp.server.port=" + port, "-Dapp.warmup.enabled=false",
+                "-cp", jar, EmbeddedServer.class.getName()));
+        URL url = new URL("http://localhost:" + port + "/api/");
+
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            long deadline = started + TimeUnit.MILLISECONDS.toNanos(START_TIMEOUT_MS);
+            while (true) {
+                long attempt = System.nanoTime();
+                try {
+                    get(url);
+                    return new long[]{
+                            TimeUnit.NANOSECONDS.toMillis(attempt - started),
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - attempt)};
+                } catch (IOException notListening) {
+                    if (!process.isAlive() || System.nanoTime() > deadline) {
+                        throw new IllegalStateException("Server did not start with " + shareOption, notListening);
+                    }
+                    Thread.sleep(5);
+                }
+            }
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static void get(URL url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(1000);
+        try (InputStream in = connection.getInputStream()) {
+            in.readAllBytes();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long median(List<Long> values) {
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+}
@@ -0,0 +1,117 @@
+package com.pahanaedu.benchmark;
+
+import com.google.gson.Gson;
+import com.pahanaedu.model.Book;
+import com.pahanaedu.model.Invoice;
+import com.pahanaedu.model.InvoiceItem;
+import com.pahanaedu.utils.JsonCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the shared Gson and its model adapters with reflective {@code new Gson()}.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args=JsonSerialization
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"10", "200"})
+    public int bookCount;
+
+    private final Gson reflective = new Gson();
+    private final Gson adapters = JsonCodec.getGson();
+
+    private List<Book> books;
+    private Invoice invoice;
+    private String booksJson;
+
+    @Setup
+    public void setUp() {
+        Timestamp now = new Timestamp(1792355696000L);
+        books = new ArrayList<>();
+        for (int i = 0; i < bookCount; i++) {
+            Book book = new Book();
+            book.setId(i + 1);
+            book.setIsbn("978-955-" + (10000 + i));
+            book.setTitle("Book title number " + i);
+            book.setAuthor("Author " + i % 17);
+            book.setCategoryId(1 + i % 5);
+            book.setPublisherId(1 + i % 3);
+            book.setPublicationYear(2000 + i % 25);
+            book.setPrice(new BigDecimal(1250 + i * 35 + ".50"));
+            book.setStockQuantity(i % 40);
+            book.setDescription(i % 2 == 0 ? "A short description of book " + i : null);
+            book.setCreatedAt(now);
+            book.setUpdatedAt(now);
+            book.setCategoryName("Category " + i % 5);
+            book.setPublisherName("Publisher " + i % 3);
+            books.add(book);
+        }
+        booksJson = reflective.toJson(books);
+
+        invoice = new Invoice();
+        invoice.setInvoiceNumber("INV-20261018-0042");
+        invoice.setInvoiceDate(now);
+        invoice.setCreatedAt(now);
+        invoice.setCashierName("Test Cashier");
+        List<InvoiceItem> items = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            InvoiceItem item = new InvoiceItem(i + 1, 1 + i % 7, new BigDecimal(1250 + i * 35 + ".50"), BigDecimal.ZERO);
+            item.setBookTitle("Book title number " + i);
+            item.setCreatedAt(now);
+            items.add(item);
+        }
+        invoice.setItems(items);
+        invoice.calculateTotals();
+    }
+
+    @Benchmark
+    public String booksReflective() {
+        return reflective.toJson(books);
+    }
+
+    @Benchmark
+    public String booksAdapters() {
+        return adapters.toJson(books);
+    }
+
+    @Benchmark
+    public String invoiceReflective() {
+        return reflective.toJson(invoice);
+    }
+
+    @Benchmark
+    public String invoiceAdapters() {
+        return adapters.toJson(invoice);
+    }
+
+    @Benchmark
+    public Book[] readBooksReflective() {
+        return reflective.fromJson(booksJson, Book[].class);
+    }
+
+    @Benchmark
+    public Book[] readBooksAdapters() {
+        return adapters.fromJson(booksJson, Book[].class);
+    }
+}
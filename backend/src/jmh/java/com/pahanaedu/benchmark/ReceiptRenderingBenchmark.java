@@ -0,0 +1,160 @@
+package com.pahanaedu.benchmark;
+
+import com.pahanaedu.model.Invoice;
+import com.pahanaedu.model.InvoiceItem;
+import com.pahanaedu.service.ReceiptRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the compiled receipt layout with the previous String.format implementation.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args=ReceiptRendering
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReceiptRenderingBenchmark {
+
+    @Param({"5", "50"})
+    public int itemCount;
+
+    private Invoice invoice;
+    private ReceiptRenderer renderer;
+
+    @Setup
+    public void setUp() {
+        invoice = new Invoice();
+        invoice.setInvoiceNumber("INV-20261018-0042");
+        invoice.setInvoiceDate(new Timestamp(1792355696000L));
+        invoice.setCustomerId(3);
+        invoice.setCustomerName("Nimal Perera");
+        invoice.setCashierName("Test Cashier");
+
+        List<InvoiceItem> items = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            InvoiceItem item = new InvoiceItem(i + 1, 1 + i % 7, new BigDecimal(1250 + i * 35 + ".50"),
+                    i % 3 == 0 ? new BigDecimal("10") : BigDecimal.ZERO);
+            item.setBookTitle("Book title number " + i + (i % 2 == 0 ? " with a longer subtitle" : ""));
+            items.add(item);
+        }
+        invoice.setItems(items);
+        invoice.calculateTotals();
+        invoice.setDiscountAmount(new BigDecimal("100.00"));
+        invoice.setTaxAmount(invoice.getSubtotal().multiply(new BigDecimal("0.05")));
+        invoice.setTotalAmount(invoice.getSubtotal().subtract(invoice.getDiscountAmount()).add(invoice.getTaxAmount()));
+
+        renderer = new ReceiptRenderer();
+    }
+
+    @Benchmark
+    public String compiledLayout() {
+        return renderer.render(invoice);
+    }
+
+    @Benchmark
+    public String legacyStringFormat() {
+        return LegacyReceipt.render(invoice);
+    }
+
+    /**
+     * Copy of the receipt code that used to live in BillingService, kept only for comparison
+     */
+    static final class LegacyReceipt {
+        static String render(Invoice invoice) {
+            List<InvoiceItem> uniqueItems = new ArrayList<>();
+            if (invoice.getItems() != null) {
+                for (InvoiceItem item : invoice.getItems()) {
+                    boolean isDuplicate = false;
+                    for (InvoiceItem existingItem : uniqueItems) {
+                        if (existingItem.getBookId() == item.getBookId()) {
+                            isDuplicate = true;
+                            break;
+                        }
+                    }
+                    if (!isDuplicate) {
+                        uniqueItems.add(item);
+                    }
+                }
+            }
+
+            StringBuilder bill = new StringBuilder();
+            bill.append("==================================================\n");
+            bill.append("               PAHANA EDU BOOKSHOP              \n");
+            bill.append("==================================================\n\n");
+            bill.append("Invoice #: ").append(invoice.getInvoiceNumber()).append("\n");
+            bill.append("Date: ").append(formatDateWithLocalTime(invoice.getInvoiceDate())).append("\n");
+
+            if (invoice.getCustomerId() != null && invoice.getCustomerName() != null) {
+                bill.append("Customer: ").append(invoice.getCustomerName()).append("\n");
+            } else {
+                bill.append("Customer: Walk-in Customer\n");
+            }
+
+            bill.append("Cashier: ").append(invoice.getCashierName()).append("\n");
+            bill.append("\n--------------------------------------------------\n");
+            bill.append("Item                      Qty    Price     Total\n");
+            bill.append("--------------------------------------------------\n");
+
+            for (InvoiceItem item : uniqueItems) {
+                String title = item.getBookTitle();
+                if (title.length() > 22) {
+                    title = title.substring(0, 22) + ".";
+                } else {
+                    StringBuilder paddedTitle = new StringBuilder(title);
+                    while (paddedTitle.length() < 23) {
+                        paddedTitle.append(" ");
+                    }
+                    title = paddedTitle.toString();
+                }
+
+                String price = String.format("%.2f", item.getUnitPrice());
+                String total = String.format("%.2f", item.getTotalPrice());
+                String quantityStr = String.format("%4s", item.getQuantity());
+                String priceStr = String.format("%10s", price);
+                String totalStr = String.format("%8s", total);
+
+                bill.append(title).append(" ").append(quantityStr).append(" ").append(priceStr).append("  ").append(totalStr).append("\n");
+            }
+
+            bill.append("--------------------------------------------------\n");
+            bill.append(String.format("Subtotal:                        %8s\n", String.format("%.2f", invoice.getSubtotal())));
+            if (invoice.getDiscountAmount().compareTo(BigDecimal.ZERO) > 0) {
+                bill.append(String.format("Discount:                        %8s\n", String.format("%.2f", invoice.getDiscountAmount())));
+            }
+            if (invoice.getTaxAmount().compareTo(BigDecimal.ZERO) > 0) {
+                bill.append(String.format("Tax (5%%):                        %8s\n", String.format("%.2f", invoice.getTaxAmount())));
+            }
+            bill.append(String.format("TOTAL:                           %8s\n", String.format("%.2f", invoice.getTotalAmount())));
+            bill.append("==================================================\n");
+            bill.append("           Thank You For Your Purchase           \n");
+            bill.append("==================================================\n");
+            return bill.toString();
+        }
+
+        private static String formatDateWithLocalTime(Timestamp timestamp) {
+            if (timestamp == null) return "N/A";
+            java.util.TimeZone timezone = java.util.TimeZone.getTimeZone("Asia/Kolkata");
+            java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("yyyy-MM-dd hh:mm:ss a");
+            sdf.setTimeZone(timezone);
+            return sdf.format(timestamp);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.pahanaedu.benchmark;
+
+import com.pahanaedu.utils.BoundedExecutors;
+import com.pahanaedu.utils.ConnectionPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test for the business pool with platform and virtual threads under a fixed 256 MB heap.
+ * Each request borrows a pooled connection and blocks for {@code latencyMillis} to stand in for
+ * a JDBC round trip. The score is the time to serve one batch of {@code requests}.
+ * <p>
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args=ThreadMode
+ * The {@code virtual=true} case needs a Java 21 JVM; on older runtimes it falls back to
+ * platform threads and reports the same numbers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms256m", "-Xmx256m"})
+public class ThreadModeBenchmark {
+
+    @Param({"false", "true"})
+    public boolean virtual;
+
+    @Param({"20"})
+    public int latencyMillis;
+
+    @Param({"2000"})
+    public int requests;
+
+    /**
+     * Connections the database would accept; deliberately larger than the platform worker count
+     */
+    @Param({"50"})
+    public int connections;
+
+    private ThreadPoolExecutor executor;
+    private ConnectionPool pool;
+    private Semaphore inFlight;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Must be set before BoundedExecutors is initialised; each @Param combination runs in its own fork
+        System.setProperty("app.threads.virtual", Boolean.toString(virtual));
+
+        int queueSize = 256;
+        executor = BoundedExecutors.newBoundedExecutor("business", 8, 200, queueSize);
+        pool = new ConnectionPool(ThreadModeBenchmark::fakeConnection, connections, 30000, Long.MAX_VALUE);
+        // Never more unstarted tasks than the queue holds, so nothing is shed
+        inFlight = new Semaphore(queueSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+        pool.close();
+    }
+
+    @Benchmark
+    public void serveBatch() throws Exception {
+        CountDownLatch done = new CountDownLatch(requests);
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            executor.execute(() -> {
+                try (Connection connection = pool.getConnection()) {
+                    connection.isValid(0);
+                    Thread.sleep(latencyMillis);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    inFlight.release();
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+
+    private static Connection fakeConnection() {
+        return (Connection) Proxy.newProxyInstance(ThreadModeBenchmark.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getAutoCommit":
+                        case "isValid":
+                            return true;
+                        case "isClosed":
+                            return false;
+                        default:
+                            return null;
+                    }
+                });
+    }
+}
@@ -0,0 +1,103 @@
+package com.pahanaedu.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.pahanaedu.model.Book;
+import com.pahanaedu.utils.JsonCodec;
+import com.pahanaedu.utils.WireFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares encoding and decoding a book list as JSON, CBOR and MessagePack.
+ * Payload sizes are printed during setup.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args=WireFormat
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    private static final Type BOOK_LIST = new TypeToken<List<Book>>() {}.getType();
+
+    @Param({"JSON", "CBOR", "MESSAGE_PACK"})
+    public WireFormat format;
+
+    @Param({"200"})
+    public int bookCount;
+
+    private final Gson gson = JsonCodec.getGson();
+
+    private List<Book> books;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        Timestamp now = new Timestamp(1792355696000L);
+        books = new ArrayList<>();
+        for (int i = 0; i < bookCount; i++) {
+            Book book = new Book();
+            book.setId(i + 1);
+            book.setIsbn("978-955-" + (10000 + i));
+            book.setTitle("Book title number " + i);
+            book.setAuthor("Author " + i % 17);
+            book.setCategoryId(1 + i % 5);
+            book.setPublisherId(1 + i % 3);
+            book.setPublicationYear(2000 + i % 25);
+            book.setPrice(new BigDecimal(1250 + i * 35 + ".50"));
+            book.setStockQuantity(i % 40);
+            book.setDescription(i % 2 == 0 ? "A short description of book " + i : null);
+            book.setCreatedAt(now);
+            book.setUpdatedAt(now);
+            book.setCategoryName("Category " + i % 5);
+            book.setPublisherName("Publisher " + i % 3);
+            books.add(book);
+        }
+        encoded = encode();
+        System.out.println(format + ": " + encoded.length + " bytes for " + bookCount + " books");
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(8192);
+        JsonWriter out = format.isBinary()
+                ? format.newBinaryWriter(buffer)
+                : gson.newJsonWriter(new OutputStreamWriter(buffer, StandardCharsets.UTF_8));
+        gson.toJson(books, BOOK_LIST, out);
+        out.close();
+        return buffer.toByteArray();
+    }
+
+    @Benchmark
+    public List<Book> decode() throws IOException {
+        try (JsonReader in = format.newReader(new ByteArrayInputStream(encoded), StandardCharsets.UTF_8)) {
+            return gson.fromJson(in, BOOK_LIST);
+        }
+    }
+}
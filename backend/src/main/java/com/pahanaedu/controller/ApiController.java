@@ -0,0 +1,15 @@
+package com.pahanaedu.controller;
+
+/**
+ * A group of related routes, registered with the {@link ApiDispatcherServlet} when it starts
+ */
+public interface ApiController {
+
+    void registerRoutes(Router router);
+
+    /**
+     * Release anything the controller holds open; called when the dispatcher is taken out of service
+     */
+    default void destroy() {
+    }
+}
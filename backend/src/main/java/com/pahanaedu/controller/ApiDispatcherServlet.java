@@ -0,0 +1,312 @@
+package com.pahanaedu.controller;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.pahanaedu.model.User;
+import com.pahanaedu.service.AuthService;
+import com.pahanaedu.utils.ApiResponses;
+import com.pahanaedu.utils.AppConfig;
+import com.pahanaedu.utils.AsyncRequestExecutor;
+import com.pahanaedu.utils.ConditionalGet;
+import com.pahanaedu.utils.Counter;
+import com.pahanaedu.utils.MetricsRegistry;
+import com.pahanaedu.utils.RequestBinder;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The single servlet behind the API. Requests are matched against the {@link Router} the
+ * controllers register their routes with, then checked, run and measured the same way:
+ * <ul>
+ *     <li>the session user is loaded and the route's access level enforced (401, 403);</li>
+ *     <li>conditional routes answer 304 or a cached body before the handler runs;</li>
+ *     <li>async routes run on the {@link AsyncRequestExecutor} business pool;</li>
+ *     <li>binding errors and exceptions from handlers become the standard error body;</li>
+ *     <li>each route's count, errors and time, up to the end of an async cycle, are recorded.</li>
+ * </ul>
+ * Unknown paths get 404 and known paths with another method 405 with an Allow header.
+ * GET /metrics/routes lists the per-route figures for administrators, and GET /metrics writes
+ * the whole {@link MetricsRegistry} in the Prometheus text format for administrators or a
+ * scraper presenting {@code app.metrics.scrape-token} as a bearer token.
+ */
+public class ApiDispatcherServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOGGER = Logger.getLogger(ApiDispatcherServlet.class.getName());
+    private static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final Counter NOT_FOUND = MetricsRegistry.getInstance().counter("http_server_unmatched_requests",
+            "Requests that matched no route", "reason", "not_found");
+    private static final Counter METHOD_NOT_ALLOWED = MetricsRegistry.getInstance().counter(
+            "http_server_unmatched_requests", "Requests that matched no route", "reason", "method_not_allowed");
+    private final List<ApiController> controllers = new ArrayList<>();
+    private final AuthService authService = new AuthService();
+    private final AsyncRequestExecutor asyncExecutor = AsyncRequestExecutor.getInstance();
+    private final Router router = new Router();
+    private final String scrapeToken = AppConfig.getString("app.metrics.scrape-token", "");
+
+    public ApiDispatcherServlet() {
+    }
+
+    /**
+     * A dispatcher for the given controllers only, instead of the whole API
+     */
+    public ApiDispatcherServlet(ApiController... controllers) {
+        this.controllers.addAll(Arrays.asList(controllers));
+    }
+
+    @Override
+    public void init() throws ServletException {
+        if (controllers.isEmpty()) {
+            controllers.addAll(Arrays.asList(
+                    new StatusController(),
+                    new HealthController(),
+                    new AuthController(),
+                    new BookController(),
+                    new CategoryController(),
+                    new PublisherController(),
+                    new CustomerController(),
+                    new InvoiceController(),
+                    new CartController(),
+                    new BillingController(),
+                    new EventController(),
+                    new SqlProfileController()));
+        }
+        for (ApiController controller : controllers) {
+            controller.registerRoutes(router);
+        }
+        router.get("/metrics/routes", this::handleRouteMetrics)
+                .adminOnly("Only administrators can view route metrics");
+        // Access is checked by the handler, which also accepts the scrape token
+        router.get("/metrics", this::handlePrometheusMetrics).publicAccess();
+        LOGGER.info("Registered " + router.getRoutes().size() + " API routes");
+    }
+
+    @Override
+    public void destroy() {
+        for (ApiController controller : controllers) {
+            try {
+                controller.destroy();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Error stopping " + controller.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    public Router getRouter() {
+        return router;
+    }
+
+    @Override
+    protected void service(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        // HttpServlet has no doPatch
+        if ("PATCH".equalsIgnoreCase(request.getMethod())) {
+            dispatch(request, response, "PATCH");
+        } else {
+            super.service(request, response);
+        }
+    }
+
+    // HEAD is answered by HttpServlet through doGet, without the body
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        dispatch(request, response, "GET");
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        dispatch(request, response, "POST");
+    }
+
+    @Override
+    protected void doPut(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        dispatch(request, response, "PUT");
+    }
+
+    @Override
+    protected void doDelete(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        dispatch(request, response, "DELETE");
+    }
+
+    private void dispatch(HttpServletRequest request, HttpServletResponse response, String method)
+            throws IOException {
+        long started = System.nanoTime();
+        String path = pathOf(request);
+        RouteContext context = router.match(method, path);
+
+        if (context == null) {
+            NOT_FOUND.increment();
+            ApiResponses.sendNotFound(response, "No resource at " + path);
+            return;
+        }
+        Route route = context.getRoute();
+        if (route == null) {
+            METHOD_NOT_ALLOWED.increment();
+            response.setHeader("Allow", context.getAllowedMethods());
+            ApiResponses.sendError(response, HttpServletResponse.SC_METHOD_NOT_ALLOWED,
+                    method + " is not supported for " + path);
+            return;
+        }
+
+        try {
+            handle(route, context, request, response);
+        } finally {
+            record(route, request, response, started);
+        }
+    }
+
+    private void handle(Route route, RouteContext context, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (route.getAccess() != Route.Access.PUBLIC) {
+            User user = authService.getUserFromSession(request);
+            if (user == null) {
+                ApiResponses.sendUnauthorized(response);
+                return;
+            }
+            if (!route.allows(user)) {
+                ApiResponses.sendForbidden(response, route.getForbiddenMessage());
+                return;
+            }
+            context.setUser(user);
+        }
+
+        if (route.getConditionalTables() != null
+                && ConditionalGet.handle(request, response, route.getConditionalTables())) {
+            return;
+        }
+
+        if (route.isAsync()) {
+            asyncExecutor.execute(request, response, (asyncRequest, asyncResponse) ->
+                    invoke(route, context, asyncRequest, asyncResponse));
+        } else {
+            invoke(route, context, request, response);
+        }
+    }
+
+    private void invoke(Route route, RouteContext context, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        try {
+            route.getHandler().handle(request, response, context);
+        } catch (RequestBinder.BindingException e) {
+            if (!response.isCommitted()) {
+                response.resetBuffer();
+                ApiResponses.sendBindingError(response, e);
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error handling " + route + " for " + context.getPath(), e);
+            if (!response.isCommitted()) {
+                response.resetBuffer();
+                ApiResponses.sendServerError(response, "Error processing request: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Record the request now, or when its async cycle ends
+     */
+    private static void record(Route route, HttpServletRequest request, HttpServletResponse response, long started) {
+        if (!request.isAsyncStarted()) {
+            route.record(response.getStatus(), System.nanoTime() - started);
+            return;
+        }
+        AtomicBoolean recorded = new AtomicBoolean(false);
+        request.getAsyncContext().addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                if (recorded.compareAndSet(false, true)) {
+                    route.record(response.getStatus(), System.nanoTime() - started);
+                }
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                if (recorded.compareAndSet(false, true)) {
+                    route.record(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, System.nanoTime() - started);
+                }
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        String servletPath = request.getServletPath();
+        String pathInfo = request.getPathInfo();
+        if (servletPath == null) {
+            return pathInfo != null ? pathInfo : "/";
+        }
+        return pathInfo != null ? servletPath + pathInfo : servletPath;
+    }
+
+    private void handleRouteMetrics(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        JsonArray routes = new JsonArray();
+        for (Route each : router.getRoutes()) {
+            JsonObject json = new JsonObject();
+            json.addProperty("method", each.getMethod());
+            json.addProperty("pattern", each.getPattern());
+            json.addProperty("requests", each.getRequests());
+            json.addProperty("clientErrors", each.getClientErrors());
+            json.addProperty("serverErrors", each.getServerErrors());
+            json.addProperty("meanMillis", Math.round(each.getMeanMillis() * 1000) / 1000.0);
+            json.addProperty("p50Millis", Math.round(each.getPercentileMillis(0.5) * 1000) / 1000.0);
+            json.addProperty("p99Millis", Math.round(each.getPercentileMillis(0.99) * 1000) / 1000.0);
+            json.addProperty("maxMillis", Math.round(each.getMaxMillis() * 1000) / 1000.0);
+            routes.add(json);
+        }
+
+        JsonObject jsonResponse = new JsonObject();
+        jsonResponse.addProperty("status", "success");
+        jsonResponse.add("routes", routes);
+        response.setHeader("Cache-Control", "no-store");
+        ApiResponses.sendJson(response, jsonResponse);
+    }
+
+    private void handlePrometheusMetrics(HttpServletRequest request, HttpServletResponse response,
+                                         RouteContext route) throws IOException {
+        if (!hasScrapeToken(request)) {
+            User user = authService.getUserFromSession(request);
+            if (user == null) {
+                ApiResponses.sendUnauthorized(response);
+                return;
+            }
+            if (!"ADMIN".equals(user.getRole())) {
+                ApiResponses.sendForbidden(response, "Only administrators can view metrics");
+                return;
+            }
+        }
+
+        response.setHeader("Cache-Control", "no-store");
+        response.setContentType(PROMETHEUS_CONTENT_TYPE);
+        response.getWriter().write(MetricsRegistry.getInstance().scrape());
+    }
+
+    private boolean hasScrapeToken(HttpServletRequest request) {
+        String authorization = request.getHeader("Authorization");
+        if (scrapeToken.isEmpty() || authorization == null || !authorization.startsWith("Bearer ")) {
+            return false;
+        }
+        return MessageDigest.isEqual(scrapeToken.getBytes(StandardCharsets.UTF_8),
+                authorization.substring("Bearer ".length()).getBytes(StandardCharsets.UTF_8));
+    }
+}
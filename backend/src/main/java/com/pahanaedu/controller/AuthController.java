@@ -0,0 +1,141 @@
+package com.pahanaedu.controller;
+
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.pahanaedu.model.User;
+import com.pahanaedu.service.AuthService;
+import com.pahanaedu.utils.ApiResponses;
+import com.pahanaedu.utils.RequestBinder;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.logging.Logger;
+
+/**
+ * Controller for user login, logout and the current user's profile
+ */
+public class AuthController implements ApiController {
+    private static final Logger LOGGER = Logger.getLogger(AuthController.class.getName());
+    private final AuthService authService = new AuthService();
+
+    @Override
+    public void registerRoutes(Router router) {
+        router.post("/auth/login", this::handleLogin).publicAccess();
+        router.post("/auth/logout", this::handleLogout).publicAccess();
+        router.get("/auth/profile", this::handleProfile).publicAccess();
+    }
+
+    private void handleLogin(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        Credentials credentials = new Credentials();
+        RequestBinder.bind(request, credentials::read);
+
+        try {
+            String username = credentials.username;
+            String password = credentials.password;
+            if (username == null || password == null) {
+                ApiResponses.sendBadRequest(response, "Username and password are required");
+                return;
+            }
+
+            User authenticatedUser = authService.login(username, password);
+
+            if (authenticatedUser != null) {
+                authService.storeUserInSession(request, authenticatedUser);
+
+                JsonObject jsonResponse = new JsonObject();
+                jsonResponse.addProperty("status", "success");
+                jsonResponse.addProperty("message", "Login successful");
+
+                JsonObject userJson = new JsonObject();
+                userJson.addProperty("id", authenticatedUser.getId());
+                userJson.addProperty("username", authenticatedUser.getUsername());
+                userJson.addProperty("fullName", authenticatedUser.getFullName());
+                userJson.addProperty("role", authenticatedUser.getRole());
+                userJson.addProperty("email", authenticatedUser.getEmail());
+
+                jsonResponse.add("user", userJson);
+
+                ApiResponses.sendJson(response, jsonResponse);
+                LOGGER.info("User successfully authenticated: " + username);
+            } else {
+                ApiResponses.sendError(response, HttpServletResponse.SC_UNAUTHORIZED, "Invalid username or password");
+                LOGGER.warning("Failed login attempt for username: " + username);
+            }
+        } catch (Exception e) {
+            ApiResponses.sendServerError(response, "An error occurred during login");
+            LOGGER.severe("Login error: " + e.getMessage());
+        }
+    }
+
+    private void handleLogout(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        boolean logoutSuccessful = authService.logout(request);
+
+        JsonObject jsonResponse = new JsonObject();
+
+        if (logoutSuccessful) {
+            jsonResponse.addProperty("status", "success");
+            jsonResponse.addProperty("message", "Logout successful");
+            LOGGER.info("User successfully logged out");
+        } else {
+            jsonResponse.addProperty("status", "warning");
+            jsonResponse.addProperty("message", "No active session found");
+            LOGGER.warning("Logout attempted with no active session");
+        }
+
+        ApiResponses.sendJson(response, jsonResponse);
+    }
+
+    /**
+     * Answers 401 itself, with its own message, rather than through the route's access check
+     */
+    private void handleProfile(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        User currentUser = authService.getProfile(request);
+
+        if (currentUser == null) {
+            ApiResponses.sendError(response, HttpServletResponse.SC_UNAUTHORIZED, "Not authenticated");
+            LOGGER.warning("Unauthorized attempt to access profile information");
+            return;
+        }
+
+        JsonObject jsonResponse = new JsonObject();
+        jsonResponse.addProperty("status", "success");
+
+        JsonObject userJson = new JsonObject();
+        userJson.addProperty("id", currentUser.getId());
+        userJson.addProperty("username", currentUser.getUsername());
+        userJson.addProperty("fullName", currentUser.getFullName());
+        userJson.addProperty("role", currentUser.getRole());
+        userJson.addProperty("email", currentUser.getEmail());
+        userJson.addProperty("active", currentUser.isActive());
+
+        jsonResponse.add("user", userJson);
+        LOGGER.info("Profile information retrieved for user: " + currentUser.getUsername());
+
+        ApiResponses.sendJson(response, jsonResponse);
+    }
+
+    /**
+     * Username and password read from the login request body
+     */
+    private static final class Credentials {
+        private String username;
+        private String password;
+
+        boolean read(String name, JsonReader in) throws IOException {
+            switch (name) {
+                case "username":
+                    username = RequestBinder.readString(in);
+                    return true;
+                case "password":
+                    password = RequestBinder.readString(in);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.pahanaedu.controller;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.pahanaedu.service.CatalogueCache;
+import com.pahanaedu.utils.JsonCodec;
+import com.pahanaedu.utils.RequestBinder;
+import com.pahanaedu.utils.WireFormat;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Controller for data the billing screen loads up front.
+ * GET /billing/bootstrap returns the compact book and customer catalogue with a version;
+ * GET /billing/bootstrap?since={version} returns only the rows changed after that version.
+ */
+public class BillingController implements ApiController {
+    private final CatalogueCache catalogue = CatalogueCache.getInstance();
+    private final Gson gson = JsonCodec.getGson();
+
+    @Override
+    public void registerRoutes(Router router) {
+        router.get("/billing/bootstrap", this::handleBootstrap);
+    }
+
+    private void handleBootstrap(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        long since = -1;
+        String sinceParam = request.getParameter("since");
+        if (sinceParam != null && !sinceParam.isEmpty()) {
+            try {
+                since = Long.parseLong(sinceParam);
+            } catch (NumberFormatException e) {
+                throw new RequestBinder.BindingException("Invalid version: " + sinceParam);
+            }
+        }
+
+        CatalogueCache.Snapshot snapshot = catalogue.snapshot(since);
+        String etag = "\"" + snapshot.getVersion() + "\"";
+        response.setHeader("ETag", etag);
+        response.setHeader("Cache-Control", "private, no-cache");
+
+        if (etag.equals(request.getHeader("If-None-Match"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        JsonObject jsonResponse = new JsonObject();
+        jsonResponse.addProperty("status", "success");
+        jsonResponse.addProperty("version", snapshot.getVersion());
+        jsonResponse.addProperty("full", snapshot.isFull());
+        jsonResponse.add("books", gson.toJsonTree(snapshot.getBooks()));
+        jsonResponse.add("customers", gson.toJsonTree(snapshot.getCustomers()));
+        if (!snapshot.isFull()) {
+            jsonResponse.add("removedBooks", gson.toJsonTree(snapshot.getRemovedBooks()));
+            jsonResponse.add("removedCustomers", gson.toJsonTree(snapshot.getRemovedCustomers()));
+        }
+
+        WireFormat.negotiate(request).write(response, jsonResponse);
+    }
+}
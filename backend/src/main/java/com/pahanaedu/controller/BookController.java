@@ -0,0 +1,358 @@
+package com.pahanaedu.controller;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.pahanaedu.dao.BookChangeLog;
+import com.pahanaedu.dao.BookDAO;
+import com.pahanaedu.model.Book;
+import com.pahanaedu.model.BookChange;
+import com.pahanaedu.service.BookService;
+import com.pahanaedu.utils.ApiResponses;
+import com.pahanaedu.utils.AppConfig;
+import com.pahanaedu.utils.EventStreamBroadcaster;
+import com.pahanaedu.utils.FieldProjection;
+import com.pahanaedu.utils.JsonCodec;
+import com.pahanaedu.utils.RequestBinder;
+import com.pahanaedu.utils.TableVersions;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Controller for handling book-related API requests.
+ * GET /books/changes?after={sequence} returns the book changes after a position in the change feed;
+ * GET /books/changes/stream pushes them as Server-Sent Events.
+ */
+public class BookController implements ApiController {
+    private static final Logger LOGGER = Logger.getLogger(BookController.class.getName());
+    private static final String CHANGE_EVENT = "book-change";
+    private static final int MAX_STREAM_BACKLOG_PAGES = 10;
+    private static final String[] TABLES = {TableVersions.BOOKS, TableVersions.CATEGORIES, TableVersions.PUBLISHERS};
+    private final BookService bookService = new BookService();
+    private final BookChangeLog changeLog = BookChangeLog.getInstance();
+    private final int changePageSize = AppConfig.getInt("app.changes.page-size", 500);
+    private final Gson gson = JsonCodec.getGson();
+    private final EventStreamBroadcaster changeStream;
+    private final BookChangeLog.Listener changeListener;
+
+    public BookController() {
+        changeStream = new EventStreamBroadcaster("book-changes",
+                AppConfig.getInt("app.changes.stream-queue-size", 256),
+                AppConfig.getLong("app.changes.keep-alive-ms", 15000));
+        changeListener = change -> changeStream.publish(change.getSequence(), CHANGE_EVENT, gson.toJson(change));
+        changeLog.addListener(changeListener);
+    }
+
+    @Override
+    public void registerRoutes(Router router) {
+        router.get("/books", this::handleList).conditional(TABLES);
+        router.get("/books/{id:int}", this::handleGetById).conditional(TABLES);
+        router.get("/books/isbn/{isbn}", this::handleGetByIsbn).conditional(TABLES);
+        router.get("/books/changes", this::handleChanges);
+        router.get("/books/changes/stream", this::handleChangeStream);
+        router.post("/books", this::handleCreate);
+        router.put("/books/{id:int}", this::handleUpdate);
+        router.delete("/books/{id:int}", this::handleDelete).adminOnly("Only administrators can delete books");
+    }
+
+    @Override
+    public void destroy() {
+        changeLog.removeListener(changeListener);
+        changeStream.shutdown();
+    }
+
+    /**
+     * Get all books, or those matching a search term or in a category
+     */
+    private void handleList(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        FieldProjection fields = BookDAO.FIELDS.requested(request);
+        String searchTerm = request.getParameter("search");
+        String categoryParam = request.getParameter("category");
+        List<Book> books;
+
+        if (searchTerm != null && !searchTerm.trim().isEmpty()) {
+            books = bookService.searchBooks(searchTerm, fields);
+        } else if (categoryParam != null && !categoryParam.trim().isEmpty()) {
+            try {
+                int categoryId = Integer.parseInt(categoryParam);
+                books = bookService.getBooksByCategory(categoryId, fields);
+            } catch (NumberFormatException e) {
+                ApiResponses.sendBadRequest(response, "Invalid category ID format");
+                return;
+            }
+        } else {
+            books = bookService.getAllBooks(fields);
+        }
+
+        ApiResponses.sendJson(response, JsonCodec.toJsonArray(books, Book.class, fields));
+    }
+
+    private void handleGetById(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        FieldProjection fields = BookDAO.FIELDS.requested(request);
+        int id = route.getInt("id");
+        Book book = bookService.getBookById(id, fields);
+
+        if (book != null) {
+            ApiResponses.sendJson(response, JsonCodec.toJson(book, Book.class, fields));
+        } else {
+            ApiResponses.sendNotFound(response, "Book not found with ID: " + id);
+        }
+    }
+
+    private void handleGetByIsbn(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        FieldProjection fields = BookDAO.FIELDS.requested(request);
+        String isbn = route.get("isbn");
+        Book book = bookService.getBookByIsbn(isbn, fields);
+
+        if (book != null) {
+            ApiResponses.sendJson(response, JsonCodec.toJson(book, Book.class, fields));
+        } else {
+            ApiResponses.sendNotFound(response, "Book not found with ISBN: " + isbn);
+        }
+    }
+
+    /**
+     * Return one page of changes after the requested sequence.
+     * Without {@code after} only the current position is returned, to start following from.
+     */
+    private void handleChanges(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        String afterParam = request.getParameter("after");
+        int limit = changePageSize;
+        long after;
+
+        try {
+            String limitParam = request.getParameter("limit");
+            if (limitParam != null && !limitParam.isEmpty()) {
+                limit = Math.max(1, Math.min(changePageSize, Integer.parseInt(limitParam)));
+            }
+            after = afterParam != null && !afterParam.isEmpty() ? Long.parseLong(afterParam) : -1;
+        } catch (NumberFormatException e) {
+            ApiResponses.sendBadRequest(response, "Invalid change position");
+            return;
+        }
+
+        JsonObject jsonResponse = new JsonObject();
+        jsonResponse.addProperty("status", "success");
+
+        if (after < 0) {
+            jsonResponse.add("changes", new JsonArray());
+            jsonResponse.addProperty("lastSequence", changeLog.getLastSequence());
+            jsonResponse.addProperty("hasMore", false);
+            jsonResponse.addProperty("reset", false);
+        } else {
+            BookChangeLog.Page page = changeLog.changesAfter(after, limit);
+            jsonResponse.add("changes", gson.toJsonTree(page.getChanges()));
+            jsonResponse.addProperty("lastSequence", page.getLastSequence());
+            jsonResponse.addProperty("hasMore", page.isHasMore());
+            jsonResponse.addProperty("reset", page.isReset());
+        }
+
+        response.setHeader("Cache-Control", "no-store");
+        ApiResponses.sendJson(response, jsonResponse);
+    }
+
+    /**
+     * Stream changes as Server-Sent Events, starting after {@code after} or the Last-Event-ID
+     * a reconnecting browser sends. Missed changes are sent first, then live ones.
+     */
+    private void handleChangeStream(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        if (!request.isAsyncSupported()) {
+            ApiResponses.sendServerError(response, "Change stream is not available");
+            return;
+        }
+
+        long after;
+        try {
+            String position = request.getHeader("Last-Event-ID");
+            if (position == null || position.isEmpty()) {
+                position = request.getParameter("after");
+            }
+            after = position != null && !position.isEmpty() ? Long.parseLong(position.trim()) : -1;
+        } catch (NumberFormatException e) {
+            ApiResponses.sendBadRequest(response, "Invalid change position");
+            return;
+        }
+
+        EventStreamBroadcaster.Client client = changeStream.open(request, response);
+        try {
+            long sent;
+            if (after < 0) {
+                sent = changeLog.getLastSequence();
+            } else {
+                sent = after;
+                BookChangeLog.Page page;
+                do {
+                    page = changeLog.changesAfter(sent, changePageSize);
+                    // Far behind: reloading is cheaper than replaying, and keeps the backlog bounded
+                    if (page.isReset() || page.getLastSequence() - after > MAX_STREAM_BACKLOG_PAGES * changePageSize) {
+                        sent = page.getLastSequence();
+                        client.sendFirst(sent, EventStreamBroadcaster.RESET_EVENT, "{}");
+                        break;
+                    }
+                    for (BookChange change : page.getChanges()) {
+                        client.sendFirst(change.getSequence(), CHANGE_EVENT, gson.toJson(change));
+                        sent = change.getSequence();
+                    }
+                } while (page.isHasMore());
+            }
+            client.resume(sent);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Could not read book change backlog", e);
+            client.close();
+        }
+    }
+
+    /**
+     * Create a new book
+     */
+    private void handleCreate(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        // Stock defaults to 0 when not given
+        Book book = new Book();
+        book.setStockQuantity(0);
+
+        RequestBinder.bind(request, (name, in) -> readBookField(book, name, in));
+
+        if (book.getIsbn() == null) {
+            throw new RequestBinder.BindingException("Book ISBN is required");
+        }
+        if (book.getTitle() == null) {
+            throw new RequestBinder.BindingException("Book title is required");
+        }
+        if (book.getAuthor() == null) {
+            throw new RequestBinder.BindingException("Book author is required");
+        }
+        if (book.getCategoryId() == 0) {
+            throw new RequestBinder.BindingException("Category ID is required");
+        }
+        if (book.getPublisherId() == 0) {
+            throw new RequestBinder.BindingException("Publisher ID is required");
+        }
+        if (book.getPrice() == null) {
+            throw new RequestBinder.BindingException("Book price is required");
+        }
+
+        // Check if book with ISBN already exists
+        Book existingBook = bookService.getBookByIsbn(book.getIsbn());
+        if (existingBook != null) {
+            ApiResponses.sendBadRequest(response, "A book with ISBN " + book.getIsbn() + " already exists");
+            return;
+        }
+
+        if (bookService.createBook(book)) {
+            JsonObject jsonResponse = new JsonObject();
+            jsonResponse.addProperty("status", "success");
+            jsonResponse.addProperty("message", "Book created successfully");
+            jsonResponse.add("book", gson.toJsonTree(book));
+
+            response.setStatus(HttpServletResponse.SC_CREATED);
+            ApiResponses.sendJson(response, jsonResponse);
+        } else {
+            ApiResponses.sendServerError(response, "Failed to create book. Please check category and publisher IDs.");
+        }
+    }
+
+    /**
+     * Update an existing book
+     */
+    private void handleUpdate(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        int id = route.getInt("id");
+        Book existingBook = bookService.getBookById(id);
+
+        if (existingBook == null) {
+            ApiResponses.sendNotFound(response, "Book not found with ID: " + id);
+            return;
+        }
+
+        // Update book object from the request body; the ISBN cannot be changed
+        RequestBinder.bind(request, (name, in) -> !"isbn".equals(name) && readBookField(existingBook, name, in));
+
+        if (bookService.updateBook(existingBook)) {
+            JsonObject jsonResponse = new JsonObject();
+            jsonResponse.addProperty("status", "success");
+            jsonResponse.addProperty("message", "Book updated successfully");
+            jsonResponse.add("book", gson.toJsonTree(existingBook));
+
+            ApiResponses.sendJson(response, jsonResponse);
+        } else {
+            ApiResponses.sendServerError(response, "Failed to update book. Please check category and publisher IDs.");
+        }
+    }
+
+    /**
+     * Delete a book
+     */
+    private void handleDelete(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        int id = route.getInt("id");
+        Book existingBook = bookService.getBookById(id);
+
+        if (existingBook == null) {
+            ApiResponses.sendNotFound(response, "Book not found with ID: " + id);
+            return;
+        }
+
+        if (bookService.deleteBook(id)) {
+            JsonObject jsonResponse = new JsonObject();
+            jsonResponse.addProperty("status", "success");
+            jsonResponse.addProperty("message", "Book deleted successfully");
+
+            ApiResponses.sendJson(response, jsonResponse);
+        } else {
+            ApiResponses.sendServerError(response, "Failed to delete book. The book may be referenced in invoices.");
+        }
+    }
+
+    /**
+     * Set one property of a book from the request body, rejecting invalid values as they are read
+     */
+    private static boolean readBookField(Book book, String name, JsonReader in) throws IOException {
+        switch (name) {
+            case "isbn":
+                book.setIsbn(RequestBinder.readText(in, "Book ISBN is required"));
+                return true;
+            case "title":
+                book.setTitle(RequestBinder.readText(in, "Book title is required"));
+                return true;
+            case "author":
+                book.setAuthor(RequestBinder.readText(in, "Book author is required"));
+                return true;
+            case "categoryId":
+                book.setCategoryId(RequestBinder.readPositiveInt(in, "Category ID must be a positive number"));
+                return true;
+            case "publisherId":
+                book.setPublisherId(RequestBinder.readPositiveInt(in, "Publisher ID must be a positive number"));
+                return true;
+            case "price":
+                book.setPrice(RequestBinder.readAmount(in, "Book price must be zero or more"));
+                return true;
+            case "publicationYear":
+                book.setPublicationYear(RequestBinder.readInteger(in));
+                return true;
+            case "stockQuantity":
+                Integer stock = RequestBinder.readInteger(in);
+                if (stock == null || stock < 0) {
+                    throw new RequestBinder.BindingException("Stock quantity must be zero or more");
+                }
+                book.setStockQuantity(stock);
+                return true;
+            case "description":
+                book.setDescription(RequestBinder.readString(in));
+                return true;
+            default:
+                return false;
+        }
+    }
+}
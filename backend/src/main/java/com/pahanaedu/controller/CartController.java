@@ -0,0 +1,280 @@
+package com.pahanaedu.controller;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.pahanaedu.model.Cart;
+import com.pahanaedu.model.Invoice;
+import com.pahanaedu.model.InvoiceItem;
+import com.pahanaedu.model.User;
+import com.pahanaedu.service.CartService;
+import com.pahanaedu.utils.ApiResponses;
+import com.pahanaedu.utils.JsonCodec;
+import com.pahanaedu.utils.RequestBinder;
+import com.pahanaedu.utils.WireFormat;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Controller for server-side carts used by the billing screen.
+ * Line edits send a single delta and receive only the changed line and the new totals.
+ * Requests and responses may be CBOR or MessagePack instead of JSON; see {@link WireFormat}.
+ */
+public class CartController implements ApiController {
+    private final CartService cartService = new CartService();
+    private final Gson gson = JsonCodec.getGson();
+
+    @Override
+    public void registerRoutes(Router router) {
+        router.get("/carts/{id}", this::handleGet);
+        router.post("/carts", this::handleCreate).async();
+        // Checkout runs the invoice transaction, so it is handled on the business pool
+        router.post("/carts/{id}/checkout", this::handleCheckout).async();
+        router.patch("/carts/{id}", this::handleUpdateHeader);
+        router.patch("/carts/{id}/lines", this::handleUpdateLine);
+        router.delete("/carts/{id}", this::handleDiscard);
+    }
+
+    /**
+     * Get a cart with all of its lines
+     */
+    private void handleGet(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        Cart cart = findCart(route, response);
+        if (cart == null) {
+            return;
+        }
+
+        JsonObject jsonResponse;
+        synchronized (cart) {
+            jsonResponse = cartToJson(cart);
+        }
+        WireFormat.negotiate(request).write(response, jsonResponse);
+    }
+
+    /**
+     * Create a new cart
+     */
+    private void handleCreate(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        WireFormat format = WireFormat.negotiate(request);
+
+        try {
+            JsonObject jsonRequest = readJsonBody(request);
+
+            Integer customerId = getOptionalInt(jsonRequest, "customerId");
+
+            boolean applyTax = false;
+            if (jsonRequest.has("applyTax")) {
+                applyTax = jsonRequest.get("applyTax").getAsBoolean();
+            }
+
+            BigDecimal discountAmount = null;
+            if (jsonRequest.has("discountAmount") && !jsonRequest.get("discountAmount").isJsonNull()) {
+                discountAmount = new BigDecimal(jsonRequest.get("discountAmount").getAsString());
+            }
+
+            Cart cart = cartService.createCart(route.getUser(), customerId, applyTax, discountAmount);
+
+            JsonObject jsonResponse;
+            synchronized (cart) {
+                jsonResponse = cartToJson(cart);
+            }
+            jsonResponse.addProperty("status", "success");
+
+            response.setStatus(HttpServletResponse.SC_CREATED);
+            format.write(response, jsonResponse);
+
+        } catch (IllegalArgumentException e) {
+            ApiResponses.sendBadRequest(response, e.getMessage());
+        }
+    }
+
+    /**
+     * Update the cart header: customer, tax and discount
+     */
+    private void handleUpdateHeader(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        Cart cart = findCart(route, response);
+        if (cart == null) {
+            return;
+        }
+
+        try {
+            JsonObject jsonRequest = readJsonBody(request);
+
+            Integer customerId = getOptionalInt(jsonRequest, "customerId");
+            Boolean applyTax = null;
+            if (jsonRequest.has("applyTax") && !jsonRequest.get("applyTax").isJsonNull()) {
+                applyTax = jsonRequest.get("applyTax").getAsBoolean();
+            }
+            BigDecimal discountAmount = null;
+            if (jsonRequest.has("discountAmount") && !jsonRequest.get("discountAmount").isJsonNull()) {
+                discountAmount = new BigDecimal(jsonRequest.get("discountAmount").getAsString());
+            }
+            cartService.updateHeader(cart, customerId, applyTax, discountAmount);
+
+            sendDelta(request, response, cart, new JsonObject());
+
+        } catch (IllegalArgumentException e) {
+            ApiResponses.sendBadRequest(response, e.getMessage());
+        }
+    }
+
+    /**
+     * Apply a single line delta and answer with only that line and the new totals
+     */
+    private void handleUpdateLine(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        Cart cart = findCart(route, response);
+        if (cart == null) {
+            return;
+        }
+
+        try {
+            JsonObject jsonRequest = readJsonBody(request);
+            if (!jsonRequest.has("bookId")) {
+                ApiResponses.sendBadRequest(response, "Book ID is required for cart line");
+                return;
+            }
+            int bookId = jsonRequest.get("bookId").getAsInt();
+            Integer quantity = getOptionalInt(jsonRequest, "quantity");
+            Integer quantityChange = getOptionalInt(jsonRequest, "quantityChange");
+            BigDecimal discountPercent = null;
+            if (jsonRequest.has("discountPercent") && !jsonRequest.get("discountPercent").isJsonNull()) {
+                discountPercent = new BigDecimal(jsonRequest.get("discountPercent").getAsString());
+            }
+
+            JsonObject delta = new JsonObject();
+            InvoiceItem line = cartService.updateLine(cart, bookId, quantity, quantityChange, discountPercent);
+            if (line != null) {
+                delta.add("line", gson.toJsonTree(line));
+            } else {
+                delta.addProperty("removedBookId", bookId);
+            }
+            sendDelta(request, response, cart, delta);
+
+        } catch (IllegalArgumentException e) {
+            ApiResponses.sendBadRequest(response, e.getMessage());
+        }
+    }
+
+    /**
+     * Discard a cart
+     */
+    private void handleDiscard(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        Cart cart = findCart(route, response);
+        if (cart == null) {
+            return;
+        }
+
+        cartService.discardCart(cart);
+
+        JsonObject jsonResponse = new JsonObject();
+        jsonResponse.addProperty("status", "success");
+        jsonResponse.addProperty("message", "Cart discarded successfully");
+        WireFormat.negotiate(request).write(response, jsonResponse);
+    }
+
+    private void handleCheckout(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        Cart cart = findCart(route, response);
+        if (cart == null) {
+            return;
+        }
+
+        try {
+            JsonObject jsonRequest = readJsonBody(request);
+
+            String paymentMethod = null;
+            if (jsonRequest.has("paymentMethod") && !jsonRequest.get("paymentMethod").isJsonNull()) {
+                paymentMethod = jsonRequest.get("paymentMethod").getAsString();
+            }
+
+            String notes = null;
+            if (jsonRequest.has("notes") && !jsonRequest.get("notes").isJsonNull()) {
+                notes = jsonRequest.get("notes").getAsString();
+            }
+
+            Invoice invoice = cartService.checkout(cart, paymentMethod, notes);
+
+            if (invoice != null) {
+                JsonObject jsonResponse = new JsonObject();
+                jsonResponse.addProperty("status", "success");
+                jsonResponse.addProperty("message", "Invoice created successfully");
+                jsonResponse.add("invoice", gson.toJsonTree(invoice));
+
+                response.setStatus(HttpServletResponse.SC_CREATED);
+                WireFormat.negotiate(request).write(response, jsonResponse);
+            } else {
+                ApiResponses.sendServerError(response, "Failed to create invoice. Please check item availability.");
+            }
+
+        } catch (IllegalArgumentException e) {
+            ApiResponses.sendBadRequest(response, e.getMessage());
+        }
+    }
+
+    /**
+     * The current user's cart named by the path, or null once 404 has been sent
+     */
+    private Cart findCart(RouteContext route, HttpServletResponse response) throws IOException {
+        User user = route.getUser();
+        String cartId = route.get("id");
+        Cart cart = cartService.getCart(cartId, user.getId());
+        if (cart == null) {
+            ApiResponses.sendNotFound(response, "Cart not found with ID: " + cartId);
+        }
+        return cart;
+    }
+
+    private void sendDelta(HttpServletRequest request, HttpServletResponse response, Cart cart, JsonObject delta)
+            throws IOException {
+        JsonObject jsonResponse = new JsonObject();
+        jsonResponse.addProperty("status", "success");
+        jsonResponse.addProperty("cartId", cart.getId());
+        for (String name : delta.keySet()) {
+            jsonResponse.add(name, delta.get(name));
+        }
+        synchronized (cart) {
+            addTotals(jsonResponse, cart);
+        }
+        WireFormat.negotiate(request).write(response, jsonResponse);
+    }
+
+    // Helper methods for cart JSON
+
+    private JsonObject cartToJson(Cart cart) {
+        JsonObject json = new JsonObject();
+        json.addProperty("cartId", cart.getId());
+        if (cart.getCustomerId() != null) {
+            json.addProperty("customerId", cart.getCustomerId());
+        }
+        json.addProperty("applyTax", cart.isApplyTax());
+        json.add("lines", gson.toJsonTree(cart.getLines()));
+        addTotals(json, cart);
+        return json;
+    }
+
+    private void addTotals(JsonObject json, Cart cart) {
+        json.addProperty("version", cart.getVersion());
+        json.addProperty("subtotal", cart.getSubtotal());
+        json.addProperty("discountAmount", cart.getDiscountAmount());
+        json.addProperty("taxAmount", cart.getTaxAmount());
+        json.addProperty("totalAmount", cart.getTotalAmount());
+    }
+
+    private Integer getOptionalInt(JsonObject json, String name) {
+        if (json.has(name) && !json.get(name).isJsonNull()) {
+            return json.get(name).getAsInt();
+        }
+        return null;
+    }
+
+    private JsonObject readJsonBody(HttpServletRequest request) throws IOException {
+        return RequestBinder.readTree(request);
+    }
+}
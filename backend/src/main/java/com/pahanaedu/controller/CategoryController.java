@@ -0,0 +1,144 @@
+package com.pahanaedu.controller;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.pahanaedu.model.Category;
+import com.pahanaedu.service.BookService;
+import com.pahanaedu.utils.ApiResponses;
+import com.pahanaedu.utils.JsonCodec;
+import com.pahanaedu.utils.RequestBinder;
+import com.pahanaedu.utils.TableVersions;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Controller for handling category-related API requests
+ */
+public class CategoryController implements ApiController {
+    private final BookService bookService = new BookService();
+    private final Gson gson = JsonCodec.getGson();
+
+    @Override
+    public void registerRoutes(Router router) {
+        router.get("/categories", this::handleList).conditional(TableVersions.CATEGORIES);
+        router.get("/categories/{id:int}", this::handleGetById).conditional(TableVersions.CATEGORIES);
+        router.post("/categories", this::handleCreate);
+        router.put("/categories/{id:int}", this::handleUpdate);
+        router.delete("/categories/{id:int}", this::handleDelete)
+                .adminOnly("Only administrators can delete categories");
+    }
+
+    private void handleList(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        List<Category> categories = bookService.getAllCategories();
+        ApiResponses.sendJson(response, gson.toJson(categories));
+    }
+
+    private void handleGetById(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        int id = route.getInt("id");
+        Category category = bookService.getCategoryById(id);
+
+        if (category != null) {
+            ApiResponses.sendJson(response, gson.toJson(category));
+        } else {
+            ApiResponses.sendNotFound(response, "Category not found with ID: " + id);
+        }
+    }
+
+    /**
+     * Create a new category
+     */
+    private void handleCreate(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        Category category = new Category();
+        RequestBinder.bind(request, (name, in) -> readCategoryField(category, name, in));
+
+        if (category.getName() == null) {
+            throw new RequestBinder.BindingException("Category name is required");
+        }
+
+        if (bookService.createCategory(category)) {
+            JsonObject jsonResponse = new JsonObject();
+            jsonResponse.addProperty("status", "success");
+            jsonResponse.addProperty("message", "Category created successfully");
+            jsonResponse.add("category", gson.toJsonTree(category));
+
+            response.setStatus(HttpServletResponse.SC_CREATED);
+            ApiResponses.sendJson(response, jsonResponse);
+        } else {
+            ApiResponses.sendServerError(response, "Failed to create category. The name may already be in use.");
+        }
+    }
+
+    /**
+     * Update an existing category
+     */
+    private void handleUpdate(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        int id = route.getInt("id");
+        Category existingCategory = bookService.getCategoryById(id);
+
+        if (existingCategory == null) {
+            ApiResponses.sendNotFound(response, "Category not found with ID: " + id);
+            return;
+        }
+
+        RequestBinder.bind(request, (name, in) -> readCategoryField(existingCategory, name, in));
+
+        if (bookService.updateCategory(existingCategory)) {
+            JsonObject jsonResponse = new JsonObject();
+            jsonResponse.addProperty("status", "success");
+            jsonResponse.addProperty("message", "Category updated successfully");
+            jsonResponse.add("category", gson.toJsonTree(existingCategory));
+
+            ApiResponses.sendJson(response, jsonResponse);
+        } else {
+            ApiResponses.sendServerError(response, "Failed to update category. The name may already be in use.");
+        }
+    }
+
+    /**
+     * Delete a category
+     */
+    private void handleDelete(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        int id = route.getInt("id");
+        Category existingCategory = bookService.getCategoryById(id);
+
+        if (existingCategory == null) {
+            ApiResponses.sendNotFound(response, "Category not found with ID: " + id);
+            return;
+        }
+
+        if (bookService.deleteCategory(id)) {
+            JsonObject jsonResponse = new JsonObject();
+            jsonResponse.addProperty("status", "success");
+            jsonResponse.addProperty("message", "Category deleted successfully");
+
+            ApiResponses.sendJson(response, jsonResponse);
+        } else {
+            ApiResponses.sendServerError(response, "Failed to delete category. The category may be in use by books.");
+        }
+    }
+
+    /**
+     * Set one property of a category from the request body, rejecting invalid values as they are read
+     */
+    private static boolean readCategoryField(Category category, String name, JsonReader in) throws IOException {
+        switch (name) {
+            case "name":
+                category.setName(RequestBinder.readText(in, "Category name is required"));
+                return true;
+            case "description":
+                category.setDescription(RequestBinder.readString(in));
+                return true;
+            default:
+                return false;
+        }
+    }
+}
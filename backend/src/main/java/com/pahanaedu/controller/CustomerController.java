@@ -0,0 +1,214 @@
+package com.pahanaedu.controller;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.pahanaedu.dao.CustomerDAO;
+import com.pahanaedu.model.Customer;
+import com.pahanaedu.service.CustomerService;
+import com.pahanaedu.utils.ApiResponses;
+import com.pahanaedu.utils.FieldProjection;
+import com.pahanaedu.utils.JsonCodec;
+import com.pahanaedu.utils.RequestBinder;
+import com.pahanaedu.utils.TableVersions;
+import com.pahanaedu.utils.TimestampFormat;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.sql.Date;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Controller for handling customer-related API requests
+ */
+public class CustomerController implements ApiController {
+    private static final Set<String> UPDATABLE_FIELDS = Set.of("name", "address", "telephone", "email");
+    private final CustomerService customerService = new CustomerService();
+    private final Gson gson = JsonCodec.getGson();
+
+    @Override
+    public void registerRoutes(Router router) {
+        router.get("/customers", this::handleList).conditional(TableVersions.CUSTOMERS);
+        router.get("/customers/{id:int}", this::handleGetById).conditional(TableVersions.CUSTOMERS);
+        router.get("/customers/account/{accountNumber}", this::handleGetByAccountNumber)
+                .conditional(TableVersions.CUSTOMERS);
+        router.post("/customers", this::handleCreate);
+        router.put("/customers/{id:int}", this::handleUpdate);
+        router.delete("/customers/{id:int}", this::handleDelete)
+                .adminOnly("Only administrators can delete customers");
+    }
+
+    /**
+     * Get all customers, or those matching the search parameter
+     */
+    private void handleList(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        FieldProjection fields = CustomerDAO.FIELDS.requested(request);
+        String searchTerm = request.getParameter("search");
+        List<Customer> customers;
+
+        if (searchTerm != null && !searchTerm.trim().isEmpty()) {
+            customers = customerService.searchCustomers(searchTerm, fields);
+        } else {
+            customers = customerService.getAllCustomers(fields);
+        }
+
+        ApiResponses.sendJson(response, JsonCodec.toJsonArray(customers, Customer.class, fields));
+    }
+
+    private void handleGetById(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        FieldProjection fields = CustomerDAO.FIELDS.requested(request);
+        int id = route.getInt("id");
+        Customer customer = customerService.getCustomerById(id, fields);
+
+        if (customer != null) {
+            ApiResponses.sendJson(response, JsonCodec.toJson(customer, Customer.class, fields));
+        } else {
+            ApiResponses.sendNotFound(response, "Customer not found with ID: " + id);
+        }
+    }
+
+    private void handleGetByAccountNumber(HttpServletRequest request, HttpServletResponse response,
+                                          RouteContext route) throws IOException {
+        FieldProjection fields = CustomerDAO.FIELDS.requested(request);
+        String accountNumber = route.get("accountNumber");
+        Customer customer = customerService.getCustomerByAccountNumber(accountNumber, fields);
+
+        if (customer != null) {
+            ApiResponses.sendJson(response, JsonCodec.toJson(customer, Customer.class, fields));
+        } else {
+            ApiResponses.sendNotFound(response, "Customer not found with account number: " + accountNumber);
+        }
+    }
+
+    /**
+     * Create a new customer
+     */
+    private void handleCreate(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        Customer customer = new Customer();
+        RequestBinder.bind(request, (name, in) -> readCustomerField(customer, name, in));
+
+        if (customer.getName() == null) {
+            throw new RequestBinder.BindingException("Customer name is required");
+        }
+        if (customer.getAddress() == null) {
+            throw new RequestBinder.BindingException("Customer address is required");
+        }
+        if (customer.getTelephone() == null) {
+            throw new RequestBinder.BindingException("Customer telephone is required");
+        }
+
+        // Set registration date to current date if not provided
+        if (customer.getRegistrationDate() == null) {
+            customer.setRegistrationDate(new Date(System.currentTimeMillis()));
+        }
+
+        if (customerService.createCustomer(customer)) {
+            JsonObject jsonResponse = new JsonObject();
+            jsonResponse.addProperty("status", "success");
+            jsonResponse.addProperty("message", "Customer created successfully");
+            jsonResponse.add("customer", gson.toJsonTree(customer));
+
+            response.setStatus(HttpServletResponse.SC_CREATED);
+            ApiResponses.sendJson(response, jsonResponse);
+        } else {
+            ApiResponses.sendServerError(response, "Failed to create customer");
+        }
+    }
+
+    /**
+     * Update an existing customer
+     */
+    private void handleUpdate(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        int id = route.getInt("id");
+        Customer existingCustomer = customerService.getCustomerById(id);
+
+        if (existingCustomer == null) {
+            ApiResponses.sendNotFound(response, "Customer not found with ID: " + id);
+            return;
+        }
+
+        // Only contact details can change
+        RequestBinder.bind(request, (name, in) -> UPDATABLE_FIELDS.contains(name)
+                && readCustomerField(existingCustomer, name, in));
+
+        if (customerService.updateCustomer(existingCustomer)) {
+            JsonObject jsonResponse = new JsonObject();
+            jsonResponse.addProperty("status", "success");
+            jsonResponse.addProperty("message", "Customer updated successfully");
+            jsonResponse.add("customer", gson.toJsonTree(existingCustomer));
+
+            ApiResponses.sendJson(response, jsonResponse);
+        } else {
+            ApiResponses.sendServerError(response, "Failed to update customer");
+        }
+    }
+
+    /**
+     * Delete a customer
+     */
+    private void handleDelete(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        int id = route.getInt("id");
+        Customer existingCustomer = customerService.getCustomerById(id);
+
+        if (existingCustomer == null) {
+            ApiResponses.sendNotFound(response, "Customer not found with ID: " + id);
+            return;
+        }
+
+        if (customerService.deleteCustomer(id)) {
+            JsonObject jsonResponse = new JsonObject();
+            jsonResponse.addProperty("status", "success");
+            jsonResponse.addProperty("message", "Customer deleted successfully");
+
+            ApiResponses.sendJson(response, jsonResponse);
+        } else {
+            ApiResponses.sendServerError(response,
+                    "Failed to delete customer. The customer may have associated invoices.");
+        }
+    }
+
+    /**
+     * Set one property of a customer from the request body, rejecting invalid values as they are read
+     */
+    private static boolean readCustomerField(Customer customer, String name, JsonReader in) throws IOException {
+        switch (name) {
+            case "name":
+                customer.setName(RequestBinder.readText(in, "Customer name is required"));
+                return true;
+            case "address":
+                customer.setAddress(RequestBinder.readText(in, "Customer address is required"));
+                return true;
+            case "telephone":
+                customer.setTelephone(RequestBinder.readText(in, "Customer telephone is required"));
+                return true;
+            case "accountNumber":
+                String accountNumber = RequestBinder.readString(in);
+                if (accountNumber != null && !accountNumber.trim().isEmpty()) {
+                    customer.setAccountNumber(accountNumber);
+                }
+                return true;
+            case "email":
+                customer.setEmail(RequestBinder.readString(in));
+                return true;
+            case "registrationDate":
+                String registrationDate = RequestBinder.readString(in);
+                if (registrationDate != null) {
+                    try {
+                        customer.setRegistrationDate(TimestampFormat.parseDate(registrationDate));
+                    } catch (IllegalArgumentException e) {
+                        throw new RequestBinder.BindingException("Invalid registration date, expected yyyy-MM-dd");
+                    }
+                }
+                return true;
+            default:
+                return false;
+        }
+    }
+}
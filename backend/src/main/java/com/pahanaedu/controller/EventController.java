@@ -0,0 +1,38 @@
+package com.pahanaedu.controller;
+
+import com.pahanaedu.service.DashboardEvents;
+import com.pahanaedu.utils.ApiResponses;
+import com.pahanaedu.utils.EventStreamBroadcaster;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.logging.Logger;
+
+/**
+ * Controller for the live dashboard event stream.
+ * GET /events keeps the connection open and pushes invoice-created, stock-changed and
+ * low-stock Server-Sent Events to signed-in admin and cashier users.
+ */
+public class EventController implements ApiController {
+    private static final Logger LOGGER = Logger.getLogger(EventController.class.getName());
+    private final DashboardEvents events = DashboardEvents.getInstance();
+
+    @Override
+    public void registerRoutes(Router router) {
+        router.get("/events", this::handleEvents).staffOnly("Live events are only available to staff");
+    }
+
+    private void handleEvents(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        if (!request.isAsyncSupported()) {
+            LOGGER.warning("Event stream requested on a request without async support");
+            ApiResponses.sendServerError(response, "Event stream is not available");
+            return;
+        }
+
+        // Register before reading the position, so every event after it is queued for this client
+        EventStreamBroadcaster.Client client = events.getBroadcaster().open(request, response);
+        client.resume(events.getLastEventId());
+    }
+}
@@ -0,0 +1,193 @@
+package com.pahanaedu.controller;
+
+import com.google.gson.JsonObject;
+import com.pahanaedu.service.CatalogueCache;
+import com.pahanaedu.service.InvoiceDocumentService;
+import com.pahanaedu.service.ParallelLoader;
+import com.pahanaedu.service.StartupWarmup;
+import com.pahanaedu.utils.ApiResponses;
+import com.pahanaedu.utils.AsyncRequestExecutor;
+import com.pahanaedu.utils.CacheStats;
+import com.pahanaedu.utils.ConnectionPool;
+import com.pahanaedu.utils.DatabaseConnection;
+import com.pahanaedu.utils.DatabaseProbe;
+import com.pahanaedu.utils.MigrationStatus;
+import com.pahanaedu.utils.ResponseCache;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Health checks for load balancers and operators.
+ * <ul>
+ *     <li>GET /health/live answers as long as the server can handle requests at all;</li>
+ *     <li>GET /health/ready answers 503 until the warm-up has finished, while the database is
+ *     unreachable, or if the schema migration failed, so traffic moves to another node;</li>
+ *     <li>GET /health/details adds pool, cache, worker pool and migration figures for administrators.</li>
+ * </ul>
+ */
+public class HealthController implements ApiController {
+    private final StartupWarmup warmup;
+    private final DatabaseProbe database;
+    private final MigrationStatus migrations;
+
+    public HealthController() {
+        this(StartupWarmup.getInstance(), DatabaseProbe.getInstance(), MigrationStatus.getInstance());
+    }
+
+    public HealthController(StartupWarmup warmup, DatabaseProbe database, MigrationStatus migrations) {
+        this.warmup = warmup;
+        this.database = database;
+        this.migrations = migrations;
+    }
+
+    @Override
+    public void registerRoutes(Router router) {
+        router.get("/health/live", this::handleLive).publicAccess();
+        router.get("/health/ready", this::handleReady).publicAccess();
+        router.get("/health/details", this::handleDetails)
+                .adminOnly("Only administrators can view health details");
+    }
+
+    private void handleLive(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        JsonObject jsonResponse = new JsonObject();
+        jsonResponse.addProperty("status", "success");
+        jsonResponse.addProperty("message", "Alive");
+
+        response.setHeader("Cache-Control", "no-store");
+        ApiResponses.sendJson(response, jsonResponse);
+    }
+
+    private void handleReady(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        response.setHeader("Cache-Control", "no-store");
+        // Public endpoint: only the kind of problem, never driver or migration messages
+        List<String> problems = readinessProblems(database.check(), false);
+        if (!problems.isEmpty()) {
+            ApiResponses.sendServiceUnavailable(response, String.join("; ", problems));
+            return;
+        }
+
+        JsonObject jsonResponse = new JsonObject();
+        jsonResponse.addProperty("status", "success");
+        jsonResponse.addProperty("message", "Ready");
+        ApiResponses.sendJson(response, jsonResponse);
+    }
+
+    private void handleDetails(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        DatabaseProbe.Result probe = database.check();
+        List<String> problems = readinessProblems(probe, true);
+
+        JsonObject jsonResponse = new JsonObject();
+        jsonResponse.addProperty("status", "success");
+        jsonResponse.addProperty("ready", problems.isEmpty());
+        jsonResponse.addProperty("message", problems.isEmpty() ? "Ready" : String.join("; ", problems));
+        jsonResponse.addProperty("warmedUp", warmup.isReady());
+        jsonResponse.add("database", databaseJson(probe));
+        jsonResponse.add("migrations", migrationsJson());
+        jsonResponse.add("pool", poolJson(DatabaseConnection.getInstance().getPool()));
+
+        JsonObject caches = new JsonObject();
+        ResponseCache responseCache = ResponseCache.getInstance();
+        JsonObject responses = cacheJson(responseCache.getStats());
+        responses.addProperty("entries", responseCache.size());
+        responses.addProperty("bytes", responseCache.getBytes());
+        caches.add("responses", responses);
+        caches.add("catalogue", cacheJson(CatalogueCache.getInstance().getStats()));
+        caches.add("documents", cacheJson(InvoiceDocumentService.getInstance().getStats()));
+        jsonResponse.add("caches", caches);
+
+        JsonObject executors = new JsonObject();
+        AsyncRequestExecutor business = AsyncRequestExecutor.getInstance();
+        executors.add("business", executorJson(business.getActiveCount(), business.getQueueDepth()));
+        ParallelLoader loader = ParallelLoader.getInstance();
+        executors.add("loader", executorJson(loader.getActiveCount(), loader.getQueueDepth()));
+        InvoiceDocumentService documents = InvoiceDocumentService.getInstance();
+        executors.add("documents", executorJson(documents.getActiveCount(), documents.getQueueDepth()));
+        jsonResponse.add("executors", executors);
+
+        response.setHeader("Cache-Control", "no-store");
+        ApiResponses.sendJson(response, jsonResponse);
+    }
+
+    /**
+     * Reasons the server should not take traffic; empty when it is ready
+     * @param withErrors Whether to add the underlying error messages, for administrators only
+     */
+    private List<String> readinessProblems(DatabaseProbe.Result probe, boolean withErrors) {
+        List<String> problems = new ArrayList<>();
+        if (!warmup.isReady()) {
+            problems.add("Warming up");
+        }
+        if (!probe.isUp()) {
+            problems.add(withErrors ? "Database unreachable: " + probe.getError() : "Database unreachable");
+        }
+        if (migrations.getState() == MigrationStatus.State.FAILED) {
+            problems.add(withErrors ? "Schema migration failed: " + migrations.getError() : "Schema migration failed");
+        }
+        return problems;
+    }
+
+    private static JsonObject databaseJson(DatabaseProbe.Result probe) {
+        JsonObject json = new JsonObject();
+        json.addProperty("up", probe.isUp());
+        json.addProperty("latencyMillis", probe.getLatencyMillis());
+        json.addProperty("ageMillis", System.currentTimeMillis() - probe.getCheckedAt());
+        if (probe.getError() != null) {
+            json.addProperty("error", probe.getError());
+        }
+        return json;
+    }
+
+    private JsonObject migrationsJson() {
+        JsonObject json = new JsonObject();
+        json.addProperty("state", migrations.getState().name());
+        if (migrations.getState() == MigrationStatus.State.CURRENT) {
+            json.addProperty("version", migrations.getVersion());
+            json.addProperty("applied", migrations.getApplied());
+        }
+        if (migrations.getError() != null) {
+            json.addProperty("error", migrations.getError());
+        }
+        return json;
+    }
+
+    private static JsonObject poolJson(ConnectionPool pool) {
+        int total = pool.getTotalConnections();
+        int active = total - pool.getIdleConnections();
+
+        JsonObject json = new JsonObject();
+        json.addProperty("maxSize", pool.getMaxSize());
+        json.addProperty("open", total);
+        json.addProperty("active", active);
+        json.addProperty("waiting", pool.getWaitingBorrowers());
+        json.addProperty("utilisation", round((double) active / pool.getMaxSize()));
+        // Busy rather than down; readiness does not depend on it
+        json.addProperty("exhausted", active >= pool.getMaxSize());
+        return json;
+    }
+
+    private static JsonObject cacheJson(CacheStats stats) {
+        JsonObject json = new JsonObject();
+        json.addProperty("hits", stats.getHits());
+        json.addProperty("misses", stats.getMisses());
+        json.addProperty("hitRatio", round(stats.getHitRatio()));
+        return json;
+    }
+
+    private static JsonObject executorJson(int active, int queueDepth) {
+        JsonObject json = new JsonObject();
+        json.addProperty("active", active);
+        json.addProperty("queueDepth", queueDepth);
+        return json;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,628 @@
+package com.pahanaedu.controller;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.pahanaedu.dao.InvoiceDAO;
+import com.pahanaedu.model.Invoice;
+import com.pahanaedu.model.InvoiceItem;
+import com.pahanaedu.model.User;
+import com.pahanaedu.service.BillingService;
+import com.pahanaedu.service.InvoiceDocumentService;
+import com.pahanaedu.utils.ApiResponses;
+import com.pahanaedu.utils.FieldProjection;
+import com.pahanaedu.utils.JsonCodec;
+import com.pahanaedu.utils.RequestBinder;
+import com.pahanaedu.utils.WireFormat;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Controller for handling invoice and billing-related API requests. Every route runs on the
+ * business pool, since invoices touch several tables and documents are rendered on demand.
+ */
+public class InvoiceController implements ApiController {
+    private static final Logger LOGGER = Logger.getLogger(InvoiceController.class.getName());
+    private static final BigDecimal ONE_HUNDRED = new BigDecimal("100");
+    private final BillingService billingService = new BillingService();
+    private final InvoiceDocumentService documentService = InvoiceDocumentService.getInstance();
+    private final Gson gson = JsonCodec.getGson();
+
+    @Override
+    public void registerRoutes(Router router) {
+        router.get("/invoices", this::handleList).async();
+        router.get("/invoices/{id:int}", this::handleGetById).async();
+        router.get("/invoices/number/{number}", this::handleGetByNumber).async();
+        router.get("/invoices/print/{id:int}", this::handlePrint).async();
+        router.get("/invoices/{id:int}/pdf", this::handleInvoicePdf).async();
+        router.get("/invoices/statements/{jobId}", this::handleStatementStatus).async();
+        router.get("/invoices/statements/{jobId}/pdf", this::handleStatementPdf).async();
+        router.post("/invoices", this::handleCreate).async();
+        router.post("/invoices/preview", this::handlePreview).async();
+        router.post("/invoices/statements", this::handleStatementRequest).async();
+        router.put("/invoices/calculate", this::handleCalculate).async();
+        router.delete("/invoices/{id:int}", this::handleDelete).async()
+                .adminOnly("Only administrators can delete invoices");
+    }
+
+    /**
+     * Get all invoices, or those of the customer parameter
+     */
+    private void handleList(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        FieldProjection fields = InvoiceDAO.FIELDS.requested(request);
+        String customerParam = request.getParameter("customer");
+        List<Invoice> invoices;
+
+        if (customerParam != null && !customerParam.trim().isEmpty()) {
+            int customerId;
+            try {
+                customerId = Integer.parseInt(customerParam);
+            } catch (NumberFormatException e) {
+                throw new RequestBinder.BindingException("Invalid customer ID format");
+            }
+            invoices = billingService.getInvoicesByCustomer(customerId, fields);
+        } else {
+            invoices = billingService.getAllInvoices(fields);
+        }
+
+        ApiResponses.sendJson(response, JsonCodec.toJsonArray(invoices, Invoice.class, fields));
+    }
+
+    private void handleGetById(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        FieldProjection fields = InvoiceDAO.FIELDS.requested(request);
+        int id = route.getInt("id");
+        Invoice invoice = billingService.getInvoiceById(id, fields);
+
+        if (invoice != null) {
+            ApiResponses.sendJson(response, JsonCodec.toJson(invoice, Invoice.class, fields));
+        } else {
+            ApiResponses.sendNotFound(response, "Invoice not found with ID: " + id);
+        }
+    }
+
+    private void handleGetByNumber(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        FieldProjection fields = InvoiceDAO.FIELDS.requested(request);
+        String invoiceNumber = route.get("number");
+        Invoice invoice = billingService.getInvoiceByNumber(invoiceNumber, fields);
+
+        if (invoice != null) {
+            ApiResponses.sendJson(response, JsonCodec.toJson(invoice, Invoice.class, fields));
+        } else {
+            ApiResponses.sendNotFound(response, "Invoice not found with number: " + invoiceNumber);
+        }
+    }
+
+    /**
+     * Printable text of an invoice, or with format=escpos the ESC/POS commands for a local print agent
+     */
+    private void handlePrint(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        int id = route.getInt("id");
+        Invoice invoice = billingService.getInvoiceById(id);
+
+        if (invoice == null) {
+            ApiResponses.sendNotFound(response, "Invoice not found with ID: " + id);
+            return;
+        }
+
+        if ("escpos".equals(request.getParameter("format"))) {
+            response.setContentType("application/octet-stream");
+            response.setHeader("Content-Disposition", "inline; filename=\"" + invoice.getInvoiceNumber() + ".bin\"");
+            OutputStream out = response.getOutputStream();
+            billingService.writeEscPosBill(invoice, out);
+            out.flush();
+            return;
+        }
+
+        JsonObject jsonResponse = new JsonObject();
+        jsonResponse.addProperty("status", "success");
+        jsonResponse.addProperty("invoiceId", id);
+        jsonResponse.addProperty("printableInvoice", billingService.generatePrintableBill(invoice));
+
+        ApiResponses.sendJson(response, jsonResponse);
+    }
+
+    private void handleInvoicePdf(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        int id = route.getInt("id");
+        String document = "invoice " + id;
+        try {
+            Path file = documentService.getInvoicePdf(id);
+            if (file == null) {
+                ApiResponses.sendNotFound(response, "Invoice not found with ID: " + id);
+                return;
+            }
+            try {
+                sendPdf(response, file, "invoice-" + id + ".pdf");
+            } catch (NoSuchFileException e) {
+                // Removed from the cache after it was looked up; render it again
+                file = documentService.getInvoicePdf(id);
+                if (file == null) {
+                    ApiResponses.sendNotFound(response, "Invoice not found with ID: " + id);
+                    return;
+                }
+                sendPdf(response, file, "invoice-" + id + ".pdf");
+            }
+        } catch (RejectedExecutionException | TimeoutException e) {
+            sendDocumentUnavailable(response, document, e);
+        }
+    }
+
+    private void handleStatementPdf(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        String jobId = route.get("jobId");
+        InvoiceDocumentService.StatementJob job = documentService.getStatementJob(jobId);
+        if (job == null) {
+            ApiResponses.sendNotFound(response, "Statement job not found: " + jobId);
+            return;
+        }
+        if (job.getStatus() != InvoiceDocumentService.JobStatus.COMPLETED) {
+            ApiResponses.sendConflict(response, "Statement is not ready, status: " + job.getStatus());
+            return;
+        }
+        try {
+            sendPdf(response, job.getFile(), "statement-" + job.getCustomerId() + "-" + job.getMonth() + ".pdf");
+        } catch (NoSuchFileException e) {
+            ApiResponses.sendNotFound(response, "Statement is no longer available, please request it again");
+        }
+    }
+
+    /**
+     * Stream a cached PDF. The file is opened before anything is written, so a missing file
+     * throws {@link NoSuchFileException} while the response can still be changed, and a file
+     * replaced after that point is still read in full.
+     */
+    private static void sendPdf(HttpServletResponse response, Path file, String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            response.setContentType("application/pdf");
+            response.setHeader("Content-Disposition", "inline; filename=\"" + fileName + "\"");
+            response.setContentLengthLong(channel.size());
+            OutputStream out = response.getOutputStream();
+            Channels.newInputStream(channel).transferTo(out);
+            out.flush();
+        }
+    }
+
+    /**
+     * 503 with Retry-After when the document workers are full or the PDF is still rendering
+     */
+    private static void sendDocumentUnavailable(HttpServletResponse response, String document, Exception e)
+            throws IOException {
+        if (e instanceof TimeoutException) {
+            LOGGER.warning("PDF rendering timed out for: " + document);
+            ApiResponses.sendServiceUnavailable(response, "Document is still being generated, please retry shortly");
+        } else {
+            LOGGER.warning("Document workers busy, rejecting PDF request for: " + document);
+            ApiResponses.sendServiceUnavailable(response, "Document service is busy, please retry shortly");
+        }
+    }
+
+    private void handleStatementStatus(HttpServletRequest request, HttpServletResponse response,
+                                       RouteContext route) throws IOException {
+        String jobId = route.get("jobId");
+        InvoiceDocumentService.StatementJob job = documentService.getStatementJob(jobId);
+        if (job == null) {
+            ApiResponses.sendNotFound(response, "Statement job not found: " + jobId);
+            return;
+        }
+        ApiResponses.sendJson(response, statementJobToJson(job));
+    }
+
+    /**
+     * Create a new invoice
+     */
+    private void handleCreate(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        User user = route.getUser();
+        InvoiceRequest body = new InvoiceRequest();
+        RequestBinder.bind(request, body::read);
+        body.requireItems();
+
+        Invoice invoice = new Invoice();
+
+        invoice.setCashierId(user.getId());
+        invoice.setCashierName(user.getFullName());
+        invoice.setInvoiceDate(new Timestamp(System.currentTimeMillis()));
+        invoice.setInvoiceNumber(body.invoiceNumber);
+        invoice.setCustomerId(body.customerId);
+        invoice.setCustomerName(body.customerName);
+        invoice.setPaymentMethod(body.paymentMethodOrCash());
+        invoice.setNotes(body.notes);
+        invoice.setItems(body.items);
+
+        if (body.discountAmount != null) {
+            invoice.setDiscountAmount(body.discountAmount);
+        }
+
+        invoice = billingService.calculateBill(invoice, body.applyTax);
+
+        if (billingService.createInvoice(invoice)) {
+            JsonObject jsonResponse = new JsonObject();
+            jsonResponse.addProperty("status", "success");
+            jsonResponse.addProperty("message", "Invoice created successfully");
+            jsonResponse.add("invoice", gson.toJsonTree(invoice));
+
+            response.setStatus(HttpServletResponse.SC_CREATED);
+            WireFormat.negotiate(request).write(response, jsonResponse);
+        } else {
+            ApiResponses.sendServerError(response, "Failed to create invoice. Please check item availability.");
+        }
+    }
+
+    /**
+     * Delete an invoice
+     */
+    private void handleDelete(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        int id = route.getInt("id");
+        Invoice existingInvoice = billingService.getInvoiceById(id);
+
+        if (existingInvoice == null) {
+            ApiResponses.sendNotFound(response, "Invoice not found with ID: " + id);
+            return;
+        }
+
+        if (billingService.deleteInvoice(id)) {
+            JsonObject jsonResponse = new JsonObject();
+            jsonResponse.addProperty("status", "success");
+            jsonResponse.addProperty("message", "Invoice deleted successfully");
+
+            ApiResponses.sendJson(response, jsonResponse);
+        } else {
+            ApiResponses.sendServerError(response, "Failed to delete invoice");
+        }
+    }
+
+    /**
+     * Calculate a bill without saving it
+     */
+    private void handleCalculate(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        User user = route.getUser();
+        InvoiceRequest body = new InvoiceRequest();
+        RequestBinder.bind(request, body::read);
+        body.requireItems();
+
+        Invoice invoice = new Invoice();
+
+        // Set cashier ID to current user
+        invoice.setCashierId(user.getId());
+        invoice.setCashierName(user.getFullName());
+        invoice.setInvoiceDate(body.invoiceDateOrNow());
+        invoice.setCustomerId(body.customerId);
+        invoice.setItems(body.items);
+
+        // Apply discount if provided
+        if (body.discountAmount != null) {
+            invoice.setDiscountAmount(body.discountAmount);
+        }
+
+        invoice = billingService.calculateBill(invoice, body.applyTax);
+
+        JsonObject jsonResponse = new JsonObject();
+        jsonResponse.addProperty("status", "success");
+        jsonResponse.addProperty("message", "Bill calculated successfully");
+        jsonResponse.add("invoice", gson.toJsonTree(invoice));
+
+        WireFormat.negotiate(request).write(response, jsonResponse);
+    }
+
+    /**
+     * Handle invoice preview generation without saving to database
+     */
+    private void handlePreview(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        User user = route.getUser();
+        InvoiceRequest body = new InvoiceRequest();
+        RequestBinder.bind(request, body::read);
+        body.requireItems();
+        for (InvoiceItem item : body.items) {
+            if (item.getUnitPrice() == null) {
+                throw new RequestBinder.BindingException("Unit price is required for preview");
+            }
+        }
+
+        Invoice invoice = new Invoice();
+
+        // Set cashier information
+        invoice.setCashierId(user.getId());
+        invoice.setCashierName(user.getFullName());
+
+        // Set invoice date - use current timestamp
+        invoice.setInvoiceDate(new Timestamp(System.currentTimeMillis()));
+
+        // Generate temporary invoice number for preview unless one was given
+        invoice.setInvoiceNumber(body.invoiceNumber != null
+                ? body.invoiceNumber : "PREVIEW-" + System.currentTimeMillis());
+        invoice.setCustomerId(body.customerId);
+        invoice.setCustomerName(body.customerName);
+        invoice.setPaymentMethod(body.paymentMethodOrCash());
+        invoice.setNotes(body.notes);
+
+        for (InvoiceItem item : body.items) {
+            // For preview purposes, use a placeholder title
+            if (item.getBookTitle() == null) {
+                item.setBookTitle("Book #" + item.getBookId());
+            }
+            item.calculateTotalPrice();
+        }
+        invoice.setItems(body.items);
+
+        // Totals given by the client are shown as they are
+        if (body.subtotal != null) {
+            invoice.setSubtotal(body.subtotal);
+        }
+        if (body.discountAmount != null) {
+            invoice.setDiscountAmount(body.discountAmount);
+        }
+        if (body.taxAmount != null) {
+            invoice.setTaxAmount(body.taxAmount);
+        }
+        if (body.totalAmount != null) {
+            invoice.setTotalAmount(body.totalAmount);
+        }
+
+        // Ensure totals are calculated
+        if (invoice.getSubtotal() == null || invoice.getTotalAmount() == null) {
+            invoice = billingService.calculateBill(invoice, body.applyTax);
+        }
+
+        JsonObject jsonResponse = new JsonObject();
+        jsonResponse.addProperty("status", "success");
+        jsonResponse.addProperty("printableInvoice", billingService.generatePrintableBill(invoice));
+
+        WireFormat.negotiate(request).write(response, jsonResponse);
+    }
+
+    /**
+     * Queue a month-end statement for a customer
+     */
+    private void handleStatementRequest(HttpServletRequest request, HttpServletResponse response,
+                                        RouteContext route) throws IOException {
+        StatementRequest body = new StatementRequest();
+        RequestBinder.bind(request, body::read);
+
+        if (body.customerId == null) {
+            throw new RequestBinder.BindingException("Customer ID is required");
+        }
+
+        int customerId = body.customerId;
+        YearMonth month = body.month != null ? body.month : YearMonth.now(ZoneId.of("Asia/Kolkata")).minusMonths(1);
+
+        InvoiceDocumentService.StatementJob job;
+        try {
+            job = documentService.submitStatement(customerId, month);
+        } catch (RejectedExecutionException e) {
+            LOGGER.warning("Document workers busy, rejecting statement for customer ID: " + customerId);
+            ApiResponses.sendServiceUnavailable(response, "Document service is busy, please retry shortly");
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_ACCEPTED);
+        response.setHeader("Location", request.getContextPath() + "/invoices/statements/" + job.getId());
+        ApiResponses.sendJson(response, statementJobToJson(job));
+    }
+
+    private JsonObject statementJobToJson(InvoiceDocumentService.StatementJob job) {
+        JsonObject json = new JsonObject();
+        json.addProperty("jobId", job.getId());
+        json.addProperty("customerId", job.getCustomerId());
+        json.addProperty("month", job.getMonth().toString());
+        json.addProperty("status", job.getStatus().name());
+        if (job.getStatus() == InvoiceDocumentService.JobStatus.COMPLETED) {
+            json.addProperty("invoiceCount", job.getInvoiceCount());
+            json.addProperty("downloadUrl", "/invoices/statements/" + job.getId() + "/pdf");
+        }
+        if (job.getError() != null) {
+            json.addProperty("error", job.getError());
+        }
+        return json;
+    }
+
+    /**
+     * Body of an invoice, bill calculation or preview request. Each handler copies the
+     * properties it uses onto a new invoice.
+     */
+    private static final class InvoiceRequest {
+        private String invoiceNumber;
+        private Integer customerId;
+        private String customerName;
+        private String paymentMethod;
+        private String notes;
+        private List<InvoiceItem> items;
+        private Timestamp invoiceDate;
+        private BigDecimal subtotal;
+        private BigDecimal discountAmount;
+        private BigDecimal taxAmount;
+        private BigDecimal totalAmount;
+        private boolean applyTax;
+
+        boolean read(String name, JsonReader in) throws IOException {
+            switch (name) {
+                case "invoiceNumber":
+                    invoiceNumber = RequestBinder.readString(in);
+                    return true;
+                case "customerId":
+                    customerId = RequestBinder.readInteger(in);
+                    if (customerId != null && customerId <= 0) {
+                        throw new RequestBinder.BindingException("Customer ID must be a positive number");
+                    }
+                    return true;
+                case "customerName":
+                    customerName = RequestBinder.readString(in);
+                    return true;
+                case "paymentMethod":
+                    paymentMethod = RequestBinder.readString(in);
+                    return true;
+                case "notes":
+                    notes = RequestBinder.readString(in);
+                    return true;
+                case "items":
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                    } else {
+                        items = RequestBinder.readArray(in, InvoiceController::readItem);
+                    }
+                    return true;
+                case "invoiceDate":
+                    invoiceDate = readInvoiceDate(in);
+                    return true;
+                case "subtotal":
+                    subtotal = RequestBinder.readDecimal(in);
+                    return true;
+                case "discountAmount":
+                    discountAmount = RequestBinder.readDecimal(in);
+                    if (discountAmount != null && discountAmount.signum() < 0) {
+                        throw new RequestBinder.BindingException("Discount amount must be zero or more");
+                    }
+                    return true;
+                case "taxAmount":
+                    taxAmount = RequestBinder.readDecimal(in);
+                    return true;
+                case "totalAmount":
+                    totalAmount = RequestBinder.readDecimal(in);
+                    return true;
+                case "applyTax":
+                    applyTax = RequestBinder.readBoolean(in);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        void requireItems() throws RequestBinder.BindingException {
+            if (items == null) {
+                throw new RequestBinder.BindingException("Invoice items are required");
+            }
+        }
+
+        String paymentMethodOrCash() {
+            return paymentMethod != null && !paymentMethod.isEmpty() ? paymentMethod : "CASH";
+        }
+
+        Timestamp invoiceDateOrNow() {
+            return invoiceDate != null ? invoiceDate : new Timestamp(System.currentTimeMillis());
+        }
+
+        /**
+         * Accepts yyyy-MM-dd HH:mm:ss and ISO date-times; anything else falls back to the current time
+         */
+        private static Timestamp readInvoiceDate(JsonReader in) throws IOException {
+            String dateString = RequestBinder.readString(in);
+            if (dateString == null) {
+                return null;
+            }
+            if (dateString.contains("T")) {
+                // ISO format like 2023-12-31T12:30:45, without its time zone
+                dateString = dateString.replace("T", " ");
+                if (dateString.contains("+")) {
+                    dateString = dateString.substring(0, dateString.indexOf("+"));
+                }
+                if (dateString.contains("Z")) {
+                    dateString = dateString.substring(0, dateString.indexOf("Z"));
+                }
+            }
+            try {
+                return Timestamp.valueOf(dateString);
+            } catch (IllegalArgumentException e) {
+                LOGGER.log(Level.WARNING, "Invalid date format: " + dateString + ". Using current timestamp.");
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Read one invoice line, rejecting invalid values as they are read
+     */
+    private static InvoiceItem readItem(JsonReader in) throws IOException {
+        InvoiceItem item = new InvoiceItem();
+        RequestBinder.readObject(in, (name, value) -> {
+            switch (name) {
+                case "bookId":
+                    item.setBookId(RequestBinder.readPositiveInt(value, "Book ID must be a positive number"));
+                    return true;
+                case "quantity":
+                    item.setQuantity(RequestBinder.readPositiveInt(value, "Quantity must be greater than zero"));
+                    return true;
+                case "unitPrice":
+                    BigDecimal unitPrice = RequestBinder.readDecimal(value);
+                    if (unitPrice != null && unitPrice.signum() < 0) {
+                        throw new RequestBinder.BindingException("Unit price must be zero or more");
+                    }
+                    item.setUnitPrice(unitPrice);
+                    return true;
+                case "discountPercent":
+                    BigDecimal discountPercent = RequestBinder.readDecimal(value);
+                    if (discountPercent == null) {
+                        discountPercent = BigDecimal.ZERO;
+                    } else if (discountPercent.signum() < 0 || discountPercent.compareTo(ONE_HUNDRED) > 0) {
+                        throw new RequestBinder.BindingException("Discount percent must be between 0 and 100");
+                    }
+                    item.setDiscountPercent(discountPercent);
+                    return true;
+                case "bookTitle":
+                    item.setBookTitle(RequestBinder.readString(value));
+                    return true;
+                default:
+                    return false;
+            }
+        });
+
+        if (item.getBookId() == 0) {
+            throw new RequestBinder.BindingException("Book ID is required for invoice item");
+        }
+        if (item.getQuantity() == 0) {
+            throw new RequestBinder.BindingException("Quantity is required for invoice item");
+        }
+        return item;
+    }
+
+    /**
+     * Body of a statement request
+     */
+    private static final class StatementRequest {
+        private Integer customerId;
+        private YearMonth month;
+
+        boolean read(String name, JsonReader in) throws IOException {
+            switch (name) {
+                case "customerId":
+                    customerId = RequestBinder.readInteger(in);
+                    return true;
+                case "month":
+                    String value = RequestBinder.readString(in);
+                    try {
+                        month = value != null ? YearMonth.parse(value) : null;
+                    } catch (DateTimeParseException e) {
+                        throw new RequestBinder.BindingException(
+                                "Invalid customer ID or month, expected month as yyyy-MM");
+                    }
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+}
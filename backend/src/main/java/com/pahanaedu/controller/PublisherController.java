@@ -0,0 +1,153 @@
+package com.pahanaedu.controller;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.pahanaedu.model.Publisher;
+import com.pahanaedu.service.BookService;
+import com.pahanaedu.utils.ApiResponses;
+import com.pahanaedu.utils.JsonCodec;
+import com.pahanaedu.utils.RequestBinder;
+import com.pahanaedu.utils.TableVersions;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Controller for handling publisher-related API requests
+ */
+public class PublisherController implements ApiController {
+    private final BookService bookService = new BookService();
+    private final Gson gson = JsonCodec.getGson();
+
+    @Override
+    public void registerRoutes(Router router) {
+        router.get("/publishers", this::handleList).conditional(TableVersions.PUBLISHERS);
+        router.get("/publishers/{id:int}", this::handleGetById).conditional(TableVersions.PUBLISHERS);
+        router.post("/publishers", this::handleCreate);
+        router.put("/publishers/{id:int}", this::handleUpdate);
+        router.delete("/publishers/{id:int}", this::handleDelete)
+                .adminOnly("Only administrators can delete publishers");
+    }
+
+    private void handleList(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        List<Publisher> publishers = bookService.getAllPublishers();
+        ApiResponses.sendJson(response, gson.toJson(publishers));
+    }
+
+    private void handleGetById(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        int id = route.getInt("id");
+        Publisher publisher = bookService.getPublisherById(id);
+
+        if (publisher != null) {
+            ApiResponses.sendJson(response, gson.toJson(publisher));
+        } else {
+            ApiResponses.sendNotFound(response, "Publisher not found with ID: " + id);
+        }
+    }
+
+    /**
+     * Create a new publisher
+     */
+    private void handleCreate(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        Publisher publisher = new Publisher();
+        RequestBinder.bind(request, (name, in) -> readPublisherField(publisher, name, in));
+
+        if (publisher.getName() == null) {
+            throw new RequestBinder.BindingException("Publisher name is required");
+        }
+
+        if (bookService.createPublisher(publisher)) {
+            JsonObject jsonResponse = new JsonObject();
+            jsonResponse.addProperty("status", "success");
+            jsonResponse.addProperty("message", "Publisher created successfully");
+            jsonResponse.add("publisher", gson.toJsonTree(publisher));
+
+            response.setStatus(HttpServletResponse.SC_CREATED);
+            ApiResponses.sendJson(response, jsonResponse);
+        } else {
+            ApiResponses.sendServerError(response, "Failed to create publisher. The name may already be in use.");
+        }
+    }
+
+    /**
+     * Update an existing publisher
+     */
+    private void handleUpdate(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        int id = route.getInt("id");
+        Publisher existingPublisher = bookService.getPublisherById(id);
+
+        if (existingPublisher == null) {
+            ApiResponses.sendNotFound(response, "Publisher not found with ID: " + id);
+            return;
+        }
+
+        RequestBinder.bind(request, (name, in) -> readPublisherField(existingPublisher, name, in));
+
+        if (bookService.updatePublisher(existingPublisher)) {
+            JsonObject jsonResponse = new JsonObject();
+            jsonResponse.addProperty("status", "success");
+            jsonResponse.addProperty("message", "Publisher updated successfully");
+            jsonResponse.add("publisher", gson.toJsonTree(existingPublisher));
+
+            ApiResponses.sendJson(response, jsonResponse);
+        } else {
+            ApiResponses.sendServerError(response, "Failed to update publisher. The name may already be in use.");
+        }
+    }
+
+    /**
+     * Delete a publisher
+     */
+    private void handleDelete(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        int id = route.getInt("id");
+        Publisher existingPublisher = bookService.getPublisherById(id);
+
+        if (existingPublisher == null) {
+            ApiResponses.sendNotFound(response, "Publisher not found with ID: " + id);
+            return;
+        }
+
+        if (bookService.deletePublisher(id)) {
+            JsonObject jsonResponse = new JsonObject();
+            jsonResponse.addProperty("status", "success");
+            jsonResponse.addProperty("message", "Publisher deleted successfully");
+
+            ApiResponses.sendJson(response, jsonResponse);
+        } else {
+            ApiResponses.sendServerError(response, "Failed to delete publisher. The publisher may be in use by books.");
+        }
+    }
+
+    /**
+     * Set one property of a publisher from the request body, rejecting invalid values as they are read
+     */
+    private static boolean readPublisherField(Publisher publisher, String name, JsonReader in) throws IOException {
+        switch (name) {
+            case "name":
+                publisher.setName(RequestBinder.readText(in, "Publisher name is required"));
+                return true;
+            case "contactPerson":
+                publisher.setContactPerson(RequestBinder.readString(in));
+                return true;
+            case "telephone":
+                publisher.setTelephone(RequestBinder.readString(in));
+                return true;
+            case "email":
+                publisher.setEmail(RequestBinder.readString(in));
+                return true;
+            case "address":
+                publisher.setAddress(RequestBinder.readString(in));
+                return true;
+            default:
+                return false;
+        }
+    }
+}
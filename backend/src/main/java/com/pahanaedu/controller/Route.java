@@ -0,0 +1,192 @@
+package com.pahanaedu.controller;
+
+import com.pahanaedu.model.User;
+import com.pahanaedu.utils.LatencyHistogram;
+import com.pahanaedu.utils.MetricsRegistry;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One method and path pattern, with its handler, who may call it and how it runs.
+ * <p>
+ * Routes need a signed-in user unless marked {@link #publicAccess()}. The settings are
+ * chained onto {@link Router#get} and friends while the routes are registered, and are not
+ * changed afterwards. Each route also counts its requests and errors, and records their
+ * latency in a {@link LatencyHistogram} overall and one per status code, registered with the
+ * {@link MetricsRegistry} the first time the route answers with that status.
+ */
+public final class Route {
+    private static final int FIRST_STATUS = 100;
+    private static final int LAST_STATUS = 599;
+
+    public enum Access {
+        PUBLIC, USER, STAFF, ADMIN
+    }
+
+    private final String method;
+    private final String pattern;
+    private final String[] parameterNames;
+    private final RouteHandler handler;
+    private Access access = Access.USER;
+    private String forbiddenMessage;
+    private boolean async;
+    private String[] conditionalTables;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder clientErrors = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicReferenceArray<LatencyHistogram> latencyByStatus =
+            new AtomicReferenceArray<>(LAST_STATUS - FIRST_STATUS + 1);
+
+    Route(String method, String pattern, String[] parameterNames, RouteHandler handler) {
+        this.method = method;
+        this.pattern = pattern;
+        this.parameterNames = parameterNames;
+        this.handler = handler;
+    }
+
+    /**
+     * Let anyone call the route, signed in or not
+     */
+    public Route publicAccess() {
+        this.access = Access.PUBLIC;
+        return this;
+    }
+
+    /**
+     * Only admin and cashier users may call the route; others get 403 with {@code message}
+     */
+    public Route staffOnly(String message) {
+        this.access = Access.STAFF;
+        this.forbiddenMessage = message;
+        return this;
+    }
+
+    /**
+     * Only admin users may call the route; others get 403 with {@code message}
+     */
+    public Route adminOnly(String message) {
+        this.access = Access.ADMIN;
+        this.forbiddenMessage = message;
+        return this;
+    }
+
+    /**
+     * Run the handler on the business pool instead of the container thread
+     */
+    public Route async() {
+        this.async = true;
+        return this;
+    }
+
+    /**
+     * Answer with ETags built from {@code tables}, and 304 or a cached body when the client is current
+     */
+    public Route conditional(String... tables) {
+        this.conditionalTables = tables;
+        return this;
+    }
+
+    boolean allows(User user) {
+        switch (access) {
+            case ADMIN:
+                return "ADMIN".equals(user.getRole());
+            case STAFF:
+                return "ADMIN".equals(user.getRole()) || "CASHIER".equals(user.getRole());
+            default:
+                return true;
+        }
+    }
+
+    void record(int status, long nanos) {
+        requests.increment();
+        if (status >= 500) {
+            serverErrors.increment();
+        } else if (status >= 400) {
+            clientErrors.increment();
+        }
+        latency.record(nanos);
+        if (status >= FIRST_STATUS && status <= LAST_STATUS) {
+            statusLatency(status).record(nanos);
+        }
+    }
+
+    private LatencyHistogram statusLatency(int status) {
+        LatencyHistogram histogram = latencyByStatus.get(status - FIRST_STATUS);
+        if (histogram == null) {
+            histogram = MetricsRegistry.getInstance().histogram("http_server_requests_seconds",
+                    "Time to answer API requests", "method", method, "route", pattern,
+                    "status", String.valueOf(status));
+            latencyByStatus.compareAndSet(status - FIRST_STATUS, null, histogram);
+        }
+        return histogram;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    String[] getParameterNames() {
+        return parameterNames;
+    }
+
+    RouteHandler getHandler() {
+        return handler;
+    }
+
+    public Access getAccess() {
+        return access;
+    }
+
+    String getForbiddenMessage() {
+        return forbiddenMessage;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    String[] getConditionalTables() {
+        return conditionalTables;
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getClientErrors() {
+        return clientErrors.sum();
+    }
+
+    public long getServerErrors() {
+        return serverErrors.sum();
+    }
+
+    public double getMeanMillis() {
+        long count = latency.getCount();
+        return count == 0 ? 0 : latency.getSumNanos() / (double) count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public double getMaxMillis() {
+        return latency.getMaxNanos() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Latency at {@code quantile} (0 to 1) over all requests, to within the histogram's precision
+     */
+    public double getPercentileMillis(double quantile) {
+        return latency.getValueAtQuantile(quantile) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + pattern;
+    }
+}
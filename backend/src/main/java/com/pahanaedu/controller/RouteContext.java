@@ -0,0 +1,92 @@
+package com.pahanaedu.controller;
+
+import com.pahanaedu.model.User;
+
+import java.util.Map;
+
+/**
+ * The result of matching a request path: the route for the method, the path parameters
+ * and, once authenticated, the signed-in user.
+ * <p>
+ * Parameters are kept as offsets into the path and only turned into strings when asked
+ * for; {@code int} parameters were already parsed while matching.
+ */
+public final class RouteContext {
+    private final String path;
+    private final int[] bounds;
+    private final int[] numbers;
+    private int count;
+    private Map<String, Route> routes;
+    private Route route;
+    private User user;
+
+    RouteContext(String path, int maxParameters) {
+        this.path = path;
+        this.bounds = new int[maxParameters * 2];
+        this.numbers = new int[maxParameters];
+    }
+
+    void push(int start, int end, int number) {
+        bounds[count * 2] = start;
+        bounds[count * 2 + 1] = end;
+        numbers[count] = number;
+        count++;
+    }
+
+    void pop() {
+        count--;
+    }
+
+    void resolve(Map<String, Route> routes, String method) {
+        this.routes = routes;
+        this.route = routes.get(method);
+    }
+
+    /**
+     * The route for the request method, or null if the path only has routes for other methods
+     */
+    public Route getRoute() {
+        return route;
+    }
+
+    /**
+     * The methods the path has routes for, as sent in an Allow header
+     */
+    public String getAllowedMethods() {
+        return String.join(", ", routes.keySet());
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    void setUser(User user) {
+        this.user = user;
+    }
+
+    public String get(String name) {
+        int index = indexOf(name);
+        return path.substring(bounds[index * 2], bounds[index * 2 + 1]);
+    }
+
+    /**
+     * The value of an {@code int} parameter
+     */
+    public int getInt(String name) {
+        return numbers[indexOf(name)];
+    }
+
+    private int indexOf(String name) {
+        String[] names = route.getParameterNames();
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Route " + route + " has no parameter '" + name + "'");
+    }
+}
@@ -0,0 +1,14 @@
+package com.pahanaedu.controller;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Handles the requests for one route. Authentication has already been checked; the signed-in
+ * user and the path parameters are in {@code route}. Exceptions are answered by the dispatcher:
+ * binding errors with their status, anything else with 500.
+ */
+@FunctionalInterface
+public interface RouteHandler {
+    void handle(HttpServletRequest request, HttpServletResponse response, RouteContext route) throws Exception;
+}
@@ -0,0 +1,205 @@
+package com.pahanaedu.controller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The API route table, kept as a trie on path segments.
+ * <p>
+ * Patterns are literal segments and parameters, such as {@code /books/{id:int}} or
+ * {@code /customers/account/{accountNumber}}; a parameter is a whole segment and is either
+ * {@code int} or any text. Matching walks the path once, comparing segments in place, so it
+ * costs time proportional to the path length whatever the number of routes. A literal segment
+ * is tried before an {@code int} parameter and that before a text one, which lets
+ * {@code /invoices/statements} sit beside {@code /invoices/{id:int}}. Empty segments, from a
+ * trailing slash for example, are ignored.
+ * <p>
+ * Routes are registered once at startup; matching does not lock and may run on any thread.
+ */
+public final class Router {
+    private final Node root = new Node();
+    private final List<Route> routes = new ArrayList<>();
+    private int maxParameters;
+
+    public Route get(String pattern, RouteHandler handler) {
+        return add("GET", pattern, handler);
+    }
+
+    public Route post(String pattern, RouteHandler handler) {
+        return add("POST", pattern, handler);
+    }
+
+    public Route put(String pattern, RouteHandler handler) {
+        return add("PUT", pattern, handler);
+    }
+
+    public Route patch(String pattern, RouteHandler handler) {
+        return add("PATCH", pattern, handler);
+    }
+
+    public Route delete(String pattern, RouteHandler handler) {
+        return add("DELETE", pattern, handler);
+    }
+
+    public Route add(String method, String pattern, RouteHandler handler) {
+        Node node = root;
+        List<String> names = new ArrayList<>();
+
+        for (String segment : pattern.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                String parameter = segment.substring(1, segment.length() - 1);
+                int colon = parameter.indexOf(':');
+                String name = colon < 0 ? parameter : parameter.substring(0, colon);
+                String type = colon < 0 ? "" : parameter.substring(colon + 1);
+                if (name.isEmpty() || names.contains(name)) {
+                    throw new IllegalArgumentException("Invalid parameter '" + name + "' in route " + pattern);
+                }
+                if (type.equals("int")) {
+                    node = node.intParameter();
+                } else if (type.isEmpty()) {
+                    node = node.textParameter();
+                } else {
+                    throw new IllegalArgumentException("Unknown parameter type '" + type + "' in route " + pattern);
+                }
+                names.add(name);
+            } else {
+                node = node.literal(segment);
+            }
+        }
+
+        Route route = new Route(method, pattern, names.toArray(new String[0]), handler);
+        if (node.routes.putIfAbsent(method, route) != null) {
+            throw new IllegalArgumentException("Duplicate route " + route);
+        }
+        routes.add(route);
+        maxParameters = Math.max(maxParameters, names.size());
+        return route;
+    }
+
+    /**
+     * Match a request path, such as the servlet path and path info together.
+     * @return null if no route has this path; otherwise a context whose route is null when the
+     * path only has routes for other methods
+     */
+    public RouteContext match(String method, String path) {
+        RouteContext context = new RouteContext(path, maxParameters);
+        Node node = find(root, path, 0, context);
+        if (node == null) {
+            return null;
+        }
+        context.resolve(node.routes, method);
+        return context;
+    }
+
+    public List<Route> getRoutes() {
+        return Collections.unmodifiableList(routes);
+    }
+
+    private static Node find(Node node, String path, int from, RouteContext context) {
+        int start = from;
+        while (start < path.length() && path.charAt(start) == '/') {
+            start++;
+        }
+        if (start == path.length()) {
+            return node.routes.isEmpty() ? null : node;
+        }
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = path.length();
+        }
+        int length = end - start;
+
+        for (int i = 0; i < node.literalCount; i++) {
+            String segment = node.segments[i];
+            if (segment.length() == length && path.regionMatches(start, segment, 0, length)) {
+                Node found = find(node.children[i], path, end, context);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+
+        if (node.intChild != null) {
+            int number = parseInt(path, start, end);
+            if (number >= 0) {
+                context.push(start, end, number);
+                Node found = find(node.intChild, path, end, context);
+                if (found != null) {
+                    return found;
+                }
+                context.pop();
+            }
+        }
+
+        if (node.textChild != null) {
+            context.push(start, end, 0);
+            Node found = find(node.textChild, path, end, context);
+            if (found != null) {
+                return found;
+            }
+            context.pop();
+        }
+        return null;
+    }
+
+    /**
+     * A non-negative int made only of digits, or -1
+     */
+    private static int parseInt(String path, int start, int end) {
+        if (end - start > 10) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char c = path.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value <= Integer.MAX_VALUE ? (int) value : -1;
+    }
+
+    private static final class Node {
+        private String[] segments = new String[0];
+        private Node[] children = new Node[0];
+        private int literalCount;
+        private Node intChild;
+        private Node textChild;
+        private final Map<String, Route> routes = new LinkedHashMap<>();
+
+        Node literal(String segment) {
+            for (int i = 0; i < literalCount; i++) {
+                if (segments[i].equals(segment)) {
+                    return children[i];
+                }
+            }
+            segments = Arrays.copyOf(segments, literalCount + 1);
+            children = Arrays.copyOf(children, literalCount + 1);
+            segments[literalCount] = segment;
+            children[literalCount] = new Node();
+            return children[literalCount++];
+        }
+
+        Node intParameter() {
+            if (intChild == null) {
+                intChild = new Node();
+            }
+            return intChild;
+        }
+
+        Node textParameter() {
+            if (textChild == null) {
+                textChild = new Node();
+            }
+            return textChild;
+        }
+    }
+}
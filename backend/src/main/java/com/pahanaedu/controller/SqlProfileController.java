@@ -0,0 +1,114 @@
+package com.pahanaedu.controller;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.pahanaedu.utils.ApiResponses;
+import com.pahanaedu.utils.SqlProfiler;
+import com.pahanaedu.utils.TimestampFormat;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link SqlProfiler} figures for administrators.
+ * <ul>
+ *     <li>GET /metrics/sql lists statements by total time, and the slowest executions with
+ *     their parameters and EXPLAIN plans;</li>
+ *     <li>DELETE /metrics/sql clears the figures, for example before measuring a change.</li>
+ * </ul>
+ */
+public class SqlProfileController implements ApiController {
+    private final SqlProfiler profiler;
+
+    public SqlProfileController() {
+        this(SqlProfiler.getInstance());
+    }
+
+    public SqlProfileController(SqlProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    @Override
+    public void registerRoutes(Router router) {
+        router.get("/metrics/sql", this::handleProfile)
+                .adminOnly("Only administrators can view SQL metrics");
+        router.delete("/metrics/sql", this::handleReset)
+                .adminOnly("Only administrators can reset SQL metrics");
+    }
+
+    private void handleProfile(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        JsonArray statements = new JsonArray();
+        for (SqlProfiler.Statistics statement : profiler.getStatements()) {
+            JsonObject json = new JsonObject();
+            json.addProperty("sql", statement.getSql());
+            json.addProperty("executions", statement.getExecutions());
+            json.addProperty("errors", statement.getErrors());
+            json.addProperty("rows", statement.getRows());
+            json.addProperty("totalMillis", round(statement.getTotalMillis()));
+            json.addProperty("meanMillis", round(statement.getMeanMillis()));
+            json.addProperty("p99Millis", round(statement.getPercentileMillis(0.99)));
+            json.addProperty("maxMillis", round(statement.getMaxMillis()));
+            json.addProperty("fetchMillis", round(statement.getFetchMillis()));
+            addPlan(json, statement);
+            statements.add(json);
+        }
+
+        JsonArray slowest = new JsonArray();
+        for (SqlProfiler.SlowQuery query : profiler.getSlowest()) {
+            JsonObject json = new JsonObject();
+            json.addProperty("sql", query.getStatement().getSql());
+            JsonArray parameters = new JsonArray();
+            query.getParameters().forEach(parameters::add);
+            json.add("parameters", parameters);
+            json.addProperty("executionMillis", round(query.getExecutionMillis()));
+            json.addProperty("fetchMillis", round(query.getFetchMillis()));
+            json.addProperty("rows", query.getRows());
+            json.addProperty("at", TimestampFormat.format(new Timestamp(query.getAt())));
+            addPlan(json, query.getStatement());
+            slowest.add(json);
+        }
+
+        JsonObject jsonResponse = new JsonObject();
+        jsonResponse.addProperty("status", "success");
+        jsonResponse.addProperty("enabled", profiler.isEnabled());
+        jsonResponse.addProperty("slowQueryMillis", profiler.getSlowQueryMillis());
+        jsonResponse.add("statements", statements);
+        jsonResponse.add("slowest", slowest);
+        response.setHeader("Cache-Control", "no-store");
+        ApiResponses.sendJson(response, jsonResponse);
+    }
+
+    private void handleReset(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        profiler.reset();
+
+        JsonObject jsonResponse = new JsonObject();
+        jsonResponse.addProperty("status", "success");
+        jsonResponse.addProperty("message", "SQL metrics cleared");
+        ApiResponses.sendJson(response, jsonResponse);
+    }
+
+    private static void addPlan(JsonObject json, SqlProfiler.Statistics statement) {
+        List<Map<String, String>> plan = statement.getPlan();
+        if (plan != null) {
+            JsonArray rows = new JsonArray();
+            for (Map<String, String> row : plan) {
+                JsonObject planRow = new JsonObject();
+                row.forEach(planRow::addProperty);
+                rows.add(planRow);
+            }
+            json.add("plan", rows);
+        } else if (statement.getPlanError() != null) {
+            json.addProperty("planError", statement.getPlanError());
+        }
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
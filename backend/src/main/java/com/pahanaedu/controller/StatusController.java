@@ -0,0 +1,29 @@
+package com.pahanaedu.controller;
+
+import com.google.gson.JsonObject;
+import com.pahanaedu.utils.ApiResponses;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Base API route that confirms the API is running
+ */
+public class StatusController implements ApiController {
+
+    @Override
+    public void registerRoutes(Router router) {
+        router.get("/", this::handleStatus).publicAccess();
+    }
+
+    private void handleStatus(HttpServletRequest request, HttpServletResponse response, RouteContext route)
+            throws IOException {
+        JsonObject jsonResponse = new JsonObject();
+        jsonResponse.addProperty("status", "success");
+        jsonResponse.addProperty("message", "API is running");
+        jsonResponse.addProperty("version", "1.0");
+
+        ApiResponses.sendJson(response, jsonResponse);
+    }
+}
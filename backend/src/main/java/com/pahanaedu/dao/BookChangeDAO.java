@@ -0,0 +1,145 @@
+package com.pahanaedu.dao;
+
+import com.pahanaedu.model.Book;
+import com.pahanaedu.model.BookChange;
+import com.pahanaedu.utils.DatabaseConnection;
+import com.pahanaedu.utils.LatencyHistogram;
+import com.pahanaedu.utils.MetricsRegistry;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Data Access Object for the persisted book change feed
+ */
+public class BookChangeDAO {
+    private static final Logger LOGGER = Logger.getLogger(BookChangeDAO.class.getName());
+    private static final LatencyHistogram FIND_MAX_SEQUENCE_TIMER =
+            MetricsRegistry.getInstance().daoTimer(BookChangeDAO.class, "findMaxSequence");
+    private static final LatencyHistogram FIND_AFTER_TIMER =
+            MetricsRegistry.getInstance().daoTimer(BookChangeDAO.class, "findAfter");
+    private static final LatencyHistogram CREATE_TIMER =
+            MetricsRegistry.getInstance().daoTimer(BookChangeDAO.class, "create");
+    private static final LatencyHistogram FIND_BOOK_STATE_TIMER =
+            MetricsRegistry.getInstance().daoTimer(BookChangeDAO.class, "findBookState");
+
+    /**
+     * Read the highest recorded sequence
+     * @return The sequence, or 0 if nothing has been recorded
+     * @throws SQLException If it could not be read; 0 would reuse sequences that already exist
+     */
+    public long findMaxSequence() throws SQLException {
+        String sql = "SELECT COALESCE(MAX(sequence), 0) FROM book_changes";
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(FIND_MAX_SEQUENCE_TIMER);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Find changes after a sequence number in order
+     * @param after Exclusive lower bound
+     * @param limit Maximum number of changes
+     */
+    public List<BookChange> findAfter(long after, int limit) {
+        List<BookChange> changes = new ArrayList<>();
+        String sql = "SELECT sequence, book_id, change_type, title, price, stock_quantity, changed_at " +
+                     "FROM book_changes WHERE sequence > ? ORDER BY sequence LIMIT ?";
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(FIND_AFTER_TIMER);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, after);
+            stmt.setInt(2, limit);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    changes.add(mapResultSetToBookChange(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding book changes after sequence: " + after, e);
+        }
+
+        return changes;
+    }
+
+    public boolean create(BookChange change) {
+        String sql = "INSERT INTO book_changes (sequence, book_id, change_type, title, price, " +
+                     "stock_quantity, changed_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(CREATE_TIMER);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, change.getSequence());
+            stmt.setInt(2, change.getBookId());
+            stmt.setString(3, change.getChangeType());
+            stmt.setString(4, change.getTitle());
+            stmt.setBigDecimal(5, change.getPrice());
+            if (change.getStockQuantity() != null) {
+                stmt.setInt(6, change.getStockQuantity());
+            } else {
+                stmt.setNull(6, Types.INTEGER);
+            }
+            stmt.setTimestamp(7, change.getChangedAt());
+
+            return stmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error recording book change: " + change, e);
+            return false;
+        }
+    }
+
+    /**
+     * Read just the fields carried by the change feed
+     * @return The book with title, price and stock set, or null if it no longer exists
+     * @throws SQLException If the book could not be read, which says nothing about whether it exists
+     */
+    public Book findBookState(int bookId) throws SQLException {
+        String sql = "SELECT id, title, price, stock_quantity FROM books WHERE id = ?";
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(FIND_BOOK_STATE_TIMER);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, bookId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    Book book = new Book();
+                    book.setId(rs.getInt("id"));
+                    book.setTitle(rs.getString("title"));
+                    book.setPrice(rs.getBigDecimal("price"));
+                    book.setStockQuantity(rs.getInt("stock_quantity"));
+                    return book;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private BookChange mapResultSetToBookChange(ResultSet rs) throws SQLException {
+        BookChange change = new BookChange();
+        change.setSequence(rs.getLong("sequence"));
+        change.setBookId(rs.getInt("book_id"));
+        change.setChangeType(rs.getString("change_type"));
+        change.setTitle(rs.getString("title"));
+        change.setPrice(rs.getBigDecimal("price"));
+        int stockQuantity = rs.getInt("stock_quantity");
+        change.setStockQuantity(rs.wasNull() ? null : stockQuantity);
+        change.setChangedAt(rs.getTimestamp("changed_at"));
+        return change;
+    }
+}
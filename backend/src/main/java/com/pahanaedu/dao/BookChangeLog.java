@@ -0,0 +1,245 @@
+package com.pahanaedu.dao;
+
+import com.pahanaedu.model.Book;
+import com.pahanaedu.model.BookChange;
+import com.pahanaedu.utils.AppConfig;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Ordered feed of book mutations, numbered by a monotonic sequence.
+ * <p>
+ * Every recorded change carries the book's title, price and stock after the change, so a
+ * client only has to apply the entries after its last sequence. When the book could not be
+ * read the change keeps its type with no state, and the client reloads that book. The newest entries are kept
+ * in a ring buffer; older positions are read back from the {@code book_changes} table.
+ * Sequence numbers are assigned, persisted and buffered under one lock, so the table and
+ * the buffer always agree on the order. Listeners are notified under the same lock, so they
+ * see changes in sequence order too.
+ * <p>
+ * The log starts after the highest sequence in the table. Until that has been read nothing
+ * is recorded, and reading the feed fails; the next call tries again.
+ */
+public class BookChangeLog {
+    private static final Logger LOGGER = Logger.getLogger(BookChangeLog.class.getName());
+    private static final BookChangeLog INSTANCE = new BookChangeLog(new BookChangeDAO(),
+            AppConfig.getInt("app.changes.buffer-size", 1024));
+
+    /**
+     * Notified after a change has been recorded, in sequence order. Called with the log's lock
+     * held, so it should only hand the change on, e.g. to an event stream.
+     */
+    public interface Listener {
+        void onChange(BookChange change);
+    }
+
+    /**
+     * A run of changes after a requested position
+     */
+    public static final class Page {
+        private final List<BookChange> changes;
+        private final long lastSequence;
+        private final boolean hasMore;
+        private final boolean reset;
+
+        private Page(List<BookChange> changes, long lastSequence, boolean hasMore, boolean reset) {
+            this.changes = changes;
+            this.lastSequence = lastSequence;
+            this.hasMore = hasMore;
+            this.reset = reset;
+        }
+
+        public List<BookChange> getChanges() {
+            return changes;
+        }
+
+        /**
+         * Latest sequence in the log, not just in this page
+         */
+        public long getLastSequence() {
+            return lastSequence;
+        }
+
+        public boolean isHasMore() {
+            return hasMore;
+        }
+
+        /**
+         * True when the requested position is no longer available and the client must reload the catalogue
+         */
+        public boolean isReset() {
+            return reset;
+        }
+    }
+
+    private final BookChangeDAO bookChangeDAO;
+    private final BookChange[] ring;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private boolean initialized;
+    private long sequence;
+    private long firstBuffered;
+
+    public BookChangeLog(BookChangeDAO bookChangeDAO, int capacity) {
+        this.bookChangeDAO = bookChangeDAO;
+        this.ring = new BookChange[capacity];
+    }
+
+    public static BookChangeLog getInstance() {
+        return INSTANCE;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Record a change to one book, reading its state after the change
+     * @param bookId     Changed book
+     * @param changeType One of the {@link BookChange} type constants
+     * @return The recorded change, or null if the log could not start. No client can hold a
+     *         position before it starts, so a change it never numbered is covered by their full load.
+     */
+    public BookChange record(int bookId, String changeType) {
+        BookChange change;
+        lock.lock();
+        try {
+            try {
+                ensureInitialized();
+            } catch (SQLException e) {
+                LOGGER.log(Level.SEVERE, "Book change log is not available, change to book " + bookId
+                        + " not recorded", e);
+                return null;
+            }
+
+            // The state is read and the change persisted under the lock: a later sequence must
+            // never carry an older state, and the table must not have gaps readers could skip
+
+            Book book = null;
+            String recordedType = changeType;
+            if (!BookChange.DELETED.equals(changeType)) {
+                try {
+                    book = bookChangeDAO.findBookState(bookId);
+                    if (book == null) {
+                        // Gone before its change was recorded
+                        recordedType = BookChange.DELETED;
+                    }
+                } catch (SQLException e) {
+                    // Not known to be deleted; record the change without its state
+                    LOGGER.log(Level.WARNING, "Could not read state of book " + bookId + " for its change", e);
+                }
+            }
+            change = new BookChange(++sequence, bookId, recordedType,
+                    book != null ? book.getTitle() : null,
+                    book != null ? book.getPrice() : null,
+                    book != null ? book.getStockQuantity() : null,
+                    new Timestamp(System.currentTimeMillis()));
+
+            if (!bookChangeDAO.create(change)) {
+                LOGGER.warning("Book change " + change.getSequence() + " is only held in memory");
+            }
+            ring[(int) (change.getSequence() % ring.length)] = change;
+
+            // Still under the lock, so two concurrent changes cannot reach listeners out of order
+            for (Listener listener : listeners) {
+                try {
+                    listener.onChange(change);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Book change listener failed", e);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return change;
+    }
+
+    /**
+     * Record the same kind of change for several books, once per book
+     */
+    public void recordAll(Collection<Integer> bookIds, String changeType) {
+        for (Integer bookId : new LinkedHashSet<>(bookIds)) {
+            record(bookId, changeType);
+        }
+    }
+
+    /**
+     * Latest sequence number; a client starts following the feed from here after a full load
+     */
+    public long getLastSequence() {
+        lock.lock();
+        try {
+            requireInitialized();
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get up to {@code limit} changes after {@code after}, in order
+     */
+    public Page changesAfter(long after, int limit) {
+        long last;
+        lock.lock();
+        try {
+            requireInitialized();
+            last = sequence;
+            if (after >= last) {
+                return new Page(Collections.emptyList(), last, false, after > last);
+            }
+
+            long oldestBuffered = Math.max(firstBuffered, last - ring.length + 1);
+            if (after + 1 >= oldestBuffered) {
+                List<BookChange> changes = new ArrayList<>();
+                for (long seq = after + 1; seq <= last && changes.size() < limit; seq++) {
+                    changes.add(ring[(int) (seq % ring.length)]);
+                }
+                return new Page(changes, last, after + changes.size() < last, false);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        // Older than the buffer: read from the table without holding the lock
+        List<BookChange> changes = bookChangeDAO.findAfter(after, limit);
+        if (changes.isEmpty() || changes.get(0).getSequence() != after + 1) {
+            LOGGER.info("Book changes after " + after + " are no longer available, client must reload");
+            return new Page(Collections.emptyList(), last, false, true);
+        }
+        long reached = changes.get(changes.size() - 1).getSequence();
+        return new Page(changes, last, reached < last, false);
+    }
+
+    private void requireInitialized() {
+        try {
+            ensureInitialized();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Book change log is not available", e);
+        }
+    }
+
+    private void ensureInitialized() throws SQLException {
+        if (!initialized) {
+            sequence = bookChangeDAO.findMaxSequence();
+            firstBuffered = sequence + 1;
+            initialized = true;
+            LOGGER.info("Book change log starting after sequence " + sequence);
+        }
+    }
+}
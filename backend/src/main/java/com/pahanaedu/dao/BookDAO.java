@@ -1,10 +1,16 @@
 package com.pahanaedu.dao;
 
 import com.pahanaedu.model.Book;
+import com.pahanaedu.model.BookChange;
 import com.pahanaedu.utils.DatabaseConnection;
+import com.pahanaedu.utils.FieldProjection;
+import com.pahanaedu.utils.LatencyHistogram;
+import com.pahanaedu.utils.MetricsRegistry;
+import com.pahanaedu.utils.TableVersions;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -14,49 +20,106 @@ import java.util.logging.Logger;
  */
 public class BookDAO {
     private static final Logger LOGGER = Logger.getLogger(BookDAO.class.getName());
+    private static final LatencyHistogram FIND_BY_ID_TIMER =
+            MetricsRegistry.getInstance().daoTimer(BookDAO.class, "findById");
+    private static final LatencyHistogram FIND_BY_ISBN_TIMER =
+            MetricsRegistry.getInstance().daoTimer(BookDAO.class, "findByIsbn");
+    private static final LatencyHistogram FIND_ALL_TIMER =
+            MetricsRegistry.getInstance().daoTimer(BookDAO.class, "findAll");
+    private static final LatencyHistogram FIND_BY_CATEGORY_TIMER =
+            MetricsRegistry.getInstance().daoTimer(BookDAO.class, "findByCategory");
+    private static final LatencyHistogram SEARCH_BOOKS_TIMER =
+            MetricsRegistry.getInstance().daoTimer(BookDAO.class, "searchBooks");
+    private static final LatencyHistogram CREATE_TIMER =
+            MetricsRegistry.getInstance().daoTimer(BookDAO.class, "create");
+    private static final LatencyHistogram UPDATE_TIMER =
+            MetricsRegistry.getInstance().daoTimer(BookDAO.class, "update");
+    private static final LatencyHistogram UPDATE_STOCK_TIMER =
+            MetricsRegistry.getInstance().daoTimer(BookDAO.class, "updateStock");
+    private static final LatencyHistogram DELETE_TIMER =
+            MetricsRegistry.getInstance().daoTimer(BookDAO.class, "delete");
+    private final BookChangeLog changeLog = BookChangeLog.getInstance();
+    private final TableVersions tableVersions = TableVersions.getInstance();
+
+    /**
+     * JSON fields of a book and the columns they are loaded from, for {@code ?fields=}
+     */
+    public static final FieldProjection.Fields FIELDS = new FieldProjection.Fields()
+            .add("id", "b.id")
+            .add("isbn", "b.isbn")
+            .add("title", "b.title")
+            .add("author", "b.author")
+            .add("categoryId", "b.category_id")
+            .add("publisherId", "b.publisher_id")
+            .add("publicationYear", "b.publication_year")
+            .add("price", "b.price")
+            .add("stockQuantity", "b.stock_quantity")
+            .add("description", "b.description")
+            .add("createdAt", "b.created_at")
+            .add("updatedAt", "b.updated_at")
+            .add("categoryName", "c.name AS category_name")
+            .add("publisherName", "p.name AS publisher_name");
+
+    /**
+     * Lookups the till makes for every scanned item, prepared on each pooled connection at startup
+     */
+    public static final List<String> HOT_STATEMENTS = Arrays.asList(
+            selectFrom(FIELDS.all()) + "WHERE b.id = ?",
+            selectFrom(FIELDS.all()) + "WHERE b.isbn = ?");
 
     public Book findById(int id) {
+        return findById(id, FIELDS.all());
+    }
+
+    public Book findById(int id, FieldProjection fields) {
+        try {
+            return readById(id, fields);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding book by id: " + id, e);
+            return null;
+        }
+    }
+
+    /**
+     * Like {@link #findById(int, FieldProjection)}, but a database error is thrown rather than
+     * reported as a missing book
+     * @return The book, or null if it does not exist
+     */
+    public Book readById(int id, FieldProjection fields) throws SQLException {
         Book book = null;
-        String sql = "SELECT b.*, c.name AS category_name, p.name AS publisher_name " +
-                     "FROM books b " +
-                     "JOIN categories c ON b.category_id = c.id " +
-                     "JOIN publishers p ON b.publisher_id = p.id " +
-                     "WHERE b.id = ?";
+        String sql = selectFrom(fields) + "WHERE b.id = ?";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(FIND_BY_ID_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, id);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    book = mapResultSetToBook(rs);
+                    book = mapResultSetToBook(rs, fields);
                 }
             }
-
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error finding book by id: " + id, e);
         }
 
         return book;
     }
 
     public Book findByIsbn(String isbn) {
+        return findByIsbn(isbn, FIELDS.all());
+    }
+
+    public Book findByIsbn(String isbn, FieldProjection fields) {
         Book book = null;
-        String sql = "SELECT b.*, c.name AS category_name, p.name AS publisher_name " +
-                     "FROM books b " +
-                     "JOIN categories c ON b.category_id = c.id " +
-                     "JOIN publishers p ON b.publisher_id = p.id " +
-                     "WHERE b.isbn = ?";
+        String sql = selectFrom(fields) + "WHERE b.isbn = ?";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(FIND_BY_ISBN_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, isbn);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    book = mapResultSetToBook(rs);
+                    book = mapResultSetToBook(rs, fields);
                 }
             }
 
@@ -68,46 +131,57 @@ public class BookDAO {
     }
 
     public List<Book> findAll() {
+        return findAll(FIELDS.all());
+    }
+
+    public List<Book> findAll(FieldProjection fields) {
+        try {
+            return readAll(fields);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error retrieving all books", e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Like {@link #findAll(FieldProjection)}, but a database error is thrown rather than
+     * reported as an empty list
+     */
+    public List<Book> readAll(FieldProjection fields) throws SQLException {
         List<Book> books = new ArrayList<>();
-        String sql = "SELECT b.*, c.name AS category_name, p.name AS publisher_name " +
-                     "FROM books b " +
-                     "JOIN categories c ON b.category_id = c.id " +
-                     "JOIN publishers p ON b.publisher_id = p.id " +
-                     "ORDER BY b.title";
+        String sql = selectFrom(fields) + "ORDER BY b.title";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(FIND_ALL_TIMER);
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
             while (rs.next()) {
-                Book book = mapResultSetToBook(rs);
+                Book book = mapResultSetToBook(rs, fields);
                 books.add(book);
             }
-
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error retrieving all books", e);
         }
 
         return books;
     }
 
     public List<Book> findByCategory(int categoryId) {
+        return findByCategory(categoryId, FIELDS.all());
+    }
+
+    public List<Book> findByCategory(int categoryId, FieldProjection fields) {
         List<Book> books = new ArrayList<>();
-        String sql = "SELECT b.*, c.name AS category_name, p.name AS publisher_name " +
-                     "FROM books b " +
-                     "JOIN categories c ON b.category_id = c.id " +
-                     "JOIN publishers p ON b.publisher_id = p.id " +
+        String sql = selectFrom(fields) +
                      "WHERE b.category_id = ? " +
                      "ORDER BY b.title";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(FIND_BY_CATEGORY_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, categoryId);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    Book book = mapResultSetToBook(rs);
+                    Book book = mapResultSetToBook(rs, fields);
                     books.add(book);
                 }
             }
@@ -120,15 +194,16 @@ public class BookDAO {
     }
 
     public List<Book> searchBooks(String searchTerm) {
+        return searchBooks(searchTerm, FIELDS.all());
+    }
+
+    public List<Book> searchBooks(String searchTerm, FieldProjection fields) {
         List<Book> books = new ArrayList<>();
-        String sql = "SELECT b.*, c.name AS category_name, p.name AS publisher_name " +
-                     "FROM books b " +
-                     "JOIN categories c ON b.category_id = c.id " +
-                     "JOIN publishers p ON b.publisher_id = p.id " +
+        String sql = selectFrom(fields) +
                      "WHERE b.isbn LIKE ? OR b.title LIKE ? OR b.author LIKE ? " +
                      "ORDER BY b.title";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(SEARCH_BOOKS_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             String searchPattern = "%" + searchTerm + "%";
@@ -138,7 +213,7 @@ public class BookDAO {
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    Book book = mapResultSetToBook(rs);
+                    Book book = mapResultSetToBook(rs, fields);
                     books.add(book);
                 }
             }
@@ -154,8 +229,9 @@ public class BookDAO {
         String sql = "INSERT INTO books (isbn, title, author, category_id, publisher_id, " +
                      "publication_year, price, stock_quantity, description) " +
                      "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        boolean created = false;
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(CREATE_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
             stmt.setString(1, book.getIsbn());
@@ -180,7 +256,7 @@ public class BookDAO {
                 try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                     if (generatedKeys.next()) {
                         book.setId(generatedKeys.getInt(1));
-                        return true;
+                        created = true;
                     }
                 }
             }
@@ -188,15 +264,20 @@ public class BookDAO {
             LOGGER.log(Level.SEVERE, "Error creating book: " + book.getTitle(), e);
         }
 
-        return false;
+        if (created) {
+            tableVersions.changed(TableVersions.BOOKS);
+            changeLog.record(book.getId(), BookChange.CREATED);
+        }
+        return created;
     }
 
     public boolean update(Book book) {
         String sql = "UPDATE books SET title = ?, author = ?, category_id = ?, " +
                      "publisher_id = ?, publication_year = ?, price = ?, " +
                      "stock_quantity = ?, description = ? WHERE id = ?";
+        boolean updated = false;
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(UPDATE_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, book.getTitle());
@@ -216,79 +297,131 @@ public class BookDAO {
             stmt.setInt(9, book.getId());
 
             int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+            updated = affectedRows > 0;
 
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error updating book with ID: " + book.getId(), e);
-            return false;
         }
+
+        // Recorded after the connection is returned
+        if (updated) {
+            tableVersions.changed(TableVersions.BOOKS);
+            changeLog.record(book.getId(), BookChange.UPDATED);
+        }
+        return updated;
     }
 
     public boolean updateStock(int bookId, int quantityChange) {
         String sql = "UPDATE books SET stock_quantity = stock_quantity + ? WHERE id = ?";
+        boolean updated = false;
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(UPDATE_STOCK_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, quantityChange);
             stmt.setInt(2, bookId);
 
             int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+            updated = affectedRows > 0;
 
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error updating stock for book ID: " + bookId, e);
-            return false;
         }
+
+        if (updated) {
+            tableVersions.changed(TableVersions.BOOKS);
+            changeLog.record(bookId, BookChange.STOCK);
+        }
+        return updated;
     }
 
     public boolean delete(int bookId) {
         String sql = "DELETE FROM books WHERE id = ?";
+        boolean deleted = false;
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(DELETE_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, bookId);
 
             int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+            deleted = affectedRows > 0;
 
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error deleting book with ID: " + bookId, e);
-            return false;
         }
+
+        if (deleted) {
+            tableVersions.changed(TableVersions.BOOKS);
+            changeLog.record(bookId, BookChange.DELETED);
+        }
+        return deleted;
     }
 
-    private Book mapResultSetToBook(ResultSet rs) throws SQLException {
+    /**
+     * SELECT list and FROM clause for the requested fields. Category and publisher are
+     * joined only when their names are asked for; both keys are NOT NULL, so dropping a
+     * join never drops a row.
+     */
+    private static String selectFrom(FieldProjection fields) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(fields.selectList()).append(" FROM books b ");
+        if (fields.includes("categoryName")) {
+            sql.append("JOIN categories c ON b.category_id = c.id ");
+        }
+        if (fields.includes("publisherName")) {
+            sql.append("JOIN publishers p ON b.publisher_id = p.id ");
+        }
+        return sql.toString();
+    }
+
+    private Book mapResultSetToBook(ResultSet rs, FieldProjection fields) throws SQLException {
         Book book = new Book();
-        book.setId(rs.getInt("id"));
-        book.setIsbn(rs.getString("isbn"));
-        book.setTitle(rs.getString("title"));
-        book.setAuthor(rs.getString("author"));
-        book.setCategoryId(rs.getInt("category_id"));
-        book.setPublisherId(rs.getInt("publisher_id"));
+        if (fields.includes("id")) {
+            book.setId(rs.getInt("id"));
+        }
+        if (fields.includes("isbn")) {
+            book.setIsbn(rs.getString("isbn"));
+        }
+        if (fields.includes("title")) {
+            book.setTitle(rs.getString("title"));
+        }
+        if (fields.includes("author")) {
+            book.setAuthor(rs.getString("author"));
+        }
+        if (fields.includes("categoryId")) {
+            book.setCategoryId(rs.getInt("category_id"));
+        }
+        if (fields.includes("publisherId")) {
+            book.setPublisherId(rs.getInt("publisher_id"));
+        }
 
-        try {
+        if (fields.includes("publicationYear")) {
             book.setPublicationYear(rs.getInt("publication_year"));
             if (rs.wasNull()) {
                 book.setPublicationYear(null);
             }
-        } catch (SQLException e) {
-            book.setPublicationYear(null);
         }
 
-        book.setPrice(rs.getBigDecimal("price"));
-        book.setStockQuantity(rs.getInt("stock_quantity"));
-        book.setDescription(rs.getString("description"));
-        book.setCreatedAt(rs.getTimestamp("created_at"));
-        book.setUpdatedAt(rs.getTimestamp("updated_at"));
-
-        // Get joined data if available
-        try {
+        if (fields.includes("price")) {
+            book.setPrice(rs.getBigDecimal("price"));
+        }
+        if (fields.includes("stockQuantity")) {
+            book.setStockQuantity(rs.getInt("stock_quantity"));
+        }
+        if (fields.includes("description")) {
+            book.setDescription(rs.getString("description"));
+        }
+        if (fields.includes("createdAt")) {
+            book.setCreatedAt(rs.getTimestamp("created_at"));
+        }
+        if (fields.includes("updatedAt")) {
+            book.setUpdatedAt(rs.getTimestamp("updated_at"));
+        }
+        if (fields.includes("categoryName")) {
             book.setCategoryName(rs.getString("category_name"));
+        }
+        if (fields.includes("publisherName")) {
             book.setPublisherName(rs.getString("publisher_name"));
-        } catch (SQLException e) {
-            // These columns may not be in the result set, which is fine
         }
 
         return book;
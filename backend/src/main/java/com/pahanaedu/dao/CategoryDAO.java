@@ -2,6 +2,9 @@ package com.pahanaedu.dao;
 
 import com.pahanaedu.model.Category;
 import com.pahanaedu.utils.DatabaseConnection;
+import com.pahanaedu.utils.LatencyHistogram;
+import com.pahanaedu.utils.MetricsRegistry;
+import com.pahanaedu.utils.TableVersions;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -14,12 +17,23 @@ import java.util.logging.Logger;
  */
 public class CategoryDAO {
     private static final Logger LOGGER = Logger.getLogger(CategoryDAO.class.getName());
+    private static final LatencyHistogram FIND_BY_ID_TIMER =
+            MetricsRegistry.getInstance().daoTimer(CategoryDAO.class, "findById");
+    private static final LatencyHistogram FIND_ALL_TIMER =
+            MetricsRegistry.getInstance().daoTimer(CategoryDAO.class, "findAll");
+    private static final LatencyHistogram CREATE_TIMER =
+            MetricsRegistry.getInstance().daoTimer(CategoryDAO.class, "create");
+    private static final LatencyHistogram UPDATE_TIMER =
+            MetricsRegistry.getInstance().daoTimer(CategoryDAO.class, "update");
+    private static final LatencyHistogram DELETE_TIMER =
+            MetricsRegistry.getInstance().daoTimer(CategoryDAO.class, "delete");
+    private final TableVersions tableVersions = TableVersions.getInstance();
 
     public Category findById(int id) {
         Category category = null;
         String sql = "SELECT * FROM categories WHERE id = ?";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(FIND_BY_ID_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, id);
@@ -41,7 +55,7 @@ public class CategoryDAO {
         List<Category> categories = new ArrayList<>();
         String sql = "SELECT * FROM categories ORDER BY name";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(FIND_ALL_TIMER);
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -60,7 +74,7 @@ public class CategoryDAO {
     public boolean create(Category category) {
         String sql = "INSERT INTO categories (name, description) VALUES (?, ?)";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(CREATE_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
             stmt.setString(1, category.getName());
@@ -72,6 +86,7 @@ public class CategoryDAO {
                 try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                     if (generatedKeys.next()) {
                         category.setId(generatedKeys.getInt(1));
+                        tableVersions.changed(TableVersions.CATEGORIES);
                         return true;
                     }
                 }
@@ -86,7 +101,7 @@ public class CategoryDAO {
     public boolean update(Category category) {
         String sql = "UPDATE categories SET name = ?, description = ? WHERE id = ?";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(UPDATE_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, category.getName());
@@ -94,7 +109,11 @@ public class CategoryDAO {
             stmt.setInt(3, category.getId());
 
             int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+            if (affectedRows > 0) {
+                tableVersions.changed(TableVersions.CATEGORIES);
+                return true;
+            }
+            return false;
 
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error updating category with ID: " + category.getId(), e);
@@ -106,7 +125,7 @@ public class CategoryDAO {
         // First check if there are any books using this category
         String checkSql = "SELECT COUNT(*) FROM books WHERE category_id = ?";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(DELETE_TIMER);
              PreparedStatement checkStmt = conn.prepareStatement(checkSql)) {
 
             checkStmt.setInt(1, categoryId);
@@ -125,7 +144,11 @@ public class CategoryDAO {
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
                 stmt.setInt(1, categoryId);
                 int affectedRows = stmt.executeUpdate();
-                return affectedRows > 0;
+                if (affectedRows > 0) {
+                    tableVersions.changed(TableVersions.CATEGORIES);
+                    return true;
+                }
+                return false;
             }
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error deleting category with ID: " + categoryId, e);
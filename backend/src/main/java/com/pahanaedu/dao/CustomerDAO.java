@@ -2,9 +2,14 @@ package com.pahanaedu.dao;
 
 import com.pahanaedu.model.Customer;
 import com.pahanaedu.utils.DatabaseConnection;
+import com.pahanaedu.utils.FieldProjection;
+import com.pahanaedu.utils.LatencyHistogram;
+import com.pahanaedu.utils.MetricsRegistry;
+import com.pahanaedu.utils.TableVersions;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -14,41 +19,98 @@ import java.util.logging.Logger;
  */
 public class CustomerDAO {
     private static final Logger LOGGER = Logger.getLogger(CustomerDAO.class.getName());
+    private static final LatencyHistogram FIND_BY_ID_TIMER =
+            MetricsRegistry.getInstance().daoTimer(CustomerDAO.class, "findById");
+    private static final LatencyHistogram FIND_BY_ACCOUNT_NUMBER_TIMER =
+            MetricsRegistry.getInstance().daoTimer(CustomerDAO.class, "findByAccountNumber");
+    private static final LatencyHistogram FIND_ALL_TIMER =
+            MetricsRegistry.getInstance().daoTimer(CustomerDAO.class, "findAll");
+    private static final LatencyHistogram SEARCH_CUSTOMERS_TIMER =
+            MetricsRegistry.getInstance().daoTimer(CustomerDAO.class, "searchCustomers");
+    private static final LatencyHistogram CREATE_TIMER =
+            MetricsRegistry.getInstance().daoTimer(CustomerDAO.class, "create");
+    private static final LatencyHistogram UPDATE_TIMER =
+            MetricsRegistry.getInstance().daoTimer(CustomerDAO.class, "update");
+    private static final LatencyHistogram DELETE_TIMER =
+            MetricsRegistry.getInstance().daoTimer(CustomerDAO.class, "delete");
+    private static final LatencyHistogram GENERATE_ACCOUNT_NUMBER_TIMER =
+            MetricsRegistry.getInstance().daoTimer(CustomerDAO.class, "generateAccountNumber");
+    private final TableVersions tableVersions = TableVersions.getInstance();
+
+    /**
+     * JSON fields of a customer and the columns they are loaded from, for {@code ?fields=}
+     */
+    public static final FieldProjection.Fields FIELDS = new FieldProjection.Fields()
+            .add("id", "id")
+            .add("accountNumber", "account_number")
+            .add("name", "name")
+            .add("address", "address")
+            .add("telephone", "telephone")
+            .add("email", "email")
+            .add("registrationDate", "registration_date")
+            .add("createdAt", "created_at")
+            .add("updatedAt", "updated_at");
+
+    /**
+     * Customer lookups made while billing, prepared on each pooled connection at startup
+     */
+    public static final List<String> HOT_STATEMENTS = Arrays.asList(
+            "SELECT " + FIELDS.all().selectList() + " FROM customers WHERE id = ?",
+            "SELECT " + FIELDS.all().selectList() + " FROM customers WHERE account_number = ?");
 
     public Customer findById(int id) {
+        return findById(id, FIELDS.all());
+    }
+
+    public Customer findById(int id, FieldProjection fields) {
+        try {
+            return readById(id, fields);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding customer by id: " + id, e);
+            return null;
+        }
+    }
+
+    /**
+     * Like {@link #findById(int, FieldProjection)}, but a database error is thrown rather than
+     * reported as a missing customer
+     * @return The customer, or null if it does not exist
+     */
+    public Customer readById(int id, FieldProjection fields) throws SQLException {
         Customer customer = null;
-        String sql = "SELECT * FROM customers WHERE id = ?";
+        String sql = "SELECT " + fields.selectList() + " FROM customers WHERE id = ?";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(FIND_BY_ID_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, id);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    customer = mapResultSetToCustomer(rs);
+                    customer = mapResultSetToCustomer(rs, fields);
                 }
             }
-
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error finding customer by id: " + id, e);
         }
 
         return customer;
     }
 
     public Customer findByAccountNumber(String accountNumber) {
+        return findByAccountNumber(accountNumber, FIELDS.all());
+    }
+
+    public Customer findByAccountNumber(String accountNumber, FieldProjection fields) {
         Customer customer = null;
-        String sql = "SELECT * FROM customers WHERE account_number = ?";
+        String sql = "SELECT " + fields.selectList() + " FROM customers WHERE account_number = ?";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(FIND_BY_ACCOUNT_NUMBER_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, accountNumber);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    customer = mapResultSetToCustomer(rs);
+                    customer = mapResultSetToCustomer(rs, fields);
                 }
             }
 
@@ -60,30 +122,49 @@ public class CustomerDAO {
     }
 
     public List<Customer> findAll() {
+        return findAll(FIELDS.all());
+    }
+
+    public List<Customer> findAll(FieldProjection fields) {
+        try {
+            return readAll(fields);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error retrieving all customers", e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Like {@link #findAll(FieldProjection)}, but a database error is thrown rather than
+     * reported as an empty list
+     */
+    public List<Customer> readAll(FieldProjection fields) throws SQLException {
         List<Customer> customers = new ArrayList<>();
-        String sql = "SELECT * FROM customers ORDER BY name";
+        String sql = "SELECT " + fields.selectList() + " FROM customers ORDER BY name";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(FIND_ALL_TIMER);
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
             while (rs.next()) {
-                Customer customer = mapResultSetToCustomer(rs);
+                Customer customer = mapResultSetToCustomer(rs, fields);
                 customers.add(customer);
             }
-
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error retrieving all customers", e);
         }
 
         return customers;
     }
 
     public List<Customer> searchCustomers(String searchTerm) {
+        return searchCustomers(searchTerm, FIELDS.all());
+    }
+
+    public List<Customer> searchCustomers(String searchTerm, FieldProjection fields) {
         List<Customer> customers = new ArrayList<>();
-        String sql = "SELECT * FROM customers WHERE account_number LIKE ? OR name LIKE ? OR telephone LIKE ? ORDER BY name";
+        String sql = "SELECT " + fields.selectList() + " FROM customers " +
+                     "WHERE account_number LIKE ? OR name LIKE ? OR telephone LIKE ? ORDER BY name";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(SEARCH_CUSTOMERS_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             String searchPattern = "%" + searchTerm + "%";
@@ -93,7 +174,7 @@ public class CustomerDAO {
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    Customer customer = mapResultSetToCustomer(rs);
+                    Customer customer = mapResultSetToCustomer(rs, fields);
                     customers.add(customer);
                 }
             }
@@ -109,7 +190,7 @@ public class CustomerDAO {
         String sql = "INSERT INTO customers (account_number, name, address, telephone, email, registration_date) " +
                      "VALUES (?, ?, ?, ?, ?, ?)";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(CREATE_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
             stmt.setString(1, customer.getAccountNumber());
@@ -125,6 +206,7 @@ public class CustomerDAO {
                 try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                     if (generatedKeys.next()) {
                         customer.setId(generatedKeys.getInt(1));
+                        tableVersions.changed(TableVersions.CUSTOMERS);
                         return true;
                     }
                 }
@@ -140,7 +222,7 @@ public class CustomerDAO {
         String sql = "UPDATE customers SET name = ?, address = ?, telephone = ?, email = ? " +
                      "WHERE id = ?";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(UPDATE_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, customer.getName());
@@ -150,7 +232,11 @@ public class CustomerDAO {
             stmt.setInt(5, customer.getId());
 
             int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+            if (affectedRows > 0) {
+                tableVersions.changed(TableVersions.CUSTOMERS);
+                return true;
+            }
+            return false;
 
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error updating customer with ID: " + customer.getId(), e);
@@ -161,13 +247,17 @@ public class CustomerDAO {
     public boolean delete(int customerId) {
         String sql = "DELETE FROM customers WHERE id = ?";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(DELETE_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, customerId);
 
             int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+            if (affectedRows > 0) {
+                tableVersions.changed(TableVersions.CUSTOMERS);
+                return true;
+            }
+            return false;
 
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error deleting customer with ID: " + customerId, e);
@@ -183,7 +273,7 @@ public class CustomerDAO {
         String sql = "SELECT MAX(SUBSTRING_INDEX(account_number, '-', -1)) AS max_seq " +
                      "FROM customers WHERE account_number LIKE ?";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(GENERATE_ACCOUNT_NUMBER_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, prefix + datePart + "-%");
@@ -207,17 +297,35 @@ public class CustomerDAO {
         }
     }
 
-    private Customer mapResultSetToCustomer(ResultSet rs) throws SQLException {
+    private Customer mapResultSetToCustomer(ResultSet rs, FieldProjection fields) throws SQLException {
         Customer customer = new Customer();
-        customer.setId(rs.getInt("id"));
-        customer.setAccountNumber(rs.getString("account_number"));
-        customer.setName(rs.getString("name"));
-        customer.setAddress(rs.getString("address"));
-        customer.setTelephone(rs.getString("telephone"));
-        customer.setEmail(rs.getString("email"));
-        customer.setRegistrationDate(rs.getDate("registration_date"));
-        customer.setCreatedAt(rs.getTimestamp("created_at"));
-        customer.setUpdatedAt(rs.getTimestamp("updated_at"));
+        if (fields.includes("id")) {
+            customer.setId(rs.getInt("id"));
+        }
+        if (fields.includes("accountNumber")) {
+            customer.setAccountNumber(rs.getString("account_number"));
+        }
+        if (fields.includes("name")) {
+            customer.setName(rs.getString("name"));
+        }
+        if (fields.includes("address")) {
+            customer.setAddress(rs.getString("address"));
+        }
+        if (fields.includes("telephone")) {
+            customer.setTelephone(rs.getString("telephone"));
+        }
+        if (fields.includes("email")) {
+            customer.setEmail(rs.getString("email"));
+        }
+        if (fields.includes("registrationDate")) {
+            customer.setRegistrationDate(rs.getDate("registration_date"));
+        }
+        if (fields.includes("createdAt")) {
+            customer.setCreatedAt(rs.getTimestamp("created_at"));
+        }
+        if (fields.includes("updatedAt")) {
+            customer.setUpdatedAt(rs.getTimestamp("updated_at"));
+        }
         return customer;
     }
 }
@@ -1,8 +1,13 @@
 package com.pahanaedu.dao;
 
+import com.pahanaedu.model.BookChange;
 import com.pahanaedu.model.Invoice;
 import com.pahanaedu.model.InvoiceItem;
 import com.pahanaedu.utils.DatabaseConnection;
+import com.pahanaedu.utils.FieldProjection;
+import com.pahanaedu.utils.LatencyHistogram;
+import com.pahanaedu.utils.MetricsRegistry;
+import com.pahanaedu.utils.TableVersions;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -15,27 +20,76 @@ import java.util.logging.Logger;
  */
 public class InvoiceDAO {
     private static final Logger LOGGER = Logger.getLogger(InvoiceDAO.class.getName());
+    private static final LatencyHistogram FIND_HEADER_BY_ID_TIMER =
+            MetricsRegistry.getInstance().daoTimer(InvoiceDAO.class, "findHeaderById");
+    private static final LatencyHistogram FIND_BY_INVOICE_NUMBER_TIMER =
+            MetricsRegistry.getInstance().daoTimer(InvoiceDAO.class, "findByInvoiceNumber");
+    private static final LatencyHistogram FIND_ALL_TIMER =
+            MetricsRegistry.getInstance().daoTimer(InvoiceDAO.class, "findAll");
+    private static final LatencyHistogram FIND_BY_CUSTOMER_ID_TIMER =
+            MetricsRegistry.getInstance().daoTimer(InvoiceDAO.class, "findByCustomerId");
+    private static final LatencyHistogram CREATE_TIMER =
+            MetricsRegistry.getInstance().daoTimer(InvoiceDAO.class, "create");
+    private static final LatencyHistogram DELETE_TIMER =
+            MetricsRegistry.getInstance().daoTimer(InvoiceDAO.class, "delete");
+    private static final LatencyHistogram GENERATE_INVOICE_NUMBER_TIMER =
+            MetricsRegistry.getInstance().daoTimer(InvoiceDAO.class, "generateInvoiceNumber");
     private final InvoiceItemDAO invoiceItemDAO = new InvoiceItemDAO();
+    private final BookChangeLog changeLog = BookChangeLog.getInstance();
+    private final TableVersions tableVersions = TableVersions.getInstance();
+
+    /**
+     * JSON fields of an invoice and the columns they are loaded from, for {@code ?fields=}.
+     * Items are loaded by invoice ID, and only for a single invoice.
+     */
+    public static final FieldProjection.Fields FIELDS = new FieldProjection.Fields()
+            .add("id", "i.id")
+            .add("invoiceNumber", "i.invoice_number")
+            .add("customerId", "i.customer_id")
+            .add("cashierId", "i.cashier_id")
+            .add("invoiceDate", "i.invoice_date")
+            .add("subtotal", "i.subtotal")
+            .add("discountAmount", "i.discount_amount")
+            .add("taxAmount", "i.tax_amount")
+            .add("totalAmount", "i.total_amount")
+            .add("paymentMethod", "i.payment_method")
+            .add("notes", "i.notes")
+            .add("createdAt", "i.created_at")
+            .add("customerName", "c.name AS customer_name")
+            .add("cashierName", "u.full_name AS cashier_name")
+            .add("items", "i.id");
 
     public Invoice findById(int id) {
+        Invoice invoice = findHeaderById(id);
+        if (invoice != null) {
+            // Load invoice items after the header connection has been returned
+            invoice.setItems(invoiceItemDAO.findByInvoiceId(id));
+        }
+        return invoice;
+    }
+
+    /**
+     * Find an invoice without loading its items
+     */
+    public Invoice findHeaderById(int id) {
+        return findHeaderById(id, FIELDS.all());
+    }
+
+    /**
+     * Find an invoice header with only the requested fields
+     */
+    public Invoice findHeaderById(int id, FieldProjection fields) {
         Invoice invoice = null;
-        String sql = "SELECT i.*, c.name AS customer_name, u.full_name AS cashier_name " +
-                    "FROM invoices i " +
-                    "LEFT JOIN customers c ON i.customer_id = c.id " +
-                    "JOIN users u ON i.cashier_id = u.id " +
-                    "WHERE i.id = ?";
+        String sql = selectFrom(fields) + "WHERE i.id = ?";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(FIND_HEADER_BY_ID_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, id);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    invoice = mapResultSetToInvoice(rs);
-                    // Load invoice items
-                    List<InvoiceItem> items = invoiceItemDAO.findByInvoiceId(invoice.getId());
-                    invoice.setItems(items);
+                    invoice = mapResultSetToInvoice(rs, fields);
                 }
             }
 
@@ -47,24 +101,26 @@ public class InvoiceDAO {
     }
 
     public Invoice findByInvoiceNumber(String invoiceNumber) {
+        return findByInvoiceNumber(invoiceNumber, FIELDS.all());
+    }
+
+    public Invoice findByInvoiceNumber(String invoiceNumber, FieldProjection fields) {
         Invoice invoice = null;
-        String sql = "SELECT i.*, c.name AS customer_name, u.full_name AS cashier_name " +
-                    "FROM invoices i " +
-                    "LEFT JOIN customers c ON i.customer_id = c.id " +
-                    "JOIN users u ON i.cashier_id = u.id " +
-                    "WHERE i.invoice_number = ?";
+        int invoiceId = 0;
+        String sql = selectFrom(fields) + "WHERE i.invoice_number = ?";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(FIND_BY_INVOICE_NUMBER_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, invoiceNumber);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    invoice = mapResultSetToInvoice(rs);
-                    // Load invoice items
-                    List<InvoiceItem> items = invoiceItemDAO.findByInvoiceId(invoice.getId());
-                    invoice.setItems(items);
+                    invoice = mapResultSetToInvoice(rs, fields);
+                    if (fields.includes("items")) {
+                        // Selected for the items even when the projection leaves the id out
+                        invoiceId = rs.getInt("id");
+                    }
                 }
             }
 
@@ -72,23 +128,27 @@ public class InvoiceDAO {
             LOGGER.log(Level.SEVERE, "Error finding invoice by number: " + invoiceNumber, e);
         }
 
+        if (invoice != null && fields.includes("items")) {
+            // Load invoice items after the header connection has been returned
+            invoice.setItems(invoiceItemDAO.findByInvoiceId(invoiceId));
+        }
         return invoice;
     }
 
     public List<Invoice> findAll() {
+        return findAll(FIELDS.all());
+    }
+
+    public List<Invoice> findAll(FieldProjection fields) {
         List<Invoice> invoices = new ArrayList<>();
-        String sql = "SELECT i.*, c.name AS customer_name, u.full_name AS cashier_name " +
-                    "FROM invoices i " +
-                    "LEFT JOIN customers c ON i.customer_id = c.id " +
-                    "JOIN users u ON i.cashier_id = u.id " +
-                    "ORDER BY i.invoice_date DESC";
+        String sql = selectFrom(fields) + "ORDER BY i.invoice_date DESC";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(FIND_ALL_TIMER);
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
             while (rs.next()) {
-                Invoice invoice = mapResultSetToInvoice(rs);
+                Invoice invoice = mapResultSetToInvoice(rs, fields);
                 invoices.add(invoice);
             }
 
@@ -100,22 +160,23 @@ public class InvoiceDAO {
     }
 
     public List<Invoice> findByCustomerId(int customerId) {
+        return findByCustomerId(customerId, FIELDS.all());
+    }
+
+    public List<Invoice> findByCustomerId(int customerId, FieldProjection fields) {
         List<Invoice> invoices = new ArrayList<>();
-        String sql = "SELECT i.*, c.name AS customer_name, u.full_name AS cashier_name " +
-                    "FROM invoices i " +
-                    "LEFT JOIN customers c ON i.customer_id = c.id " +
-                    "JOIN users u ON i.cashier_id = u.id " +
+        String sql = selectFrom(fields) +
                     "WHERE i.customer_id = ? " +
                     "ORDER BY i.invoice_date DESC";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(FIND_BY_CUSTOMER_ID_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, customerId);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    Invoice invoice = mapResultSetToInvoice(rs);
+                    Invoice invoice = mapResultSetToInvoice(rs, fields);
                     invoices.add(invoice);
                 }
             }
@@ -170,19 +231,19 @@ public class InvoiceDAO {
         boolean success = false;
 
         try {
-            conn = DatabaseConnection.getInstance().getConnection();
+            conn = DatabaseConnection.getInstance().getConnection(CREATE_TIMER);
             conn.setAutoCommit(false);
 
-            LOGGER.info("Starting invoice creation transaction");
+            LOGGER.fine("Starting invoice creation transaction");
 
             // Generate invoice number if not provided
             if (invoice.getInvoiceNumber() == null || invoice.getInvoiceNumber().isEmpty()) {
-                invoice.setInvoiceNumber(generateInvoiceNumber());
+                invoice.setInvoiceNumber(generateInvoiceNumber(conn));
             }
 
             // Create invoice record
             boolean invoiceCreated = create(invoice, conn);
-            LOGGER.info("Invoice record created: " + invoiceCreated);
+            LOGGER.fine(() -> "Invoice record created: " + invoiceCreated);
 
             if (invoiceCreated && invoice.getItems() != null && !invoice.getItems().isEmpty()) {
                 // Create invoice items and update stock within the same transaction
@@ -201,7 +262,7 @@ public class InvoiceDAO {
 
             conn.commit();
             success = true;
-            LOGGER.info("Invoice transaction committed successfully");
+            LOGGER.fine("Invoice transaction committed successfully");
 
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error creating invoice: " + e.getMessage(), e);
@@ -230,60 +291,76 @@ public class InvoiceDAO {
             }
         }
 
+        // Publish the stock decrements once committed and the connection is back in the pool
+        if (success && invoice.getItems() != null) {
+            List<Integer> bookIds = new ArrayList<>();
+            for (InvoiceItem item : invoice.getItems()) {
+                bookIds.add(item.getBookId());
+            }
+            tableVersions.changed(TableVersions.BOOKS);
+            changeLog.recordAll(bookIds, BookChange.STOCK);
+        }
+
         return success;
     }
 
     /**
-     * Update book stock within the same transaction
+     * Update book stock within the same transaction.
+     * The update only applies while the resulting stock stays non-negative, so a sale
+     * can never oversell even when the items were validated earlier (e.g. in a cart).
      */
     private void updateBookStockInTransaction(Connection conn, int bookId, int quantityChange) throws SQLException {
-        String sql = "UPDATE books SET stock_quantity = stock_quantity + ? WHERE id = ?";
+        String sql = "UPDATE books SET stock_quantity = stock_quantity + ? " +
+                     "WHERE id = ? AND stock_quantity + ? >= 0";
 
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, quantityChange);
             stmt.setInt(2, bookId);
+            stmt.setInt(3, quantityChange);
 
             int affectedRows = stmt.executeUpdate();
             if (affectedRows == 0) {
-                throw new SQLException("Failed to update stock for book ID: " + bookId);
+                throw new SQLException("Insufficient stock or missing book for book ID: " + bookId);
             }
 
-            LOGGER.info("Updated stock for book ID " + bookId + " by " + quantityChange);
+            LOGGER.fine(() -> "Updated stock for book ID " + bookId + " by " + quantityChange);
         }
     }
 
+    /**
+     * Delete an invoice and put its items back in stock, in one transaction on one connection.
+     * The stock changes are published only once committed.
+     */
     public boolean delete(int invoiceId) {
         Connection conn = null;
         boolean success = false;
+        List<InvoiceItem> items = new ArrayList<>();
 
         try {
-            conn = DatabaseConnection.getInstance().getConnection();
+            conn = DatabaseConnection.getInstance().getConnection(DELETE_TIMER);
             conn.setAutoCommit(false);
 
-            // Get invoice to restore stock quantities
-            Invoice invoice = findById(invoiceId);
-            if (invoice != null && invoice.getItems() != null) {
-                BookDAO bookDAO = new BookDAO();
+            // Read the items before the cascade removes them
+            items = invoiceItemDAO.findByInvoiceId(invoiceId, conn);
 
-                // Restore stock quantities
-                for (InvoiceItem item : invoice.getItems()) {
-                    bookDAO.updateStock(item.getBookId(), item.getQuantity()); // Add back to stock
-                }
-
-                // Delete invoice (cascade will delete items)
-                String sql = "DELETE FROM invoices WHERE id = ?";
-
-                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                    stmt.setInt(1, invoiceId);
-                    int affectedRows = stmt.executeUpdate();
+            // Delete invoice (cascade will delete items); a concurrent delete of the same
+            // invoice waits on this row and then finds nothing to delete
+            String sql = "DELETE FROM invoices WHERE id = ?";
+            int affectedRows;
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setInt(1, invoiceId);
+                affectedRows = stmt.executeUpdate();
+            }
 
-                    if (affectedRows > 0) {
-                        conn.commit();
-                        success = true;
-                    } else {
-                        conn.rollback();
-                    }
+            if (affectedRows > 0) {
+                // Restore stock quantities
+                for (InvoiceItem item : items) {
+                    updateBookStockInTransaction(conn, item.getBookId(), item.getQuantity());
                 }
+                conn.commit();
+                success = true;
+            } else {
+                conn.rollback();
             }
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error deleting invoice with ID: " + invoiceId, e);
@@ -306,10 +383,34 @@ public class InvoiceDAO {
             }
         }
 
+        // Publish the restored stock once committed and the connection is back in the pool
+        if (success && !items.isEmpty()) {
+            List<Integer> bookIds = new ArrayList<>();
+            for (InvoiceItem item : items) {
+                bookIds.add(item.getBookId());
+            }
+            tableVersions.changed(TableVersions.BOOKS);
+            changeLog.recordAll(bookIds, BookChange.STOCK);
+        }
+
         return success;
     }
 
     public String generateInvoiceNumber() {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(GENERATE_INVOICE_NUMBER_TIMER)) {
+            return generateInvoiceNumber(conn);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error generating invoice number", e);
+            return "INV-" + new java.text.SimpleDateFormat("yyyyMMdd").format(new java.util.Date())
+                    + "-" + System.currentTimeMillis() % 10000;
+        }
+    }
+
+    /**
+     * Generate the next invoice number using the caller's connection, so a transaction
+     * does not need to borrow a second pooled connection
+     */
+    private String generateInvoiceNumber(Connection conn) {
         // Format: INV-YYYYMMDD-XXXX where XXXX is a sequential number
         String prefix = "INV-";
         String datePart = new java.text.SimpleDateFormat("yyyyMMdd").format(new java.util.Date());
@@ -317,8 +418,7 @@ public class InvoiceDAO {
         String sql = "SELECT MAX(SUBSTRING_INDEX(invoice_number, '-', -1)) AS max_seq " +
                      "FROM invoices WHERE invoice_number LIKE ?";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, prefix + datePart + "-%");
 
@@ -341,27 +441,72 @@ public class InvoiceDAO {
         }
     }
 
-    private Invoice mapResultSetToInvoice(ResultSet rs) throws SQLException {
+    /**
+     * SELECT list and FROM clause for the requested fields. Customer and cashier are joined
+     * only when their names are asked for; the cashier key is NOT NULL, so dropping its join
+     * never drops a row.
+     */
+    private static String selectFrom(FieldProjection fields) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(fields.selectList()).append(" FROM invoices i ");
+        if (fields.includes("customerName")) {
+            sql.append("LEFT JOIN customers c ON i.customer_id = c.id ");
+        }
+        if (fields.includes("cashierName")) {
+            sql.append("JOIN users u ON i.cashier_id = u.id ");
+        }
+        return sql.toString();
+    }
+
+    private Invoice mapResultSetToInvoice(ResultSet rs, FieldProjection fields) throws SQLException {
         Invoice invoice = new Invoice();
-        invoice.setId(rs.getInt("id"));
-        invoice.setInvoiceNumber(rs.getString("invoice_number"));
+        if (fields.includes("id")) {
+            invoice.setId(rs.getInt("id"));
+        }
+        if (fields.includes("invoiceNumber")) {
+            invoice.setInvoiceNumber(rs.getString("invoice_number"));
+        }
 
-        int customerId = rs.getInt("customer_id");
-        if (!rs.wasNull()) {
-            invoice.setCustomerId(customerId);
+        if (fields.includes("customerId")) {
+            int customerId = rs.getInt("customer_id");
+            if (!rs.wasNull()) {
+                invoice.setCustomerId(customerId);
+            }
+        }
+        if (fields.includes("customerName")) {
+            // Null for walk-in sales
             invoice.setCustomerName(rs.getString("customer_name"));
         }
 
-        invoice.setCashierId(rs.getInt("cashier_id"));
-        invoice.setCashierName(rs.getString("cashier_name"));
-        invoice.setInvoiceDate(rs.getTimestamp("invoice_date"));
-        invoice.setSubtotal(rs.getBigDecimal("subtotal"));
-        invoice.setDiscountAmount(rs.getBigDecimal("discount_amount"));
-        invoice.setTaxAmount(rs.getBigDecimal("tax_amount"));
-        invoice.setTotalAmount(rs.getBigDecimal("total_amount"));
-        invoice.setPaymentMethod(rs.getString("payment_method"));
-        invoice.setNotes(rs.getString("notes"));
-        invoice.setCreatedAt(rs.getTimestamp("created_at"));
+        if (fields.includes("cashierId")) {
+            invoice.setCashierId(rs.getInt("cashier_id"));
+        }
+        if (fields.includes("cashierName")) {
+            invoice.setCashierName(rs.getString("cashier_name"));
+        }
+        if (fields.includes("invoiceDate")) {
+            invoice.setInvoiceDate(rs.getTimestamp("invoice_date"));
+        }
+        if (fields.includes("subtotal")) {
+            invoice.setSubtotal(rs.getBigDecimal("subtotal"));
+        }
+        if (fields.includes("discountAmount")) {
+            invoice.setDiscountAmount(rs.getBigDecimal("discount_amount"));
+        }
+        if (fields.includes("taxAmount")) {
+            invoice.setTaxAmount(rs.getBigDecimal("tax_amount"));
+        }
+        if (fields.includes("totalAmount")) {
+            invoice.setTotalAmount(rs.getBigDecimal("total_amount"));
+        }
+        if (fields.includes("paymentMethod")) {
+            invoice.setPaymentMethod(rs.getString("payment_method"));
+        }
+        if (fields.includes("notes")) {
+            invoice.setNotes(rs.getString("notes"));
+        }
+        if (fields.includes("createdAt")) {
+            invoice.setCreatedAt(rs.getTimestamp("created_at"));
+        }
 
         return invoice;
     }
@@ -2,6 +2,8 @@ package com.pahanaedu.dao;
 
 import com.pahanaedu.model.InvoiceItem;
 import com.pahanaedu.utils.DatabaseConnection;
+import com.pahanaedu.utils.LatencyHistogram;
+import com.pahanaedu.utils.MetricsRegistry;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -14,8 +16,25 @@ import java.util.logging.Logger;
  */
 public class InvoiceItemDAO {
     private static final Logger LOGGER = Logger.getLogger(InvoiceItemDAO.class.getName());
+    private static final LatencyHistogram FIND_BY_INVOICE_ID_TIMER =
+            MetricsRegistry.getInstance().daoTimer(InvoiceItemDAO.class, "findByInvoiceId");
+    private static final LatencyHistogram CREATE_TIMER =
+            MetricsRegistry.getInstance().daoTimer(InvoiceItemDAO.class, "create");
 
     public List<InvoiceItem> findByInvoiceId(int invoiceId) {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(FIND_BY_INVOICE_ID_TIMER)) {
+            return findByInvoiceId(invoiceId, conn);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error finding invoice items by invoice ID: " + invoiceId, e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Find the items of an invoice using the caller's connection, so a transaction reads
+     * them without borrowing a second pooled connection
+     */
+    public List<InvoiceItem> findByInvoiceId(int invoiceId, Connection conn) throws SQLException {
         List<InvoiceItem> items = new ArrayList<>();
         // Use explicit column names and avoid * to prevent any ambiguity
         String sql = "SELECT DISTINCT i.id, i.invoice_id, i.book_id, i.quantity, i.unit_price, " +
@@ -26,11 +45,10 @@ public class InvoiceItemDAO {
                      "WHERE i.invoice_id = ? " +
                      "ORDER BY i.id"; // Add ordering to ensure consistent results
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, invoiceId);
-            LOGGER.info("Executing query for invoice items with invoice ID: " + invoiceId);
+            LOGGER.fine(() -> "Executing query for invoice items with invoice ID: " + invoiceId);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
@@ -39,10 +57,7 @@ public class InvoiceItemDAO {
                 }
             }
 
-            LOGGER.info("Found " + items.size() + " items for invoice ID: " + invoiceId);
-
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error finding invoice items by invoice ID: " + invoiceId, e);
+            LOGGER.fine(() -> "Found " + items.size() + " items for invoice ID: " + invoiceId);
         }
 
         return items;
@@ -76,7 +91,7 @@ public class InvoiceItemDAO {
     }
 
     public boolean create(InvoiceItem item) {
-        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(CREATE_TIMER)) {
             return create(item, conn);
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error creating invoice item", e);
@@ -2,6 +2,9 @@ package com.pahanaedu.dao;
 
 import com.pahanaedu.model.Publisher;
 import com.pahanaedu.utils.DatabaseConnection;
+import com.pahanaedu.utils.LatencyHistogram;
+import com.pahanaedu.utils.MetricsRegistry;
+import com.pahanaedu.utils.TableVersions;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -14,12 +17,23 @@ import java.util.logging.Logger;
  */
 public class PublisherDAO {
     private static final Logger LOGGER = Logger.getLogger(PublisherDAO.class.getName());
+    private static final LatencyHistogram FIND_BY_ID_TIMER =
+            MetricsRegistry.getInstance().daoTimer(PublisherDAO.class, "findById");
+    private static final LatencyHistogram FIND_ALL_TIMER =
+            MetricsRegistry.getInstance().daoTimer(PublisherDAO.class, "findAll");
+    private static final LatencyHistogram CREATE_TIMER =
+            MetricsRegistry.getInstance().daoTimer(PublisherDAO.class, "create");
+    private static final LatencyHistogram UPDATE_TIMER =
+            MetricsRegistry.getInstance().daoTimer(PublisherDAO.class, "update");
+    private static final LatencyHistogram DELETE_TIMER =
+            MetricsRegistry.getInstance().daoTimer(PublisherDAO.class, "delete");
+    private final TableVersions tableVersions = TableVersions.getInstance();
 
     public Publisher findById(int id) {
         Publisher publisher = null;
         String sql = "SELECT * FROM publishers WHERE id = ?";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(FIND_BY_ID_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, id);
@@ -41,7 +55,7 @@ public class PublisherDAO {
         List<Publisher> publishers = new ArrayList<>();
         String sql = "SELECT * FROM publishers ORDER BY name";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(FIND_ALL_TIMER);
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -61,7 +75,7 @@ public class PublisherDAO {
         String sql = "INSERT INTO publishers (name, contact_person, telephone, email, address) " +
                      "VALUES (?, ?, ?, ?, ?)";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(CREATE_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
             stmt.setString(1, publisher.getName());
@@ -76,6 +90,7 @@ public class PublisherDAO {
                 try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                     if (generatedKeys.next()) {
                         publisher.setId(generatedKeys.getInt(1));
+                        tableVersions.changed(TableVersions.PUBLISHERS);
                         return true;
                     }
                 }
@@ -91,7 +106,7 @@ public class PublisherDAO {
         String sql = "UPDATE publishers SET name = ?, contact_person = ?, telephone = ?, " +
                      "email = ?, address = ? WHERE id = ?";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(UPDATE_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, publisher.getName());
@@ -102,7 +117,11 @@ public class PublisherDAO {
             stmt.setInt(6, publisher.getId());
 
             int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+            if (affectedRows > 0) {
+                tableVersions.changed(TableVersions.PUBLISHERS);
+                return true;
+            }
+            return false;
 
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error updating publisher with ID: " + publisher.getId(), e);
@@ -114,7 +133,7 @@ public class PublisherDAO {
         // First check if there are any books using this publisher
         String checkSql = "SELECT COUNT(*) FROM books WHERE publisher_id = ?";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(DELETE_TIMER);
              PreparedStatement checkStmt = conn.prepareStatement(checkSql)) {
 
             checkStmt.setInt(1, publisherId);
@@ -133,7 +152,11 @@ public class PublisherDAO {
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
                 stmt.setInt(1, publisherId);
                 int affectedRows = stmt.executeUpdate();
-                return affectedRows > 0;
+                if (affectedRows > 0) {
+                    tableVersions.changed(TableVersions.PUBLISHERS);
+                    return true;
+                }
+                return false;
             }
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error deleting publisher with ID: " + publisherId, e);
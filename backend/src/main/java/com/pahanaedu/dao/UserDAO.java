@@ -2,10 +2,13 @@ package com.pahanaedu.dao;
 
 import com.pahanaedu.model.User;
 import com.pahanaedu.utils.DatabaseConnection;
+import com.pahanaedu.utils.LatencyHistogram;
+import com.pahanaedu.utils.MetricsRegistry;
 import com.pahanaedu.utils.PasswordHasher;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -15,12 +18,32 @@ import java.util.logging.Logger;
  */
 public class UserDAO {
     private static final Logger LOGGER = Logger.getLogger(UserDAO.class.getName());
+    private static final LatencyHistogram FIND_BY_USERNAME_TIMER =
+            MetricsRegistry.getInstance().daoTimer(UserDAO.class, "findByUsername");
+    private static final LatencyHistogram FIND_BY_ID_TIMER =
+            MetricsRegistry.getInstance().daoTimer(UserDAO.class, "findById");
+    private static final LatencyHistogram FIND_ALL_TIMER =
+            MetricsRegistry.getInstance().daoTimer(UserDAO.class, "findAll");
+    private static final LatencyHistogram CREATE_TIMER =
+            MetricsRegistry.getInstance().daoTimer(UserDAO.class, "create");
+    private static final LatencyHistogram UPDATE_TIMER =
+            MetricsRegistry.getInstance().daoTimer(UserDAO.class, "update");
+    private static final LatencyHistogram UPDATE_PASSWORD_TIMER =
+            MetricsRegistry.getInstance().daoTimer(UserDAO.class, "updatePassword");
+    private static final LatencyHistogram DELETE_TIMER =
+            MetricsRegistry.getInstance().daoTimer(UserDAO.class, "delete");
+
+    /**
+     * The login lookup, prepared on each pooled connection at startup
+     */
+    public static final List<String> HOT_STATEMENTS = Collections.singletonList(
+            "SELECT * FROM users WHERE username = ?");
 
     public User findByUsername(String username) {
         User user = null;
         String sql = "SELECT * FROM users WHERE username = ?";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(FIND_BY_USERNAME_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, username);
@@ -42,7 +65,7 @@ public class UserDAO {
         User user = null;
         String sql = "SELECT * FROM users WHERE id = ?";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(FIND_BY_ID_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, id);
@@ -110,7 +133,7 @@ public class UserDAO {
         List<User> users = new ArrayList<>();
         String sql = "SELECT * FROM users ORDER BY id";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(FIND_ALL_TIMER);
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -131,7 +154,7 @@ public class UserDAO {
         String sql = "INSERT INTO users (username, password, full_name, role, email, active) " +
                      "VALUES (?, ?, ?, ?, ?, ?)";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(CREATE_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
             stmt.setString(1, user.getUsername());
@@ -162,7 +185,7 @@ public class UserDAO {
         String sql = "UPDATE users SET full_name = ?, role = ?, email = ?, active = ? " +
                      "WHERE id = ?";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(UPDATE_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, user.getFullName());
@@ -183,7 +206,7 @@ public class UserDAO {
     public boolean updatePassword(int userId, String newPassword) {
         String sql = "UPDATE users SET password = ? WHERE id = ?";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(UPDATE_PASSWORD_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, hashPassword(newPassword));
@@ -201,7 +224,7 @@ public class UserDAO {
     public boolean delete(int userId) {
         String sql = "DELETE FROM users WHERE id = ?";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection(DELETE_TIMER);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, userId);
@@ -0,0 +1,103 @@
+package com.pahanaedu.model;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+
+/**
+ * BookChange model representing one entry in the book change feed.
+ * Carries the book's till-facing fields after the change; they are null for a deletion.
+ */
+public class BookChange {
+    public static final String CREATED = "CREATED";
+    public static final String UPDATED = "UPDATED";
+    public static final String STOCK = "STOCK";
+    public static final String DELETED = "DELETED";
+
+    private long sequence;
+    private int bookId;
+    private String changeType;
+    private String title;
+    private BigDecimal price;
+    private Integer stockQuantity;
+    private Timestamp changedAt;
+
+    public BookChange() {
+    }
+
+    public BookChange(long sequence, int bookId, String changeType, String title, BigDecimal price,
+                      Integer stockQuantity, Timestamp changedAt) {
+        this.sequence = sequence;
+        this.bookId = bookId;
+        this.changeType = changeType;
+        this.title = title;
+        this.price = price;
+        this.stockQuantity = stockQuantity;
+        this.changedAt = changedAt;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public int getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(int bookId) {
+        this.bookId = bookId;
+    }
+
+    public String getChangeType() {
+        return changeType;
+    }
+
+    public void setChangeType(String changeType) {
+        this.changeType = changeType;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public Integer getStockQuantity() {
+        return stockQuantity;
+    }
+
+    public void setStockQuantity(Integer stockQuantity) {
+        this.stockQuantity = stockQuantity;
+    }
+
+    public Timestamp getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(Timestamp changedAt) {
+        this.changedAt = changedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "BookChange{" +
+                "sequence=" + sequence +
+                ", bookId=" + bookId +
+                ", changeType='" + changeType + '\'' +
+                ", stockQuantity=" + stockQuantity +
+                '}';
+    }
+}
@@ -0,0 +1,200 @@
+package com.pahanaedu.model;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cart model representing an in-progress bill held on the server.
+ * Totals are maintained incrementally as lines are added, changed or removed.
+ */
+public class Cart {
+    private String id;
+    private int cashierId;
+    private String cashierName;
+    private Integer customerId;
+    private boolean applyTax;
+    private BigDecimal taxRate;
+    private BigDecimal subtotal;
+    private BigDecimal discountAmount;
+    private BigDecimal taxAmount;
+    private BigDecimal totalAmount;
+    private long version;
+    private Timestamp createdAt;
+
+    // Lines keyed by book ID, kept in the order they were added
+    private final Map<Integer, InvoiceItem> lines = new LinkedHashMap<>();
+
+    // Stock level seen when each line was first validated
+    private final Map<Integer, Integer> availableStock = new LinkedHashMap<>();
+
+    public Cart() {
+        this.taxRate = BigDecimal.ZERO;
+        this.subtotal = BigDecimal.ZERO;
+        this.discountAmount = BigDecimal.ZERO;
+        this.taxAmount = BigDecimal.ZERO;
+        this.totalAmount = BigDecimal.ZERO;
+        this.createdAt = new Timestamp(System.currentTimeMillis());
+    }
+
+    public Cart(String id, int cashierId, String cashierName, BigDecimal taxRate) {
+        this();
+        this.id = id;
+        this.cashierId = cashierId;
+        this.cashierName = cashierName;
+        this.taxRate = taxRate;
+    }
+
+    /**
+     * Add or replace the line for a book, adjusting the subtotal by the difference only
+     * @return The line previously held for the same book, or null
+     */
+    public InvoiceItem putLine(InvoiceItem line, int stockQuantity) {
+        InvoiceItem previous = lines.put(line.getBookId(), line);
+        availableStock.put(line.getBookId(), stockQuantity);
+        BigDecimal delta = line.getTotalPrice();
+        if (previous != null) {
+            delta = delta.subtract(previous.getTotalPrice());
+        }
+        this.subtotal = this.subtotal.add(delta);
+        recalculateTotals();
+        return previous;
+    }
+
+    /**
+     * Remove the line for a book, adjusting the subtotal by its total only
+     * @return The removed line, or null if the book was not in the cart
+     */
+    public InvoiceItem removeLine(int bookId) {
+        InvoiceItem removed = lines.remove(bookId);
+        availableStock.remove(bookId);
+        if (removed != null) {
+            this.subtotal = this.subtotal.subtract(removed.getTotalPrice());
+            recalculateTotals();
+        }
+        return removed;
+    }
+
+    // Helper method to derive tax and total from the running subtotal
+    private void recalculateTotals() {
+        this.taxAmount = applyTax ? subtotal.multiply(taxRate) : BigDecimal.ZERO;
+        this.totalAmount = subtotal.subtract(discountAmount).add(taxAmount);
+        this.version++;
+    }
+
+    public InvoiceItem getLine(int bookId) {
+        return lines.get(bookId);
+    }
+
+    public List<InvoiceItem> getLines() {
+        return new ArrayList<>(lines.values());
+    }
+
+    public int getLineCount() {
+        return lines.size();
+    }
+
+    public Integer getAvailableStock(int bookId) {
+        return availableStock.get(bookId);
+    }
+
+    // Getters and Setters
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public int getCashierId() {
+        return cashierId;
+    }
+
+    public void setCashierId(int cashierId) {
+        this.cashierId = cashierId;
+    }
+
+    public String getCashierName() {
+        return cashierName;
+    }
+
+    public void setCashierName(String cashierName) {
+        this.cashierName = cashierName;
+    }
+
+    public Integer getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Integer customerId) {
+        this.customerId = customerId;
+        this.version++;
+    }
+
+    public boolean isApplyTax() {
+        return applyTax;
+    }
+
+    public void setApplyTax(boolean applyTax) {
+        this.applyTax = applyTax;
+        recalculateTotals();
+    }
+
+    public BigDecimal getTaxRate() {
+        return taxRate;
+    }
+
+    public BigDecimal getSubtotal() {
+        return subtotal;
+    }
+
+    public BigDecimal getDiscountAmount() {
+        return discountAmount;
+    }
+
+    public void setDiscountAmount(BigDecimal discountAmount) {
+        this.discountAmount = discountAmount != null ? discountAmount : BigDecimal.ZERO;
+        recalculateTotals();
+    }
+
+    public BigDecimal getTaxAmount() {
+        return taxAmount;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Timestamp createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "Cart{" +
+                "id='" + id + '\'' +
+                ", cashierId=" + cashierId +
+                ", customerId=" + customerId +
+                ", applyTax=" + applyTax +
+                ", subtotal=" + subtotal +
+                ", discountAmount=" + discountAmount +
+                ", taxAmount=" + taxAmount +
+                ", totalAmount=" + totalAmount +
+                ", version=" + version +
+                ", lines=" + lines.size() +
+                '}';
+    }
+}
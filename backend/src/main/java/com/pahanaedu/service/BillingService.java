@@ -6,11 +6,14 @@ import com.pahanaedu.dao.InvoiceItemDAO;
 import com.pahanaedu.model.Book;
 import com.pahanaedu.model.Invoice;
 import com.pahanaedu.model.InvoiceItem;
+import com.pahanaedu.utils.FieldProjection;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
-import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Logger;
 
 /**
@@ -18,38 +21,77 @@ import java.util.logging.Logger;
  */
 public class BillingService {
     private static final Logger LOGGER = Logger.getLogger(BillingService.class.getName());
+    public static final BigDecimal TAX_RATE = new BigDecimal("0.05");  // 5% tax
     private final InvoiceDAO invoiceDAO;
     private final InvoiceItemDAO invoiceItemDAO;
     private final BookDAO bookDAO;
+    private final ReceiptRenderer receiptRenderer = new ReceiptRenderer();
+    private final ParallelLoader loader;
+    private final CatalogueCache catalogue;
+    private final DashboardEvents events;
 
     public BillingService() {
         this.invoiceDAO = new InvoiceDAO();
         this.invoiceItemDAO = new InvoiceItemDAO();
         this.bookDAO = new BookDAO();
+        this.loader = ParallelLoader.getInstance();
+        this.catalogue = CatalogueCache.getInstance();
+        this.events = DashboardEvents.getInstance();
     }
 
     public Invoice getInvoiceById(int id) {
-        LOGGER.info("Fetching invoice with ID: " + id);
-        return invoiceDAO.findById(id);
+        return getInvoiceById(id, InvoiceDAO.FIELDS.all());
+    }
+
+    public Invoice getInvoiceById(int id, FieldProjection fields) {
+        LOGGER.fine(() -> "Fetching invoice with ID: " + id);
+        if (!fields.includes("items")) {
+            return invoiceDAO.findHeaderById(id, fields);
+        }
+
+        // Header and items only depend on the id, so load them side by side
+        ParallelLoader.Batch batch = loader.batch();
+        CompletableFuture<Invoice> header = batch.submit(() -> invoiceDAO.findHeaderById(id, fields));
+        CompletableFuture<List<InvoiceItem>> items = batch.submit(() -> invoiceItemDAO.findByInvoiceId(id));
+        batch.await();
+
+        Invoice invoice = header.join();
+        if (invoice != null) {
+            invoice.setItems(items.join());
+        }
+        return invoice;
     }
 
     public Invoice getInvoiceByNumber(String invoiceNumber) {
-        LOGGER.info("Fetching invoice with number: " + invoiceNumber);
-        return invoiceDAO.findByInvoiceNumber(invoiceNumber);
+        return getInvoiceByNumber(invoiceNumber, InvoiceDAO.FIELDS.all());
+    }
+
+    public Invoice getInvoiceByNumber(String invoiceNumber, FieldProjection fields) {
+        LOGGER.fine(() -> "Fetching invoice with number: " + invoiceNumber);
+        return invoiceDAO.findByInvoiceNumber(invoiceNumber, fields);
     }
 
     public List<Invoice> getAllInvoices() {
-        LOGGER.info("Fetching all invoices");
-        return invoiceDAO.findAll();
+        return getAllInvoices(InvoiceDAO.FIELDS.all());
+    }
+
+    public List<Invoice> getAllInvoices(FieldProjection fields) {
+        LOGGER.fine("Fetching all invoices");
+        return invoiceDAO.findAll(fields);
     }
 
     public List<Invoice> getInvoicesByCustomer(int customerId) {
-        LOGGER.info("Fetching invoices for customer ID: " + customerId);
-        return invoiceDAO.findByCustomerId(customerId);
+        return getInvoicesByCustomer(customerId, InvoiceDAO.FIELDS.all());
+    }
+
+    public List<Invoice> getInvoicesByCustomer(int customerId, FieldProjection fields) {
+        LOGGER.fine(() -> "Fetching invoices for customer ID: " + customerId);
+        return invoiceDAO.findByCustomerId(customerId, fields);
     }
 
     public boolean createInvoice(Invoice invoice) {
-        LOGGER.info("Creating new invoice with " + (invoice.getItems() != null ? invoice.getItems().size() : 0) + " items");
+        LOGGER.fine(() -> "Creating new invoice with "
+                + (invoice.getItems() != null ? invoice.getItems().size() : 0) + " items");
 
         // Validate items
         if (invoice.getItems() == null || invoice.getItems().isEmpty()) {
@@ -59,7 +101,7 @@ public class BillingService {
 
         // Validate and prepare invoice items
         for (InvoiceItem item : invoice.getItems()) {
-            LOGGER.info("Processing item with bookId: " + item.getBookId() + ", quantity: " + item.getQuantity());
+            LOGGER.fine(() -> "Processing item with bookId: " + item.getBookId() + ", quantity: " + item.getQuantity());
 
             Book book = bookDAO.findById(item.getBookId());
 
@@ -68,7 +110,7 @@ public class BillingService {
                 return false;
             }
 
-            LOGGER.info("Book found: '" + book.getTitle() + "' (ID: " + book.getId() +
+            LOGGER.fine(() -> "Book found: '" + book.getTitle() + "' (ID: " + book.getId() +
                        "), Current Stock: " + book.getStockQuantity() +
                        ", Requested Quantity: " + item.getQuantity() +
                        ", Book Price: $" + book.getPrice());
@@ -85,7 +127,7 @@ public class BillingService {
             // Set item details if not already set
             if (item.getUnitPrice() == null) {
                 item.setUnitPrice(book.getPrice());
-                LOGGER.info("Set unit price from book: $" + book.getPrice());
+                LOGGER.fine(() -> "Set unit price from book: $" + book.getPrice());
             }
 
             // Set book title for display
@@ -94,31 +136,33 @@ public class BillingService {
 
             // Calculate total price
             item.calculateTotalPrice();
-            LOGGER.info("Item total calculated: $" + item.getTotalPrice());
+            LOGGER.fine(() -> "Item total calculated: $" + item.getTotalPrice());
         }
 
-        LOGGER.info("All items validated successfully, proceeding with invoice creation");
+        LOGGER.fine("All items validated successfully, proceeding with invoice creation");
 
         // Calculate invoice totals
         invoice.calculateTotals();
-        LOGGER.info("Invoice totals - Subtotal: $" + invoice.getSubtotal() +
+        LOGGER.fine(() -> "Invoice totals - Subtotal: $" + invoice.getSubtotal() +
                    ", Total: $" + invoice.getTotalAmount());
 
         // Generate invoice number if not provided
         if (invoice.getInvoiceNumber() == null || invoice.getInvoiceNumber().isEmpty()) {
             String generatedNumber = invoiceDAO.generateInvoiceNumber();
             invoice.setInvoiceNumber(generatedNumber);
-            LOGGER.info("Generated invoice number: " + generatedNumber);
+            LOGGER.fine(() -> "Generated invoice number: " + generatedNumber);
         } else {
-            LOGGER.info("Using provided invoice number: " + invoice.getInvoiceNumber());
+            LOGGER.fine(() -> "Using provided invoice number: " + invoice.getInvoiceNumber());
         }
 
         // Attempt to create the invoice in database
         boolean result = invoiceDAO.create(invoice);
-        LOGGER.info("Invoice creation result: " + (result ? "SUCCESS" : "FAILED"));
+        LOGGER.fine(() -> "Invoice creation result: " + (result ? "SUCCESS" : "FAILED"));
 
         if (result) {
             LOGGER.info("Invoice created successfully with ID: " + invoice.getId());
+            catalogue.booksChanged(bookIds(invoice.getItems()));
+            events.invoiceCreated(invoice);
         } else {
             LOGGER.severe("Failed to create invoice in database");
         }
@@ -126,9 +170,50 @@ public class BillingService {
         return result;
     }
 
+    /**
+     * Persist an invoice whose items were already priced and validated, e.g. from a cart.
+     * Skips the per-item book lookup; stock is still enforced by the guarded update in the transaction.
+     * @param invoice Invoice with priced items and calculated totals
+     * @return true if the invoice was saved
+     */
+    public boolean createValidatedInvoice(Invoice invoice) {
+        if (invoice.getItems() == null || invoice.getItems().isEmpty()) {
+            LOGGER.warning("Cannot create invoice with no items");
+            return false;
+        }
+
+        if (invoice.getInvoiceNumber() == null || invoice.getInvoiceNumber().isEmpty()) {
+            invoice.setInvoiceNumber(invoiceDAO.generateInvoiceNumber());
+        }
+
+        boolean result = invoiceDAO.create(invoice);
+        if (result) {
+            LOGGER.info("Invoice created from validated items with ID: " + invoice.getId());
+            catalogue.booksChanged(bookIds(invoice.getItems()));
+            events.invoiceCreated(invoice);
+        } else {
+            LOGGER.severe("Failed to create invoice from validated items");
+        }
+        return result;
+    }
+
     public boolean deleteInvoice(int invoiceId) {
         LOGGER.info("Deleting invoice with ID: " + invoiceId);
-        return invoiceDAO.delete(invoiceId);
+        // Deleting puts the stock back, so note which books are affected first
+        List<InvoiceItem> items = invoiceItemDAO.findByInvoiceId(invoiceId);
+        boolean deleted = invoiceDAO.delete(invoiceId);
+        if (deleted) {
+            catalogue.booksChanged(bookIds(items));
+        }
+        return deleted;
+    }
+
+    private static List<Integer> bookIds(List<InvoiceItem> items) {
+        List<Integer> ids = new ArrayList<>();
+        for (InvoiceItem item : items) {
+            ids.add(item.getBookId());
+        }
+        return ids;
     }
 
     /**
@@ -138,7 +223,7 @@ public class BillingService {
      * @return Updated invoice with calculated totals
      */
     public Invoice calculateBill(Invoice invoice, boolean applyTax) {
-        LOGGER.info("Calculating bill for invoice");
+        LOGGER.fine("Calculating bill for invoice");
 
         // Calculate item totals
         for (InvoiceItem item : invoice.getItems()) {
@@ -150,8 +235,7 @@ public class BillingService {
 
         // Apply tax if required (assume 5% tax rate)
         if (applyTax) {
-            BigDecimal taxRate = new BigDecimal("0.05");  // 5% tax
-            BigDecimal taxAmount = invoice.getSubtotal().multiply(taxRate);
+            BigDecimal taxAmount = invoice.getSubtotal().multiply(TAX_RATE);
             invoice.setTaxAmount(taxAmount);
 
             // Recalculate total with tax
@@ -188,99 +272,17 @@ public class BillingService {
      * @return String representation of the invoice for printing
      */
     public String generatePrintableBill(Invoice invoice) {
-        LOGGER.info("Generating printable bill for invoice: " + invoice.getInvoiceNumber());
-
-        List<InvoiceItem> uniqueItems = new ArrayList<>();
-        if (invoice.getItems() != null) {
-            for (InvoiceItem item : invoice.getItems()) {
-                boolean isDuplicate = false;
-                for (InvoiceItem existingItem : uniqueItems) {
-                    if (existingItem.getBookId() == item.getBookId()) {
-                        isDuplicate = true;
-                        break;
-                    }
-                }
-                if (!isDuplicate) {
-                    uniqueItems.add(item);
-                }
-            }
-        }
-
-        StringBuilder bill = new StringBuilder();
-        bill.append("==================================================\n");
-        bill.append("               PAHANA EDU BOOKSHOP              \n");
-        bill.append("==================================================\n\n");
-        bill.append("Invoice #: ").append(invoice.getInvoiceNumber()).append("\n");
-        
-        String formattedDate = formatDateWithLocalTime(invoice.getInvoiceDate());
-        bill.append("Date: ").append(formattedDate).append("\n");
-
-        if (invoice.getCustomerId() != null && invoice.getCustomerName() != null) {
-            bill.append("Customer: ").append(invoice.getCustomerName()).append("\n");
-        } else {
-            bill.append("Customer: Walk-in Customer\n");
-        }
-
-        bill.append("Cashier: ").append(invoice.getCashierName()).append("\n");
-        bill.append("\n--------------------------------------------------\n");
-        bill.append("Item                      Qty    Price     Total\n");
-        bill.append("--------------------------------------------------\n");
-
-        for (InvoiceItem item : uniqueItems) {
-            String title = item.getBookTitle();
-            if (title.length() > 22) {
-                title = title.substring(0, 22) + ".";
-            } else {
-                StringBuilder paddedTitle = new StringBuilder(title);
-                while (paddedTitle.length() < 23) {
-                    paddedTitle.append(" ");
-                }
-                title = paddedTitle.toString();
-            }
-            
-            String price = String.format("%.2f", item.getUnitPrice());
-            String total = String.format("%.2f", item.getTotalPrice());
-            
-            String quantityStr = String.format("%4s", item.getQuantity());
-            String priceStr = String.format("%10s", price);
-            String totalStr = String.format("%8s", total);
-            
-            bill.append(title).append(" ").append(quantityStr).append(" ").append(priceStr).append("  ").append(totalStr).append("\n");
-        }
-
-        bill.append("--------------------------------------------------\n");
-        
-        String subtotalStr = String.format("%.2f", invoice.getSubtotal());
-        bill.append(String.format("Subtotal:                        %8s\n", subtotalStr));
-
-        if (invoice.getDiscountAmount().compareTo(BigDecimal.ZERO) > 0) {
-            String discountStr = String.format("%.2f", invoice.getDiscountAmount());
-            bill.append(String.format("Discount:                        %8s\n", discountStr));
-        }
-
-        if (invoice.getTaxAmount().compareTo(BigDecimal.ZERO) > 0) {
-            String taxStr = String.format("%.2f", invoice.getTaxAmount());
-            bill.append(String.format("Tax (5%%):                        %8s\n", taxStr));
-        }
-
-        String totalStr = String.format("%.2f", invoice.getTotalAmount());
-        bill.append(String.format("TOTAL:                           %8s\n", totalStr));
-        bill.append("==================================================\n");
-        bill.append("           Thank You For Your Purchase           \n");
-        bill.append("==================================================\n");
-
-        return bill.toString();
+        LOGGER.fine(() -> "Generating printable bill for invoice: " + invoice.getInvoiceNumber());
+        return receiptRenderer.render(invoice);
     }
 
     /**
-     * Utility method to format dates in a user-friendly way with time zone adjustment
+     * Write the invoice as an ESC/POS byte sequence for a thermal printer
+     * @param invoice Invoice to print
+     * @param out Stream that receives the printer commands
      */
-    private String formatDateWithLocalTime(Timestamp timestamp) {
-        if (timestamp == null) return "N/A";
-        
-        java.util.TimeZone timezone = java.util.TimeZone.getTimeZone("Asia/Kolkata");
-        java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("yyyy-MM-dd hh:mm:ss a");
-        sdf.setTimeZone(timezone);
-        return sdf.format(timestamp);
+    public void writeEscPosBill(Invoice invoice, OutputStream out) throws IOException {
+        LOGGER.fine(() -> "Generating ESC/POS bill for invoice: " + invoice.getInvoiceNumber());
+        receiptRenderer.renderEscPos(invoice, out);
     }
 }
@@ -6,6 +6,7 @@ import com.pahanaedu.dao.PublisherDAO;
 import com.pahanaedu.model.Book;
 import com.pahanaedu.model.Category;
 import com.pahanaedu.model.Publisher;
+import com.pahanaedu.utils.FieldProjection;
 
 import java.util.List;
 import java.util.logging.Logger;
@@ -18,36 +19,58 @@ public class BookService {
     private final BookDAO bookDAO;
     private final CategoryDAO categoryDAO;
     private final PublisherDAO publisherDAO;
+    private final CatalogueCache catalogue;
 
     public BookService() {
         this.bookDAO = new BookDAO();
         this.categoryDAO = new CategoryDAO();
         this.publisherDAO = new PublisherDAO();
+        this.catalogue = CatalogueCache.getInstance();
     }
 
     public Book getBookById(int id) {
-        LOGGER.info("Fetching book with ID: " + id);
-        return bookDAO.findById(id);
+        return getBookById(id, BookDAO.FIELDS.all());
+    }
+
+    public Book getBookById(int id, FieldProjection fields) {
+        LOGGER.fine(() -> "Fetching book with ID: " + id);
+        return bookDAO.findById(id, fields);
     }
 
     public Book getBookByIsbn(String isbn) {
-        LOGGER.info("Fetching book with ISBN: " + isbn);
-        return bookDAO.findByIsbn(isbn);
+        return getBookByIsbn(isbn, BookDAO.FIELDS.all());
+    }
+
+    public Book getBookByIsbn(String isbn, FieldProjection fields) {
+        LOGGER.fine(() -> "Fetching book with ISBN: " + isbn);
+        return bookDAO.findByIsbn(isbn, fields);
     }
 
     public List<Book> getAllBooks() {
-        LOGGER.info("Fetching all books");
-        return bookDAO.findAll();
+        return getAllBooks(BookDAO.FIELDS.all());
+    }
+
+    public List<Book> getAllBooks(FieldProjection fields) {
+        LOGGER.fine("Fetching all books");
+        return bookDAO.findAll(fields);
     }
 
     public List<Book> getBooksByCategory(int categoryId) {
-        LOGGER.info("Fetching books for category ID: " + categoryId);
-        return bookDAO.findByCategory(categoryId);
+        return getBooksByCategory(categoryId, BookDAO.FIELDS.all());
+    }
+
+    public List<Book> getBooksByCategory(int categoryId, FieldProjection fields) {
+        LOGGER.fine(() -> "Fetching books for category ID: " + categoryId);
+        return bookDAO.findByCategory(categoryId, fields);
     }
 
     public List<Book> searchBooks(String searchTerm) {
-        LOGGER.info("Searching books with term: " + searchTerm);
-        return bookDAO.searchBooks(searchTerm);
+        return searchBooks(searchTerm, BookDAO.FIELDS.all());
+    }
+
+    public List<Book> searchBooks(String searchTerm, FieldProjection fields) {
+        LOGGER.fine(() -> "Searching books with term: " + searchTerm);
+        return bookDAO.searchBooks(searchTerm, fields);
     }
 
     public boolean createBook(Book book) {
@@ -67,7 +90,11 @@ public class BookService {
             return false;
         }
 
-        return bookDAO.create(book);
+        boolean created = bookDAO.create(book);
+        if (created) {
+            catalogue.bookChanged(book.getId());
+        }
+        return created;
     }
 
     public boolean updateBook(Book book) {
@@ -87,26 +114,38 @@ public class BookService {
             return false;
         }
 
-        return bookDAO.update(book);
+        boolean updated = bookDAO.update(book);
+        if (updated) {
+            catalogue.bookChanged(book.getId());
+        }
+        return updated;
     }
 
     public boolean updateBookStock(int bookId, int quantityChange) {
         LOGGER.info("Updating stock for book ID: " + bookId + " by " + quantityChange);
-        return bookDAO.updateStock(bookId, quantityChange);
+        boolean updated = bookDAO.updateStock(bookId, quantityChange);
+        if (updated) {
+            catalogue.bookChanged(bookId);
+        }
+        return updated;
     }
 
     public boolean deleteBook(int bookId) {
         LOGGER.info("Deleting book with ID: " + bookId);
-        return bookDAO.delete(bookId);
+        boolean deleted = bookDAO.delete(bookId);
+        if (deleted) {
+            catalogue.bookChanged(bookId);
+        }
+        return deleted;
     }
 
     public List<Category> getAllCategories() {
-        LOGGER.info("Fetching all categories");
+        LOGGER.fine("Fetching all categories");
         return categoryDAO.findAll();
     }
 
     public Category getCategoryById(int categoryId) {
-        LOGGER.info("Fetching category with ID: " + categoryId);
+        LOGGER.fine(() -> "Fetching category with ID: " + categoryId);
         return categoryDAO.findById(categoryId);
     }
 
@@ -126,12 +165,12 @@ public class BookService {
     }
 
     public List<Publisher> getAllPublishers() {
-        LOGGER.info("Fetching all publishers");
+        LOGGER.fine("Fetching all publishers");
         return publisherDAO.findAll();
     }
 
     public Publisher getPublisherById(int publisherId) {
-        LOGGER.info("Fetching publisher with ID: " + publisherId);
+        LOGGER.fine(() -> "Fetching publisher with ID: " + publisherId);
         return publisherDAO.findById(publisherId);
     }
 
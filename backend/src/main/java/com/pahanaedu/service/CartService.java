@@ -0,0 +1,216 @@
+package com.pahanaedu.service;
+
+import com.pahanaedu.dao.BookDAO;
+import com.pahanaedu.model.Book;
+import com.pahanaedu.model.Cart;
+import com.pahanaedu.model.Invoice;
+import com.pahanaedu.model.InvoiceItem;
+import com.pahanaedu.model.User;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Service class for server-side carts.
+ * A book is looked up once when it is first added to a cart; later edits of the same line
+ * reuse the validated price and only adjust the running totals.
+ */
+public class CartService {
+    private static final Logger LOGGER = Logger.getLogger(CartService.class.getName());
+    private static final BigDecimal HUNDRED = new BigDecimal("100");
+
+    private final BookDAO bookDAO;
+    private final BillingService billingService;
+    private final CartStore cartStore;
+
+    public CartService() {
+        this(new BookDAO(), new BillingService(), CartStore.getInstance());
+    }
+
+    public CartService(BookDAO bookDAO, BillingService billingService, CartStore cartStore) {
+        this.bookDAO = bookDAO;
+        this.billingService = billingService;
+        this.cartStore = cartStore;
+    }
+
+    public Cart createCart(User cashier, Integer customerId, boolean applyTax, BigDecimal discountAmount) {
+        Cart cart = new Cart(UUID.randomUUID().toString(), cashier.getId(), cashier.getFullName(),
+                BillingService.TAX_RATE);
+        cart.setCustomerId(customerId);
+        cart.setApplyTax(applyTax);
+        cart.setDiscountAmount(validateDiscountAmount(discountAmount));
+        cartStore.put(cart);
+        LOGGER.info("Created cart " + cart.getId() + " for cashier ID: " + cashier.getId());
+        return cart;
+    }
+
+    /**
+     * Gets a cart owned by the given cashier
+     * @return The cart, or null if it does not exist, has expired or belongs to someone else
+     */
+    public Cart getCart(String cartId, int cashierId) {
+        Cart cart = cartStore.get(cartId);
+        if (cart == null || cart.getCashierId() != cashierId) {
+            return null;
+        }
+        return cart;
+    }
+
+    public void discardCart(Cart cart) {
+        cartStore.remove(cart.getId());
+    }
+
+    public void updateHeader(Cart cart, Integer customerId, Boolean applyTax, BigDecimal discountAmount) {
+        synchronized (cart) {
+            if (customerId != null) {
+                cart.setCustomerId(customerId);
+            }
+            if (applyTax != null) {
+                cart.setApplyTax(applyTax);
+            }
+            if (discountAmount != null) {
+                cart.setDiscountAmount(validateDiscountAmount(discountAmount));
+            }
+        }
+    }
+
+    /**
+     * Apply a line delta to the cart.
+     * Either an absolute quantity or a relative quantity change must be given; a resulting
+     * quantity of zero removes the line.
+     *
+     * @return The updated line, or null if the line was removed
+     * @throws IllegalArgumentException If the delta is invalid for this cart
+     */
+    public InvoiceItem updateLine(Cart cart, int bookId, Integer quantity, Integer quantityChange,
+                                  BigDecimal discountPercent) {
+        if (quantity == null && quantityChange == null) {
+            throw new IllegalArgumentException("Either quantity or quantityChange is required");
+        }
+        if (discountPercent != null
+                && (discountPercent.signum() < 0 || discountPercent.compareTo(HUNDRED) > 0)) {
+            throw new IllegalArgumentException("Discount percentage must be between 0 and 100");
+        }
+
+        // Only the first edit of a book touches the database; the lookup happens outside the cart lock
+        boolean knownLine;
+        synchronized (cart) {
+            knownLine = cart.getLine(bookId) != null;
+        }
+        Book book = null;
+        if (!knownLine) {
+            book = bookDAO.findById(bookId);
+            if (book == null) {
+                throw new IllegalArgumentException("Book not found with ID: " + bookId);
+            }
+        }
+
+        synchronized (cart) {
+            InvoiceItem existing = cart.getLine(bookId);
+            int currentQuantity = existing != null ? existing.getQuantity() : 0;
+            int newQuantity = quantity != null ? quantity : currentQuantity + quantityChange;
+
+            if (newQuantity < 0) {
+                throw new IllegalArgumentException("Quantity cannot be negative");
+            }
+            if (newQuantity == 0) {
+                cart.removeLine(bookId);
+                return null;
+            }
+            if (existing == null && book == null) {
+                throw new IllegalArgumentException("Cart line was removed concurrently, please retry");
+            }
+
+            InvoiceItem line = new InvoiceItem();
+            line.setBookId(bookId);
+            int stockQuantity;
+            if (existing != null) {
+                line.setBookTitle(existing.getBookTitle());
+                line.setBookIsbn(existing.getBookIsbn());
+                line.setUnitPrice(existing.getUnitPrice());
+                line.setDiscountPercent(existing.getDiscountPercent());
+                stockQuantity = cart.getAvailableStock(bookId);
+            } else {
+                line.setBookTitle(book.getTitle());
+                line.setBookIsbn(book.getIsbn());
+                line.setUnitPrice(book.getPrice());
+                stockQuantity = book.getStockQuantity();
+            }
+            if (discountPercent != null) {
+                line.setDiscountPercent(discountPercent);
+            }
+
+            if (newQuantity > stockQuantity) {
+                throw new IllegalArgumentException("Insufficient stock. Only " + stockQuantity + " available.");
+            }
+
+            line.setQuantity(newQuantity);
+            cart.putLine(line, stockQuantity);
+            return line;
+        }
+    }
+
+    /**
+     * Turn a cart into an invoice, reusing its already validated and priced lines.
+     * The cart is removed from the store while checkout runs and restored if it fails.
+     *
+     * @return The created invoice, or null if it could not be saved
+     */
+    public Invoice checkout(Cart cart, String paymentMethod, String notes) {
+        if (cartStore.remove(cart.getId()) == null) {
+            LOGGER.warning("Cart already checked out or expired: " + cart.getId());
+            return null;
+        }
+
+        Invoice invoice = new Invoice();
+        synchronized (cart) {
+            if (cart.getLineCount() == 0) {
+                cartStore.put(cart);
+                throw new IllegalArgumentException("Cart has no items");
+            }
+
+            invoice.setCashierId(cart.getCashierId());
+            invoice.setCashierName(cart.getCashierName());
+            invoice.setCustomerId(cart.getCustomerId());
+            invoice.setInvoiceDate(new Timestamp(System.currentTimeMillis()));
+            invoice.setPaymentMethod(paymentMethod != null && !paymentMethod.isEmpty() ? paymentMethod : "CASH");
+            invoice.setNotes(notes);
+
+            List<InvoiceItem> items = new ArrayList<>(cart.getLineCount());
+            for (InvoiceItem line : cart.getLines()) {
+                InvoiceItem item = new InvoiceItem(line.getBookId(), line.getQuantity(),
+                        line.getUnitPrice(), line.getDiscountPercent());
+                item.setBookTitle(line.getBookTitle());
+                item.setBookIsbn(line.getBookIsbn());
+                items.add(item);
+            }
+            invoice.setItems(items);
+            invoice.setSubtotal(cart.getSubtotal());
+            invoice.setDiscountAmount(cart.getDiscountAmount());
+            invoice.setTaxAmount(cart.getTaxAmount());
+            invoice.setTotalAmount(cart.getTotalAmount());
+        }
+
+        if (billingService.createValidatedInvoice(invoice)) {
+            LOGGER.info("Cart " + cart.getId() + " checked out as invoice ID: " + invoice.getId());
+            return invoice;
+        }
+
+        cartStore.put(cart);
+        return null;
+    }
+
+    private BigDecimal validateDiscountAmount(BigDecimal discountAmount) {
+        if (discountAmount == null) {
+            return BigDecimal.ZERO;
+        }
+        if (discountAmount.signum() < 0) {
+            throw new IllegalArgumentException("Discount amount cannot be negative");
+        }
+        return discountAmount;
+    }
+}
@@ -0,0 +1,107 @@
+package com.pahanaedu.service;
+
+import com.pahanaedu.model.Cart;
+import com.pahanaedu.utils.AppConfig;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+/**
+ * Bounded, expiring in-memory store for carts.
+ * Entries are kept in access order, so the least recently used cart is evicted first
+ * when the store is full and expired carts are always found at the head of the map.
+ */
+public class CartStore {
+    private static final Logger LOGGER = Logger.getLogger(CartStore.class.getName());
+    private static final CartStore INSTANCE = new CartStore(
+            AppConfig.getInt("app.cart.max-carts", 500),
+            TimeUnit.MINUTES.toMillis(AppConfig.getLong("app.cart.ttl-minutes", 30)),
+            System::currentTimeMillis);
+
+    private final int maxCarts;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final Map<String, CartEntry> carts;
+
+    private static final class CartEntry {
+        private final Cart cart;
+        private long lastAccessed;
+
+        private CartEntry(Cart cart, long lastAccessed) {
+            this.cart = cart;
+            this.lastAccessed = lastAccessed;
+        }
+    }
+
+    public CartStore(int maxCarts, long ttlMillis, LongSupplier clock) {
+        this.maxCarts = maxCarts;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.carts = new LinkedHashMap<String, CartEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CartEntry> eldest) {
+                if (size() > CartStore.this.maxCarts) {
+                    LOGGER.info("Cart store full, evicting cart: " + eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public static CartStore getInstance() {
+        return INSTANCE;
+    }
+
+    public synchronized void put(Cart cart) {
+        long now = clock.getAsLong();
+        evictExpired(now);
+        carts.put(cart.getId(), new CartEntry(cart, now));
+    }
+
+    /**
+     * Gets a cart and refreshes its expiry time.
+     *
+     * @return The cart, or null if it does not exist or has expired
+     */
+    public synchronized Cart get(String cartId) {
+        long now = clock.getAsLong();
+        evictExpired(now);
+        CartEntry entry = carts.get(cartId);
+        if (entry == null) {
+            return null;
+        }
+        entry.lastAccessed = now;
+        return entry.cart;
+    }
+
+    public synchronized Cart remove(String cartId) {
+        CartEntry entry = carts.remove(cartId);
+        return entry != null ? entry.cart : null;
+    }
+
+    public synchronized int size() {
+        evictExpired(clock.getAsLong());
+        return carts.size();
+    }
+
+    public int getMaxCarts() {
+        return maxCarts;
+    }
+
+    // Expired carts sit at the head of the access-ordered map, so stop at the first live one
+    private void evictExpired(long now) {
+        Iterator<CartEntry> iterator = carts.values().iterator();
+        while (iterator.hasNext()) {
+            CartEntry entry = iterator.next();
+            if (now - entry.lastAccessed < ttlMillis) {
+                break;
+            }
+            iterator.remove();
+        }
+    }
+}
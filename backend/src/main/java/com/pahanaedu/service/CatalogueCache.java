@@ -0,0 +1,468 @@
+package com.pahanaedu.service;
+
+import com.pahanaedu.dao.BookDAO;
+import com.pahanaedu.dao.CustomerDAO;
+import com.pahanaedu.model.Book;
+import com.pahanaedu.model.Customer;
+import com.pahanaedu.utils.AppConfig;
+import com.pahanaedu.utils.CacheStats;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Versioned in-memory copy of the books and customers the billing screen needs.
+ * <p>
+ * Only a compact projection of each row is kept. Every change gets the next version
+ * number, so a till that already holds version {@code v} can ask for just the rows changed
+ * after it. Services report writes through {@link #bookChanged(int)} and
+ * {@link #customerChanged(int)}; a full reload every {@code app.catalogue.max-age-minutes}
+ * picks up changes made outside the application and is diffed the same way.
+ * <p>
+ * A read that fails leaves the cached rows as they are, so a database error is never taken
+ * for a deletion. Every read takes a ticket before it starts, and a row is only replaced by
+ * a read that started after the one it came from, so when two changes to the same book race
+ * the older read cannot land last.
+ */
+public class CatalogueCache {
+    private static final Logger LOGGER = Logger.getLogger(CatalogueCache.class.getName());
+    private static final CatalogueCache INSTANCE = new CatalogueCache(new DaoSource(), ParallelLoader.getInstance(),
+            TimeUnit.MINUTES.toMillis(AppConfig.getLong("app.catalogue.max-age-minutes", 10)),
+            System::currentTimeMillis);
+
+    /**
+     * Where rows are loaded from. A missing row is null; a failed read throws.
+     */
+    public interface Source {
+        List<Book> loadBooks() throws SQLException;
+
+        List<Customer> loadCustomers() throws SQLException;
+
+        Book loadBook(int id) throws SQLException;
+
+        Customer loadCustomer(int id) throws SQLException;
+    }
+
+    /**
+     * Book fields shown on the till
+     */
+    public static final class BookRow {
+        private final int id;
+        private final String isbn;
+        private final String title;
+        private final BigDecimal price;
+        private final int stockQuantity;
+
+        BookRow(Book book) {
+            this.id = book.getId();
+            this.isbn = book.getIsbn();
+            this.title = book.getTitle();
+            this.price = book.getPrice();
+            this.stockQuantity = book.getStockQuantity();
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public int getStockQuantity() {
+            return stockQuantity;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof BookRow)) {
+                return false;
+            }
+            BookRow other = (BookRow) o;
+            return id == other.id && stockQuantity == other.stockQuantity && Objects.equals(isbn, other.isbn)
+                    && Objects.equals(title, other.title) && Objects.equals(price, other.price);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, isbn, title, price, stockQuantity);
+        }
+    }
+
+    /**
+     * Customer fields shown on the till
+     */
+    public static final class CustomerRow {
+        private final int id;
+        private final String accountNumber;
+        private final String name;
+        private final String telephone;
+
+        CustomerRow(Customer customer) {
+            this.id = customer.getId();
+            this.accountNumber = customer.getAccountNumber();
+            this.name = customer.getName();
+            this.telephone = customer.getTelephone();
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CustomerRow)) {
+                return false;
+            }
+            CustomerRow other = (CustomerRow) o;
+            return id == other.id && Objects.equals(accountNumber, other.accountNumber)
+                    && Objects.equals(name, other.name) && Objects.equals(telephone, other.telephone);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, accountNumber, name, telephone);
+        }
+    }
+
+    /**
+     * Rows returned to a client. A delta only lists rows changed after the requested version.
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final boolean full;
+        private final List<BookRow> books;
+        private final List<CustomerRow> customers;
+        private final List<Integer> removedBooks;
+        private final List<Integer> removedCustomers;
+
+        private Snapshot(long version, boolean full, List<BookRow> books, List<CustomerRow> customers,
+                         List<Integer> removedBooks, List<Integer> removedCustomers) {
+            this.version = version;
+            this.full = full;
+            this.books = books;
+            this.customers = customers;
+            this.removedBooks = removedBooks;
+            this.removedCustomers = removedCustomers;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public boolean isFull() {
+            return full;
+        }
+
+        public List<BookRow> getBooks() {
+            return books;
+        }
+
+        public List<CustomerRow> getCustomers() {
+            return customers;
+        }
+
+        public List<Integer> getRemovedBooks() {
+            return removedBooks;
+        }
+
+        public List<Integer> getRemovedCustomers() {
+            return removedCustomers;
+        }
+    }
+
+    /**
+     * A row, the version at which it last changed and the ticket of the read it came from;
+     * a null row marks a removal
+     */
+    private static final class Versioned<T> {
+        private final T row;
+        private final long version;
+        private final long ticket;
+
+        private Versioned(T row, long version, long ticket) {
+            this.row = row;
+            this.version = version;
+            this.ticket = ticket;
+        }
+    }
+
+    private final Source source;
+    private final ParallelLoader loader;
+    private final long maxAgeMillis;
+    private final LongSupplier clock;
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    private final CacheStats stats = new CacheStats();
+
+    private final Map<Integer, Versioned<BookRow>> books = new LinkedHashMap<>();
+    private final Map<Integer, Versioned<CustomerRow>> customers = new LinkedHashMap<>();
+    private long baseVersion;
+    private long version;
+    private long loadedAt;
+    private boolean loaded;
+    private long tickets;
+
+    public CatalogueCache(Source source, ParallelLoader loader, long maxAgeMillis, LongSupplier clock) {
+        this.source = source;
+        this.loader = loader;
+        this.maxAgeMillis = maxAgeMillis;
+        this.clock = clock;
+    }
+
+    public static CatalogueCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get the catalogue, or only what changed after {@code since}.
+     * A full copy is returned when {@code since} is negative or not from this cache's history.
+     */
+    public Snapshot snapshot(long since) {
+        ensureFresh();
+
+        synchronized (this) {
+            boolean full = since < baseVersion || since > version;
+            List<BookRow> bookRows = new ArrayList<>();
+            List<Integer> removedBooks = new ArrayList<>();
+            collect(books, full ? Long.MIN_VALUE : since, bookRows, removedBooks);
+
+            List<CustomerRow> customerRows = new ArrayList<>();
+            List<Integer> removedCustomers = new ArrayList<>();
+            collect(customers, full ? Long.MIN_VALUE : since, customerRows, removedCustomers);
+
+            if (full) {
+                removedBooks.clear();
+                removedCustomers.clear();
+            }
+            return new Snapshot(version, full, bookRows, customerRows, removedBooks, removedCustomers);
+        }
+    }
+
+    /**
+     * Current version, loading the catalogue first if needed
+     */
+    public long getVersion() {
+        ensureFresh();
+        synchronized (this) {
+            return version;
+        }
+    }
+
+    /**
+     * Re-read one book after it was created, edited, deleted or its stock changed
+     */
+    public void bookChanged(int bookId) {
+        if (!isLoaded()) {
+            return;
+        }
+        // Read outside the monitor so no JDBC call runs while it is held
+        long ticket = nextTicket();
+        Book book;
+        try {
+            book = source.loadBook(bookId);
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Could not re-read book " + bookId + ", keeping the cached row until reload", e);
+            return;
+        }
+        synchronized (this) {
+            apply(books, bookId, book != null ? new BookRow(book) : null, ticket);
+        }
+    }
+
+    public void booksChanged(Collection<Integer> bookIds) {
+        for (Integer bookId : new HashSet<>(bookIds)) {
+            bookChanged(bookId);
+        }
+    }
+
+    /**
+     * Re-read one customer after it was created, edited or deleted
+     */
+    public void customerChanged(int customerId) {
+        if (!isLoaded()) {
+            return;
+        }
+        long ticket = nextTicket();
+        Customer customer;
+        try {
+            customer = source.loadCustomer(customerId);
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Could not re-read customer " + customerId
+                    + ", keeping the cached row until reload", e);
+            return;
+        }
+        synchronized (this) {
+            apply(customers, customerId, customer != null ? new CustomerRow(customer) : null, ticket);
+        }
+    }
+
+    /**
+     * Reload everything now; changed rows get new versions as usual.
+     * If either list cannot be read the cached rows are kept and the catalogue stays due for reload.
+     */
+    public void reload() {
+        reloadLock.lock();
+        try {
+            long ticket = nextTicket();
+            ParallelLoader.Batch batch = loader.batch();
+            CompletableFuture<List<Book>> bookList = batch.submit(source::loadBooks);
+            CompletableFuture<List<Customer>> customerList = batch.submit(source::loadCustomers);
+            try {
+                batch.await();
+            } catch (ParallelLoader.LoadException e) {
+                LOGGER.log(Level.SEVERE, "Could not load the catalogue, keeping the cached rows", e);
+                return;
+            }
+
+            Map<Integer, BookRow> bookRows = new LinkedHashMap<>();
+            for (Book book : bookList.join()) {
+                bookRows.put(book.getId(), new BookRow(book));
+            }
+            Map<Integer, CustomerRow> customerRows = new LinkedHashMap<>();
+            for (Customer customer : customerList.join()) {
+                customerRows.put(customer.getId(), new CustomerRow(customer));
+            }
+
+            synchronized (this) {
+                if (!loaded) {
+                    // Versions from a previous run fall below the new base and get a full copy
+                    baseVersion = clock.getAsLong() * 1000;
+                    version = baseVersion;
+                }
+                reconcile(books, bookRows, ticket);
+                reconcile(customers, customerRows, ticket);
+                loaded = true;
+                loadedAt = clock.getAsLong();
+                LOGGER.info("Catalogue loaded: " + bookRows.size() + " books, " + customerRows.size()
+                        + " customers, version " + version);
+            }
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /**
+     * Reads served from memory count as hits, reads that had to reload first as misses
+     */
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    private void ensureFresh() {
+        synchronized (this) {
+            if (loaded && clock.getAsLong() - loadedAt < maxAgeMillis) {
+                stats.recordHit();
+                return;
+            }
+        }
+
+        reloadLock.lock();
+        try {
+            // Another caller may have reloaded while this one waited
+            synchronized (this) {
+                if (loaded && clock.getAsLong() - loadedAt < maxAgeMillis) {
+                    stats.recordHit();
+                    return;
+                }
+            }
+            stats.recordMiss();
+            reload();
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    private synchronized long nextTicket() {
+        return ++tickets;
+    }
+
+    private <T> void reconcile(Map<Integer, Versioned<T>> current, Map<Integer, T> fresh, long ticket) {
+        Set<Integer> gone = new HashSet<>(current.keySet());
+        gone.removeAll(fresh.keySet());
+        for (Integer id : gone) {
+            apply(current, id, null, ticket);
+        }
+        for (Map.Entry<Integer, T> entry : fresh.entrySet()) {
+            apply(current, entry.getKey(), entry.getValue(), ticket);
+        }
+    }
+
+    private <T> void apply(Map<Integer, Versioned<T>> current, int id, T row, long ticket) {
+        Versioned<T> existing = current.get(id);
+        if (existing != null && existing.ticket > ticket) {
+            // A read that started later has already been applied
+            return;
+        }
+        T previous = existing != null ? existing.row : null;
+        if (existing == null && row == null) {
+            return;
+        }
+        if (Objects.equals(previous, row)) {
+            // Same row, but remember the newer read so an older one cannot replace it
+            current.put(id, new Versioned<>(row, existing.version, ticket));
+            return;
+        }
+        version++;
+        current.put(id, new Versioned<>(row, version, ticket));
+    }
+
+    private static <T> void collect(Map<Integer, Versioned<T>> current, long since, List<T> rows, List<Integer> removed) {
+        for (Map.Entry<Integer, Versioned<T>> entry : current.entrySet()) {
+            Versioned<T> versioned = entry.getValue();
+            if (versioned.version <= since) {
+                continue;
+            }
+            if (versioned.row != null) {
+                rows.add(versioned.row);
+            } else {
+                removed.add(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Loads rows through the DAOs
+     */
+    private static final class DaoSource implements Source {
+        private final BookDAO bookDAO = new BookDAO();
+        private final CustomerDAO customerDAO = new CustomerDAO();
+
+        @Override
+        public List<Book> loadBooks() throws SQLException {
+            return bookDAO.readAll(BookDAO.FIELDS.all());
+        }
+
+        @Override
+        public List<Customer> loadCustomers() throws SQLException {
+            return customerDAO.readAll(CustomerDAO.FIELDS.all());
+        }
+
+        @Override
+        public Book loadBook(int id) throws SQLException {
+            return bookDAO.readById(id, BookDAO.FIELDS.all());
+        }
+
+        @Override
+        public Customer loadCustomer(int id) throws SQLException {
+            return customerDAO.readById(id, CustomerDAO.FIELDS.all());
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.pahanaedu.service;
 
 import com.pahanaedu.dao.CustomerDAO;
 import com.pahanaedu.model.Customer;
+import com.pahanaedu.utils.FieldProjection;
 
 import java.util.List;
 import java.util.logging.Logger;
@@ -12,29 +13,47 @@ import java.util.logging.Logger;
 public class CustomerService {
     private static final Logger LOGGER = Logger.getLogger(CustomerService.class.getName());
     private final CustomerDAO customerDAO;
+    private final CatalogueCache catalogue;
 
     public CustomerService() {
         this.customerDAO = new CustomerDAO();
+        this.catalogue = CatalogueCache.getInstance();
     }
 
     public Customer getCustomerById(int id) {
-        LOGGER.info("Fetching customer with ID: " + id);
-        return customerDAO.findById(id);
+        return getCustomerById(id, CustomerDAO.FIELDS.all());
+    }
+
+    public Customer getCustomerById(int id, FieldProjection fields) {
+        LOGGER.fine(() -> "Fetching customer with ID: " + id);
+        return customerDAO.findById(id, fields);
     }
 
     public Customer getCustomerByAccountNumber(String accountNumber) {
-        LOGGER.info("Fetching customer with account number: " + accountNumber);
-        return customerDAO.findByAccountNumber(accountNumber);
+        return getCustomerByAccountNumber(accountNumber, CustomerDAO.FIELDS.all());
+    }
+
+    public Customer getCustomerByAccountNumber(String accountNumber, FieldProjection fields) {
+        LOGGER.fine(() -> "Fetching customer with account number: " + accountNumber);
+        return customerDAO.findByAccountNumber(accountNumber, fields);
     }
 
     public List<Customer> getAllCustomers() {
-        LOGGER.info("Fetching all customers");
-        return customerDAO.findAll();
+        return getAllCustomers(CustomerDAO.FIELDS.all());
+    }
+
+    public List<Customer> getAllCustomers(FieldProjection fields) {
+        LOGGER.fine("Fetching all customers");
+        return customerDAO.findAll(fields);
     }
 
     public List<Customer> searchCustomers(String searchTerm) {
-        LOGGER.info("Searching customers with term: " + searchTerm);
-        return customerDAO.searchCustomers(searchTerm);
+        return searchCustomers(searchTerm, CustomerDAO.FIELDS.all());
+    }
+
+    public List<Customer> searchCustomers(String searchTerm, FieldProjection fields) {
+        LOGGER.fine(() -> "Searching customers with term: " + searchTerm);
+        return customerDAO.searchCustomers(searchTerm, fields);
     }
 
     public boolean createCustomer(Customer customer) {
@@ -45,16 +64,28 @@ public class CustomerService {
             customer.setAccountNumber(customerDAO.generateAccountNumber());
         }
 
-        return customerDAO.create(customer);
+        boolean created = customerDAO.create(customer);
+        if (created) {
+            catalogue.customerChanged(customer.getId());
+        }
+        return created;
     }
 
     public boolean updateCustomer(Customer customer) {
         LOGGER.info("Updating customer with ID: " + customer.getId());
-        return customerDAO.update(customer);
+        boolean updated = customerDAO.update(customer);
+        if (updated) {
+            catalogue.customerChanged(customer.getId());
+        }
+        return updated;
     }
 
     public boolean deleteCustomer(int customerId) {
         LOGGER.info("Deleting customer with ID: " + customerId);
-        return customerDAO.delete(customerId);
+        boolean deleted = customerDAO.delete(customerId);
+        if (deleted) {
+            catalogue.customerChanged(customerId);
+        }
+        return deleted;
     }
 }
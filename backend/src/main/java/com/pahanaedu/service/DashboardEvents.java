@@ -0,0 +1,94 @@
+package com.pahanaedu.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.pahanaedu.dao.BookChangeLog;
+import com.pahanaedu.model.BookChange;
+import com.pahanaedu.model.Invoice;
+import com.pahanaedu.utils.AppConfig;
+import com.pahanaedu.utils.EventStreamBroadcaster;
+import com.pahanaedu.utils.JsonCodec;
+
+/**
+ * Live events for the dashboard: new invoices, stock changes and books running low.
+ * <p>
+ * Stock events come from the book change log, so every path that changes stock is covered;
+ * invoices are reported by {@link BillingService} once saved. Event IDs only order events
+ * within one run, so a client that reconnects should reload its figures once. IDs are
+ * assigned and handed to the broadcaster under one lock, so events reach clients in ID order
+ * whichever thread publishes them.
+ */
+public class DashboardEvents {
+    public static final String INVOICE_CREATED = "invoice-created";
+    public static final String STOCK_CHANGED = "stock-changed";
+    public static final String LOW_STOCK = "low-stock";
+
+    private static final DashboardEvents INSTANCE = new DashboardEvents(
+            new EventStreamBroadcaster("dashboard-events",
+                    AppConfig.getInt("app.events.queue-size", 64),
+                    AppConfig.getLong("app.events.keep-alive-ms", 15000)),
+            BookChangeLog.getInstance(),
+            AppConfig.getInt("app.events.low-stock-threshold", 5));
+
+    private final EventStreamBroadcaster broadcaster;
+    private final int lowStockThreshold;
+    private long lastId;
+    private final Gson gson = JsonCodec.getGson();
+
+    public DashboardEvents(EventStreamBroadcaster broadcaster, BookChangeLog changeLog, int lowStockThreshold) {
+        this.broadcaster = broadcaster;
+        this.lowStockThreshold = lowStockThreshold;
+        changeLog.addListener(this::bookChanged);
+    }
+
+    public static DashboardEvents getInstance() {
+        return INSTANCE;
+    }
+
+    public EventStreamBroadcaster getBroadcaster() {
+        return broadcaster;
+    }
+
+    /**
+     * ID of the latest event; a new client has seen everything up to here
+     */
+    public synchronized long getLastEventId() {
+        return lastId;
+    }
+
+    public void invoiceCreated(Invoice invoice) {
+        JsonObject data = new JsonObject();
+        data.addProperty("id", invoice.getId());
+        data.addProperty("invoiceNumber", invoice.getInvoiceNumber());
+        data.addProperty("customerName", invoice.getCustomerName());
+        data.add("totalAmount", gson.toJsonTree(invoice.getTotalAmount()));
+        data.addProperty("itemCount", invoice.getItems() != null ? invoice.getItems().size() : 0);
+        publish(INVOICE_CREATED, data);
+    }
+
+    private void bookChanged(BookChange change) {
+        JsonObject data = new JsonObject();
+        data.addProperty("bookId", change.getBookId());
+        data.addProperty("changeType", change.getChangeType());
+        data.addProperty("title", change.getTitle());
+        data.addProperty("stockQuantity", change.getStockQuantity());
+        publish(STOCK_CHANGED, data);
+
+        if (change.getStockQuantity() != null && change.getStockQuantity() <= lowStockThreshold
+                && !BookChange.DELETED.equals(change.getChangeType())) {
+            publish(LOW_STOCK, data);
+        }
+    }
+
+    private void publish(String event, JsonObject data) {
+        String json = gson.toJson(data);
+        // Publishing only queues the event, so this lock is held briefly
+        synchronized (this) {
+            broadcaster.publish(++lastId, event, json);
+        }
+    }
+
+    public void shutdown() {
+        broadcaster.shutdown();
+    }
+}
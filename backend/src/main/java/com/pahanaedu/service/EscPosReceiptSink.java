@@ -0,0 +1,141 @@
+package com.pahanaedu.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Encodes receipt lines as ESC/POS commands for 80mm thermal printers.
+ * <p>
+ * The body is printed in font B so the 50-column layout fits the paper, the title is
+ * centered in bold double size, and the receipt ends with a feed and partial cut.
+ * Characters outside 7-bit ASCII are printed as '?', since printers start in code page 437.
+ * Bytes are written into a buffer that is kept between receipts.
+ */
+class EscPosReceiptSink implements ReceiptSink {
+    private static final byte ESC = 0x1B;
+    private static final byte GS = 0x1D;
+    private static final byte LF = 0x0A;
+
+    // ESC ! print mode bits
+    private static final byte MODE_FONT_B = 0x01;
+    private static final byte MODE_EMPHASIZED = 0x08;
+    private static final byte MODE_DOUBLE_HEIGHT = 0x10;
+    private static final byte MODE_DOUBLE_WIDTH = 0x20;
+
+    private static final int FEED_LINES_BEFORE_CUT = 3;
+    private static final int INITIAL_CAPACITY = 2048;
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int size;
+    private Style currentStyle;
+
+    /**
+     * Clear the buffer and write the printer initialisation sequence
+     */
+    void begin() {
+        size = 0;
+        currentStyle = null;
+        put(ESC, (byte) '@');
+    }
+
+    @Override
+    public void line(CharSequence text, Style style) {
+        if (style != currentStyle) {
+            switchStyle(style);
+        }
+
+        int start = 0;
+        int end = text.length();
+        if (style == Style.TITLE) {
+            // The printer centers the title, so the padding from the text layout is dropped
+            while (start < end && text.charAt(start) == ' ') {
+                start++;
+            }
+            while (end > start && text.charAt(end - 1) == ' ') {
+                end--;
+            }
+        }
+
+        ensureCapacity(end - start + 1);
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            buffer[size++] = c >= 0x20 && c < 0x7F ? (byte) c : (byte) '?';
+        }
+        buffer[size++] = LF;
+    }
+
+    /**
+     * Feed the paper past the cutter and cut
+     */
+    void end() {
+        if (currentStyle != Style.NORMAL) {
+            switchStyle(Style.NORMAL);
+        }
+        put(ESC, (byte) 'd', (byte) FEED_LINES_BEFORE_CUT);
+        put(GS, (byte) 'V', (byte) 66, (byte) 0);
+    }
+
+    int size() {
+        return size;
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, size);
+    }
+
+    int capacity() {
+        return buffer.length;
+    }
+
+    private void switchStyle(Style style) {
+        switch (style) {
+            case TITLE:
+                put(ESC, (byte) 'a', (byte) 1);
+                put(ESC, (byte) '!', (byte) (MODE_EMPHASIZED | MODE_DOUBLE_HEIGHT | MODE_DOUBLE_WIDTH));
+                break;
+            case EMPHASIS:
+                leaveTitle();
+                put(ESC, (byte) '!', (byte) (MODE_FONT_B | MODE_EMPHASIZED));
+                break;
+            default:
+                leaveTitle();
+                put(ESC, (byte) '!', MODE_FONT_B);
+                break;
+        }
+        currentStyle = style;
+    }
+
+    private void leaveTitle() {
+        if (currentStyle == Style.TITLE) {
+            put(ESC, (byte) 'a', (byte) 0);
+        }
+    }
+
+    private void put(byte command, byte function) {
+        ensureCapacity(2);
+        buffer[size++] = command;
+        buffer[size++] = function;
+    }
+
+    private void put(byte command, byte function, byte argument) {
+        ensureCapacity(3);
+        buffer[size++] = command;
+        buffer[size++] = function;
+        buffer[size++] = argument;
+    }
+
+    private void put(byte command, byte function, byte first, byte second) {
+        ensureCapacity(4);
+        buffer[size++] = command;
+        buffer[size++] = function;
+        buffer[size++] = first;
+        buffer[size++] = second;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+}
@@ -0,0 +1,449 @@
+package com.pahanaedu.service;
+
+import com.pahanaedu.model.Invoice;
+import com.pahanaedu.utils.AppConfig;
+import com.pahanaedu.utils.BoundedExecutors;
+import com.pahanaedu.utils.CacheStats;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Produces PDF invoices and month-end customer statements.
+ * <p>
+ * Rendering runs on a small bounded pool so document requests cannot tie up the
+ * request threads; when the pool and its queue are full, submissions are rejected
+ * with {@link RejectedExecutionException}. Generated files are cached on local disk,
+ * named by invoice id and a hash of the rendered content, so unchanged documents are
+ * served straight from disk and edited invoices get a fresh file.
+ * <p>
+ * A replaced version is only deleted once nobody can still be about to read it: a file is
+ * touched whenever it is handed out, and older versions are removed only when they have not
+ * been touched for the render timeout (invoices) or the job retention (statements, whose
+ * completed jobs keep pointing at their file).
+ */
+public class InvoiceDocumentService {
+    private static final Logger LOGGER = Logger.getLogger(InvoiceDocumentService.class.getName());
+
+    // Bump when the PDF layout changes so cached files are regenerated
+    private static final String LAYOUT_VERSION = "1";
+    private static final int HASH_LENGTH = 16;
+
+    private static final ZoneId STATEMENT_ZONE = ZoneId.of("Asia/Kolkata");
+    private static final DateTimeFormatter STATEMENT_DATE_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd", Locale.ENGLISH).withZone(STATEMENT_ZONE);
+    private static final ReceiptTemplate STATEMENT_ROW = ReceiptTemplate.compile("{number:<24} {date:<12} {total:>12}");
+    private static final ReceiptTemplate STATEMENT_TOTAL = ReceiptTemplate.compile("{label:<37} {total:>12}");
+    private static final String STATEMENT_COLUMNS = "Invoice #                Date               Amount";
+
+    private static final InvoiceDocumentService INSTANCE = new InvoiceDocumentService(
+            new BillingService(),
+            new ReceiptRenderer(),
+            createExecutor(AppConfig.getInt("app.documents.workers", 2),
+                    AppConfig.getInt("app.documents.queue-size", 16)),
+            Paths.get(AppConfig.getString("app.documents.cache-dir",
+                    Paths.get(System.getProperty("java.io.tmpdir"), "pahana-edu-documents").toString())),
+            AppConfig.getLong("app.documents.render-timeout-ms", 15000),
+            TimeUnit.MINUTES.toMillis(AppConfig.getLong("app.documents.job-retention-minutes", 60)));
+
+    public enum JobStatus {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    /**
+     * A month-end statement requested for one customer
+     */
+    public static final class StatementJob {
+        private final String id;
+        private final int customerId;
+        private final YearMonth month;
+        private final long createdAt;
+        private volatile JobStatus status = JobStatus.QUEUED;
+        private volatile Path file;
+        private volatile int invoiceCount;
+        private volatile String error;
+        private volatile long finishedAt;
+
+        private StatementJob(int customerId, YearMonth month, long createdAt) {
+            this.id = UUID.randomUUID().toString();
+            this.customerId = customerId;
+            this.month = month;
+            this.createdAt = createdAt;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public int getCustomerId() {
+            return customerId;
+        }
+
+        public YearMonth getMonth() {
+            return month;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        public JobStatus getStatus() {
+            return status;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        public int getInvoiceCount() {
+            return invoiceCount;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    private final BillingService billingService;
+    private final ReceiptRenderer receiptRenderer;
+    private final ExecutorService executor;
+    private final Path cacheDir;
+    private final long renderTimeoutMillis;
+    private final long jobRetentionMillis;
+    private final Map<Path, Future<Path>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, StatementJob> jobs = new ConcurrentHashMap<>();
+    private final CacheStats stats = new CacheStats();
+
+    public InvoiceDocumentService(BillingService billingService, ReceiptRenderer receiptRenderer,
+                                  ExecutorService executor, Path cacheDir,
+                                  long renderTimeoutMillis, long jobRetentionMillis) {
+        this.billingService = billingService;
+        this.receiptRenderer = receiptRenderer;
+        this.executor = executor;
+        this.cacheDir = cacheDir;
+        this.renderTimeoutMillis = renderTimeoutMillis;
+        this.jobRetentionMillis = jobRetentionMillis;
+    }
+
+    public static InvoiceDocumentService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Create the bounded pool used for document rendering.
+     * The queue is fixed in size and the default abort policy rejects work once it is full.
+     */
+    public static ThreadPoolExecutor createExecutor(int workers, int queueSize) {
+        // Rendering is CPU-bound, so the limit stays the same on virtual threads
+        return BoundedExecutors.newBoundedExecutor("invoice-documents", workers, workers, queueSize);
+    }
+
+    /**
+     * Get the PDF for an invoice, rendering it on the document pool if it is not cached
+     * @param invoiceId ID of the invoice
+     * @return Path of the cached PDF, or null if the invoice does not exist
+     * @throws RejectedExecutionException if the document pool is saturated
+     * @throws TimeoutException if rendering did not finish within the configured timeout
+     */
+    public Path getInvoicePdf(int invoiceId) throws IOException, TimeoutException {
+        Invoice invoice = billingService.getInvoiceById(invoiceId);
+        if (invoice == null) {
+            return null;
+        }
+
+        String hash = hash(LAYOUT_VERSION + "\n" + receiptRenderer.render(invoice));
+        String prefix = "invoice-" + invoiceId + "-";
+        Path target = cacheDir.resolve(prefix + hash + ".pdf");
+        if (markInUse(target)) {
+            stats.recordHit();
+            return target;
+        }
+        stats.recordMiss();
+
+        Future<Path> pending = submitOnce(target, () -> {
+            writeAtomically(target, receiptRenderer.renderPdf(invoice));
+            deleteStale(prefix, target, renderTimeoutMillis);
+            LOGGER.info("Rendered PDF for invoice: " + invoice.getInvoiceNumber());
+            return target;
+        });
+        return await(pending);
+    }
+
+    /**
+     * Queue a statement for every invoice a customer received in the given month
+     * @throws RejectedExecutionException if the document pool is saturated
+     */
+    public StatementJob submitStatement(int customerId, YearMonth month) {
+        pruneFinishedJobs();
+
+        StatementJob job = new StatementJob(customerId, month, System.currentTimeMillis());
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> runStatement(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw e;
+        }
+
+        LOGGER.info("Queued statement " + job.id + " for customer ID: " + customerId + ", month: " + month);
+        return job;
+    }
+
+    public StatementJob getStatementJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * Hits are invoice and statement PDFs found on disk, misses those that had to be rendered
+     */
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    public int getQueueDepth() {
+        return BoundedExecutors.queueDepth(executor);
+    }
+
+    public int getActiveCount() {
+        return BoundedExecutors.activeCount(executor);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void runStatement(StatementJob job) {
+        job.status = JobStatus.RUNNING;
+        try {
+            List<Invoice> invoices = new ArrayList<>();
+            for (Invoice invoice : billingService.getInvoicesByCustomer(job.customerId)) {
+                if (invoice.getInvoiceDate() != null && YearMonth.from(
+                        invoice.getInvoiceDate().toInstant().atZone(STATEMENT_ZONE)).equals(job.month)) {
+                    invoices.add(invoice);
+                }
+            }
+            invoices.sort(Comparator.comparing(Invoice::getInvoiceDate));
+
+            StringBuilder fingerprint = new StringBuilder(LAYOUT_VERSION);
+            for (Invoice invoice : invoices) {
+                fingerprint.append('\n').append(invoice.getInvoiceNumber())
+                        .append('|').append(invoice.getInvoiceDate().getTime())
+                        .append('|').append(invoice.getTotalAmount())
+                        .append('|').append(invoice.getCustomerName());
+            }
+            String prefix = "statement-" + job.customerId + "-" + job.month + "-";
+            Path target = cacheDir.resolve(prefix + hash(fingerprint.toString()) + ".pdf");
+
+            if (!markInUse(target)) {
+                stats.recordMiss();
+                writeAtomically(target, renderStatement(job, invoices));
+                deleteStale(prefix, target, jobRetentionMillis);
+            } else {
+                stats.recordHit();
+            }
+
+            job.invoiceCount = invoices.size();
+            job.file = target;
+            job.status = JobStatus.COMPLETED;
+            LOGGER.info("Statement " + job.id + " completed with " + invoices.size() + " invoices");
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error generating statement " + job.id, e);
+            job.error = e.getMessage();
+            job.status = JobStatus.FAILED;
+        } finally {
+            job.finishedAt = System.currentTimeMillis();
+        }
+    }
+
+    private byte[] renderStatement(StatementJob job, List<Invoice> invoices) {
+        PdfTextDocument document = new PdfTextDocument("Statement " + job.month + " - customer " + job.customerId);
+        StringBuilder line = new StringBuilder(64);
+
+        document.line(ReceiptRenderer.DOUBLE_RULE, PdfTextDocument.Font.REGULAR);
+        document.line(ReceiptRenderer.TITLE, PdfTextDocument.Font.BOLD, 16f, true);
+        document.line("Monthly Statement", PdfTextDocument.Font.BOLD, PdfTextDocument.BODY_SIZE, true);
+        document.line(ReceiptRenderer.DOUBLE_RULE, PdfTextDocument.Font.REGULAR);
+        document.line("", PdfTextDocument.Font.REGULAR);
+
+        String customerName = invoices.isEmpty() ? null : invoices.get(0).getCustomerName();
+        line.append("Customer: ").append(customerName != null ? customerName : "Customer")
+                .append(" (ID ").append(job.customerId).append(')');
+        document.line(line, PdfTextDocument.Font.REGULAR);
+        document.line("Period: " + job.month, PdfTextDocument.Font.REGULAR);
+        document.line("", PdfTextDocument.Font.REGULAR);
+
+        document.line(ReceiptRenderer.SINGLE_RULE, PdfTextDocument.Font.REGULAR);
+        document.line(STATEMENT_COLUMNS, PdfTextDocument.Font.REGULAR);
+        document.line(ReceiptRenderer.SINGLE_RULE, PdfTextDocument.Font.REGULAR);
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (Invoice invoice : invoices) {
+            line.setLength(0);
+            int field = STATEMENT_ROW.start(line);
+            field = STATEMENT_ROW.text(line, field, invoice.getInvoiceNumber());
+            field = STATEMENT_ROW.text(line, field,
+                    STATEMENT_DATE_FORMAT.format(Instant.ofEpochMilli(invoice.getInvoiceDate().getTime())));
+            STATEMENT_ROW.amount(line, field, invoice.getTotalAmount());
+            document.line(line, PdfTextDocument.Font.REGULAR);
+
+            if (invoice.getTotalAmount() != null) {
+                total = total.add(invoice.getTotalAmount());
+            }
+        }
+        if (invoices.isEmpty()) {
+            document.line("No invoices for this period.", PdfTextDocument.Font.REGULAR);
+        }
+
+        document.line(ReceiptRenderer.SINGLE_RULE, PdfTextDocument.Font.REGULAR);
+        line.setLength(0);
+        int field = STATEMENT_TOTAL.start(line);
+        field = STATEMENT_TOTAL.text(line, field, "TOTAL (" + invoices.size() + " invoices):");
+        STATEMENT_TOTAL.amount(line, field, total);
+        document.line(line, PdfTextDocument.Font.BOLD);
+        document.line(ReceiptRenderer.DOUBLE_RULE, PdfTextDocument.Font.REGULAR);
+
+        return document.toByteArray();
+    }
+
+    /**
+     * Run a render task unless one for the same file is already queued or running
+     */
+    private Future<Path> submitOnce(Path target, Callable<Path> render) {
+        FutureTask<Path> task = new FutureTask<Path>(render) {
+            @Override
+            protected void done() {
+                inFlight.remove(target, this);
+            }
+        };
+
+        Future<Path> existing = inFlight.putIfAbsent(target, task);
+        if (existing != null) {
+            return existing;
+        }
+
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(target, task);
+            throw e;
+        }
+        return task;
+    }
+
+    private Path await(Future<Path> pending) throws IOException, TimeoutException {
+        try {
+            return pending.get(renderTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for document", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Document rendering failed", cause);
+        }
+    }
+
+    private void writeAtomically(Path target, byte[] content) throws IOException {
+        Files.createDirectories(cacheDir);
+        Path temp = Files.createTempFile(cacheDir, target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, content);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Touch a cached file that is about to be handed out, so it is not removed as stale meanwhile
+     * @return false if the file does not exist
+     */
+    private static boolean markInUse(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Could not touch " + file, e);
+            return Files.exists(file);
+        }
+    }
+
+    /**
+     * Remove older versions of a document once its replacement is in place and they have not been
+     * handed out for {@code keepMillis}
+     */
+    private void deleteStale(String prefix, Path current, long keepMillis) {
+        long cutoff = System.currentTimeMillis() - keepMillis;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDir, prefix + "*.pdf")) {
+            for (Path file : files) {
+                if (!file.equals(current) && Files.getLastModifiedTime(file).toMillis() < cutoff) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // Removed by a concurrent render of the same document
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not remove stale documents for " + prefix, e);
+        }
+    }
+
+    private void pruneFinishedJobs() {
+        long cutoff = System.currentTimeMillis() - jobRetentionMillis;
+        jobs.values().removeIf(job -> job.finishedAt > 0 && job.finishedAt < cutoff);
+    }
+
+    private static String hash(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(HASH_LENGTH);
+            for (int i = 0; i < HASH_LENGTH / 2; i++) {
+                hex.append(Character.forDigit((digest[i] >> 4) & 0xF, 16))
+                        .append(Character.forDigit(digest[i] & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.pahanaedu.service;
+
+import com.pahanaedu.utils.AppConfig;
+import com.pahanaedu.utils.BoundedExecutors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+/**
+ * Runs independent DAO queries concurrently so a composite view costs roughly its slowest
+ * query instead of the sum of all of them.
+ * <p>
+ * Queries are grouped in a {@link Batch} with one deadline. If any query fails, or the
+ * deadline passes, the remaining queries are cancelled and their worker threads interrupted,
+ * which also releases a thread waiting on the connection pool. When the loader pool is full
+ * a query runs on the calling thread instead, so a busy server degrades to serial loading
+ * rather than failing the request.
+ */
+public final class ParallelLoader {
+    private static final Logger LOGGER = Logger.getLogger(ParallelLoader.class.getName());
+
+    private static final ParallelLoader INSTANCE = new ParallelLoader(
+            BoundedExecutors.newBoundedExecutor("parallel-loader",
+                    AppConfig.getInt("app.loader.workers", 8),
+                    AppConfig.getInt("app.loader.virtual-workers", 100),
+                    AppConfig.getInt("app.loader.queue-size", 64)),
+            AppConfig.getLong("app.loader.timeout-ms", 5000));
+
+    /**
+     * A single independent query
+     */
+    public interface Query<T> {
+        T load() throws Exception;
+    }
+
+    /**
+     * Thrown when a batch fails, times out or is interrupted
+     */
+    public static class LoadException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public LoadException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    private final ExecutorService executor;
+    private final long timeoutMillis;
+
+    public ParallelLoader(ExecutorService executor, long timeoutMillis) {
+        this.executor = executor;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public static ParallelLoader getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Start a batch using the configured deadline
+     */
+    public Batch batch() {
+        return batch(timeoutMillis);
+    }
+
+    public Batch batch(long timeoutMillis) {
+        return new Batch(timeoutMillis);
+    }
+
+    public int getQueueDepth() {
+        return BoundedExecutors.queueDepth(executor);
+    }
+
+    public int getActiveCount() {
+        return BoundedExecutors.activeCount(executor);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * A group of queries that share a deadline and are cancelled together.
+     * Submit and await from the requesting thread.
+     */
+    public final class Batch {
+        private final long timeoutMillis;
+        private final long deadline;
+        private final List<FutureTask<Void>> tasks = new ArrayList<>();
+        private final List<CompletableFuture<?>> results = new ArrayList<>();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        private Batch(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+            this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        }
+
+        /**
+         * Start a query. The returned future is complete once {@link #await()} returns normally.
+         */
+        public <T> CompletableFuture<T> submit(Query<T> query) {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            Runnable body = () -> {
+                try {
+                    result.complete(query.load());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            };
+            // Stop the siblings as soon as one query fails
+            result.whenComplete((value, error) -> {
+                if (error != null && !(error instanceof CancellationException)) {
+                    failure.compareAndSet(null, error);
+                    cancelAll();
+                }
+            });
+
+            FutureTask<Void> task = new FutureTask<>(body, null);
+            synchronized (this) {
+                tasks.add(task);
+                results.add(result);
+            }
+
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // Not registered for interruption, since cancelling it would interrupt the caller
+                synchronized (this) {
+                    tasks.remove(task);
+                }
+                LOGGER.info("Loader pool saturated, running query on the calling thread");
+                body.run();
+            }
+            return result;
+        }
+
+        /**
+         * Wait for every submitted query
+         * @throws LoadException if a query failed or the deadline passed; the rest are cancelled
+         */
+        public void await() {
+            CompletableFuture<?>[] pending;
+            synchronized (this) {
+                pending = results.toArray(new CompletableFuture<?>[0]);
+            }
+
+            try {
+                CompletableFuture.allOf(pending).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                cancelAll();
+                throw new LoadException("Queries did not finish within " + timeoutMillis + " ms", e);
+            } catch (ExecutionException e) {
+                cancelAll();
+                Throwable cause = failure.get() != null ? failure.get() : e.getCause();
+                throw new LoadException("Query failed: " + cause.getMessage(), cause);
+            } catch (InterruptedException e) {
+                cancelAll();
+                Thread.currentThread().interrupt();
+                throw new LoadException("Interrupted while waiting for queries", e);
+            }
+        }
+
+        private synchronized void cancelAll() {
+            // Cancel the results first so an interrupted query cannot complete them with its own error
+            for (CompletableFuture<?> result : results) {
+                result.cancel(false);
+            }
+            for (FutureTask<Void> task : tasks) {
+                task.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.pahanaedu.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Minimal PDF 1.4 writer for monospaced text documents on A4 pages.
+ * <p>
+ * Only the standard Courier fonts are used, so nothing needs to be embedded and
+ * column layouts line up exactly as on the printed receipt. Lines flow onto new
+ * pages automatically. Output contains no timestamps, so the same content always
+ * produces the same bytes.
+ */
+class PdfTextDocument {
+    static final float BODY_SIZE = 10f;
+
+    private static final float PAGE_WIDTH = 595f;
+    private static final float PAGE_HEIGHT = 842f;
+    private static final float MARGIN = 56f;
+    private static final float LINE_GAP = 3f;
+    // Courier glyphs are 600/1000 em wide
+    private static final float CHAR_WIDTH_EM = 0.6f;
+
+    enum Font {
+        REGULAR("F1", "Courier"),
+        BOLD("F2", "Courier-Bold");
+
+        private final String resourceName;
+        private final String baseFont;
+
+        Font(String resourceName, String baseFont) {
+            this.resourceName = resourceName;
+            this.baseFont = baseFont;
+        }
+    }
+
+    private final String title;
+    private final List<StringBuilder> pages = new ArrayList<>();
+    private StringBuilder page;
+    private float cursorY;
+    private Font currentFont;
+    private float currentSize;
+
+    PdfTextDocument(String title) {
+        this.title = title;
+        newPage();
+    }
+
+    /**
+     * Add a left-aligned line of body text
+     */
+    void line(CharSequence text, Font font) {
+        line(text, font, BODY_SIZE, false);
+    }
+
+    /**
+     * Add a line of text.
+     * Centered lines have their surrounding spaces removed before they are positioned.
+     */
+    void line(CharSequence text, Font font, float size, boolean centered) {
+        int start = 0;
+        int end = text.length();
+        if (centered) {
+            while (start < end && text.charAt(start) == ' ') {
+                start++;
+            }
+            while (end > start && text.charAt(end - 1) == ' ') {
+                end--;
+            }
+        }
+
+        float lineHeight = size + LINE_GAP;
+        if (cursorY - lineHeight < MARGIN) {
+            newPage();
+        }
+        cursorY -= lineHeight;
+
+        if (start == end) {
+            return;
+        }
+
+        float x = MARGIN;
+        if (centered) {
+            x = (PAGE_WIDTH - (end - start) * size * CHAR_WIDTH_EM) / 2;
+        }
+
+        if (font != currentFont || size != currentSize) {
+            page.append('/').append(font.resourceName).append(' ').append(number(size)).append(" Tf\n");
+            currentFont = font;
+            currentSize = size;
+        }
+        page.append("1 0 0 1 ").append(number(x)).append(' ').append(number(cursorY)).append(" Tm (");
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '(' || c == ')' || c == '\\') {
+                page.append('\\').append(c);
+            } else if (c >= 0x20 && c < 0x7F) {
+                page.append(c);
+            } else {
+                // Standard fonts without an encoding only cover printable ASCII reliably
+                page.append('?');
+            }
+        }
+        page.append(") Tj\n");
+    }
+
+    int getPageCount() {
+        return pages.size();
+    }
+
+    /**
+     * Serialize the document
+     */
+    byte[] toByteArray() {
+        // Objects: 1 catalog, 2 page tree, 3-4 fonts, 5 info, then a page and content stream per page
+        int pageCount = pages.size();
+        int objectCount = 5 + pageCount * 2;
+        long[] offsets = new long[objectCount + 1];
+        PdfOutput out = new PdfOutput();
+
+        out.ascii("%PDF-1.4\n");
+        out.bytes(new byte[]{'%', (byte) 0xE2, (byte) 0xE3, (byte) 0xCF, (byte) 0xD3, '\n'});
+
+        offsets[1] = out.size();
+        out.ascii("1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n");
+
+        offsets[2] = out.size();
+        StringBuilder kids = new StringBuilder();
+        for (int i = 0; i < pageCount; i++) {
+            kids.append(i > 0 ? " " : "").append(pageObject(i)).append(" 0 R");
+        }
+        out.ascii("2 0 obj\n<< /Type /Pages /Kids [" + kids + "] /Count " + pageCount + " >>\nendobj\n");
+
+        offsets[3] = out.size();
+        out.ascii(fontObject(3, Font.REGULAR));
+        offsets[4] = out.size();
+        out.ascii(fontObject(4, Font.BOLD));
+
+        offsets[5] = out.size();
+        out.ascii("5 0 obj\n<< /Title (" + escape(title) + ") /Producer (Pahana Edu Bookshop) >>\nendobj\n");
+
+        for (int i = 0; i < pageCount; i++) {
+            int pageObject = pageObject(i);
+            offsets[pageObject] = out.size();
+            out.ascii(pageObject + " 0 obj\n<< /Type /Page /Parent 2 0 R /MediaBox [0 0 "
+                    + number(PAGE_WIDTH) + " " + number(PAGE_HEIGHT) + "]"
+                    + " /Resources << /Font << /F1 3 0 R /F2 4 0 R >> >>"
+                    + " /Contents " + (pageObject + 1) + " 0 R >>\nendobj\n");
+
+            String content = "BT\n" + pages.get(i) + "ET\n";
+            offsets[pageObject + 1] = out.size();
+            out.ascii((pageObject + 1) + " 0 obj\n<< /Length " + content.length() + " >>\nstream\n"
+                    + content + "endstream\nendobj\n");
+        }
+
+        long xref = out.size();
+        StringBuilder table = new StringBuilder();
+        table.append("xref\n0 ").append(objectCount + 1).append('\n');
+        table.append("0000000000 65535 f \n");
+        for (int i = 1; i <= objectCount; i++) {
+            table.append(String.format(Locale.ROOT, "%010d 00000 n \n", offsets[i]));
+        }
+        table.append("trailer\n<< /Size ").append(objectCount + 1).append(" /Root 1 0 R /Info 5 0 R >>\n");
+        table.append("startxref\n").append(xref).append("\n%%EOF\n");
+        out.ascii(table.toString());
+
+        return out.toByteArray();
+    }
+
+    private void newPage() {
+        page = new StringBuilder(4096);
+        pages.add(page);
+        cursorY = PAGE_HEIGHT - MARGIN;
+        // Each content stream starts a fresh text object, so the font must be selected again
+        currentFont = null;
+        currentSize = 0;
+    }
+
+    private static int pageObject(int pageIndex) {
+        return 6 + pageIndex * 2;
+    }
+
+    private static String fontObject(int number, Font font) {
+        return number + " 0 obj\n<< /Type /Font /Subtype /Type1 /BaseFont /" + font.baseFont
+                + " /Encoding /WinAnsiEncoding >>\nendobj\n";
+    }
+
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '(' || c == ')' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else {
+                escaped.append(c >= 0x20 && c < 0x7F ? c : '?');
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static String number(float value) {
+        if (value == Math.rint(value)) {
+            return Integer.toString((int) value);
+        }
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    private static final class PdfOutput extends ByteArrayOutputStream {
+        PdfOutput() {
+            super(8192);
+        }
+
+        void ascii(String text) {
+            byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+            write(bytes, 0, bytes.length);
+        }
+
+        void bytes(byte[] bytes) {
+            write(bytes, 0, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.pahanaedu.service;
+
+import com.pahanaedu.model.Invoice;
+import com.pahanaedu.model.InvoiceItem;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Renders invoices as the 50-column receipt used by the print endpoints, either as
+ * text, as ESC/POS bytes for thermal printers, or as a PDF document.
+ * Layouts are compiled once; each call writes into per-thread buffers that are reused
+ * between receipts, so rendering does no formatting-related allocation beyond the result.
+ */
+public class ReceiptRenderer {
+    private static final ZoneId RECEIPT_ZONE = ZoneId.of("Asia/Kolkata");
+    private static final DateTimeFormatter RECEIPT_DATE_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd hh:mm:ss a", Locale.ENGLISH).withZone(RECEIPT_ZONE);
+
+    static final String DOUBLE_RULE = "==================================================";
+    static final String SINGLE_RULE = "--------------------------------------------------";
+    static final String TITLE = "               PAHANA EDU BOOKSHOP              ";
+    private static final String COLUMN_HEADER = "Item                      Qty    Price     Total";
+    private static final String THANK_YOU = "           Thank You For Your Purchase           ";
+
+    private static final ReceiptTemplate ITEM_ROW = ReceiptTemplate.compile("{title:<23} {qty:>4} {price:>10}  {total:>8}");
+    private static final ReceiptTemplate SUMMARY_ROW = ReceiptTemplate.compile("{label:<33}{amount:>8}");
+
+    // Summary labels are shorter than the label column, so they are padded and never cut
+    private static final String SUBTOTAL_LABEL = "Subtotal:";
+    private static final String DISCOUNT_LABEL = "Discount:";
+    private static final String TAX_LABEL = "Tax (5%):";
+    private static final String TOTAL_LABEL = "TOTAL:";
+
+    private static final int INITIAL_CAPACITY = 2048;
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    /**
+     * Render the receipt text for an invoice.
+     * Items for the same book are printed once, keeping the first occurrence.
+     */
+    public String render(Invoice invoice) {
+        Buffers buffers = BUFFERS.get();
+        TextSink sink = buffers.text;
+        sink.out.setLength(0);
+
+        try {
+            write(invoice, buffers.line, sink);
+            return sink.out.toString();
+        } finally {
+            if (sink.out.capacity() > MAX_RETAINED_CAPACITY) {
+                buffers.text = new TextSink();
+            }
+        }
+    }
+
+    /**
+     * Write the receipt as an ESC/POS byte sequence directly to the given stream
+     */
+    public void renderEscPos(Invoice invoice, OutputStream out) throws IOException {
+        Buffers buffers = BUFFERS.get();
+        EscPosReceiptSink sink = buffers.escPos;
+
+        try {
+            sink.begin();
+            write(invoice, buffers.line, sink);
+            sink.end();
+            sink.writeTo(out);
+        } finally {
+            if (sink.capacity() > MAX_RETAINED_CAPACITY) {
+                buffers.escPos = new EscPosReceiptSink();
+            }
+        }
+    }
+
+    /**
+     * Render the receipt as a PDF document, using the same layout as the text receipt
+     */
+    public byte[] renderPdf(Invoice invoice) {
+        PdfTextDocument document = new PdfTextDocument("Invoice " + invoice.getInvoiceNumber());
+        write(invoice, BUFFERS.get().line, new PdfSink(document));
+        return document.toByteArray();
+    }
+
+    private void write(Invoice invoice, StringBuilder line, ReceiptSink sink) {
+        sink.line(DOUBLE_RULE, ReceiptSink.Style.NORMAL);
+        sink.line(TITLE, ReceiptSink.Style.TITLE);
+        sink.line(DOUBLE_RULE, ReceiptSink.Style.NORMAL);
+        sink.line("", ReceiptSink.Style.NORMAL);
+
+        line.setLength(0);
+        line.append("Invoice #: ").append(invoice.getInvoiceNumber());
+        sink.line(line, ReceiptSink.Style.NORMAL);
+
+        line.setLength(0);
+        line.append("Date: ");
+        if (invoice.getInvoiceDate() != null) {
+            RECEIPT_DATE_FORMAT.formatTo(invoice.getInvoiceDate().toInstant(), line);
+        } else {
+            line.append("N/A");
+        }
+        sink.line(line, ReceiptSink.Style.NORMAL);
+
+        line.setLength(0);
+        if (invoice.getCustomerId() != null && invoice.getCustomerName() != null) {
+            line.append("Customer: ").append(invoice.getCustomerName());
+        } else {
+            line.append("Customer: Walk-in Customer");
+        }
+        sink.line(line, ReceiptSink.Style.NORMAL);
+
+        line.setLength(0);
+        line.append("Cashier: ").append(invoice.getCashierName());
+        sink.line(line, ReceiptSink.Style.NORMAL);
+
+        sink.line("", ReceiptSink.Style.NORMAL);
+        sink.line(SINGLE_RULE, ReceiptSink.Style.NORMAL);
+        sink.line(COLUMN_HEADER, ReceiptSink.Style.NORMAL);
+        sink.line(SINGLE_RULE, ReceiptSink.Style.NORMAL);
+
+        List<InvoiceItem> items = invoice.getItems();
+        if (items != null && !items.isEmpty()) {
+            Set<Integer> printedBooks = new HashSet<>(items.size() * 2);
+            for (InvoiceItem item : items) {
+                if (!printedBooks.add(item.getBookId())) {
+                    continue;
+                }
+                line.setLength(0);
+                int field = ITEM_ROW.start(line);
+                field = ITEM_ROW.text(line, field, item.getBookTitle());
+                field = ITEM_ROW.integer(line, field, item.getQuantity());
+                field = ITEM_ROW.amount(line, field, item.getUnitPrice());
+                ITEM_ROW.amount(line, field, item.getTotalPrice());
+                sink.line(line, ReceiptSink.Style.NORMAL);
+            }
+        }
+
+        sink.line(SINGLE_RULE, ReceiptSink.Style.NORMAL);
+        writeSummary(line, sink, SUBTOTAL_LABEL, invoice.getSubtotal(), ReceiptSink.Style.NORMAL);
+
+        if (isPositive(invoice.getDiscountAmount())) {
+            writeSummary(line, sink, DISCOUNT_LABEL, invoice.getDiscountAmount(), ReceiptSink.Style.NORMAL);
+        }
+
+        if (isPositive(invoice.getTaxAmount())) {
+            writeSummary(line, sink, TAX_LABEL, invoice.getTaxAmount(), ReceiptSink.Style.NORMAL);
+        }
+
+        writeSummary(line, sink, TOTAL_LABEL, invoice.getTotalAmount(), ReceiptSink.Style.EMPHASIS);
+        sink.line(DOUBLE_RULE, ReceiptSink.Style.NORMAL);
+        sink.line(THANK_YOU, ReceiptSink.Style.NORMAL);
+        sink.line(DOUBLE_RULE, ReceiptSink.Style.NORMAL);
+    }
+
+    private void writeSummary(StringBuilder line, ReceiptSink sink, String label, BigDecimal amount,
+                              ReceiptSink.Style style) {
+        line.setLength(0);
+        int field = SUMMARY_ROW.start(line);
+        field = SUMMARY_ROW.text(line, field, label);
+        SUMMARY_ROW.amount(line, field, amount);
+        sink.line(line, style);
+    }
+
+    private static boolean isPositive(BigDecimal value) {
+        return value != null && value.signum() > 0;
+    }
+
+    /**
+     * Plain text receipt with '\n' line endings
+     */
+    private static final class TextSink implements ReceiptSink {
+        private final StringBuilder out = new StringBuilder(INITIAL_CAPACITY);
+
+        @Override
+        public void line(CharSequence text, Style style) {
+            out.append(text).append('\n');
+        }
+    }
+
+    private static final class PdfSink implements ReceiptSink {
+        private static final float TITLE_SIZE = 16f;
+        private final PdfTextDocument document;
+
+        private PdfSink(PdfTextDocument document) {
+            this.document = document;
+        }
+
+        @Override
+        public void line(CharSequence text, Style style) {
+            switch (style) {
+                case TITLE:
+                    document.line(text, PdfTextDocument.Font.BOLD, TITLE_SIZE, true);
+                    break;
+                case EMPHASIS:
+                    document.line(text, PdfTextDocument.Font.BOLD);
+                    break;
+                default:
+                    document.line(text, PdfTextDocument.Font.REGULAR);
+                    break;
+            }
+        }
+    }
+
+    private static final class Buffers {
+        private final StringBuilder line = new StringBuilder(128);
+        private TextSink text = new TextSink();
+        private EscPosReceiptSink escPos = new EscPosReceiptSink();
+    }
+}
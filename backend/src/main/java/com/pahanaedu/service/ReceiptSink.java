@@ -0,0 +1,22 @@
+package com.pahanaedu.service;
+
+/**
+ * Destination for rendered receipt lines.
+ * The renderer produces the layout once and each sink decides how a line is encoded.
+ */
+interface ReceiptSink {
+
+    enum Style {
+        /** Shop name at the top of the receipt */
+        TITLE,
+        NORMAL,
+        /** Grand total */
+        EMPHASIS
+    }
+
+    /**
+     * Accept one complete line without its line terminator.
+     * The text is only valid for the duration of the call.
+     */
+    void line(CharSequence text, Style style);
+}
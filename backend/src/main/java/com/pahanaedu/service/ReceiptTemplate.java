@@ -0,0 +1,162 @@
+package com.pahanaedu.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A fixed-width row layout compiled once from a template string.
+ * <p>
+ * Placeholders are written as {@code {name:<width}} for left-aligned text that is cut
+ * with a trailing '.' when it does not fit, or {@code {name:>width}} for right-aligned
+ * values that may overflow their column. Everything else is copied literally.
+ * <p>
+ * Rows are written field by field without allocating: {@link #start} writes the leading
+ * literal text and each field writer appends its value plus the literal text up to the
+ * next field, returning the index to pass to the next call.
+ */
+class ReceiptTemplate {
+    private static final char[] SPACES = new char[64];
+
+    static {
+        java.util.Arrays.fill(SPACES, ' ');
+    }
+
+    private final char[][] literals;
+    private final int[] widths;
+    private final boolean[] rightAligned;
+
+    private ReceiptTemplate(char[][] literals, int[] widths, boolean[] rightAligned) {
+        this.literals = literals;
+        this.widths = widths;
+        this.rightAligned = rightAligned;
+    }
+
+    static ReceiptTemplate compile(String template) {
+        List<char[]> literals = new ArrayList<>();
+        List<Integer> widths = new ArrayList<>();
+        List<Boolean> alignments = new ArrayList<>();
+
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < template.length()) {
+            char c = template.charAt(i);
+            if (c != '{') {
+                literal.append(c);
+                i++;
+                continue;
+            }
+
+            int end = template.indexOf('}', i);
+            int colon = template.indexOf(':', i);
+            if (end < 0 || colon < 0 || colon > end || colon + 2 >= end) {
+                throw new IllegalArgumentException("Malformed placeholder at " + i + " in: " + template);
+            }
+            char align = template.charAt(colon + 1);
+            if (align != '<' && align != '>') {
+                throw new IllegalArgumentException("Placeholder alignment must be < or > in: " + template);
+            }
+
+            literals.add(literal.toString().toCharArray());
+            literal.setLength(0);
+            widths.add(Integer.parseInt(template.substring(colon + 2, end)));
+            alignments.add(align == '>');
+            i = end + 1;
+        }
+        literals.add(literal.toString().toCharArray());
+
+        int[] widthArray = new int[widths.size()];
+        boolean[] alignArray = new boolean[alignments.size()];
+        for (int f = 0; f < widthArray.length; f++) {
+            widthArray[f] = widths.get(f);
+            alignArray[f] = alignments.get(f);
+        }
+        return new ReceiptTemplate(literals.toArray(new char[0][]), widthArray, alignArray);
+    }
+
+    int fieldCount() {
+        return widths.length;
+    }
+
+    int start(StringBuilder out) {
+        out.append(literals[0]);
+        return 0;
+    }
+
+    int text(StringBuilder out, int field, CharSequence value) {
+        CharSequence text = value != null ? value : "";
+        int width = widths[field];
+        int length = text.length();
+
+        if (rightAligned[field]) {
+            pad(out, width - length);
+            out.append(text);
+        } else if (length >= width) {
+            out.append(text, 0, width - 1).append('.');
+        } else {
+            out.append(text);
+            pad(out, width - length);
+        }
+        return next(out, field);
+    }
+
+    int integer(StringBuilder out, int field, int value) {
+        pad(out, widths[field] - digits(value));
+        out.append(value);
+        return next(out, field);
+    }
+
+    /**
+     * Writes a money value rounded half-up to two decimals, the same as "%.2f"
+     */
+    int amount(StringBuilder out, int field, BigDecimal value) {
+        BigDecimal scaled = (value != null ? value : BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP);
+
+        if (scaled.precision() > 18) {
+            // Too large for cents in a long; not reachable for DECIMAL(10,2) columns
+            String plain = scaled.toPlainString();
+            pad(out, widths[field] - plain.length());
+            out.append(plain);
+            return next(out, field);
+        }
+
+        long cents = scaled.unscaledValue().longValue();
+        boolean negative = cents < 0;
+        long abs = Math.abs(cents);
+        long units = abs / 100;
+        int fraction = (int) (abs % 100);
+
+        int length = (negative ? 1 : 0) + digits(units) + 3;
+        pad(out, widths[field] - length);
+        if (negative) {
+            out.append('-');
+        }
+        out.append(units).append('.');
+        out.append((char) ('0' + fraction / 10)).append((char) ('0' + fraction % 10));
+        return next(out, field);
+    }
+
+    private int next(StringBuilder out, int field) {
+        out.append(literals[field + 1]);
+        return field + 1;
+    }
+
+    private static void pad(StringBuilder out, int count) {
+        while (count > 0) {
+            int chunk = Math.min(count, SPACES.length);
+            out.append(SPACES, 0, chunk);
+            count -= chunk;
+        }
+    }
+
+    private static int digits(long value) {
+        int count = value < 0 ? 2 : 1;
+        long remaining = Math.abs(value / 10);
+        while (remaining > 0) {
+            count++;
+            remaining /= 10;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,240 @@
+package com.pahanaedu.service;
+
+import com.google.gson.Gson;
+import com.pahanaedu.dao.BookDAO;
+import com.pahanaedu.dao.CustomerDAO;
+import com.pahanaedu.dao.UserDAO;
+import com.pahanaedu.model.Invoice;
+import com.pahanaedu.model.InvoiceItem;
+import com.pahanaedu.utils.AppConfig;
+import com.pahanaedu.utils.ConnectionPool;
+import com.pahanaedu.utils.DatabaseConnection;
+import com.pahanaedu.utils.JsonCodec;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Brings a freshly started server to steady state before it reports ready.
+ * <p>
+ * After the schema is migrated, a background thread opens the pooled connections, prepares
+ * the till's hot lookups on each of them, loads the billing catalogue, categories and
+ * publishers, and runs synthetic bills through the totals, JSON and receipt code so the
+ * classes are loaded and the JIT has compiled them before the first sale. A step that fails
+ * is logged and skipped, since the server works without it, only slower. {@link #isReady()}
+ * turns true once every step has run, and is what GET /health/ready reports.
+ */
+public final class StartupWarmup {
+    private static final Logger LOGGER = Logger.getLogger(StartupWarmup.class.getName());
+
+    private static final StartupWarmup INSTANCE = new StartupWarmup(
+            AppConfig.getBoolean("app.warmup.enabled", true) ? defaultSteps() : new ArrayList<>());
+
+    /**
+     * One named part of the warm-up
+     */
+    public static final class Step {
+        private final String name;
+        private final Task task;
+
+        public Step(String name, Task task) {
+            this.name = name;
+            this.task = task;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    public interface Task {
+        void run() throws Exception;
+    }
+
+    private final List<Step> steps;
+    private final CountDownLatch ready = new CountDownLatch(1);
+    private Thread worker;
+
+    public StartupWarmup(List<Step> steps) {
+        this.steps = steps;
+    }
+
+    public static StartupWarmup getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Run the steps on a background thread; with no steps the server is ready at once
+     */
+    public synchronized void start() {
+        if (worker != null) {
+            return;
+        }
+        worker = new Thread(this::runSteps, "startup-warmup");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public boolean isReady() {
+        return ready.getCount() == 0;
+    }
+
+    /**
+     * Wait for the warm-up to finish
+     * @return true if it finished within the timeout
+     */
+    public boolean awaitReady(long timeoutMillis) throws InterruptedException {
+        return ready.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop a warm-up still in progress when the application shuts down
+     */
+    public synchronized void shutdown() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void runSteps() {
+        long started = System.nanoTime();
+        try {
+            for (Step step : steps) {
+                if (Thread.currentThread().isInterrupted()) {
+                    LOGGER.info("Warm-up interrupted before " + step.name);
+                    return;
+                }
+                long stepStarted = System.nanoTime();
+                try {
+                    step.task.run();
+                    LOGGER.info("Warm-up step " + step.name + " took "
+                            + (System.nanoTime() - stepStarted) / 1_000_000 + " ms");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    LOGGER.log(Level.WARNING, "Warm-up step " + step.name + " failed, continuing", e);
+                }
+            }
+        } finally {
+            ready.countDown();
+        }
+        LOGGER.info("Warm-up finished in " + (System.nanoTime() - started) / 1_000_000 + " ms, ready for requests");
+    }
+
+    /**
+     * Prepare {@code statements} on every idle connection in the pool. With the driver's
+     * statement cache enabled each connection keeps the parsed statements for later requests.
+     * @return the number of connections the statements were prepared on
+     */
+    public static int prepareOnEachConnection(ConnectionPool pool, Collection<String> statements)
+            throws SQLException {
+        // Hold them all at once so every physical connection is visited, not the same one each time
+        int count = pool.getIdleConnections();
+        List<Connection> borrowed = new ArrayList<>();
+        try {
+            for (int i = 0; i < count; i++) {
+                borrowed.add(pool.getConnection());
+            }
+            for (Connection connection : borrowed) {
+                for (String sql : statements) {
+                    // Parsed and cached by the driver; nothing is executed
+                    connection.prepareStatement(sql).close();
+                }
+            }
+            return borrowed.size();
+        } finally {
+            for (Connection connection : borrowed) {
+                connection.close();
+            }
+        }
+    }
+
+    private static List<Step> defaultSteps() {
+        int connections = AppConfig.getInt("app.warmup.connections", -1);
+        int iterations = AppConfig.getInt("app.warmup.iterations", 2000);
+
+        List<Step> steps = new ArrayList<>();
+        steps.add(new Step("connections", () -> {
+            ConnectionPool pool = DatabaseConnection.getInstance().getPool();
+            int opened = pool.prefill(connections < 0 ? pool.getMaxSize() : connections);
+            LOGGER.info("Opened " + opened + " pooled connections");
+        }));
+        steps.add(new Step("statements", () -> {
+            List<String> statements = new ArrayList<>(BookDAO.HOT_STATEMENTS);
+            statements.addAll(CustomerDAO.HOT_STATEMENTS);
+            statements.addAll(UserDAO.HOT_STATEMENTS);
+            int prepared = prepareOnEachConnection(DatabaseConnection.getInstance().getPool(), statements);
+            LOGGER.info("Prepared " + statements.size() + " statements on " + prepared + " connections");
+        }));
+        steps.add(new Step("caches", StartupWarmup::primeCaches));
+        steps.add(new Step("billing", () -> runSyntheticBills(iterations)));
+        return steps;
+    }
+
+    /**
+     * Load the billing catalogue, and read and serialise categories and publishers once
+     */
+    private static void primeCaches() {
+        Gson gson = JsonCodec.getGson();
+        CatalogueCache catalogue = CatalogueCache.getInstance();
+        catalogue.reload();
+        CatalogueCache.Snapshot snapshot = catalogue.snapshot(-1);
+        gson.toJsonTree(snapshot.getBooks());
+        gson.toJsonTree(snapshot.getCustomers());
+
+        BookService bookService = new BookService();
+        gson.toJson(bookService.getAllCategories());
+        gson.toJson(bookService.getAllPublishers());
+    }
+
+    /**
+     * Price, serialise, parse and render made-up bills so the hot billing code is compiled.
+     * Bills are priced by {@link BillingService#calculateBill}, the method real sales use.
+     */
+    private static void runSyntheticBills(int iterations) throws InterruptedException {
+        Gson gson = JsonCodec.getGson();
+        BillingService billing = new BillingService();
+        ReceiptRenderer renderer = new ReceiptRenderer();
+        long checksum = 0;
+
+        for (int i = 0; i < iterations; i++) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            Invoice invoice = billing.calculateBill(syntheticInvoice(i), true);
+
+            String json = gson.toJson(invoice);
+            Invoice parsed = gson.fromJson(json, Invoice.class);
+            checksum += json.length() + renderer.render(parsed).length();
+        }
+        LOGGER.fine("Synthetic bills produced " + checksum + " characters");
+    }
+
+    private static Invoice syntheticInvoice(int sequence) {
+        Invoice invoice = new Invoice();
+        invoice.setInvoiceNumber("WARMUP-" + sequence);
+        invoice.setInvoiceDate(new Timestamp(System.currentTimeMillis()));
+        invoice.setCashierName("Warm-up");
+        invoice.setItems(new ArrayList<>(Arrays.asList(
+                syntheticItem(1, 1 + sequence % 3, "2500.00", "10", "Warm-up title"),
+                syntheticItem(2, 2, "1800.50", "0", "Another warm-up title"),
+                syntheticItem(3, 1, "950.00", "5", "Third warm-up title"))));
+        return invoice;
+    }
+
+    private static InvoiceItem syntheticItem(int bookId, int quantity, String price, String discount, String title) {
+        InvoiceItem item = new InvoiceItem(bookId, quantity, new BigDecimal(price), new BigDecimal(discount));
+        item.setBookTitle(title);
+        return item;
+    }
+}
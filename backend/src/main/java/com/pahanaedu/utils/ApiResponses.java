@@ -0,0 +1,83 @@
+package com.pahanaedu.utils;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * The JSON envelope every API response is written in.
+ * <p>
+ * Errors are {@code {"status":"error","message":...}} with the matching HTTP status; successful
+ * bodies are written as given. Controllers and the dispatcher use these instead of each
+ * keeping their own copies.
+ */
+public final class ApiResponses {
+    private static final String RETRY_AFTER_SECONDS = "5";
+
+    private ApiResponses() {
+    }
+
+    /**
+     * Write a JSON body with the status already set on the response
+     */
+    public static void sendJson(HttpServletResponse response, String json) throws IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        PrintWriter out = response.getWriter();
+        out.print(json);
+        out.flush();
+    }
+
+    public static void sendJson(HttpServletResponse response, JsonElement body) throws IOException {
+        sendJson(response, JsonCodec.getGson().toJson(body));
+    }
+
+    public static void sendError(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+
+        JsonObject jsonResponse = new JsonObject();
+        jsonResponse.addProperty("status", "error");
+        jsonResponse.addProperty("message", message);
+        sendJson(response, jsonResponse);
+    }
+
+    public static void sendUnauthorized(HttpServletResponse response) throws IOException {
+        sendError(response, HttpServletResponse.SC_UNAUTHORIZED, "Authentication required");
+    }
+
+    public static void sendForbidden(HttpServletResponse response, String message) throws IOException {
+        sendError(response, HttpServletResponse.SC_FORBIDDEN, message);
+    }
+
+    public static void sendBadRequest(HttpServletResponse response, String message) throws IOException {
+        sendError(response, HttpServletResponse.SC_BAD_REQUEST, message);
+    }
+
+    public static void sendNotFound(HttpServletResponse response, String message) throws IOException {
+        sendError(response, HttpServletResponse.SC_NOT_FOUND, message);
+    }
+
+    public static void sendConflict(HttpServletResponse response, String message) throws IOException {
+        sendError(response, HttpServletResponse.SC_CONFLICT, message);
+    }
+
+    public static void sendServerError(HttpServletResponse response, String message) throws IOException {
+        sendError(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, message);
+    }
+
+    /**
+     * 503 with a Retry-After header, for work shed because a pool is full
+     */
+    public static void sendServiceUnavailable(HttpServletResponse response, String message) throws IOException {
+        response.setHeader("Retry-After", RETRY_AFTER_SECONDS);
+        sendError(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, message);
+    }
+
+    public static void sendBindingError(HttpServletResponse response, RequestBinder.BindingException e)
+            throws IOException {
+        sendError(response, e.getStatus(), e.getMessage());
+    }
+}
@@ -0,0 +1,96 @@
+package com.pahanaedu.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Read-only access to application.properties.
+ * A JVM system property with the same key overrides the file value.
+ */
+public final class AppConfig {
+    private static final Logger LOGGER = Logger.getLogger(AppConfig.class.getName());
+    private static final Properties PROPERTIES = load();
+
+    private AppConfig() {
+    }
+
+    private static Properties load() {
+        Properties properties = new Properties();
+        try (InputStream input = AppConfig.class.getClassLoader().getResourceAsStream("application.properties")) {
+            if (input != null) {
+                properties.load(input);
+            } else {
+                LOGGER.warning("application.properties not found, using defaults");
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to read application.properties, using defaults", e);
+        }
+        return properties;
+    }
+
+    public static String getString(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            value = PROPERTIES.getProperty(key);
+        }
+        return value != null ? value.trim() : defaultValue;
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            LOGGER.warning("Invalid integer for " + key + ": " + value);
+            return defaultValue;
+        }
+    }
+
+    public static long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            LOGGER.warning("Invalid number for " + key + ": " + value);
+            return defaultValue;
+        }
+    }
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        return Boolean.parseBoolean(value);
+    }
+
+    /**
+     * Every key starting with {@code prefix}, without the prefix, and its value; system
+     * properties override the file as for single keys
+     */
+    public static Map<String, String> getWithPrefix(String prefix) {
+        Map<String, String> values = new TreeMap<>();
+        for (String key : PROPERTIES.stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                values.put(key.substring(prefix.length()), PROPERTIES.getProperty(key).trim());
+            }
+        }
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                values.put(key.substring(prefix.length()), System.getProperty(key).trim());
+            }
+        }
+        return values;
+    }
+}
@@ -1,11 +1,15 @@
 package com.pahanaedu.utils;
 
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
+import com.pahanaedu.service.CatalogueCache;
+import com.pahanaedu.service.DashboardEvents;
+import com.pahanaedu.service.InvoiceDocumentService;
+import com.pahanaedu.service.ParallelLoader;
+import com.pahanaedu.service.StartupWarmup;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.servlet.ServletContextEvent;
@@ -14,7 +18,8 @@ import javax.servlet.annotation.WebListener;
 
 /**
  * Application initializer that runs when the web application starts.
- * Handles database initialization and any other startup tasks.
+ * Sets up logging, handles database migrations, registers the gauges served on GET /metrics
+ * and starts the warm-up that precedes readiness.
  */
 @WebListener
 public class ApplicationInitializer implements ServletContextListener {
@@ -22,11 +27,14 @@ public class ApplicationInitializer implements ServletContextListener {
 
     @Override
     public void contextInitialized(ServletContextEvent sce) {
+        LogSetup.install();
         LOGGER.info("Pahana Edu Bookshop application starting up...");
 
+        registerMetrics();
         try {
             initializeDatabase();
             LOGGER.info("Database initialization completed successfully");
+            StartupWarmup.getInstance().start();
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Failed to initialize application", e);
         }
@@ -36,59 +44,82 @@ public class ApplicationInitializer implements ServletContextListener {
     public void contextDestroyed(ServletContextEvent sce) {
         LOGGER.info("Pahana Edu Bookshop application shutting down...");
 
+        StartupWarmup.getInstance().shutdown();
+        DatabaseProbe.getInstance().shutdown();
+        SqlProfiler.getInstance().shutdown();
+        AsyncRequestExecutor.getInstance().shutdown();
+        InvoiceDocumentService.getInstance().shutdown();
+        ParallelLoader.getInstance().shutdown();
+        DashboardEvents.getInstance().shutdown();
         DatabaseConnection.getInstance().closeConnection();
+        LogSetup.uninstall();
     }
 
     /**
-     * Initializes the database tables by running the schema.sql script
+     * Brings the database schema up to date with the migrations under db/migration
      */
     private void initializeDatabase() {
         DatabaseConnection dbConnection = DatabaseConnection.getInstance();
+        MigrationStatus status = MigrationStatus.getInstance();
 
         Connection connection;
         try {
             connection = dbConnection.getConnection();
-            executeInitScript(connection);
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Failed to initialize database tables", e);
+            LOGGER.log(Level.SEVERE, "Database unavailable, schema migration skipped", e);
+            status.skipped("Database unavailable at startup: " + e.getMessage());
+            return;
+        }
+
+        try (Connection migrating = connection) {
+            SchemaMigrator migrator = SchemaMigrator.fromClasspath();
+            int applied = migrator.migrate(migrating);
+            status.succeeded(migrator.getLatestVersion(), applied);
+        } catch (SQLException | IOException | RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Failed to migrate database schema", e);
+            status.failed(e.getMessage());
         }
     }
 
     /**
-     * Executes the database initialization SQL script
-     *
-     * @param connection The database connection
+     * Pool, cache, worker pool and JVM figures, read when /metrics is scraped
      */
-    private void executeInitScript(Connection connection) {
-        try (InputStream is = getClass().getClassLoader().getResourceAsStream("schema.sql")) {
-            if (is == null) {
-                LOGGER.severe("Could not find schema.sql in classpath");
-                return;
-            }
+    private void registerMetrics() {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        ConnectionPool pool = DatabaseConnection.getInstance().getPool();
+        metrics.gauge("db_pool_connections", "Open pooled connections", pool::getTotalConnections, "state", "open");
+        metrics.gauge("db_pool_connections", "Open pooled connections",
+                () -> pool.getTotalConnections() - pool.getIdleConnections(), "state", "active");
+        metrics.gauge("db_pool_waiting_borrowers", "Requests waiting for a pooled connection",
+                pool::getWaitingBorrowers);
 
-            StringBuilder sqlScript = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(is))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    sqlScript.append(line).append("\n");
-                }
-            }
+        registerCache(metrics, "responses", ResponseCache.getInstance().getStats());
+        registerCache(metrics, "catalogue", CatalogueCache.getInstance().getStats());
+        registerCache(metrics, "documents", InvoiceDocumentService.getInstance().getStats());
 
-            String[] statements = sqlScript.toString().split(";");
+        AsyncRequestExecutor business = AsyncRequestExecutor.getInstance();
+        ParallelLoader loader = ParallelLoader.getInstance();
+        InvoiceDocumentService documents = InvoiceDocumentService.getInstance();
+        metrics.gauge("executor_active_tasks", "Tasks running on a worker pool", business::getActiveCount,
+                "pool", "business");
+        metrics.gauge("executor_active_tasks", "Tasks running on a worker pool", loader::getActiveCount,
+                "pool", "loader");
+        metrics.gauge("executor_active_tasks", "Tasks running on a worker pool", documents::getActiveCount,
+                "pool", "documents");
+        metrics.gauge("executor_queued_tasks", "Tasks waiting for a worker", business::getQueueDepth,
+                "pool", "business");
+        metrics.gauge("executor_queued_tasks", "Tasks waiting for a worker", loader::getQueueDepth,
+                "pool", "loader");
+        metrics.gauge("executor_queued_tasks", "Tasks waiting for a worker", documents::getQueueDepth,
+                "pool", "documents");
 
-            try (Statement stmt = connection.createStatement()) {
-                for (String statement : statements) {
-                    String trimmedStatement = statement.trim();
-                    if (!trimmedStatement.isEmpty()) {
-                        LOGGER.fine("Executing SQL: " + trimmedStatement);
-                        stmt.execute(trimmedStatement);
-                    }
-                }
-            }
+        metrics.gauge("jvm_memory_heap_used_bytes", "Heap in use",
+                () -> ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+        metrics.gauge("jvm_threads_live", "Live threads", () -> ManagementFactory.getThreadMXBean().getThreadCount());
+    }
 
-            LOGGER.info("Database initialization script executed successfully");
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error executing database initialization script", e);
-        }
+    private static void registerCache(MetricsRegistry metrics, String cache, CacheStats stats) {
+        metrics.counter("cache_hits", "Cache lookups answered from the cache", stats::getHits, "cache", cache);
+        metrics.counter("cache_misses", "Cache lookups that had to load the value", stats::getMisses, "cache", cache);
     }
 }
@@ -0,0 +1,176 @@
+package com.pahanaedu.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Log handler that hands records to a background thread, which formats them and writes them
+ * to the target handlers, so request threads never wait for log output.
+ * <p>
+ * Records go into a fixed-size ring buffer: a logging thread claims a slot with one
+ * compare-and-set and never blocks. When the buffer is full the record is dropped and counted,
+ * and the writer reports how many were lost once it catches up. The level and filter are
+ * checked on the logging thread, before anything is queued.
+ * <p>
+ * Message parameters are formatted by the writer, so they should not be changed after logging.
+ * The source class is reported as the logger name, since finding the real caller would walk
+ * the stack on the logging thread.
+ */
+public final class AsyncLogHandler extends Handler {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long CLOSE_TIMEOUT_MS = 5000;
+
+    private final Handler[] targets;
+    private final AtomicReferenceArray<LogRecord> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // Advanced only by the writer
+    private final AtomicLong head = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+    private long droppedReported;
+    private volatile boolean idle;
+    private volatile boolean closed;
+
+    /**
+     * @param capacity records the buffer holds, rounded up to a power of two
+     * @param targets  handlers the writer thread publishes to
+     */
+    public AsyncLogHandler(int capacity, Handler... targets) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.targets = targets.clone();
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.writer = new Thread(this::drain, "async-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            return;
+        }
+        record.setSourceClassName(record.getLoggerName());
+
+        long claimed;
+        do {
+            claimed = tail.get();
+            if (claimed - head.get() >= slots.length()) {
+                dropped.increment();
+                return;
+            }
+        } while (!tail.compareAndSet(claimed, claimed + 1));
+        slots.set((int) claimed & mask, record);
+
+        if (idle) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * Wakes the writer, which flushes the targets whenever the buffer runs empty
+     */
+    @Override
+    public void flush() {
+        LockSupport.unpark(writer);
+    }
+
+    /**
+     * Stop taking records and wait for the writer to write out those already queued.
+     * The targets are flushed but not closed.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(CLOSE_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Records dropped because the buffer was full
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Records queued and not yet written
+     */
+    public int getPending() {
+        return (int) (tail.get() - head.get());
+    }
+
+    private void drain() {
+        while (true) {
+            long next = head.get();
+            int slot = (int) next & mask;
+            LogRecord record = slots.get(slot);
+            if (record != null) {
+                slots.set(slot, null);
+                head.lazySet(next + 1);
+                write(record);
+                continue;
+            }
+
+            if (next != tail.get()) {
+                // Claimed but not yet stored by the logging thread
+                Thread.onSpinWait();
+                continue;
+            }
+            reportDropped();
+            flushTargets();
+            if (closed) {
+                return;
+            }
+            idle = true;
+            if (slots.get(slot) == null) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            idle = false;
+        }
+    }
+
+    private void write(LogRecord record) {
+        for (Handler target : targets) {
+            try {
+                target.publish(record);
+            } catch (RuntimeException e) {
+                reportError("Log handler failed", e, ErrorManager.WRITE_FAILURE);
+            }
+        }
+    }
+
+    private void reportDropped() {
+        long total = dropped.sum();
+        if (total > droppedReported) {
+            LogRecord record = new LogRecord(Level.WARNING,
+                    "Dropped " + (total - droppedReported) + " log records; the log buffer was full");
+            record.setLoggerName(AsyncLogHandler.class.getName());
+            record.setSourceClassName(AsyncLogHandler.class.getName());
+            droppedReported = total;
+            write(record);
+        }
+    }
+
+    private void flushTargets() {
+        for (Handler target : targets) {
+            try {
+                target.flush();
+            } catch (RuntimeException e) {
+                reportError("Log handler failed to flush", e, ErrorManager.FLUSH_FAILURE);
+            }
+        }
+    }
+}
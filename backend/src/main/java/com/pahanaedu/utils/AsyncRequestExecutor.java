@@ -0,0 +1,460 @@
+package com.pahanaedu.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs heavy request handling on a dedicated, bounded business pool using Servlet 3 async processing.
+ * <p>
+ * The container thread only starts the async cycle and hands the work over, so a burst of
+ * checkouts cannot exhaust the container's threads and starve cheap reads. When the pool
+ * and its queue are full the request is shed immediately with 503 and a Retry-After header.
+ * Requests that do not support async processing are handled inline.
+ * <p>
+ * When a request times out the work is not stopped, so it may still commit. A timed-out read
+ * gets 503 and may be retried; any other request gets 504 saying the outcome is unknown, so a
+ * client does not repeat a checkout that went through. From then on the work's writes to the
+ * response are discarded.
+ */
+public final class AsyncRequestExecutor {
+    private static final Logger LOGGER = Logger.getLogger(AsyncRequestExecutor.class.getName());
+    private static final String RETRY_AFTER_SECONDS = "2";
+
+    private static final AsyncRequestExecutor INSTANCE = new AsyncRequestExecutor(
+            createExecutor(AppConfig.getInt("app.business.workers", 8),
+                    AppConfig.getInt("app.business.queue-size", 64)),
+            AppConfig.getLong("app.business.request-timeout-ms", 30000));
+
+    /**
+     * Request handling that runs on the business pool
+     */
+    public interface Work {
+        void run(HttpServletRequest request, HttpServletResponse response) throws Exception;
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final Gson gson = JsonCodec.getGson();
+
+    public AsyncRequestExecutor(ThreadPoolExecutor executor, long timeoutMillis) {
+        this.executor = executor;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public static AsyncRequestExecutor getInstance() {
+        return INSTANCE;
+    }
+
+    public static ThreadPoolExecutor createExecutor(int workers, int queueSize) {
+        return BoundedExecutors.newBoundedExecutor("business", workers,
+                AppConfig.getInt("app.business.virtual-workers", 200), queueSize);
+    }
+
+    /**
+     * Handle the request on the business pool.
+     * Authentication should already have been checked on the calling container thread.
+     */
+    public void execute(HttpServletRequest request, HttpServletResponse response, Work work) throws IOException {
+        if (!request.isAsyncSupported()) {
+            runInline(request, response, work);
+            return;
+        }
+
+        AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(timeoutMillis);
+        AtomicBoolean finished = new AtomicBoolean(false);
+        GuardedResponse guarded = new GuardedResponse((HttpServletResponse) asyncContext.getResponse(), finished);
+        asyncContext.addListener(new TimeoutListener(finished, guarded));
+
+        try {
+            executor.execute(() -> {
+                HttpServletRequest asyncRequest = (HttpServletRequest) asyncContext.getRequest();
+                try {
+                    runInline(asyncRequest, guarded, work);
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Could not write error response", e);
+                } finally {
+                    if (finished.compareAndSet(false, true)) {
+                        complete(asyncContext);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Parameterised, so a burst of rejections is sampled as one message
+            LOGGER.log(Level.WARNING, "Business pool saturated (queue depth {0}), rejecting {1} {2}",
+                    new Object[]{executor.getQueue().size(), request.getMethod(), request.getRequestURI()});
+            if (finished.compareAndSet(false, true)) {
+                try {
+                    sendError(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                            "Server is busy, please retry shortly");
+                } finally {
+                    complete(asyncContext);
+                }
+            }
+        }
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runInline(HttpServletRequest request, HttpServletResponse response, Work work) throws IOException {
+        try {
+            work.run(request, response);
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error processing " + request.getMethod() + " " + request.getRequestURI(), e);
+            if (!response.isCommitted()) {
+                sendError(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+                        "Error processing request: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Write out a body buffered by the compression filter, then end the async cycle
+     */
+    private static void complete(AsyncContext asyncContext) {
+        CompressionFilter.finish(asyncContext.getResponse());
+        asyncContext.complete();
+    }
+
+    private void sendError(HttpServletResponse response, int status, String message) throws IOException {
+        response.resetBuffer();
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.setStatus(status);
+        if (status == HttpServletResponse.SC_SERVICE_UNAVAILABLE) {
+            response.setHeader("Retry-After", RETRY_AFTER_SECONDS);
+        }
+
+        JsonObject jsonResponse = new JsonObject();
+        jsonResponse.addProperty("status", "error");
+        jsonResponse.addProperty("message", message);
+
+        PrintWriter out = response.getWriter();
+        out.print(gson.toJson(jsonResponse));
+        out.flush();
+    }
+
+    /**
+     * Reads can be repeated safely; anything else may have changed data before timing out
+     */
+    private static boolean isSafe(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+    }
+
+    /**
+     * Answers if the work has not finished when the async timeout expires: 503 for reads,
+     * 504 with an unknown outcome for requests that may have changed data
+     */
+    private final class TimeoutListener implements AsyncListener {
+        private final AtomicBoolean finished;
+        private final GuardedResponse guarded;
+
+        private TimeoutListener(AtomicBoolean finished, GuardedResponse guarded) {
+            this.finished = finished;
+            this.guarded = guarded;
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) throws IOException {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            AsyncContext asyncContext = event.getAsyncContext();
+            HttpServletRequest request = (HttpServletRequest) asyncContext.getRequest();
+            HttpServletResponse response = (HttpServletResponse) asyncContext.getResponse();
+            LOGGER.warning("Request timed out after " + timeoutMillis + " ms: "
+                    + request.getMethod() + " " + request.getRequestURI());
+            // Wait out a write the work has already started; later ones are discarded
+            synchronized (guarded) {
+                try {
+                    if (response.isCommitted()) {
+                        return;
+                    }
+                    if (isSafe(request.getMethod())) {
+                        sendError(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                                "Request timed out, please retry");
+                    } else {
+                        sendError(response, HttpServletResponse.SC_GATEWAY_TIMEOUT,
+                                "Request timed out; it may still complete, so check its result before retrying");
+                    }
+                } finally {
+                    complete(asyncContext);
+                }
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            finished.set(true);
+            LOGGER.log(Level.WARNING, "Async request failed", event.getThrowable());
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+
+    /**
+     * Response handed to the work: once the request has finished (timed out), status, headers
+     * and body written by the work are discarded. Writes hold the wrapper's lock, which the
+     * timeout listener takes before answering, so the two never interleave.
+     */
+    private static final class GuardedResponse extends HttpServletResponseWrapper {
+        private final AtomicBoolean finished;
+        private PrintWriter writer;
+        private ServletOutputStream outputStream;
+
+        private GuardedResponse(HttpServletResponse response, AtomicBoolean finished) {
+            super(response);
+            this.finished = finished;
+        }
+
+        @Override
+        public synchronized void setStatus(int sc) {
+            if (!finished.get()) {
+                super.setStatus(sc);
+            }
+        }
+
+        @Override
+        public synchronized void sendError(int sc) throws IOException {
+            if (!finished.get()) {
+                super.sendError(sc);
+            }
+        }
+
+        @Override
+        public synchronized void sendError(int sc, String msg) throws IOException {
+            if (!finished.get()) {
+                super.sendError(sc, msg);
+            }
+        }
+
+        @Override
+        public synchronized void sendRedirect(String location) throws IOException {
+            if (!finished.get()) {
+                super.sendRedirect(location);
+            }
+        }
+
+        @Override
+        public synchronized void setHeader(String name, String value) {
+            if (!finished.get()) {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public synchronized void addHeader(String name, String value) {
+            if (!finished.get()) {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public synchronized void setIntHeader(String name, int value) {
+            if (!finished.get()) {
+                super.setIntHeader(name, value);
+            }
+        }
+
+        @Override
+        public synchronized void addIntHeader(String name, int value) {
+            if (!finished.get()) {
+                super.addIntHeader(name, value);
+            }
+        }
+
+        @Override
+        public synchronized void setDateHeader(String name, long date) {
+            if (!finished.get()) {
+                super.setDateHeader(name, date);
+            }
+        }
+
+        @Override
+        public synchronized void addDateHeader(String name, long date) {
+            if (!finished.get()) {
+                super.addDateHeader(name, date);
+            }
+        }
+
+        @Override
+        public synchronized void addCookie(Cookie cookie) {
+            if (!finished.get()) {
+                super.addCookie(cookie);
+            }
+        }
+
+        @Override
+        public synchronized void setContentType(String type) {
+            if (!finished.get()) {
+                super.setContentType(type);
+            }
+        }
+
+        @Override
+        public synchronized void setCharacterEncoding(String charset) {
+            if (!finished.get()) {
+                super.setCharacterEncoding(charset);
+            }
+        }
+
+        @Override
+        public synchronized void setContentLength(int len) {
+            if (!finished.get()) {
+                super.setContentLength(len);
+            }
+        }
+
+        @Override
+        public synchronized void setContentLengthLong(long len) {
+            if (!finished.get()) {
+                super.setContentLengthLong(len);
+            }
+        }
+
+        @Override
+        public synchronized void flushBuffer() throws IOException {
+            if (!finished.get()) {
+                super.flushBuffer();
+            }
+        }
+
+        @Override
+        public synchronized void resetBuffer() {
+            if (!finished.get()) {
+                super.resetBuffer();
+            }
+        }
+
+        @Override
+        public synchronized void reset() {
+            if (!finished.get()) {
+                super.reset();
+            }
+        }
+
+        @Override
+        public synchronized boolean isCommitted() {
+            return finished.get() || super.isCommitted();
+        }
+
+        @Override
+        public synchronized PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                Writer target = finished.get() ? Writer.nullWriter() : super.getWriter();
+                writer = new PrintWriter(new Writer() {
+                    @Override
+                    public void write(char[] cbuf, int off, int len) throws IOException {
+                        synchronized (GuardedResponse.this) {
+                            if (!finished.get()) {
+                                target.write(cbuf, off, len);
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        synchronized (GuardedResponse.this) {
+                            if (!finished.get()) {
+                                target.flush();
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        flush();
+                    }
+                });
+            }
+            return writer;
+        }
+
+        @Override
+        public synchronized ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                ServletOutputStream target = finished.get() ? null : super.getOutputStream();
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public boolean isReady() {
+                        return target == null || target.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        if (target != null) {
+                            target.setWriteListener(writeListener);
+                        }
+                    }
+
+                    @Override
+                    public void write(int b) throws IOException {
+                        write(new byte[]{(byte) b}, 0, 1);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        synchronized (GuardedResponse.this) {
+                            if (target != null && !finished.get()) {
+                                target.write(b, off, len);
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        synchronized (GuardedResponse.this) {
+                            if (target != null && !finished.get()) {
+                                target.flush();
+                            }
+                        }
+                    }
+                };
+            }
+            return outputStream;
+        }
+    }
+}
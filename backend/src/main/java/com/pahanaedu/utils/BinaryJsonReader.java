@@ -0,0 +1,626 @@
+package com.pahanaedu.utils;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link JsonReader} that decodes CBOR or MessagePack, the counterpart of {@link BinaryJsonWriter}.
+ * <p>
+ * Adapters and {@link RequestBinder} read it exactly like JSON text: maps are objects, arrays
+ * are arrays, and decimals are numbers whose text keeps the scale. Types with no JSON
+ * equivalent, such as byte strings, are rejected as malformed.
+ */
+public abstract class BinaryJsonReader extends JsonReader {
+
+    private static final Reader UNREADABLE_READER = new Reader() {
+        @Override
+        public int read(char[] buffer, int offset, int count) {
+            throw new AssertionError();
+        }
+
+        @Override
+        public void close() {
+            throw new AssertionError();
+        }
+    };
+
+    /**
+     * Strings up to this length are read in one go; longer ones grow as the bytes arrive,
+     * so a forged length cannot allocate more than the body holds
+     */
+    private static final int DIRECT_READ_LIMIT = 8192;
+
+    /**
+     * Returned by {@link #readItem()} for the end of an indefinite-length container
+     */
+    protected static final Object BREAK = new Object();
+
+    /**
+     * Returned by {@link #readItem()} for the start of a container
+     */
+    protected static final class ContainerStart {
+        final boolean map;
+        final long count;
+
+        /**
+         * @param count number of entries, or -1 if the container ends with a break
+         */
+        ContainerStart(boolean map, long count) {
+            this.map = map;
+            this.count = count;
+        }
+    }
+
+    private static final class Container {
+        final boolean map;
+        long remaining;
+        boolean expectingName = true;
+        String name;
+        int index;
+
+        Container(boolean map, long remaining) {
+            this.map = map;
+            this.remaining = remaining;
+        }
+
+        boolean isIndefinite() {
+            return remaining < 0;
+        }
+    }
+
+    private final InputStream in;
+    private final List<Container> stack = new ArrayList<>();
+    private JsonToken peeked;
+    private Object peekedValue;
+    private boolean started;
+
+    protected BinaryJsonReader(InputStream in) {
+        super(UNREADABLE_READER);
+        // Mark support lets the end of the document be detected without consuming input
+        this.in = in.markSupported() ? in : new BufferedInputStream(in);
+    }
+
+    /**
+     * CBOR (RFC 8949)
+     */
+    public static BinaryJsonReader cbor(InputStream in) {
+        return new Cbor(in);
+    }
+
+    /**
+     * MessagePack
+     */
+    public static BinaryJsonReader messagePack(InputStream in) {
+        return new MessagePack(in);
+    }
+
+    /**
+     * Decode the next data item: a String, Long, Double, BigDecimal, Boolean, null,
+     * a {@link ContainerStart}, or {@link #BREAK}
+     */
+    protected abstract Object readItem() throws IOException;
+
+    @Override
+    public JsonToken peek() throws IOException {
+        if (peeked != null) {
+            return peeked;
+        }
+        Container container = top();
+        if (container == null) {
+            if (started && !hasMoreInput()) {
+                return peeked = JsonToken.END_DOCUMENT;
+            }
+            started = true;
+        } else if (!container.isIndefinite() && container.remaining == 0 && (!container.map || container.expectingName)) {
+            return peeked = container.map ? JsonToken.END_OBJECT : JsonToken.END_ARRAY;
+        }
+
+        Object item = readItem();
+        if (item == BREAK) {
+            if (container == null || !container.isIndefinite() || (container.map && !container.expectingName)) {
+                throw syntaxError("Unexpected break");
+            }
+            return peeked = container.map ? JsonToken.END_OBJECT : JsonToken.END_ARRAY;
+        }
+        peekedValue = item;
+        if (container != null && container.map && container.expectingName) {
+            if (!(item instanceof String)) {
+                throw syntaxError("Map keys must be text");
+            }
+            return peeked = JsonToken.NAME;
+        }
+        if (item instanceof ContainerStart) {
+            return peeked = ((ContainerStart) item).map ? JsonToken.BEGIN_OBJECT : JsonToken.BEGIN_ARRAY;
+        } else if (item instanceof String) {
+            return peeked = JsonToken.STRING;
+        } else if (item instanceof Boolean) {
+            return peeked = JsonToken.BOOLEAN;
+        } else if (item == null) {
+            return peeked = JsonToken.NULL;
+        }
+        return peeked = JsonToken.NUMBER;
+    }
+
+    @Override
+    public void beginArray() throws IOException {
+        begin(JsonToken.BEGIN_ARRAY);
+    }
+
+    @Override
+    public void endArray() throws IOException {
+        end(JsonToken.END_ARRAY);
+    }
+
+    @Override
+    public void beginObject() throws IOException {
+        begin(JsonToken.BEGIN_OBJECT);
+    }
+
+    @Override
+    public void endObject() throws IOException {
+        end(JsonToken.END_OBJECT);
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        JsonToken token = peek();
+        return token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY && token != JsonToken.END_DOCUMENT;
+    }
+
+    @Override
+    public String nextName() throws IOException {
+        expect(JsonToken.NAME);
+        String name = (String) peekedValue;
+        Container container = top();
+        container.expectingName = false;
+        container.name = name;
+        clearPeeked();
+        return name;
+    }
+
+    @Override
+    public String nextString() throws IOException {
+        JsonToken token = peek();
+        if (token != JsonToken.STRING && token != JsonToken.NUMBER) {
+            throw unexpected(JsonToken.STRING);
+        }
+        String value = peekedValue.toString();
+        consumeValue();
+        return value;
+    }
+
+    @Override
+    public boolean nextBoolean() throws IOException {
+        expect(JsonToken.BOOLEAN);
+        boolean value = (Boolean) peekedValue;
+        consumeValue();
+        return value;
+    }
+
+    @Override
+    public void nextNull() throws IOException {
+        expect(JsonToken.NULL);
+        consumeValue();
+    }
+
+    @Override
+    public double nextDouble() throws IOException {
+        JsonToken token = peek();
+        double value;
+        if (token == JsonToken.NUMBER) {
+            value = ((Number) peekedValue).doubleValue();
+        } else if (token == JsonToken.STRING) {
+            value = Double.parseDouble((String) peekedValue);
+        } else {
+            throw unexpected(JsonToken.NUMBER);
+        }
+        consumeValue();
+        return value;
+    }
+
+    @Override
+    public long nextLong() throws IOException {
+        BigDecimal number = exactNumber();
+        long value;
+        try {
+            value = number.longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Expected a long but was " + number + locationString());
+        }
+        consumeValue();
+        return value;
+    }
+
+    @Override
+    public int nextInt() throws IOException {
+        BigDecimal number = exactNumber();
+        int value;
+        try {
+            value = number.intValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Expected an int but was " + number + locationString());
+        }
+        consumeValue();
+        return value;
+    }
+
+    @Override
+    public void skipValue() throws IOException {
+        JsonToken token = peek();
+        if (token == JsonToken.NAME) {
+            nextName();
+            return;
+        }
+        if (token == JsonToken.BEGIN_OBJECT || token == JsonToken.BEGIN_ARRAY) {
+            begin(token);
+            while (hasNext()) {
+                skipValue();
+            }
+            end(token == JsonToken.BEGIN_OBJECT ? JsonToken.END_OBJECT : JsonToken.END_ARRAY);
+            return;
+        }
+        if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY || token == JsonToken.END_DOCUMENT) {
+            throw new IllegalStateException("Expected a value but was " + token + locationString());
+        }
+        consumeValue();
+    }
+
+    @Override
+    public String getPath() {
+        StringBuilder path = new StringBuilder("$");
+        for (Container container : stack) {
+            if (container.map) {
+                if (container.name != null) {
+                    path.append('.').append(container.name);
+                }
+            } else {
+                path.append('[').append(container.index).append(']');
+            }
+        }
+        return path.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        peeked = JsonToken.END_DOCUMENT;
+        stack.clear();
+        in.close();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + locationString();
+    }
+
+    private Container top() {
+        return stack.isEmpty() ? null : stack.get(stack.size() - 1);
+    }
+
+    private void begin(JsonToken token) throws IOException {
+        expect(token);
+        ContainerStart start = (ContainerStart) peekedValue;
+        consumeValue();
+        stack.add(new Container(start.map, start.count));
+    }
+
+    private void end(JsonToken token) throws IOException {
+        expect(token);
+        stack.remove(stack.size() - 1);
+        clearPeeked();
+    }
+
+    /**
+     * Count the value just read against its container; containers count when they begin
+     */
+    private void consumeValue() {
+        Container container = top();
+        if (container != null) {
+            if (!container.isIndefinite()) {
+                container.remaining--;
+            }
+            if (container.map) {
+                container.expectingName = true;
+            } else {
+                container.index++;
+            }
+        }
+        clearPeeked();
+    }
+
+    private void clearPeeked() {
+        peeked = null;
+        peekedValue = null;
+    }
+
+    private BigDecimal exactNumber() throws IOException {
+        JsonToken token = peek();
+        try {
+            if (token == JsonToken.NUMBER) {
+                Object value = peekedValue;
+                if (value instanceof Long) {
+                    return BigDecimal.valueOf((Long) value);
+                } else if (value instanceof Double) {
+                    return BigDecimal.valueOf((Double) value);
+                }
+                return (BigDecimal) value;
+            } else if (token == JsonToken.STRING) {
+                return new BigDecimal((String) peekedValue);
+            }
+        } catch (NumberFormatException e) {
+            throw new NumberFormatException("Expected a number but was " + peekedValue + locationString());
+        }
+        throw unexpected(JsonToken.NUMBER);
+    }
+
+    private void expect(JsonToken token) throws IOException {
+        if (peek() != token) {
+            throw unexpected(token);
+        }
+    }
+
+    private IllegalStateException unexpected(JsonToken expected) throws IOException {
+        return new IllegalStateException("Expected " + expected + " but was " + peek() + locationString());
+    }
+
+    private String locationString() {
+        return " at path " + getPath();
+    }
+
+    protected final MalformedJsonException syntaxError(String message) {
+        return new MalformedJsonException(message + locationString());
+    }
+
+    private boolean hasMoreInput() throws IOException {
+        in.mark(1);
+        int b = in.read();
+        in.reset();
+        return b != -1;
+    }
+
+    // Reading primitives for the formats
+
+    protected final int readByte() throws IOException {
+        int b = in.read();
+        if (b == -1) {
+            throw new EOFException("End of input" + locationString());
+        }
+        return b;
+    }
+
+    protected final long readBigEndian(int bytes) throws IOException {
+        long value = 0;
+        for (int i = 0; i < bytes; i++) {
+            value = (value << 8) | readByte();
+        }
+        return value;
+    }
+
+    protected final String readText(long length) throws IOException {
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw syntaxError("Text too long");
+        }
+        int size = (int) length;
+        if (size <= DIRECT_READ_LIMIT) {
+            byte[] bytes = new byte[size];
+            readFully(bytes, size);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        ByteArrayOutputStream text = new ByteArrayOutputStream(DIRECT_READ_LIMIT);
+        byte[] chunk = new byte[DIRECT_READ_LIMIT];
+        int left = size;
+        while (left > 0) {
+            int n = Math.min(left, chunk.length);
+            readFully(chunk, n);
+            text.write(chunk, 0, n);
+            left -= n;
+        }
+        return new String(text.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private void readFully(byte[] bytes, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            int n = in.read(bytes, offset, length - offset);
+            if (n == -1) {
+                throw new EOFException("End of input" + locationString());
+            }
+            offset += n;
+        }
+    }
+
+    /**
+     * An unsigned 64-bit value, which does not fit a long past {@code Long.MAX_VALUE}
+     */
+    protected static Object unsigned(long value) {
+        if (value >= 0) {
+            return value;
+        }
+        return new BigDecimal(new BigInteger(Long.toUnsignedString(value)));
+    }
+
+    static final class Cbor extends BinaryJsonReader {
+        private static final int DECIMAL_FRACTION = 4;
+        private static final int POSITIVE_BIGNUM = 2;
+        private static final int NEGATIVE_BIGNUM = 3;
+
+        Cbor(InputStream in) {
+            super(in);
+        }
+
+        private long readArgument(int info) throws IOException {
+            if (info < 24) {
+                return info;
+            }
+            switch (info) {
+                case 24: return readBigEndian(1);
+                case 25: return readBigEndian(2);
+                case 26: return readBigEndian(4);
+                case 27: return readBigEndian(8);
+                default: throw syntaxError("Invalid CBOR length " + info);
+            }
+        }
+
+        @Override
+        protected Object readItem() throws IOException {
+            int initial = readByte();
+            int major = initial >>> 5;
+            int info = initial & 0x1F;
+
+            switch (major) {
+                case 0:
+                    return unsigned(readArgument(info));
+                case 1: {
+                    Object value = unsigned(readArgument(info));
+                    if (value instanceof Long) {
+                        return -1 - (Long) value;
+                    }
+                    return ((BigDecimal) value).negate().subtract(BigDecimal.ONE);
+                }
+                case 3:
+                    if (info == 31) {
+                        throw syntaxError("Indefinite-length text is not supported");
+                    }
+                    return readText(readArgument(info));
+                case 4:
+                case 5:
+                    return new ContainerStart(major == 5, info == 31 ? -1 : readArgument(info));
+                case 6:
+                    return readTagged(readArgument(info));
+                case 7:
+                    return readSimple(info);
+                default:
+                    throw syntaxError("Byte strings are not supported");
+            }
+        }
+
+        private Object readTagged(long tag) throws IOException {
+            if (tag == POSITIVE_BIGNUM || tag == NEGATIVE_BIGNUM) {
+                int initial = readByte();
+                if (initial >>> 5 != 2 || (initial & 0x1F) == 31) {
+                    throw syntaxError("Invalid bignum");
+                }
+                long length = readArgument(initial & 0x1F);
+                if (length > 64) {
+                    throw syntaxError("Bignum too large");
+                }
+                byte[] bytes = new byte[(int) length + 1];
+                for (int i = 1; i < bytes.length; i++) {
+                    bytes[i] = (byte) readByte();
+                }
+                BigInteger value = new BigInteger(bytes);
+                return new BigDecimal(tag == POSITIVE_BIGNUM ? value : value.negate().subtract(BigInteger.ONE));
+            }
+            if (tag == DECIMAL_FRACTION) {
+                Object header = readItem();
+                if (!(header instanceof ContainerStart) || ((ContainerStart) header).map
+                        || ((ContainerStart) header).count != 2) {
+                    throw syntaxError("Invalid decimal fraction");
+                }
+                Object exponent = readItem();
+                Object mantissa = readItem();
+                if (!(exponent instanceof Long) || Math.abs((Long) exponent) > 1000) {
+                    throw syntaxError("Invalid decimal fraction exponent");
+                }
+                BigInteger unscaled;
+                if (mantissa instanceof Long) {
+                    unscaled = BigInteger.valueOf((Long) mantissa);
+                } else if (mantissa instanceof BigDecimal) {
+                    unscaled = ((BigDecimal) mantissa).toBigIntegerExact();
+                } else {
+                    throw syntaxError("Invalid decimal fraction mantissa");
+                }
+                return new BigDecimal(unscaled, (int) -(Long) exponent);
+            }
+            // Other tags (dates, URIs and so on) only annotate the item that follows
+            return readItem();
+        }
+
+        private Object readSimple(int info) throws IOException {
+            switch (info) {
+                case 20: return Boolean.FALSE;
+                case 21: return Boolean.TRUE;
+                case 22:
+                case 23:
+                    return null;
+                case 25: return halfToDouble((int) readBigEndian(2));
+                case 26: return (double) Float.intBitsToFloat((int) readBigEndian(4));
+                case 27: return Double.longBitsToDouble(readBigEndian(8));
+                case 31: return BREAK;
+                default: throw syntaxError("Unsupported CBOR simple value " + info);
+            }
+        }
+
+        private static double halfToDouble(int half) {
+            int exponent = (half >>> 10) & 0x1F;
+            int mantissa = half & 0x3FF;
+            double value;
+            if (exponent == 0) {
+                value = mantissa * Math.pow(2, -24);
+            } else if (exponent == 31) {
+                value = mantissa == 0 ? Double.POSITIVE_INFINITY : Double.NaN;
+            } else {
+                value = (mantissa + 1024) * Math.pow(2, exponent - 25);
+            }
+            return (half & 0x8000) != 0 ? -value : value;
+        }
+    }
+
+    static final class MessagePack extends BinaryJsonReader {
+        MessagePack(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        protected Object readItem() throws IOException {
+            int b = readByte();
+            if (b <= 0x7F) {
+                return (long) b;
+            } else if (b >= 0xE0) {
+                return (long) (byte) b;
+            } else if (b <= 0x8F) {
+                return new ContainerStart(true, b & 0x0F);
+            } else if (b <= 0x9F) {
+                return new ContainerStart(false, b & 0x0F);
+            } else if (b <= 0xBF) {
+                return readText(b & 0x1F);
+            }
+
+            switch (b) {
+                case 0xC0: return null;
+                case 0xC2: return Boolean.FALSE;
+                case 0xC3: return Boolean.TRUE;
+                case 0xCA: return (double) Float.intBitsToFloat((int) readBigEndian(4));
+                case 0xCB: return Double.longBitsToDouble(readBigEndian(8));
+                case 0xCC: return readBigEndian(1);
+                case 0xCD: return readBigEndian(2);
+                case 0xCE: return readBigEndian(4);
+                case 0xCF: return unsigned(readBigEndian(8));
+                case 0xD0: return (long) (byte) readBigEndian(1);
+                case 0xD1: return (long) (short) readBigEndian(2);
+                case 0xD2: return (long) (int) readBigEndian(4);
+                case 0xD3: return readBigEndian(8);
+                case 0xD9: return readText(readBigEndian(1));
+                case 0xDA: return readText(readBigEndian(2));
+                case 0xDB: return readText(readBigEndian(4));
+                case 0xDC: return new ContainerStart(false, readBigEndian(2));
+                case 0xDD: return new ContainerStart(false, readBigEndian(4));
+                case 0xDE: return new ContainerStart(true, readBigEndian(2));
+                case 0xDF: return new ContainerStart(true, readBigEndian(4));
+                default: throw syntaxError("Unsupported MessagePack type 0x" + Integer.toHexString(b));
+            }
+        }
+    }
+}
@@ -0,0 +1,510 @@
+package com.pahanaedu.utils;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * A {@link JsonWriter} that encodes the token stream as CBOR or MessagePack instead of JSON text.
+ * <p>
+ * Gson adapters only ever talk to a {@code JsonWriter}, so the hand-written model adapters in
+ * {@link ModelTypeAdapters} produce the binary form without a second set of field definitions,
+ * the same way Gson's own tree writer works. Maps and arrays are written with their element
+ * count, so each container is buffered until it ends. Decimal values keep their scale: CBOR
+ * writes them as decimal fractions (tag 4), MessagePack as text.
+ */
+public abstract class BinaryJsonWriter extends JsonWriter {
+
+    private static final Writer UNWRITABLE_WRITER = new Writer() {
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            throw new AssertionError();
+        }
+
+        @Override
+        public void flush() {
+            throw new AssertionError();
+        }
+
+        @Override
+        public void close() {
+            throw new AssertionError();
+        }
+    };
+
+    private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+    private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+
+    /**
+     * An open map or array: where its content starts and how many entries it has so far
+     */
+    private static final class Container {
+        final boolean map;
+        final int start;
+        int count;
+
+        Container(boolean map, int start) {
+            this.map = map;
+            this.start = start;
+        }
+    }
+
+    private final OutputStream out;
+    private final Deque<Container> stack = new ArrayDeque<>();
+    private byte[] buffer = new byte[256];
+    private int size;
+    private String deferredName;
+    private boolean complete;
+    private boolean closed;
+
+    protected BinaryJsonWriter(OutputStream out) {
+        super(UNWRITABLE_WRITER);
+        this.out = out;
+    }
+
+    /**
+     * CBOR (RFC 8949)
+     */
+    public static BinaryJsonWriter cbor(OutputStream out) {
+        return new Cbor(out);
+    }
+
+    /**
+     * MessagePack
+     */
+    public static BinaryJsonWriter messagePack(OutputStream out) {
+        return new MessagePack(out);
+    }
+
+    // Encoding of the individual items, written at the end of the buffer
+
+    protected abstract void writeHeader(boolean map, int count);
+
+    protected abstract void writeText(String value);
+
+    protected abstract void writeLong(long value);
+
+    protected abstract void writeDouble(double value);
+
+    protected abstract void writeDecimal(BigDecimal value);
+
+    protected abstract void writeBoolean(boolean value);
+
+    protected abstract void writeNull();
+
+    @Override
+    public JsonWriter beginArray() throws IOException {
+        return open(false);
+    }
+
+    @Override
+    public JsonWriter endArray() throws IOException {
+        return close(false);
+    }
+
+    @Override
+    public JsonWriter beginObject() throws IOException {
+        return open(true);
+    }
+
+    @Override
+    public JsonWriter endObject() throws IOException {
+        return close(true);
+    }
+
+    @Override
+    public JsonWriter name(String name) throws IOException {
+        if (name == null) {
+            throw new NullPointerException("name == null");
+        }
+        Container container = stack.peek();
+        if (container == null || !container.map || deferredName != null) {
+            throw new IllegalStateException("Unexpected name " + name);
+        }
+        deferredName = name;
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        writeText(value);
+        afterValue();
+        return this;
+    }
+
+    @Override
+    public JsonWriter jsonValue(String value) {
+        throw new UnsupportedOperationException("Raw JSON cannot be written in a binary format");
+    }
+
+    @Override
+    public JsonWriter nullValue() throws IOException {
+        if (deferredName != null && !getSerializeNulls()) {
+            // Leave the property out, as JSON output does
+            deferredName = null;
+            return this;
+        }
+        beforeValue();
+        writeNull();
+        afterValue();
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(boolean value) throws IOException {
+        beforeValue();
+        writeBoolean(value);
+        afterValue();
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(Boolean value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        return value(value.booleanValue());
+    }
+
+    @Override
+    public JsonWriter value(double value) throws IOException {
+        beforeValue();
+        writeDouble(value);
+        afterValue();
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(long value) throws IOException {
+        beforeValue();
+        writeLong(value);
+        afterValue();
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(Number value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            writeLong(value.longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            writeDouble(value.doubleValue());
+        } else if (value instanceof BigDecimal) {
+            writeDecimal((BigDecimal) value);
+        } else if (value instanceof BigInteger) {
+            writeInteger((BigInteger) value);
+        } else {
+            // Numbers parsed from JSON text keep their literal, so decide from that
+            String text = value.toString();
+            try {
+                writeLong(Long.parseLong(text));
+            } catch (NumberFormatException e) {
+                writeDecimal(new BigDecimal(text));
+            }
+        }
+        afterValue();
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (!stack.isEmpty()) {
+            throw new IOException("Incomplete document");
+        }
+        out.close();
+    }
+
+    private void writeInteger(BigInteger value) {
+        if (value.compareTo(LONG_MIN) >= 0 && value.compareTo(LONG_MAX) <= 0) {
+            writeLong(value.longValue());
+        } else {
+            writeDecimal(new BigDecimal(value));
+        }
+    }
+
+    private JsonWriter open(boolean map) throws IOException {
+        beforeValue();
+        stack.push(new Container(map, size));
+        return this;
+    }
+
+    private JsonWriter close(boolean map) throws IOException {
+        Container container = stack.peek();
+        if (container == null || container.map != map || deferredName != null) {
+            throw new IllegalStateException("Nesting problem.");
+        }
+        stack.pop();
+
+        // Now that the count is known, put the header in front of the content
+        byte[] content = Arrays.copyOfRange(buffer, container.start, size);
+        size = container.start;
+        writeHeader(map, container.count);
+        write(content, 0, content.length);
+        afterValue();
+        return this;
+    }
+
+    private void beforeValue() throws IOException {
+        if (closed) {
+            throw new IllegalStateException("JsonWriter is closed.");
+        }
+        Container container = stack.peek();
+        if (container == null) {
+            if (complete) {
+                throw new IllegalStateException("JSON must have only one top-level value.");
+            }
+            return;
+        }
+        if (container.map) {
+            if (deferredName == null) {
+                throw new IllegalStateException("Expected a name");
+            }
+            writeText(deferredName);
+            deferredName = null;
+        }
+        container.count++;
+    }
+
+    // Buffer access for the encodings
+
+    protected final void write(int b) {
+        ensure(1);
+        buffer[size++] = (byte) b;
+    }
+
+    protected final void write(byte[] bytes, int offset, int length) {
+        ensure(length);
+        System.arraycopy(bytes, offset, buffer, size, length);
+        size += length;
+    }
+
+    protected final void writeBigEndian(long value, int bytes) {
+        ensure(bytes);
+        for (int shift = (bytes - 1) * 8; shift >= 0; shift -= 8) {
+            buffer[size++] = (byte) (value >>> shift);
+        }
+    }
+
+    protected static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void ensure(int length) {
+        if (size + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + length));
+        }
+    }
+
+    /**
+     * Once the top-level value is complete it is passed on to the stream
+     */
+    private void afterValue() throws IOException {
+        if (stack.isEmpty()) {
+            out.write(buffer, 0, size);
+            size = 0;
+            complete = true;
+        }
+    }
+
+    static final class Cbor extends BinaryJsonWriter {
+        private static final int UNSIGNED = 0;
+        private static final int NEGATIVE = 1;
+        private static final int TEXT = 3;
+        private static final int ARRAY = 4;
+        private static final int MAP = 5;
+        private static final int TAG = 6;
+        private static final int DECIMAL_FRACTION = 4;
+
+        Cbor(OutputStream out) {
+            super(out);
+        }
+
+        private void writeArgument(int majorType, long value) {
+            // value is never negative here: negative integers are passed as -1 - n
+            int type = majorType << 5;
+            if (value < 24) {
+                write(type | (int) value);
+            } else if (value <= 0xFFL) {
+                write(type | 24);
+                writeBigEndian(value, 1);
+            } else if (value <= 0xFFFFL) {
+                write(type | 25);
+                writeBigEndian(value, 2);
+            } else if (value <= 0xFFFFFFFFL) {
+                write(type | 26);
+                writeBigEndian(value, 4);
+            } else {
+                write(type | 27);
+                writeBigEndian(value, 8);
+            }
+        }
+
+        @Override
+        protected void writeHeader(boolean map, int count) {
+            writeArgument(map ? MAP : ARRAY, count);
+        }
+
+        @Override
+        protected void writeText(String value) {
+            byte[] bytes = utf8(value);
+            writeArgument(TEXT, bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+
+        @Override
+        protected void writeLong(long value) {
+            if (value >= 0) {
+                writeArgument(UNSIGNED, value);
+            } else {
+                writeArgument(NEGATIVE, -1 - value);
+            }
+        }
+
+        @Override
+        protected void writeDouble(double value) {
+            write(0xFB);
+            writeBigEndian(Double.doubleToLongBits(value), 8);
+        }
+
+        @Override
+        protected void writeDecimal(BigDecimal value) {
+            BigInteger mantissa = value.unscaledValue();
+            if (mantissa.bitLength() >= 64) {
+                // Too large for a plain integer mantissa; rare enough to send as text
+                writeText(value.toString());
+                return;
+            }
+            writeArgument(TAG, DECIMAL_FRACTION);
+            writeArgument(ARRAY, 2);
+            writeLong(-(long) value.scale());
+            writeLong(mantissa.longValue());
+        }
+
+        @Override
+        protected void writeBoolean(boolean value) {
+            write(value ? 0xF5 : 0xF4);
+        }
+
+        @Override
+        protected void writeNull() {
+            write(0xF6);
+        }
+    }
+
+    static final class MessagePack extends BinaryJsonWriter {
+        MessagePack(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        protected void writeHeader(boolean map, int count) {
+            if (count < 16) {
+                write((map ? 0x80 : 0x90) | count);
+            } else if (count <= 0xFFFF) {
+                write(map ? 0xDE : 0xDC);
+                writeBigEndian(count, 2);
+            } else {
+                write(map ? 0xDF : 0xDD);
+                writeBigEndian(count, 4);
+            }
+        }
+
+        @Override
+        protected void writeText(String value) {
+            byte[] bytes = utf8(value);
+            int length = bytes.length;
+            if (length < 32) {
+                write(0xA0 | length);
+            } else if (length <= 0xFF) {
+                write(0xD9);
+                writeBigEndian(length, 1);
+            } else if (length <= 0xFFFF) {
+                write(0xDA);
+                writeBigEndian(length, 2);
+            } else {
+                write(0xDB);
+                writeBigEndian(length, 4);
+            }
+            write(bytes, 0, length);
+        }
+
+        @Override
+        protected void writeLong(long value) {
+            if (value >= -32 && value <= 127) {
+                write((int) value & 0xFF);
+            } else if (value >= 0) {
+                if (value <= 0xFFL) {
+                    write(0xCC);
+                    writeBigEndian(value, 1);
+                } else if (value <= 0xFFFFL) {
+                    write(0xCD);
+                    writeBigEndian(value, 2);
+                } else if (value <= 0xFFFFFFFFL) {
+                    write(0xCE);
+                    writeBigEndian(value, 4);
+                } else {
+                    write(0xCF);
+                    writeBigEndian(value, 8);
+                }
+            } else if (value >= Byte.MIN_VALUE) {
+                write(0xD0);
+                writeBigEndian(value, 1);
+            } else if (value >= Short.MIN_VALUE) {
+                write(0xD1);
+                writeBigEndian(value, 2);
+            } else if (value >= Integer.MIN_VALUE) {
+                write(0xD2);
+                writeBigEndian(value, 4);
+            } else {
+                write(0xD3);
+                writeBigEndian(value, 8);
+            }
+        }
+
+        @Override
+        protected void writeDouble(double value) {
+            write(0xCB);
+            writeBigEndian(Double.doubleToLongBits(value), 8);
+        }
+
+        @Override
+        protected void writeDecimal(BigDecimal value) {
+            // MessagePack has no decimal type; text keeps the scale, like the JSON literal
+            writeText(value.toString());
+        }
+
+        @Override
+        protected void writeBoolean(boolean value) {
+            write(value ? 0xC3 : 0xC2);
+        }
+
+        @Override
+        protected void writeNull() {
+            write(0xC0);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.pahanaedu.utils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Creates the bounded worker pools used for request handling, DAO fan-out and background jobs.
+ * <p>
+ * With {@code app.threads.virtual=true} on Java 21 or later the pools run their tasks on
+ * virtual threads, so a task blocked on JDBC no longer holds an OS thread and the worker
+ * limit can be raised without more memory. The queue bound and rejection behaviour are the
+ * same in both modes. Virtual threads are created through reflection because the code is
+ * still compiled for Java 11; on older runtimes the setting is ignored with a warning.
+ */
+public final class BoundedExecutors {
+    private static final Logger LOGGER = Logger.getLogger(BoundedExecutors.class.getName());
+    private static final long IDLE_KEEP_ALIVE_SECONDS = 30;
+
+    private static final boolean VIRTUAL_THREADS = AppConfig.getBoolean("app.threads.virtual", false)
+            && virtualThreadsSupported();
+
+    private BoundedExecutors() {
+    }
+
+    /**
+     * Whether pools created from now on use virtual threads
+     */
+    public static boolean isVirtualThreadsEnabled() {
+        return VIRTUAL_THREADS;
+    }
+
+    /**
+     * Create a fixed-size pool with a bounded queue; work beyond the queue is rejected
+     * with {@link java.util.concurrent.RejectedExecutionException}.
+     *
+     * @param name           Prefix for thread names
+     * @param workers        Number of platform threads
+     * @param virtualWorkers Number of concurrent tasks when running on virtual threads
+     * @param queueSize      Maximum number of waiting tasks
+     */
+    public static ThreadPoolExecutor newBoundedExecutor(String name, int workers, int virtualWorkers, int queueSize) {
+        int size = VIRTUAL_THREADS ? virtualWorkers : workers;
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(size, size, IDLE_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize), threadFactory(name));
+        if (VIRTUAL_THREADS) {
+            // Virtual threads are cheap to create, so idle ones are not kept around
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+
+    /**
+     * Tasks waiting in a pool's queue, or 0 for executors that do not expose one
+     */
+    public static int queueDepth(ExecutorService executor) {
+        return executor instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) executor).getQueue().size() : 0;
+    }
+
+    /**
+     * Tasks a pool is running, or 0 for executors that do not expose it
+     */
+    public static int activeCount(ExecutorService executor) {
+        return executor instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) executor).getActiveCount() : 0;
+    }
+
+    /**
+     * Thread factory for the configured mode; platform threads are daemons
+     */
+    public static ThreadFactory threadFactory(String name) {
+        if (VIRTUAL_THREADS) {
+            ThreadFactory factory = virtualThreadFactory(name + "-");
+            if (factory != null) {
+                return factory;
+            }
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static boolean virtualThreadsSupported() {
+        if (virtualThreadFactory("probe-") != null) {
+            LOGGER.info("Virtual threads enabled for worker pools");
+            return true;
+        }
+        LOGGER.warning("app.threads.virtual is set but this runtime (Java "
+                + System.getProperty("java.specification.version") + ") has no virtual threads, using platform threads");
+        return false;
+    }
+
+    /**
+     * Equivalent to {@code Thread.ofVirtual().name(prefix, 1).factory()}
+     */
+    private static ThreadFactory virtualThreadFactory(String prefix) {
+        try {
+            // Look methods up on the public Thread.Builder interface, not the JDK-internal implementation
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Method name = builderType.getMethod("name", String.class, long.class);
+            Method factory = builderType.getMethod("factory");
+
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = name.invoke(builder, prefix, 1L);
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            return null;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Could not create virtual thread factory", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.pahanaedu.utils;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit and miss counts for one cache, reported by GET /health/details
+ */
+public final class CacheStats {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public void recordHit() {
+        hits.increment();
+    }
+
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Share of lookups answered from the cache, or 0 before the first lookup
+     */
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+}
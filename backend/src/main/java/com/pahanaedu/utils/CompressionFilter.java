@@ -0,0 +1,345 @@
+package com.pahanaedu.utils;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.ServletResponseWrapper;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Filter that gzip-compresses text responses when the client accepts it.
+ * <p>
+ * The body is buffered and only compressed once it is complete and at least
+ * {@code app.compression.min-size} bytes, since small bodies gain nothing from it. Streams,
+ * binary documents and responses that already carry a Content-Encoding pass straight
+ * through. Requests handled asynchronously are finished by {@link AsyncRequestExecutor}
+ * through {@link #finish(ServletResponse)} before the async cycle completes.
+ * <p>
+ * Bodies of cacheable GETs (see {@link ConditionalGet}) are also stored in the
+ * {@link ResponseCache}, compressed, under their ETag.
+ */
+public class CompressionFilter implements Filter {
+    private static final Logger LOGGER = Logger.getLogger(CompressionFilter.class.getName());
+
+    private int minSize;
+    private ResponseCache cache;
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        minSize = AppConfig.getInt("app.compression.min-size", 1024);
+        cache = ResponseCache.getInstance();
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
+            throws IOException, ServletException {
+
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+
+        CompressingResponse compressing = new CompressingResponse(response, acceptsGzip(request), minSize);
+        filterChain.doFilter(request, compressing);
+
+        // An async request is finished by whoever completes it
+        if (!request.isAsyncStarted()) {
+            compressing.finish();
+            ResponseCache.Pending pending = ResponseCache.pending(request);
+            if (pending != null) {
+                compressing.store(cache, pending);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        // Nothing to clean up
+    }
+
+    /**
+     * Whether the client listed gzip in Accept-Encoding without ruling it out with q=0
+     */
+    public static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] coding = part.trim().split(";");
+            String name = coding[0].trim().toLowerCase(Locale.ROOT);
+            if (!name.equals("gzip") && !name.equals("*")) {
+                continue;
+            }
+            boolean refused = false;
+            for (int i = 1; i < coding.length; i++) {
+                String param = coding[i].trim().replace(" ", "");
+                if (param.startsWith("q=")) {
+                    try {
+                        refused = Double.parseDouble(param.substring(2)) <= 0;
+                    } catch (NumberFormatException e) {
+                        refused = true;
+                    }
+                }
+            }
+            if (!refused) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Write out a buffered body if {@code response} is, or wraps, a compressing response
+     */
+    public static void finish(ServletResponse response) {
+        CompressingResponse compressing = unwrap(response, CompressingResponse.class);
+        if (compressing != null) {
+            try {
+                compressing.finish();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not write response body", e);
+            }
+        }
+    }
+
+    /**
+     * The first response of the given type in a chain of wrappers, or null if there is none
+     */
+    static <T extends ServletResponse> T unwrap(ServletResponse response, Class<T> type) {
+        ServletResponse current = response;
+        while (current != null) {
+            if (type.isInstance(current)) {
+                return type.cast(current);
+            }
+            current = current instanceof ServletResponseWrapper
+                    ? ((ServletResponseWrapper) current).getResponse() : null;
+        }
+        return null;
+    }
+
+    static boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        if (type.startsWith("text/event-stream")) {
+            return false;
+        }
+        return type.startsWith("text/") || type.startsWith("application/json")
+                || type.startsWith("application/javascript") || type.startsWith("application/xml");
+    }
+
+    static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed, 8192)) {
+            gzip.write(body);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Buffers the body until {@link #finish()}, unless it turns out to be a stream or binary
+     */
+    static final class CompressingResponse extends HttpServletResponseWrapper {
+        private final boolean acceptsGzip;
+        private final int minSize;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+        private boolean passThrough;
+        private boolean finished;
+        private int status = SC_OK;
+        private byte[] gzipped;
+
+        CompressingResponse(HttpServletResponse response, boolean acceptsGzip, int minSize) {
+            super(response);
+            this.acceptsGzip = acceptsGzip;
+            this.minSize = minSize;
+        }
+
+        @Override
+        public synchronized ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called");
+            }
+            if (outputStream == null) {
+                decideMode();
+                outputStream = passThrough ? super.getOutputStream() : new BufferStream();
+            }
+            return outputStream;
+        }
+
+        @Override
+        public synchronized PrintWriter getWriter() throws IOException {
+            if (outputStream != null) {
+                throw new IllegalStateException("getOutputStream() has already been called");
+            }
+            if (writer == null) {
+                decideMode();
+                if (passThrough) {
+                    writer = super.getWriter();
+                } else {
+                    String encoding = getCharacterEncoding();
+                    Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.ISO_8859_1;
+                    writer = new PrintWriter(new OutputStreamWriter(buffer, charset));
+                }
+            }
+            return writer;
+        }
+
+        @Override
+        public void setStatus(int sc) {
+            status = sc;
+            super.setStatus(sc);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            status = sc;
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            status = sc;
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            if (passThrough) {
+                super.setContentLength(len);
+            }
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            if (passThrough) {
+                super.setContentLengthLong(len);
+            }
+        }
+
+        @Override
+        public synchronized void flushBuffer() throws IOException {
+            if (passThrough || (outputStream == null && writer == null)) {
+                super.flushBuffer();
+            } else if (writer != null) {
+                writer.flush();
+            }
+        }
+
+        @Override
+        public synchronized void resetBuffer() {
+            super.resetBuffer();
+            buffer.reset();
+        }
+
+        @Override
+        public synchronized void reset() {
+            super.reset();
+            buffer.reset();
+            status = SC_OK;
+        }
+
+        @Override
+        public boolean isCommitted() {
+            return finished || super.isCommitted();
+        }
+
+        private void decideMode() {
+            String contentType = getContentType();
+            passThrough = getHeader("Content-Encoding") != null
+                    || (contentType != null && !isCompressible(contentType));
+        }
+
+        /**
+         * Send the buffered body, compressed if it is worth it. Safe to call more than once.
+         */
+        synchronized void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (passThrough || (outputStream == null && writer == null)) {
+                return;
+            }
+            if (writer != null) {
+                writer.flush();
+            }
+
+            byte[] body = buffer.toByteArray();
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            boolean compressible = isCompressible(getContentType());
+            if (compressible) {
+                response.addHeader("Vary", "Accept-Encoding");
+            }
+
+            if (acceptsGzip && compressible && body.length >= minSize && getHeader("Content-Encoding") == null) {
+                gzipped = gzip(body);
+                response.setHeader("Content-Encoding", "gzip");
+                response.setContentLength(gzipped.length);
+                response.getOutputStream().write(gzipped);
+            } else {
+                response.setContentLength(body.length);
+                response.getOutputStream().write(body);
+            }
+            response.flushBuffer();
+        }
+
+        /**
+         * Keep a finished 200 response in the cache, compressing it now if the client did not need it
+         */
+        synchronized void store(ResponseCache cache, ResponseCache.Pending pending) throws IOException {
+            if (!finished || passThrough || status != SC_OK || !pending.getEtag().equals(getHeader("ETag"))) {
+                return;
+            }
+            byte[] body = buffer.toByteArray();
+            if (body.length < minSize || !isCompressible(getContentType())) {
+                return;
+            }
+            cache.put(pending.getKey(), pending.getEtag(), getContentType(), body,
+                    gzipped != null ? gzipped : gzip(body));
+        }
+
+        /**
+         * Collects bytes written through getOutputStream()
+         */
+        private final class BufferStream extends ServletOutputStream {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                throw new IllegalStateException("Non-blocking output is not buffered for compression");
+            }
+
+            @Override
+            public void write(int b) {
+                buffer.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                buffer.write(b, off, len);
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.pahanaedu.utils;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Conditional GET support for responses built from whole tables.
+ * <p>
+ * Call before loading anything: the validators only depend on {@link TableVersions}, so an
+ * unchanged resource is answered with 304 without a query or any JSON being produced.
+ * Responses may be stored by the browser but are revalidated on every use, since they
+ * depend on the signed-in session. {@link #handle} also serves a body kept in the
+ * {@link ResponseCache} for the current ETag, already compressed.
+ */
+public final class ConditionalGet {
+    private static final String CACHE_CONTROL = "private, no-cache";
+
+    private ConditionalGet() {
+    }
+
+    /**
+     * Set ETag, Last-Modified and Cache-Control for a response built from {@code tables},
+     * and answer 304 if the client's copy is current.
+     * @return true if a 304 was sent and the caller should stop
+     */
+    public static boolean notModified(HttpServletRequest request, HttpServletResponse response,
+                                      TableVersions versions, String... tables) {
+        // Read the version before the caller loads data, so a concurrent write can only make the tag stale, never wrong
+        TableVersions.Version version = versions.current(tables);
+        String etag = versions.etag(version, tables);
+        long lastModified = version.getLastModified() / 1000 * 1000;
+
+        response.setHeader("ETag", etag);
+        response.setDateHeader("Last-Modified", lastModified);
+        response.setHeader("Cache-Control", CACHE_CONTROL);
+
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        boolean current;
+        if (ifNoneMatch != null) {
+            current = matches(ifNoneMatch, etag);
+        } else {
+            long ifModifiedSince = readDate(request, "If-Modified-Since");
+            current = ifModifiedSince >= 0 && lastModified <= ifModifiedSince;
+        }
+
+        if (current) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        }
+        return current;
+    }
+
+    /**
+     * Answer with 304, or with the cached body for the current ETag, if possible.
+     * Otherwise the response is marked so the body the caller writes is cached.
+     * @return true if the response was sent and the caller should stop
+     */
+    public static boolean handle(HttpServletRequest request, HttpServletResponse response,
+                                 TableVersions versions, ResponseCache cache, String... tables) throws IOException {
+        if (notModified(request, response, versions, tables)) {
+            return true;
+        }
+
+        String etag = versions.etag(versions.current(tables), tables);
+        if (!etag.equals(response.getHeader("ETag"))) {
+            // Changed while the headers were being set; let the caller build it fresh
+            return false;
+        }
+
+        ResponseCache.Entry entry = cache.get(ResponseCache.key(request), etag);
+        if (entry == null) {
+            ResponseCache.markPending(request, etag);
+            return false;
+        }
+
+        boolean gzip = CompressionFilter.acceptsGzip(request);
+        byte[] body = gzip ? entry.getGzipBody() : entry.getBody();
+        response.setContentType(entry.getContentType());
+        response.addHeader("Vary", "Accept-Encoding");
+        if (gzip) {
+            response.setHeader("Content-Encoding", "gzip");
+        }
+        ServletOutputStream out = response.getOutputStream();
+        response.setContentLength(body.length);
+        out.write(body);
+        out.flush();
+        return true;
+    }
+
+    public static boolean handle(HttpServletRequest request, HttpServletResponse response, String... tables)
+            throws IOException {
+        return handle(request, response, TableVersions.getInstance(), ResponseCache.getInstance(), tables);
+    }
+
+    /**
+     * If-None-Match uses weak comparison, so a W/ prefix added by a proxy still matches
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long readDate(HttpServletRequest request, String header) {
+        try {
+            return request.getDateHeader(header);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+}
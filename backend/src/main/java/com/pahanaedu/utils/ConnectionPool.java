@@ -0,0 +1,345 @@
+package com.pahanaedu.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Small bounded JDBC connection pool.
+ * <p>
+ * Callers receive a proxy whose {@code close()} hands the physical connection back to the
+ * pool, so DAOs keep using try-with-resources unchanged. Waiting for a free connection uses a
+ * {@link ReentrantLock} and {@link Condition} rather than {@code synchronized}, and no JDBC
+ * call is made while the lock is held, so virtual threads are never pinned by the pool.
+ * A connection borrowed with a {@link LatencyHistogram} records into it, on close, the time
+ * from the start of the borrow, which is how DAO methods are timed.
+ */
+public class ConnectionPool {
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    /**
+     * Opens a new physical connection
+     */
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    private static final class Idle {
+        private final Connection connection;
+        private final long returnedAt;
+
+        private Idle(Connection connection, long returnedAt) {
+            this.connection = connection;
+            this.returnedAt = returnedAt;
+        }
+    }
+
+    private final ConnectionFactory factory;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long validateAfterMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Deque<Idle> idle = new ArrayDeque<>();
+    private int total;
+    private int waiting;
+    private boolean closed;
+
+    public ConnectionPool(ConnectionFactory factory, int maxSize, long borrowTimeoutMillis, long validateAfterMillis) {
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validateAfterMillis = validateAfterMillis;
+    }
+
+    /**
+     * Borrow a connection, waiting up to the configured timeout for one to become free
+     * @throws SQLTimeoutException if no connection became available in time
+     */
+    public Connection getConnection() throws SQLException {
+        return getConnection(null);
+    }
+
+    /**
+     * Borrow a connection as {@link #getConnection()} does; closing it records the time since
+     * this call into {@code timer}, when one is given
+     */
+    public Connection getConnection(LatencyHistogram timer) throws SQLException {
+        long started = System.nanoTime();
+        long deadline = started + TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis);
+
+        while (true) {
+            Idle candidate = null;
+            boolean create = false;
+
+            lock.lock();
+            try {
+                while (!closed && idle.isEmpty() && total >= maxSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw new SQLTimeoutException("Timed out after " + borrowTimeoutMillis
+                                + " ms waiting for a database connection (pool size " + maxSize + ")");
+                    }
+                    waiting++;
+                    try {
+                        available.awaitNanos(remaining);
+                    } finally {
+                        waiting--;
+                    }
+                }
+                if (closed) {
+                    throw new SQLException("Connection pool is closed");
+                }
+                if (!idle.isEmpty()) {
+                    candidate = idle.pollFirst();
+                } else {
+                    total++;
+                    create = true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a database connection", e);
+            } finally {
+                lock.unlock();
+            }
+
+            // Physical JDBC work happens outside the lock
+            if (create) {
+                try {
+                    return wrap(factory.create(), timer, started);
+                } catch (SQLException | RuntimeException e) {
+                    release(null);
+                    throw e;
+                }
+            }
+
+            if (isUsable(candidate)) {
+                return wrap(candidate.connection, timer, started);
+            }
+            discard(candidate.connection);
+        }
+    }
+
+    /**
+     * Open physical connections until the pool holds {@code count} (at most its maximum size),
+     * so the first requests do not pay for the connection handshake
+     * @return the number of connections opened
+     * @throws SQLException if a connection could not be opened; those opened before stay idle
+     */
+    public int prefill(int count) throws SQLException {
+        int opened = 0;
+        while (true) {
+            lock.lock();
+            try {
+                if (closed || total >= Math.min(count, maxSize)) {
+                    return opened;
+                }
+                total++;
+            } finally {
+                lock.unlock();
+            }
+
+            Connection physical;
+            try {
+                physical = factory.create();
+            } catch (SQLException | RuntimeException e) {
+                release(null);
+                throw e;
+            }
+            release(physical);
+            opened++;
+        }
+    }
+
+    public int getTotalConnections() {
+        lock.lock();
+        try {
+            return total;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getIdleConnections() {
+        lock.lock();
+        try {
+            return idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Borrowers currently waiting for a connection to be returned
+     */
+    public int getWaitingBorrowers() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Close all idle connections and refuse new borrows.
+     * Connections still in use are closed when they are returned.
+     */
+    public void close() {
+        Deque<Idle> toClose;
+        lock.lock();
+        try {
+            closed = true;
+            toClose = new ArrayDeque<>(idle);
+            total -= idle.size();
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        for (Idle entry : toClose) {
+            closeQuietly(entry.connection);
+        }
+        LOGGER.info("Connection pool closed");
+    }
+
+    private boolean isUsable(Idle candidate) {
+        if (System.currentTimeMillis() - candidate.returnedAt < validateAfterMillis) {
+            return true;
+        }
+        try {
+            return candidate.connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void giveBack(Connection physical) {
+        boolean reusable;
+        try {
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            reusable = !physical.isClosed();
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Discarding connection that could not be reset", e);
+            reusable = false;
+        }
+
+        if (reusable) {
+            release(physical);
+        } else {
+            discard(physical);
+        }
+    }
+
+    /**
+     * Return a slot to the pool, keeping the connection idle unless the pool has been closed
+     */
+    private void release(Connection physical) {
+        boolean keep = false;
+        lock.lock();
+        try {
+            if (physical != null && !closed) {
+                idle.addFirst(new Idle(physical, System.currentTimeMillis()));
+                keep = true;
+            } else {
+                total--;
+            }
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        if (physical != null && !keep) {
+            closeQuietly(physical);
+        }
+    }
+
+    private void discard(Connection physical) {
+        closeQuietly(physical);
+        release(null);
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Error closing pooled connection", e);
+        }
+    }
+
+    private Connection wrap(Connection physical, LatencyHistogram timer, long started) {
+        return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new PooledConnectionHandler(physical, timer, started));
+    }
+
+    /**
+     * Forwards calls to the physical connection until the borrower closes it
+     */
+    private final class PooledConnectionHandler implements InvocationHandler {
+        private final Connection physical;
+        private final LatencyHistogram timer;
+        private final long started;
+        private boolean returned;
+
+        private PooledConnectionHandler(Connection physical, LatencyHistogram timer, long started) {
+            this.physical = physical;
+            this.timer = timer;
+            this.started = started;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        if (timer != null) {
+                            timer.recordSince(started);
+                        }
+                        giveBack(physical);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical + "]";
+                default:
+                    break;
+            }
+
+            if (returned) {
+                throw new SQLException("Connection has been returned to the pool");
+            }
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
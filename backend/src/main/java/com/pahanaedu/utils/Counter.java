@@ -0,0 +1,23 @@
+package com.pahanaedu.utils;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic count for {@link MetricsRegistry}, backed by a {@link LongAdder} so concurrent
+ * increments do not contend
+ */
+public final class Counter {
+    private final LongAdder count = new LongAdder();
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void add(long amount) {
+        count.add(amount);
+    }
+
+    public long get() {
+        return count.sum();
+    }
+}
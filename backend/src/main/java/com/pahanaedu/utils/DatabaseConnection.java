@@ -9,10 +9,14 @@ import java.util.Properties;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+/**
+ * Provides pooled database connections, profiled by the {@link SqlProfiler}.
+ * Connections must be closed by the caller, which returns them to the pool.
+ */
 public class DatabaseConnection {
     private static final Logger LOGGER = Logger.getLogger(DatabaseConnection.class.getName());
-    private static DatabaseConnection instance;
-    private Connection connection;
+    private final ConnectionPool pool;
+    private final SqlProfiler profiler = SqlProfiler.getInstance();
     private Properties properties;
 
     private final String jdbcUrl;
@@ -29,6 +33,11 @@ public class DatabaseConnection {
             Class.forName("com.mysql.cj.jdbc.Driver");
 
             LOGGER.info("Database driver loaded successfully");
+
+            this.pool = new ConnectionPool(this::openConnection,
+                    AppConfig.getInt("app.datasource.pool-size", 10),
+                    AppConfig.getLong("app.datasource.pool-timeout-ms", 5000),
+                    AppConfig.getLong("app.datasource.validate-after-ms", 30000));
         } catch (ClassNotFoundException e) {
             LOGGER.log(Level.SEVERE, "Failed to load database driver", e);
             throw new RuntimeException("Failed to load database driver", e);
@@ -50,50 +59,80 @@ public class DatabaseConnection {
         }
     }
 
+    /**
+     * Lazily created on first use; class initialization guarantees a single instance
+     * without locking on every call.
+     */
+    private static final class Holder {
+        private static final DatabaseConnection INSTANCE = new DatabaseConnection();
+    }
+
     /**
      * Gets the singleton instance of the DatabaseConnection class.
      *
      * @return The singleton instance
      */
-    public static synchronized DatabaseConnection getInstance() {
-        if (instance == null) {
-            instance = new DatabaseConnection();
-        }
-        return instance;
+    public static DatabaseConnection getInstance() {
+        return Holder.INSTANCE;
     }
 
     /**
-     * Gets a connection to the database.
+     * Gets a connection from the pool. Closing it returns it to the pool.
      *
      * @return A database connection
-     * @throws SQLException If a database access error occurs
+     * @throws SQLException If a database access error occurs or no connection became free in time
      */
     public Connection getConnection() throws SQLException {
         try {
-            if (connection == null || connection.isClosed()) {
-                connection = DriverManager.getConnection(jdbcUrl, username, password);
-                LOGGER.info("Database connection established successfully");
-            }
-            return connection;
+            return profiler.wrap(pool.getConnection());
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Failed to establish database connection", e);
+            LOGGER.log(Level.SEVERE, "Failed to obtain database connection", e);
             throw e;
         }
     }
 
     /**
-     * Closes the database connection if it's open.
+     * Gets a connection from the pool, recording how long it is held, including any wait for
+     * it, into {@code timer} when it is closed.
+     *
+     * @param timer The calling DAO method's timer, from {@link MetricsRegistry#daoTimer}
+     * @return A database connection
+     * @throws SQLException If a database access error occurs or no connection became free in time
      */
-    public void closeConnection() {
+    public Connection getConnection(LatencyHistogram timer) throws SQLException {
         try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                LOGGER.info("Database connection closed successfully");
-            }
+            return profiler.wrap(pool.getConnection(timer));
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Failed to close database connection", e);
-        } finally {
-            connection = null;
+            LOGGER.log(Level.SEVERE, "Failed to obtain database connection", e);
+            throw e;
         }
     }
+
+    /**
+     * Opens a connection outside the pool, for a caller that must not compete with requests
+     * for a pooled one, such as the readiness probe. The caller closes it.
+     *
+     * @return A new, unprofiled database connection
+     * @throws SQLException If a database access error occurs
+     */
+    public Connection openDedicatedConnection() throws SQLException {
+        return openConnection();
+    }
+
+    public ConnectionPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Closes all pooled database connections.
+     */
+    public void closeConnection() {
+        pool.close();
+    }
+
+    private Connection openConnection() throws SQLException {
+        Connection connection = DriverManager.getConnection(jdbcUrl, username, password);
+        LOGGER.info("Database connection established successfully");
+        return connection;
+    }
 }
@@ -0,0 +1,221 @@
+package com.pahanaedu.utils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Checks that the database answers, for the readiness endpoint.
+ * <p>
+ * A result is reused for {@code app.health.probe-cache-ms}, so frequent load balancer polls
+ * cost one check per interval, and only one check runs at a time. A caller waits at most
+ * {@code app.health.probe-timeout-ms}; if the check has not finished by then the database is
+ * reported down, and the check's own result replaces that when it does finish.
+ * <p>
+ * The database is checked on a connection of the probe's own, not one from the pool, so a
+ * node that is merely busy, with every pooled connection in use, is not reported down and
+ * taken out of the load balancer.
+ */
+public final class DatabaseProbe {
+    private static final Logger LOGGER = Logger.getLogger(DatabaseProbe.class.getName());
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private static final DatabaseProbe INSTANCE = new DatabaseProbe(
+            new DedicatedConnectionCheck(() -> DatabaseConnection.getInstance().openDedicatedConnection()),
+            Executors.newSingleThreadExecutor(BoundedExecutors.threadFactory("database-probe")),
+            AppConfig.getLong("app.health.probe-cache-ms", 5000),
+            AppConfig.getLong("app.health.probe-timeout-ms", 1000));
+
+    /**
+     * The check itself; it fails by throwing
+     */
+    public interface Check {
+        void run() throws Exception;
+
+        /**
+         * Release anything the check holds on to
+         */
+        default void close() {
+        }
+    }
+
+    /**
+     * Validates one connection opened outside the pool and kept between checks; it is only
+     * used by the probe thread. A connection that fails validation is replaced.
+     */
+    public static final class DedicatedConnectionCheck implements Check {
+        private final ConnectionPool.ConnectionFactory factory;
+        private volatile Connection connection;
+
+        public DedicatedConnectionCheck(ConnectionPool.ConnectionFactory factory) {
+            this.factory = factory;
+        }
+
+        @Override
+        public void run() throws SQLException {
+            Connection current = connection;
+            if (current != null && isValid(current)) {
+                return;
+            }
+            close();
+            current = factory.create();
+            connection = current;
+            if (!current.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                close();
+                throw new SQLException("Connection is not valid");
+            }
+        }
+
+        @Override
+        public void close() {
+            Connection current = connection;
+            connection = null;
+            if (current != null) {
+                try {
+                    current.close();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.FINE, "Error closing probe connection", e);
+                }
+            }
+        }
+
+        private static boolean isValid(Connection connection) {
+            try {
+                return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Outcome of one check
+     */
+    public static final class Result {
+        private final boolean up;
+        private final long latencyMillis;
+        private final String error;
+        private final long checkedAt;
+
+        private Result(boolean up, long latencyMillis, String error, long checkedAt) {
+            this.up = up;
+            this.latencyMillis = latencyMillis;
+            this.error = error;
+            this.checkedAt = checkedAt;
+        }
+
+        public boolean isUp() {
+            return up;
+        }
+
+        public long getLatencyMillis() {
+            return latencyMillis;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public long getCheckedAt() {
+            return checkedAt;
+        }
+    }
+
+    private final Check check;
+    private final ExecutorService executor;
+    private final long cacheMillis;
+    private final long timeoutMillis;
+    private Result last;
+    private CompletableFuture<Result> running;
+
+    public DatabaseProbe(Check check, ExecutorService executor, long cacheMillis, long timeoutMillis) {
+        this.check = check;
+        this.executor = executor;
+        this.cacheMillis = cacheMillis;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public static DatabaseProbe getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * The latest result, checking again if it is older than the cache interval
+     */
+    public Result check() {
+        CompletableFuture<Result> probe;
+        synchronized (this) {
+            if (last != null && System.currentTimeMillis() - last.checkedAt < cacheMillis) {
+                return last;
+            }
+            probe = running;
+            if (probe == null) {
+                CompletableFuture<Result> started = CompletableFuture.supplyAsync(this::runCheck, executor);
+                running = started;
+                // May run at once, on this thread, if the check has already finished
+                started.thenAccept(result -> finished(started, result));
+                probe = started;
+            }
+        }
+
+        try {
+            return probe.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return timedOut(probe);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Result(false, 0, "Interrupted", System.currentTimeMillis());
+        } catch (ExecutionException e) {
+            return new Result(false, 0, String.valueOf(e.getCause()), System.currentTimeMillis());
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(VALIDATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        check.close();
+    }
+
+    private Result runCheck() {
+        long started = System.nanoTime();
+        try {
+            check.run();
+            return new Result(true, elapsedMillis(started), null, System.currentTimeMillis());
+        } catch (Exception e) {
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            return new Result(false, elapsedMillis(started), message, System.currentTimeMillis());
+        }
+    }
+
+    private synchronized void finished(CompletableFuture<Result> probe, Result result) {
+        last = result;
+        if (running == probe) {
+            running = null;
+        }
+    }
+
+    private synchronized Result timedOut(CompletableFuture<Result> probe) {
+        if (probe.isDone()) {
+            return probe.getNow(null);
+        }
+        // Reported until the slow check finishes and records its own result
+        last = new Result(false, timeoutMillis, "No answer within " + timeoutMillis + " ms",
+                System.currentTimeMillis());
+        return last;
+    }
+
+    private static long elapsedMillis(long startedNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+    }
+}
@@ -0,0 +1,342 @@
+package com.pahanaedu.utils;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pushes Server-Sent Events to connected clients.
+ * <p>
+ * Each client holds an async request open with non-blocking output, so an idle connection
+ * costs no thread, only its request and an empty queue. Publishing only hands the event to
+ * a single dispatcher thread, which fans it out to every client's bounded queue and writes
+ * as much as each socket accepts; the container calls back when a slow socket can take
+ * more. A client whose queue fills up is disconnected rather than buffered without limit,
+ * and is expected to reconnect with {@code Last-Event-ID}. Idle connections get a comment
+ * line as a keep-alive so proxies do not close them.
+ * <p>
+ * Publishers must publish in ID order. Should an event still arrive after a later one was
+ * sent, the client gets a {@value #RESET_EVENT} event instead, since its Last-Event-ID is
+ * already past the missed event. The same happens when the dispatcher falls so far behind that
+ * an event has to be dropped: every client gets a {@value #RESET_EVENT} in its place.
+ */
+public final class EventStreamBroadcaster {
+    private static final Logger LOGGER = Logger.getLogger(EventStreamBroadcaster.class.getName());
+    private static final byte[] KEEP_ALIVE = ": keep-alive\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final Frame KEEP_ALIVE_SIGNAL = new Frame(0, KEEP_ALIVE);
+    private static final long NO_GAP = Long.MIN_VALUE;
+
+    /**
+     * Tells a client it may have missed events and must reload
+     */
+    public static final String RESET_EVENT = "reset";
+
+    /**
+     * One formatted event
+     */
+    private static final class Frame {
+        private final long id;
+        private final byte[] bytes;
+
+        private Frame(long id, byte[] bytes) {
+            this.id = id;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * A connected client
+     */
+    public final class Client implements WriteListener {
+        private final AsyncContext asyncContext;
+        private final ServletOutputStream out;
+        private final BlockingQueue<Frame> queue;
+        private final Queue<byte[]> backlog = new ArrayDeque<>();
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+        private boolean paused = true;
+        private boolean keepAliveDue;
+        private boolean unflushed;
+        private long lastId = Long.MIN_VALUE;
+        private long resumedThrough = Long.MIN_VALUE;
+
+        private Client(AsyncContext asyncContext, ServletOutputStream out, int queueSize) {
+            this.asyncContext = asyncContext;
+            this.out = out;
+            // Linked rather than array-backed so idle clients do not each hold a full-size array
+            this.queue = new LinkedBlockingQueue<>(queueSize);
+        }
+
+        /**
+         * Queue a frame to go out before any live event, e.g. changes the client missed.
+         * Call before {@link #resume(long)}.
+         */
+        public synchronized void sendFirst(long id, String event, String data) {
+            backlog.add(frame(id, event, data));
+        }
+
+        /**
+         * Start delivering live events, skipping any up to {@code throughId} already sent
+         */
+        public void resume(long throughId) {
+            synchronized (this) {
+                lastId = throughId;
+                resumedThrough = throughId;
+                paused = false;
+            }
+            drain();
+        }
+
+        public boolean isClosed() {
+            return closed.get();
+        }
+
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                clients.remove(this);
+                queue.clear();
+                try {
+                    asyncContext.complete();
+                } catch (IllegalStateException e) {
+                    // Already completed by the container
+                }
+            }
+        }
+
+        @Override
+        public void onWritePossible() {
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            LOGGER.fine(name + " client write failed: " + t.getMessage());
+            close();
+        }
+
+        private boolean offer(Frame frame) {
+            return queue.offer(frame);
+        }
+
+        /**
+         * Write whatever is queued until the socket stops accepting data; never blocks
+         */
+        private synchronized void drain() {
+            if (paused || closed.get()) {
+                return;
+            }
+            try {
+                while (out.isReady()) {
+                    byte[] next = backlog.poll();
+                    if (next == null) {
+                        Frame frame = queue.poll();
+                        if (frame != null) {
+                            if (frame.id <= resumedThrough) {
+                                // Already sent as part of the backlog
+                                continue;
+                            }
+                            if (frame.id <= lastId) {
+                                LOGGER.warning(name + " event " + frame.id + " arrived after " + lastId
+                                        + ", asking the client to reload");
+                                next = frame(lastId, RESET_EVENT, "{}");
+                            } else {
+                                next = frame.bytes;
+                                lastId = frame.id;
+                            }
+                        } else if (keepAliveDue) {
+                            next = KEEP_ALIVE;
+                        } else {
+                            break;
+                        }
+                    }
+                    keepAliveDue = false;
+                    out.write(next);
+                    unflushed = true;
+                }
+                if (unflushed && out.isReady()) {
+                    out.flush();
+                    unflushed = false;
+                }
+            } catch (IOException | IllegalStateException e) {
+                LOGGER.fine(name + " client disconnected: " + e.getMessage());
+                close();
+            }
+        }
+
+        private synchronized void markKeepAlive() {
+            keepAliveDue = true;
+        }
+    }
+
+    private final String name;
+    private final int queueSize;
+    private final long keepAliveMillis;
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+    private final BlockingQueue<Frame> events;
+    private final AtomicLong droppedThrough = new AtomicLong(NO_GAP);
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    public EventStreamBroadcaster(String name, int queueSize, long keepAliveMillis) {
+        this.name = name;
+        this.queueSize = queueSize;
+        this.keepAliveMillis = keepAliveMillis;
+        this.events = new LinkedBlockingQueue<>(Math.max(queueSize, 1024));
+        this.dispatcher = new Thread(this::dispatch, name + "-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Format one SSE frame; a multi-line payload is split over several data lines
+     */
+    public static byte[] frame(long id, String event, String data) {
+        StringBuilder frame = new StringBuilder();
+        frame.append("id: ").append(id).append('\n');
+        frame.append("event: ").append(event).append('\n');
+        for (String line : data.split("\n", -1)) {
+            frame.append("data: ").append(line).append('\n');
+        }
+        frame.append('\n');
+        return frame.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Start the event stream for a request. The client is registered paused so events published
+     * while the caller queues its backlog are kept, not lost; call {@link Client#resume(long)} next.
+     * Read the position to resume from only after this returns, so every later event reaches the client.
+     */
+    public Client open(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType("text/event-stream");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+        response.setHeader("X-Accel-Buffering", "no");
+
+        AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(0);
+
+        // Commit the headers so the browser sees the stream open, before output turns non-blocking
+        response.flushBuffer();
+        ServletOutputStream out = response.getOutputStream();
+        Client client = new Client(asyncContext, out, queueSize);
+        asyncContext.addListener(new DisconnectListener(client));
+        clients.add(client);
+        out.setWriteListener(client);
+        return client;
+    }
+
+    /**
+     * Hand an event to the dispatcher; never blocks the caller. With no client open the event is
+     * discarded, which is safe because a client reads its position only after opening.
+     */
+    public void publish(long id, String event, String data) {
+        if (clients.isEmpty()) {
+            return;
+        }
+        if (!events.offer(new Frame(id, frame(id, event, data)))) {
+            // Clients are told to reload once the dispatcher reaches this position
+            droppedThrough.accumulateAndGet(id, Math::max);
+            LOGGER.warning(name + " dispatcher is behind, dropping event " + id);
+        }
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    public void shutdown() {
+        running = false;
+        dispatcher.interrupt();
+        for (Client client : clients) {
+            client.close();
+        }
+    }
+
+    private void dispatch() {
+        long nextKeepAlive = System.currentTimeMillis() + keepAliveMillis;
+        while (running) {
+            try {
+                long gap = droppedThrough.get();
+                Frame frame = gap != NO_GAP ? events.poll()
+                        : events.poll(Math.max(1, nextKeepAlive - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                if (gap != NO_GAP && (frame == null || frame.id > gap)) {
+                    // Everything before the dropped event has gone out; a later drop is handled next time
+                    droppedThrough.compareAndSet(gap, NO_GAP);
+                    fanOut(new Frame(gap, frame(gap, RESET_EVENT, "{}")));
+                }
+                if (frame != null) {
+                    fanOut(frame);
+                }
+                if (System.currentTimeMillis() >= nextKeepAlive) {
+                    fanOut(KEEP_ALIVE_SIGNAL);
+                    nextKeepAlive = System.currentTimeMillis() + keepAliveMillis;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, name + " dispatcher error", e);
+            }
+        }
+    }
+
+    private void fanOut(Frame frame) {
+        for (Client client : clients) {
+            if (frame == KEEP_ALIVE_SIGNAL) {
+                client.markKeepAlive();
+            } else if (!client.offer(frame)) {
+                LOGGER.info(name + " client fell " + queueSize + " events behind, disconnecting it");
+                client.close();
+                continue;
+            }
+            client.drain();
+        }
+    }
+
+    /**
+     * Forgets a client once its connection ends
+     */
+    private static final class DisconnectListener implements AsyncListener {
+        private final Client client;
+
+        private DisconnectListener(Client client) {
+            this.client = client;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            client.close();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            client.close();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            client.close();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Not used
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.pahanaedu.utils;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The fields a caller asked for with {@code ?fields=id,title,price}.
+ * <p>
+ * A projection is parsed against the field list of one model, which maps each JSON field to
+ * the SQL expression it needs, so a DAO can select just those columns and the JSON writer
+ * can leave the rest out. Without a {@code fields} parameter every field is included.
+ */
+public final class FieldProjection {
+
+    /**
+     * JSON field names of one model in declaration order, with the SQL expression for each
+     */
+    public static final class Fields {
+        private final Map<String, String> columns = new LinkedHashMap<>();
+        private final FieldProjection all = new FieldProjection(this, null);
+
+        /**
+         * @param column the SELECT expression the field is read from
+         */
+        public Fields add(String name, String column) {
+            columns.put(name, column);
+            return this;
+        }
+
+        /**
+         * Projection of every field
+         */
+        public FieldProjection all() {
+            return all;
+        }
+
+        /**
+         * Parse a comma-separated field list; null or blank selects every field
+         * @throws IllegalArgumentException if a field is not one of this model's
+         */
+        public FieldProjection parse(String fields) {
+            if (fields == null || fields.trim().isEmpty()) {
+                return all;
+            }
+            Set<String> selected = new LinkedHashSet<>();
+            for (String field : fields.split(",")) {
+                String name = field.trim();
+                if (name.isEmpty()) {
+                    continue;
+                }
+                if (!columns.containsKey(name)) {
+                    throw new IllegalArgumentException("Unknown field '" + name + "', expected any of "
+                            + String.join(",", columns.keySet()));
+                }
+                selected.add(name);
+            }
+            if (selected.isEmpty()) {
+                return all;
+            }
+
+            // Keep declaration order so equal field sets give the same SQL
+            Set<String> ordered = new LinkedHashSet<>();
+            for (String name : columns.keySet()) {
+                if (selected.contains(name)) {
+                    ordered.add(name);
+                }
+            }
+            return new FieldProjection(this, Collections.unmodifiableSet(ordered));
+        }
+
+        /**
+         * The {@code fields} parameter of a request; an unknown field is answered with 400
+         */
+        public FieldProjection requested(HttpServletRequest request) throws RequestBinder.BindingException {
+            try {
+                return parse(request.getParameter("fields"));
+            } catch (IllegalArgumentException e) {
+                throw new RequestBinder.BindingException(e.getMessage());
+            }
+        }
+    }
+
+    private final Fields model;
+    private final Set<String> selected;
+
+    private FieldProjection(Fields model, Set<String> selected) {
+        this.model = model;
+        this.selected = selected;
+    }
+
+    public boolean isAll() {
+        return selected == null;
+    }
+
+    public boolean includes(String field) {
+        return selected == null || selected.contains(field);
+    }
+
+    /**
+     * The SELECT list for the included fields; fields sharing a column select it once
+     */
+    public String selectList() {
+        Set<String> expressions = new LinkedHashSet<>();
+        for (Map.Entry<String, String> field : model.columns.entrySet()) {
+            if (includes(field.getKey())) {
+                expressions.add(field.getValue());
+            }
+        }
+        return String.join(", ", expressions);
+    }
+
+    @Override
+    public String toString() {
+        return selected == null ? "*" : String.join(",", selected);
+    }
+}
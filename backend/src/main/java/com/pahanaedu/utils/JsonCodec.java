@@ -0,0 +1,82 @@
+package com.pahanaedu.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * The Gson instance shared by every servlet and service.
+ * <p>
+ * Gson is thread-safe once built, so one instance is enough. Model classes are handled by
+ * {@link ModelTypeAdapters} instead of reflection, and timestamps are formatted by
+ * {@link TimestampFormat}.
+ */
+public final class JsonCodec {
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapterFactory(new ModelTypeAdapters())
+            .registerTypeAdapter(Timestamp.class, new ModelTypeAdapters.TimestampAdapter())
+            .registerTypeAdapter(Date.class, new ModelTypeAdapters.DateAdapter())
+            .create();
+
+    private JsonCodec() {
+    }
+
+    public static Gson getGson() {
+        return GSON;
+    }
+
+    /**
+     * Write a book, customer or invoice with only the projected fields
+     */
+    public static <T> String toJson(T value, Class<T> type, FieldProjection fields) {
+        if (fields.isAll()) {
+            return GSON.toJson(value);
+        }
+        TypeAdapter<T> adapter = ModelTypeAdapters.projected(type, fields);
+        StringWriter buffer = new StringWriter();
+        try (JsonWriter out = newJsonWriter(buffer)) {
+            adapter.write(out, value);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Write a list of books, customers or invoices with only the projected fields
+     */
+    public static <T> String toJsonArray(List<T> values, Class<T> type, FieldProjection fields) {
+        if (fields.isAll()) {
+            return GSON.toJson(values);
+        }
+        TypeAdapter<T> adapter = ModelTypeAdapters.projected(type, fields);
+        StringWriter buffer = new StringWriter();
+        try (JsonWriter out = newJsonWriter(buffer)) {
+            out.beginArray();
+            for (T value : values) {
+                adapter.write(out, value);
+            }
+            out.endArray();
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * A writer that escapes like {@code GSON.toJson}; {@code newJsonWriter} alone leaves out HTML escaping
+     */
+    private static JsonWriter newJsonWriter(StringWriter buffer) throws IOException {
+        JsonWriter out = GSON.newJsonWriter(buffer);
+        out.setHtmlSafe(GSON.htmlSafe());
+        return out;
+    }
+}
@@ -0,0 +1,124 @@
+package com.pahanaedu.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with log-linear buckets, in the manner of HdrHistogram.
+ * <p>
+ * Values are kept in microseconds. Each power of two is split into {@value #SUB_BUCKETS}
+ * equal buckets, so any value is known to within 1/{@value #SUB_BUCKETS} (about 6%) from one
+ * microsecond up to {@link #MAX_MICROS}; longer values land in the last bucket. Recording is a
+ * few shifts and an atomic increment: it takes no lock and allocates nothing, so histograms can
+ * stay on for every request.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    public static final long MAX_MICROS = (1L << 26) - 1;
+    private static final int BUCKETS = bucketIndex(MAX_MICROS) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sumNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(bucketIndex(Math.min(nanos / 1000, MAX_MICROS)));
+        sumNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * Record the time since {@code startedNanos}, a {@link System#nanoTime()} reading
+     */
+    public void recordSince(long startedNanos) {
+        record(System.nanoTime() - startedNanos);
+    }
+
+    /**
+     * Values recorded, as the sum of the buckets so it always matches them
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    public long getSumNanos() {
+        return sumNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * The value at {@code quantile} (0 to 1), as the top of the bucket it falls in, in nanoseconds
+     */
+    public long getValueAtQuantile(double quantile) {
+        long total = getCount();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(TimeUnit.MICROSECONDS.toNanos(bucketUpperBound(i)), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    /**
+     * Cumulative counts of values at or below each of {@code boundsMicros}, which must be ascending.
+     * A bucket counts towards a bound only if all of it lies at or below that bound.
+     */
+    public long[] getCumulativeCounts(long[] boundsMicros) {
+        long[] cumulative = new long[boundsMicros.length];
+        int bound = 0;
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            while (bound < boundsMicros.length && bucketUpperBound(i) > boundsMicros[bound]) {
+                cumulative[bound++] = seen;
+            }
+            seen += counts.get(i);
+        }
+        while (bound < boundsMicros.length) {
+            cumulative[bound++] = seen;
+        }
+        return cumulative;
+    }
+
+    /**
+     * Values below {@value #SUB_BUCKETS} get a bucket each; above that, the highest set bit picks
+     * the power of two and the next {@value #SUB_BUCKET_BITS} bits the bucket within it
+     */
+    static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (micros >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Largest value, in microseconds, that falls in bucket {@code index}
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long top = SUB_BUCKETS + index % SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,132 @@
+package com.pahanaedu.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.FileHandler;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+
+/**
+ * Configures the application's logging at startup:
+ * <ul>
+ *     <li>{@code app.logging.level.<category>} sets the level of a logger and those under it,
+ *     for example {@code app.logging.level.com.pahanaedu.dao=FINE};</li>
+ *     <li>with {@code app.logging.async}, records from {@code com.pahanaedu} loggers go through an
+ *     {@link AsyncLogHandler} to the handlers they used before, and to
+ *     {@code app.logging.file} when one is set;</li>
+ *     <li>messages repeated more than {@code app.logging.sample-per-second} times a second are
+ *     sampled by a {@link SamplingLogFilter}.</li>
+ * </ul>
+ * Loggers other than the application's are left alone.
+ */
+public final class LogSetup {
+    private static final Logger LOGGER = Logger.getLogger(LogSetup.class.getName());
+    private static final String APPLICATION_LOGGER = "com.pahanaedu";
+    private static final int FILE_LIMIT_BYTES = 10 * 1024 * 1024;
+    private static final int FILE_COUNT = 5;
+
+    // Loggers are only weakly held by the LogManager; keep the configured ones so their levels stay
+    private static final List<Logger> CONFIGURED = new ArrayList<>();
+    private static AsyncLogHandler asyncHandler;
+    private static FileHandler fileHandler;
+
+    private LogSetup() {
+    }
+
+    public static synchronized void install() {
+        applyLevels();
+        if (asyncHandler != null || !AppConfig.getBoolean("app.logging.async", true)) {
+            return;
+        }
+
+        Logger application = Logger.getLogger(APPLICATION_LOGGER);
+        CONFIGURED.add(application);
+        List<Handler> targets = inheritedHandlers(application);
+        String file = AppConfig.getString("app.logging.file", "");
+        if (!file.isEmpty()) {
+            try {
+                File parent = new File(file).getAbsoluteFile().getParentFile();
+                if (parent != null) {
+                    parent.mkdirs();
+                }
+                fileHandler = new FileHandler(file, FILE_LIMIT_BYTES, FILE_COUNT, true);
+                fileHandler.setFormatter(new SimpleFormatter());
+                fileHandler.setLevel(Level.ALL);
+                targets.add(fileHandler);
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Cannot open log file " + file + ", logging to the console only", e);
+            }
+        }
+        if (targets.isEmpty()) {
+            return;
+        }
+
+        SamplingLogFilter sampler = new SamplingLogFilter(AppConfig.getInt("app.logging.sample-per-second", 20));
+        asyncHandler = new AsyncLogHandler(AppConfig.getInt("app.logging.buffer-size", 8192),
+                targets.toArray(new Handler[0]));
+        asyncHandler.setFilter(sampler);
+        asyncHandler.setLevel(Level.ALL);
+        application.addHandler(asyncHandler);
+        application.setUseParentHandlers(false);
+
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        AsyncLogHandler handler = asyncHandler;
+        metrics.counter("log_records_dropped", "Log records dropped because the log buffer was full",
+                handler::getDropped);
+        metrics.counter("log_records_suppressed", "Repeated log records held back by sampling",
+                sampler::getSuppressed);
+        LOGGER.info("Asynchronous logging to " + targets.size() + " handler(s)");
+    }
+
+    /**
+     * Write out queued records and restore the application loggers' usual handlers
+     */
+    public static synchronized void uninstall() {
+        if (asyncHandler != null) {
+            Logger application = Logger.getLogger(APPLICATION_LOGGER);
+            application.removeHandler(asyncHandler);
+            application.setUseParentHandlers(true);
+            asyncHandler.close();
+            asyncHandler = null;
+        }
+        if (fileHandler != null) {
+            fileHandler.close();
+            fileHandler = null;
+        }
+    }
+
+    private static void applyLevels() {
+        for (Map.Entry<String, String> entry : AppConfig.getWithPrefix("app.logging.level.").entrySet()) {
+            Level level;
+            try {
+                level = Level.parse(entry.getValue().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                LOGGER.warning("Invalid log level for " + entry.getKey() + ": " + entry.getValue());
+                continue;
+            }
+            Logger logger = Logger.getLogger(entry.getKey());
+            logger.setLevel(level);
+            CONFIGURED.add(logger);
+        }
+    }
+
+    /**
+     * The handlers records from {@code logger} reach through its parents
+     */
+    private static List<Handler> inheritedHandlers(Logger logger) {
+        List<Handler> handlers = new ArrayList<>(Arrays.asList(logger.getHandlers()));
+        Logger current = logger;
+        while (current.getUseParentHandlers() && current.getParent() != null) {
+            current = current.getParent();
+            handlers.addAll(Arrays.asList(current.getHandlers()));
+        }
+        return handlers;
+    }
+}
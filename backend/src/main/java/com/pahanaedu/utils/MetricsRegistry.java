@@ -0,0 +1,183 @@
+package com.pahanaedu.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Named counters, gauges and latency histograms, written out in the Prometheus text format.
+ * <p>
+ * Metrics are looked up or created once, by name and label pairs, and the returned
+ * {@link Counter} or {@link LatencyHistogram} is kept by the caller, so recording never touches
+ * the registry. Gauges and function counters read their value from a supplier at scrape time.
+ * Registering the same name and labels again returns the existing metric (or, for suppliers,
+ * replaces the supplier).
+ */
+public final class MetricsRegistry {
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    /**
+     * Prometheus bucket bounds for latency histograms, in seconds
+     */
+    private static final String[] BUCKET_LABELS = {
+            "0.001", "0.0025", "0.005", "0.01", "0.025", "0.05", "0.1", "0.25", "0.5", "1", "2.5", "5", "10"};
+    private static final long[] BUCKET_MICROS = {
+            1000, 2500, 5000, 10000, 25000, 50000, 100000, 250000, 500000, 1000000, 2500000, 5000000, 10000000};
+
+    private enum Type {
+        COUNTER("counter"), GAUGE("gauge"), HISTOGRAM("histogram");
+
+        private final String text;
+
+        Type(String text) {
+            this.text = text;
+        }
+    }
+
+    private static final class Family {
+        private final String name;
+        private final String help;
+        private final Type type;
+        // Keyed by the formatted label pairs, kept sorted so the output is stable
+        private final Map<String, Object> metrics = new ConcurrentSkipListMap<>();
+
+        private Family(String name, String help, Type type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param labels label names and values, alternating
+     */
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, Type.COUNTER).metrics
+                .computeIfAbsent(formatLabels(labels), key -> new Counter());
+    }
+
+    /**
+     * A counter kept elsewhere, such as cache hits, read from {@code value} at scrape time
+     */
+    public void counter(String name, String help, LongSupplier value, String... labels) {
+        family(name, help, Type.COUNTER).metrics.put(formatLabels(labels), value);
+    }
+
+    public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, Type.GAUGE).metrics.put(formatLabels(labels), value);
+    }
+
+    /**
+     * A latency histogram, written out in seconds
+     */
+    public LatencyHistogram histogram(String name, String help, String... labels) {
+        return (LatencyHistogram) family(name, help, Type.HISTOGRAM).metrics
+                .computeIfAbsent(formatLabels(labels), key -> new LatencyHistogram());
+    }
+
+    /**
+     * Timer for one DAO method, from borrowing its connection to closing it
+     */
+    public LatencyHistogram daoTimer(Class<?> dao, String method) {
+        return histogram("dao_call_seconds", "Time DAO methods hold a database connection, including waiting for it",
+                "dao", dao.getSimpleName(), "method", method);
+    }
+
+    /**
+     * Everything registered, in the Prometheus text exposition format (version 0.0.4)
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(8192);
+        for (Family family : families.values()) {
+            if (family.metrics.isEmpty()) {
+                continue;
+            }
+            out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type.text).append('\n');
+            for (Map.Entry<String, Object> entry : family.metrics.entrySet()) {
+                writeMetric(out, family.name, entry.getKey(), entry.getValue());
+            }
+        }
+        return out.toString();
+    }
+
+    private Family family(String name, String help, Type type) {
+        Family family = families.computeIfAbsent(name, key -> new Family(name, help, type));
+        if (family.type != type) {
+            throw new IllegalArgumentException(name + " is already registered as a " + family.type.text);
+        }
+        return family;
+    }
+
+    private static void writeMetric(StringBuilder out, String name, String labels, Object metric) {
+        if (metric instanceof Counter) {
+            writeSample(out, name + "_total", labels, ((Counter) metric).get());
+        } else if (metric instanceof LongSupplier) {
+            writeSample(out, name + "_total", labels, ((LongSupplier) metric).getAsLong());
+        } else if (metric instanceof DoubleSupplier) {
+            writeSample(out, name, labels, ((DoubleSupplier) metric).getAsDouble());
+        } else {
+            writeHistogram(out, name, labels, (LatencyHistogram) metric);
+        }
+    }
+
+    private static void writeHistogram(StringBuilder out, String name, String labels, LatencyHistogram histogram) {
+        long[] cumulative = histogram.getCumulativeCounts(BUCKET_MICROS);
+        long count = histogram.getCount();
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        for (int i = 0; i < BUCKET_LABELS.length; i++) {
+            writeSample(out, name + "_bucket", prefix + "le=\"" + BUCKET_LABELS[i] + "\"", cumulative[i]);
+        }
+        writeSample(out, name + "_bucket", prefix + "le=\"+Inf\"", count);
+        writeSample(out, name + "_sum", labels, histogram.getSumNanos() / (double) TimeUnit.SECONDS.toNanos(1));
+        writeSample(out, name + "_count", labels, count);
+    }
+
+    private static void writeSample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ');
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    private static String formatLabels(String[] labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name and value pairs");
+        }
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(labels[i]).append("=\"");
+            String value = labels[i + 1];
+            for (int c = 0; c < value.length(); c++) {
+                char ch = value.charAt(c);
+                if (ch == '\\' || ch == '"') {
+                    text.append('\\').append(ch);
+                } else if (ch == '\n') {
+                    text.append("\\n");
+                } else {
+                    text.append(ch);
+                }
+            }
+            text.append('"');
+        }
+        return text.toString();
+    }
+}
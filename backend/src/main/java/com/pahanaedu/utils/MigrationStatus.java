@@ -0,0 +1,70 @@
+package com.pahanaedu.utils;
+
+/**
+ * Outcome of the schema migration run at startup, reported by the health endpoints.
+ * A failed migration keeps the server out of rotation; one skipped because the database was
+ * unreachable does not, since the database check already covers that.
+ */
+public final class MigrationStatus {
+    private static final MigrationStatus INSTANCE = new MigrationStatus();
+
+    public enum State {
+        NOT_RUN, CURRENT, FAILED
+    }
+
+    private State state = State.NOT_RUN;
+    private int version;
+    private int applied;
+    private String error;
+    private long finishedAt;
+
+    public static MigrationStatus getInstance() {
+        return INSTANCE;
+    }
+
+    public synchronized void succeeded(int version, int applied) {
+        this.state = State.CURRENT;
+        this.version = version;
+        this.applied = applied;
+        this.error = null;
+        this.finishedAt = System.currentTimeMillis();
+    }
+
+    public synchronized void failed(String error) {
+        this.state = State.FAILED;
+        this.error = error;
+        this.finishedAt = System.currentTimeMillis();
+    }
+
+    public synchronized void skipped(String reason) {
+        this.state = State.NOT_RUN;
+        this.error = reason;
+        this.finishedAt = System.currentTimeMillis();
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Schema version after a successful run
+     */
+    public synchronized int getVersion() {
+        return version;
+    }
+
+    /**
+     * Migrations applied by the run, 0 when the schema was already current
+     */
+    public synchronized int getApplied() {
+        return applied;
+    }
+
+    public synchronized String getError() {
+        return error;
+    }
+
+    public synchronized long getFinishedAt() {
+        return finishedAt;
+    }
+}
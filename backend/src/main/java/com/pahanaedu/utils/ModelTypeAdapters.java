@@ -0,0 +1,758 @@
+package com.pahanaedu.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.pahanaedu.model.Book;
+import com.pahanaedu.model.BookChange;
+import com.pahanaedu.model.Cart;
+import com.pahanaedu.model.Category;
+import com.pahanaedu.model.Customer;
+import com.pahanaedu.model.Invoice;
+import com.pahanaedu.model.InvoiceItem;
+import com.pahanaedu.model.Publisher;
+import com.pahanaedu.model.User;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand-written Gson adapters for every class in {@code com.pahanaedu.model}.
+ * <p>
+ * Each adapter writes its fields directly through the getters, in declaration order and
+ * with the same names and formats as Gson's reflective adapter, so the JSON is unchanged.
+ * Null fields are skipped by not writing them at all. Unknown properties are ignored when
+ * reading. One exception: {@link User} is written without its password hash. Books,
+ * customers and invoices can also be written with only the fields of a {@link FieldProjection}.
+ */
+public final class ModelTypeAdapters implements TypeAdapterFactory {
+
+    private final Map<Class<?>, TypeAdapter<?>> adapters = new HashMap<>();
+
+    public ModelTypeAdapters() {
+        InvoiceItemAdapter invoiceItemAdapter = new InvoiceItemAdapter();
+        adapters.put(Book.class, new BookAdapter(null));
+        adapters.put(BookChange.class, new BookChangeAdapter());
+        adapters.put(Category.class, new CategoryAdapter());
+        adapters.put(Customer.class, new CustomerAdapter(null));
+        adapters.put(Publisher.class, new PublisherAdapter());
+        adapters.put(InvoiceItem.class, invoiceItemAdapter);
+        adapters.put(Invoice.class, new InvoiceAdapter(invoiceItemAdapter, null));
+        adapters.put(Cart.class, new CartAdapter(invoiceItemAdapter));
+        adapters.put(User.class, new UserAdapter());
+    }
+
+    /**
+     * An adapter that writes only the fields in {@code fields}; books, customers and invoices only
+     * @throws IllegalArgumentException for any other type
+     */
+    @SuppressWarnings("unchecked")
+    static <T> TypeAdapter<T> projected(Class<T> type, FieldProjection fields) {
+        if (type == Book.class) {
+            return (TypeAdapter<T>) new BookAdapter(fields);
+        } else if (type == Customer.class) {
+            return (TypeAdapter<T>) new CustomerAdapter(fields);
+        } else if (type == Invoice.class) {
+            return (TypeAdapter<T>) new InvoiceAdapter(new InvoiceItemAdapter(), fields);
+        }
+        throw new IllegalArgumentException("Field projection is not supported for " + type.getSimpleName());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        return (TypeAdapter<T>) adapters.get(type.getRawType());
+    }
+
+    // Writing helpers: a null value is left out, as Gson does by default
+
+    private static void field(JsonWriter out, String name, String value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value);
+        }
+    }
+
+    private static void field(JsonWriter out, String name, Number value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value);
+        }
+    }
+
+    private static void field(JsonWriter out, String name, Timestamp value) throws IOException {
+        if (value != null) {
+            out.name(name).value(TimestampFormat.format(value));
+        }
+    }
+
+    private static void field(JsonWriter out, String name, Date value) throws IOException {
+        if (value != null) {
+            out.name(name).value(TimestampFormat.format(value));
+        }
+    }
+
+    // Projected writing: fields left out of the projection are not written; null means all
+
+    private static boolean shows(FieldProjection fields, String name) {
+        return fields == null || fields.includes(name);
+    }
+
+    private static void field(JsonWriter out, FieldProjection fields, String name, String value) throws IOException {
+        if (shows(fields, name)) {
+            field(out, name, value);
+        }
+    }
+
+    private static void field(JsonWriter out, FieldProjection fields, String name, Number value) throws IOException {
+        if (shows(fields, name)) {
+            field(out, name, value);
+        }
+    }
+
+    private static void field(JsonWriter out, FieldProjection fields, String name, Timestamp value) throws IOException {
+        if (shows(fields, name)) {
+            field(out, name, value);
+        }
+    }
+
+    private static void field(JsonWriter out, FieldProjection fields, String name, Date value) throws IOException {
+        if (shows(fields, name)) {
+            field(out, name, value);
+        }
+    }
+
+    // Reading helpers: each consumes one value, null included
+
+    private static boolean skipNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return true;
+        }
+        return false;
+    }
+
+    private static String readString(JsonReader in) throws IOException {
+        return skipNull(in) ? null : in.nextString();
+    }
+
+    private static Integer readInteger(JsonReader in) throws IOException {
+        return skipNull(in) ? null : in.nextInt();
+    }
+
+    private static int readInt(JsonReader in) throws IOException {
+        Integer value = readInteger(in);
+        return value != null ? value : 0;
+    }
+
+    private static long readLong(JsonReader in) throws IOException {
+        return skipNull(in) ? 0 : in.nextLong();
+    }
+
+    private static boolean readBoolean(JsonReader in) throws IOException {
+        return !skipNull(in) && in.nextBoolean();
+    }
+
+    private static BigDecimal readBigDecimal(JsonReader in) throws IOException {
+        if (skipNull(in)) {
+            return null;
+        }
+        String value = in.nextString();
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException("Invalid number '" + value + "' at " + in.getPath(), e);
+        }
+    }
+
+    private static Timestamp readTimestamp(JsonReader in) throws IOException {
+        if (skipNull(in)) {
+            return null;
+        }
+        String value = in.nextString();
+        try {
+            return TimestampFormat.parseTimestamp(value);
+        } catch (IllegalArgumentException e) {
+            throw new JsonSyntaxException("Invalid timestamp '" + value + "' at " + in.getPath(), e);
+        }
+    }
+
+    private static Date readDate(JsonReader in) throws IOException {
+        if (skipNull(in)) {
+            return null;
+        }
+        String value = in.nextString();
+        try {
+            return TimestampFormat.parseDate(value);
+        } catch (IllegalArgumentException e) {
+            throw new JsonSyntaxException("Invalid date '" + value + "' at " + in.getPath(), e);
+        }
+    }
+
+    static final class TimestampAdapter extends TypeAdapter<Timestamp> {
+        @Override
+        public void write(JsonWriter out, Timestamp value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                out.value(TimestampFormat.format(value));
+            }
+        }
+
+        @Override
+        public Timestamp read(JsonReader in) throws IOException {
+            return readTimestamp(in);
+        }
+    }
+
+    static final class DateAdapter extends TypeAdapter<Date> {
+        @Override
+        public void write(JsonWriter out, Date value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                out.value(TimestampFormat.format(value));
+            }
+        }
+
+        @Override
+        public Date read(JsonReader in) throws IOException {
+            return readDate(in);
+        }
+    }
+
+    static final class BookAdapter extends TypeAdapter<Book> {
+        private final FieldProjection fields;
+
+        BookAdapter(FieldProjection fields) {
+            this.fields = fields;
+        }
+
+        @Override
+        public void write(JsonWriter out, Book book) throws IOException {
+            if (book == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            field(out, fields, "id", book.getId());
+            field(out, fields, "isbn", book.getIsbn());
+            field(out, fields, "title", book.getTitle());
+            field(out, fields, "author", book.getAuthor());
+            field(out, fields, "categoryId", book.getCategoryId());
+            field(out, fields, "publisherId", book.getPublisherId());
+            field(out, fields, "publicationYear", book.getPublicationYear());
+            field(out, fields, "price", book.getPrice());
+            field(out, fields, "stockQuantity", book.getStockQuantity());
+            field(out, fields, "description", book.getDescription());
+            field(out, fields, "createdAt", book.getCreatedAt());
+            field(out, fields, "updatedAt", book.getUpdatedAt());
+            field(out, fields, "categoryName", book.getCategoryName());
+            field(out, fields, "publisherName", book.getPublisherName());
+            out.endObject();
+        }
+
+        @Override
+        public Book read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Book book = new Book();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": book.setId(readInt(in)); break;
+                    case "isbn": book.setIsbn(readString(in)); break;
+                    case "title": book.setTitle(readString(in)); break;
+                    case "author": book.setAuthor(readString(in)); break;
+                    case "categoryId": book.setCategoryId(readInt(in)); break;
+                    case "publisherId": book.setPublisherId(readInt(in)); break;
+                    case "publicationYear": book.setPublicationYear(readInteger(in)); break;
+                    case "price": book.setPrice(readBigDecimal(in)); break;
+                    case "stockQuantity": book.setStockQuantity(readInt(in)); break;
+                    case "description": book.setDescription(readString(in)); break;
+                    case "createdAt": book.setCreatedAt(readTimestamp(in)); break;
+                    case "updatedAt": book.setUpdatedAt(readTimestamp(in)); break;
+                    case "categoryName": book.setCategoryName(readString(in)); break;
+                    case "publisherName": book.setPublisherName(readString(in)); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return book;
+        }
+    }
+
+    static final class BookChangeAdapter extends TypeAdapter<BookChange> {
+        @Override
+        public void write(JsonWriter out, BookChange change) throws IOException {
+            if (change == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("sequence").value(change.getSequence());
+            out.name("bookId").value(change.getBookId());
+            field(out, "changeType", change.getChangeType());
+            field(out, "title", change.getTitle());
+            field(out, "price", change.getPrice());
+            field(out, "stockQuantity", change.getStockQuantity());
+            field(out, "changedAt", change.getChangedAt());
+            out.endObject();
+        }
+
+        @Override
+        public BookChange read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            BookChange change = new BookChange();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "sequence": change.setSequence(readLong(in)); break;
+                    case "bookId": change.setBookId(readInt(in)); break;
+                    case "changeType": change.setChangeType(readString(in)); break;
+                    case "title": change.setTitle(readString(in)); break;
+                    case "price": change.setPrice(readBigDecimal(in)); break;
+                    case "stockQuantity": change.setStockQuantity(readInteger(in)); break;
+                    case "changedAt": change.setChangedAt(readTimestamp(in)); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return change;
+        }
+    }
+
+    static final class CategoryAdapter extends TypeAdapter<Category> {
+        @Override
+        public void write(JsonWriter out, Category category) throws IOException {
+            if (category == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("id").value(category.getId());
+            field(out, "name", category.getName());
+            field(out, "description", category.getDescription());
+            field(out, "createdAt", category.getCreatedAt());
+            field(out, "updatedAt", category.getUpdatedAt());
+            out.endObject();
+        }
+
+        @Override
+        public Category read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Category category = new Category();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": category.setId(readInt(in)); break;
+                    case "name": category.setName(readString(in)); break;
+                    case "description": category.setDescription(readString(in)); break;
+                    case "createdAt": category.setCreatedAt(readTimestamp(in)); break;
+                    case "updatedAt": category.setUpdatedAt(readTimestamp(in)); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return category;
+        }
+    }
+
+    static final class CustomerAdapter extends TypeAdapter<Customer> {
+        private final FieldProjection fields;
+
+        CustomerAdapter(FieldProjection fields) {
+            this.fields = fields;
+        }
+
+        @Override
+        public void write(JsonWriter out, Customer customer) throws IOException {
+            if (customer == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            field(out, fields, "id", customer.getId());
+            field(out, fields, "accountNumber", customer.getAccountNumber());
+            field(out, fields, "name", customer.getName());
+            field(out, fields, "address", customer.getAddress());
+            field(out, fields, "telephone", customer.getTelephone());
+            field(out, fields, "email", customer.getEmail());
+            field(out, fields, "registrationDate", customer.getRegistrationDate());
+            field(out, fields, "createdAt", customer.getCreatedAt());
+            field(out, fields, "updatedAt", customer.getUpdatedAt());
+            out.endObject();
+        }
+
+        @Override
+        public Customer read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Customer customer = new Customer();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": customer.setId(readInt(in)); break;
+                    case "accountNumber": customer.setAccountNumber(readString(in)); break;
+                    case "name": customer.setName(readString(in)); break;
+                    case "address": customer.setAddress(readString(in)); break;
+                    case "telephone": customer.setTelephone(readString(in)); break;
+                    case "email": customer.setEmail(readString(in)); break;
+                    case "registrationDate": customer.setRegistrationDate(readDate(in)); break;
+                    case "createdAt": customer.setCreatedAt(readTimestamp(in)); break;
+                    case "updatedAt": customer.setUpdatedAt(readTimestamp(in)); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return customer;
+        }
+    }
+
+    static final class PublisherAdapter extends TypeAdapter<Publisher> {
+        @Override
+        public void write(JsonWriter out, Publisher publisher) throws IOException {
+            if (publisher == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("id").value(publisher.getId());
+            field(out, "name", publisher.getName());
+            field(out, "contactPerson", publisher.getContactPerson());
+            field(out, "telephone", publisher.getTelephone());
+            field(out, "email", publisher.getEmail());
+            field(out, "address", publisher.getAddress());
+            field(out, "createdAt", publisher.getCreatedAt());
+            field(out, "updatedAt", publisher.getUpdatedAt());
+            out.endObject();
+        }
+
+        @Override
+        public Publisher read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Publisher publisher = new Publisher();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": publisher.setId(readInt(in)); break;
+                    case "name": publisher.setName(readString(in)); break;
+                    case "contactPerson": publisher.setContactPerson(readString(in)); break;
+                    case "telephone": publisher.setTelephone(readString(in)); break;
+                    case "email": publisher.setEmail(readString(in)); break;
+                    case "address": publisher.setAddress(readString(in)); break;
+                    case "createdAt": publisher.setCreatedAt(readTimestamp(in)); break;
+                    case "updatedAt": publisher.setUpdatedAt(readTimestamp(in)); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return publisher;
+        }
+    }
+
+    static final class InvoiceItemAdapter extends TypeAdapter<InvoiceItem> {
+        @Override
+        public void write(JsonWriter out, InvoiceItem item) throws IOException {
+            if (item == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("id").value(item.getId());
+            out.name("invoiceId").value(item.getInvoiceId());
+            out.name("bookId").value(item.getBookId());
+            out.name("quantity").value(item.getQuantity());
+            field(out, "unitPrice", item.getUnitPrice());
+            field(out, "discountPercent", item.getDiscountPercent());
+            field(out, "totalPrice", item.getTotalPrice());
+            field(out, "createdAt", item.getCreatedAt());
+            field(out, "bookTitle", item.getBookTitle());
+            field(out, "bookIsbn", item.getBookIsbn());
+            out.endObject();
+        }
+
+        @Override
+        public InvoiceItem read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            InvoiceItem item = new InvoiceItem();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": item.setId(readInt(in)); break;
+                    case "invoiceId": item.setInvoiceId(readInt(in)); break;
+                    case "bookId": item.setBookId(readInt(in)); break;
+                    case "quantity": item.setQuantity(readInt(in)); break;
+                    case "unitPrice": item.setUnitPrice(readBigDecimal(in)); break;
+                    case "discountPercent": item.setDiscountPercent(readBigDecimal(in)); break;
+                    case "totalPrice": item.setTotalPrice(readBigDecimal(in)); break;
+                    case "createdAt": item.setCreatedAt(readTimestamp(in)); break;
+                    case "bookTitle": item.setBookTitle(readString(in)); break;
+                    case "bookIsbn": item.setBookIsbn(readString(in)); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return item;
+        }
+    }
+
+    static final class InvoiceAdapter extends TypeAdapter<Invoice> {
+        private final InvoiceItemAdapter itemAdapter;
+        private final FieldProjection fields;
+
+        InvoiceAdapter(InvoiceItemAdapter itemAdapter, FieldProjection fields) {
+            this.itemAdapter = itemAdapter;
+            this.fields = fields;
+        }
+
+        @Override
+        public void write(JsonWriter out, Invoice invoice) throws IOException {
+            if (invoice == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            field(out, fields, "id", invoice.getId());
+            field(out, fields, "invoiceNumber", invoice.getInvoiceNumber());
+            field(out, fields, "customerId", invoice.getCustomerId());
+            field(out, fields, "cashierId", invoice.getCashierId());
+            field(out, fields, "invoiceDate", invoice.getInvoiceDate());
+            field(out, fields, "subtotal", invoice.getSubtotal());
+            field(out, fields, "discountAmount", invoice.getDiscountAmount());
+            field(out, fields, "taxAmount", invoice.getTaxAmount());
+            field(out, fields, "totalAmount", invoice.getTotalAmount());
+            field(out, fields, "paymentMethod", invoice.getPaymentMethod());
+            field(out, fields, "notes", invoice.getNotes());
+            field(out, fields, "createdAt", invoice.getCreatedAt());
+            field(out, fields, "customerName", invoice.getCustomerName());
+            field(out, fields, "cashierName", invoice.getCashierName());
+            if (invoice.getItems() != null && shows(fields, "items")) {
+                out.name("items").beginArray();
+                for (InvoiceItem item : invoice.getItems()) {
+                    itemAdapter.write(out, item);
+                }
+                out.endArray();
+            }
+            out.endObject();
+        }
+
+        @Override
+        public Invoice read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Invoice invoice = new Invoice();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": invoice.setId(readInt(in)); break;
+                    case "invoiceNumber": invoice.setInvoiceNumber(readString(in)); break;
+                    case "customerId": invoice.setCustomerId(readInteger(in)); break;
+                    case "cashierId": invoice.setCashierId(readInt(in)); break;
+                    case "invoiceDate": invoice.setInvoiceDate(readTimestamp(in)); break;
+                    case "subtotal": invoice.setSubtotal(readBigDecimal(in)); break;
+                    case "discountAmount": invoice.setDiscountAmount(readBigDecimal(in)); break;
+                    case "taxAmount": invoice.setTaxAmount(readBigDecimal(in)); break;
+                    case "totalAmount": invoice.setTotalAmount(readBigDecimal(in)); break;
+                    case "paymentMethod": invoice.setPaymentMethod(readString(in)); break;
+                    case "notes": invoice.setNotes(readString(in)); break;
+                    case "createdAt": invoice.setCreatedAt(readTimestamp(in)); break;
+                    case "customerName": invoice.setCustomerName(readString(in)); break;
+                    case "cashierName": invoice.setCashierName(readString(in)); break;
+                    case "items": invoice.setItems(readItems(in)); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return invoice;
+        }
+
+        private List<InvoiceItem> readItems(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            List<InvoiceItem> items = new ArrayList<>();
+            in.beginArray();
+            while (in.hasNext()) {
+                items.add(itemAdapter.read(in));
+            }
+            in.endArray();
+            return items;
+        }
+    }
+
+    /**
+     * Lines are written as an object keyed by book ID, like the map the cart holds them in
+     */
+    static final class CartAdapter extends TypeAdapter<Cart> {
+        private final InvoiceItemAdapter itemAdapter;
+
+        CartAdapter(InvoiceItemAdapter itemAdapter) {
+            this.itemAdapter = itemAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, Cart cart) throws IOException {
+            if (cart == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            field(out, "id", cart.getId());
+            out.name("cashierId").value(cart.getCashierId());
+            field(out, "cashierName", cart.getCashierName());
+            field(out, "customerId", cart.getCustomerId());
+            out.name("applyTax").value(cart.isApplyTax());
+            field(out, "taxRate", cart.getTaxRate());
+            field(out, "subtotal", cart.getSubtotal());
+            field(out, "discountAmount", cart.getDiscountAmount());
+            field(out, "taxAmount", cart.getTaxAmount());
+            field(out, "totalAmount", cart.getTotalAmount());
+            out.name("version").value(cart.getVersion());
+            field(out, "createdAt", cart.getCreatedAt());
+
+            List<InvoiceItem> lines = cart.getLines();
+            out.name("lines").beginObject();
+            for (InvoiceItem line : lines) {
+                out.name(String.valueOf(line.getBookId()));
+                itemAdapter.write(out, line);
+            }
+            out.endObject();
+            out.name("availableStock").beginObject();
+            for (InvoiceItem line : lines) {
+                field(out, String.valueOf(line.getBookId()), cart.getAvailableStock(line.getBookId()));
+            }
+            out.endObject();
+            out.endObject();
+        }
+
+        @Override
+        public Cart read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            String id = null;
+            int cashierId = 0;
+            String cashierName = null;
+            Integer customerId = null;
+            boolean applyTax = false;
+            BigDecimal taxRate = BigDecimal.ZERO;
+            BigDecimal discountAmount = null;
+            Timestamp createdAt = null;
+            Map<Integer, InvoiceItem> lines = new LinkedHashMap<>();
+            Map<Integer, Integer> availableStock = new HashMap<>();
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": id = readString(in); break;
+                    case "cashierId": cashierId = readInt(in); break;
+                    case "cashierName": cashierName = readString(in); break;
+                    case "customerId": customerId = readInteger(in); break;
+                    case "applyTax": applyTax = readBoolean(in); break;
+                    case "taxRate": taxRate = readBigDecimal(in); break;
+                    case "discountAmount": discountAmount = readBigDecimal(in); break;
+                    case "createdAt": createdAt = readTimestamp(in); break;
+                    case "lines":
+                        in.beginObject();
+                        while (in.hasNext()) {
+                            lines.put(Integer.parseInt(in.nextName()), itemAdapter.read(in));
+                        }
+                        in.endObject();
+                        break;
+                    case "availableStock":
+                        in.beginObject();
+                        while (in.hasNext()) {
+                            availableStock.put(Integer.parseInt(in.nextName()), readInt(in));
+                        }
+                        in.endObject();
+                        break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+
+            // Totals and version are derived, so the cart is rebuilt through its own methods
+            Cart cart = new Cart(id, cashierId, cashierName, taxRate != null ? taxRate : BigDecimal.ZERO);
+            cart.setCustomerId(customerId);
+            cart.setApplyTax(applyTax);
+            if (discountAmount != null) {
+                cart.setDiscountAmount(discountAmount);
+            }
+            if (createdAt != null) {
+                cart.setCreatedAt(createdAt);
+            }
+            for (Map.Entry<Integer, InvoiceItem> line : lines.entrySet()) {
+                Integer stock = availableStock.get(line.getKey());
+                cart.putLine(line.getValue(), stock != null ? stock : 0);
+            }
+            return cart;
+        }
+    }
+
+    static final class UserAdapter extends TypeAdapter<User> {
+        @Override
+        public void write(JsonWriter out, User user) throws IOException {
+            if (user == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("id").value(user.getId());
+            field(out, "username", user.getUsername());
+            field(out, "fullName", user.getFullName());
+            field(out, "role", user.getRole());
+            field(out, "email", user.getEmail());
+            out.name("active").value(user.isActive());
+            field(out, "createdAt", user.getCreatedAt());
+            field(out, "updatedAt", user.getUpdatedAt());
+            out.endObject();
+        }
+
+        @Override
+        public User read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            User user = new User();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": user.setId(readInt(in)); break;
+                    case "username": user.setUsername(readString(in)); break;
+                    case "password": user.setPassword(readString(in)); break;
+                    case "fullName": user.setFullName(readString(in)); break;
+                    case "role": user.setRole(readString(in)); break;
+                    case "email": user.setEmail(readString(in)); break;
+                    case "active": user.setActive(readBoolean(in)); break;
+                    case "createdAt": user.setCreatedAt(readTimestamp(in)); break;
+                    case "updatedAt": user.setUpdatedAt(readTimestamp(in)); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return user;
+        }
+    }
+}
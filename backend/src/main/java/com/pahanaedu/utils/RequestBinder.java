@@ -0,0 +1,377 @@
+package com.pahanaedu.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binds JSON request bodies straight from the input stream.
+ * <p>
+ * The body is read token by token with a {@link JsonReader}, so neither the raw text nor a
+ * JSON tree is held in memory; each property is handed to a {@link FieldReader} that sets it
+ * on the target object and can reject it on the spot. Bodies larger than
+ * {@code app.request.max-body-bytes} are refused with 413, and arrays are capped at
+ * {@code app.request.max-array-items} elements. Properties the caller does not know are skipped.
+ * Bodies sent as CBOR or MessagePack (see {@link WireFormat}) are bound the same way.
+ */
+public final class RequestBinder {
+    private static final int MAX_BODY_BYTES = AppConfig.getInt("app.request.max-body-bytes", 1024 * 1024);
+    private static final int MAX_ARRAY_ITEMS = AppConfig.getInt("app.request.max-array-items", 1000);
+    // Reads a tree without wrapping I/O errors, so a BindingException from the size limit passes straight through
+    private static final TypeAdapter<JsonElement> TREE = new Gson().getAdapter(JsonElement.class);
+
+    /**
+     * Reads the value of one property
+     */
+    @FunctionalInterface
+    public interface FieldReader {
+        /**
+         * @return false if the property is not known, in which case its value is skipped
+         */
+        boolean read(String name, JsonReader in) throws IOException;
+    }
+
+    /**
+     * Reads one array element
+     */
+    @FunctionalInterface
+    public interface ElementReader<T> {
+        T read(JsonReader in) throws IOException;
+    }
+
+    /**
+     * A body that could not be bound, with the status it should be answered with
+     */
+    public static class BindingException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        public BindingException(String message) {
+            this(HttpServletResponse.SC_BAD_REQUEST, message);
+        }
+
+        public BindingException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+    }
+
+    private RequestBinder() {
+    }
+
+    /**
+     * Bind a request body that must be a JSON object
+     * @throws BindingException if the body is too large, malformed or fails validation
+     */
+    public static void bind(HttpServletRequest request, FieldReader fields) throws IOException {
+        try (JsonReader in = open(request)) {
+            bind(in, fields);
+        }
+    }
+
+    /**
+     * Bind a JSON object from any reader, subject to the same checks except the size limit
+     */
+    public static void bind(Reader reader, FieldReader fields) throws IOException {
+        try (JsonReader in = new JsonReader(reader)) {
+            bind(in, fields);
+        }
+    }
+
+    /**
+     * Read a small request body as a JSON tree, for handlers that inspect it freely.
+     * An empty body gives an empty object.
+     */
+    public static JsonObject readTree(HttpServletRequest request) throws IOException {
+        checkContentLength(request);
+        WireFormat format = WireFormat.ofRequestBody(request);
+        PushbackInputStream body = new PushbackInputStream(
+                new LimitedInputStream(request.getInputStream(), MAX_BODY_BYTES), 1);
+        if (isEmpty(body, !format.isBinary())) {
+            return new JsonObject();
+        }
+        JsonElement element;
+        try (JsonReader in = format.newReader(body, charset(request))) {
+            in.setLenient(true);
+            element = TREE.read(in);
+        } catch (BindingException e) {
+            throw e;
+        } catch (IOException | IllegalStateException | NumberFormatException | JsonParseException e) {
+            // MalformedJsonException, a truncated body or a value the tree cannot hold
+            throw new BindingException("Invalid JSON format");
+        }
+        if (!element.isJsonObject()) {
+            throw new BindingException("Request body must be a JSON object");
+        }
+        return element.getAsJsonObject();
+    }
+
+    private static JsonReader open(HttpServletRequest request) throws IOException {
+        checkContentLength(request);
+        InputStream body = new LimitedInputStream(request.getInputStream(), MAX_BODY_BYTES);
+        return WireFormat.ofRequestBody(request).newReader(body, charset(request));
+    }
+
+    private static void bind(JsonReader in, FieldReader fields) throws IOException {
+        try {
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                throw new BindingException("Request body must be a JSON object");
+            }
+            readObject(in, fields);
+        } catch (EOFException e) {
+            throw new BindingException("Request body is incomplete or empty");
+        } catch (BindingException e) {
+            throw e;
+        } catch (IOException | IllegalStateException e) {
+            // MalformedJsonException, or a token of the wrong kind
+            throw new BindingException("Invalid JSON format at " + in.getPath());
+        }
+
+        boolean trailing;
+        try {
+            trailing = in.peek() != JsonToken.END_DOCUMENT;
+        } catch (BindingException e) {
+            throw e;
+        } catch (IOException e) {
+            trailing = true;
+        }
+        if (trailing) {
+            throw new BindingException("Unexpected content after the JSON object");
+        }
+    }
+
+    /**
+     * Read an object, passing each property to {@code fields}
+     */
+    public static void readObject(JsonReader in, FieldReader fields) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_OBJECT) {
+            throw new BindingException("Expected an object at " + in.getPath());
+        }
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (!fields.read(name, in)) {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+    }
+
+    /**
+     * Read an array element by element, up to {@code app.request.max-array-items} elements
+     */
+    public static <T> List<T> readArray(JsonReader in, ElementReader<T> elements) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            throw new BindingException("Expected an array at " + in.getPath());
+        }
+        List<T> list = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            if (list.size() == MAX_ARRAY_ITEMS) {
+                throw new BindingException(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+                        "Too many elements at " + in.getPath() + ", the limit is " + MAX_ARRAY_ITEMS);
+            }
+            list.add(elements.read(in));
+        }
+        in.endArray();
+        return list;
+    }
+
+    /**
+     * A text value; numbers and booleans are taken as their text, null as null
+     */
+    public static String readString(JsonReader in) throws IOException {
+        switch (in.peek()) {
+            case NULL:
+                in.nextNull();
+                return null;
+            case BOOLEAN:
+                return String.valueOf(in.nextBoolean());
+            case STRING:
+            case NUMBER:
+                return in.nextString();
+            default:
+                throw new BindingException("Expected text at " + in.getPath());
+        }
+    }
+
+    /**
+     * A text value that must not be null or blank
+     */
+    public static String readText(JsonReader in, String message) throws IOException {
+        String value = readString(in);
+        if (value == null || value.trim().isEmpty()) {
+            throw new BindingException(message);
+        }
+        return value;
+    }
+
+    /**
+     * A whole number, or null
+     */
+    public static Integer readInteger(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        try {
+            return in.nextInt();
+        } catch (NumberFormatException | IllegalStateException e) {
+            throw new BindingException("Expected a whole number at " + in.getPath());
+        }
+    }
+
+    /**
+     * A whole number greater than zero
+     */
+    public static int readPositiveInt(JsonReader in, String message) throws IOException {
+        Integer value = readInteger(in);
+        if (value == null || value <= 0) {
+            throw new BindingException(message);
+        }
+        return value;
+    }
+
+    /**
+     * A decimal number, or null
+     */
+    public static BigDecimal readDecimal(JsonReader in) throws IOException {
+        String value = readString(in);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value.trim());
+        } catch (NumberFormatException e) {
+            throw new BindingException("Expected a number at " + in.getPath());
+        }
+    }
+
+    /**
+     * A decimal number that must be present and not negative
+     */
+    public static BigDecimal readAmount(JsonReader in, String message) throws IOException {
+        BigDecimal value = readDecimal(in);
+        if (value == null || value.signum() < 0) {
+            throw new BindingException(message);
+        }
+        return value;
+    }
+
+    /**
+     * A boolean; the strings "true" and "false" are accepted too, null is false
+     */
+    public static boolean readBoolean(JsonReader in) throws IOException {
+        switch (in.peek()) {
+            case NULL:
+                in.nextNull();
+                return false;
+            case BOOLEAN:
+                return in.nextBoolean();
+            case STRING:
+                return Boolean.parseBoolean(in.nextString());
+            default:
+                throw new BindingException("Expected true or false at " + in.getPath());
+        }
+    }
+
+    private static void checkContentLength(HttpServletRequest request) throws BindingException {
+        if (request.getContentLengthLong() > MAX_BODY_BYTES) {
+            throw tooLarge();
+        }
+    }
+
+    private static BindingException tooLarge() {
+        return new BindingException(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+                "Request body exceeds the limit of " + MAX_BODY_BYTES + " bytes");
+    }
+
+    private static Charset charset(HttpServletRequest request) {
+        String encoding = request.getCharacterEncoding();
+        try {
+            return encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+        } catch (IllegalArgumentException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+
+    private static boolean isEmpty(PushbackInputStream body, boolean skipWhitespace) throws IOException {
+        int b;
+        do {
+            b = body.read();
+        } while (skipWhitespace && (b == ' ' || b == '\t' || b == '\r' || b == '\n'));
+        if (b == -1) {
+            return true;
+        }
+        body.unread(b);
+        return false;
+    }
+
+    /**
+     * Fails once more than the allowed number of bytes has been read, whatever Content-Length said
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private final long limit;
+        private long count;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        private void count(long n) throws BindingException {
+            count += n;
+            if (count > limit) {
+                throw tooLarge();
+            }
+        }
+    }
+}
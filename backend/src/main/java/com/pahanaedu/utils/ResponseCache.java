@@ -0,0 +1,151 @@
+package com.pahanaedu.utils;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Finished bodies of cacheable GET responses, kept both plain and gzip-compressed.
+ * <p>
+ * Each entry is stored under the request URL together with the ETag it was built for.
+ * While the ETag is still current, a repeated request is answered from here without
+ * loading, serialising or compressing anything. Entries are evicted least recently used
+ * once {@code app.compression.cache-max-bytes} is exceeded.
+ */
+public final class ResponseCache {
+    private static final String PENDING_ATTRIBUTE = ResponseCache.class.getName() + ".pending";
+
+    private static final ResponseCache INSTANCE = new ResponseCache(
+            AppConfig.getLong("app.compression.cache-max-bytes", 8L * 1024 * 1024));
+
+    /**
+     * A stored body
+     */
+    public static final class Entry {
+        private final String etag;
+        private final String contentType;
+        private final byte[] body;
+        private final byte[] gzipBody;
+
+        private Entry(String etag, String contentType, byte[] body, byte[] gzipBody) {
+            this.etag = etag;
+            this.contentType = contentType;
+            this.body = body;
+            this.gzipBody = gzipBody;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public byte[] getGzipBody() {
+            return gzipBody;
+        }
+
+        private long size() {
+            return body.length + gzipBody.length;
+        }
+    }
+
+    /**
+     * A response that may be stored once it has been written
+     */
+    public static final class Pending {
+        private final String key;
+        private final String etag;
+
+        private Pending(String key, String etag) {
+            this.key = key;
+            this.etag = etag;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+    }
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final CacheStats stats = new CacheStats();
+    private long bytes;
+
+    public ResponseCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public static ResponseCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Cache key for a request: the full URL including its query string
+     */
+    public static String key(HttpServletRequest request) {
+        String query = request.getQueryString();
+        return query != null ? request.getRequestURI() + "?" + query : request.getRequestURI();
+    }
+
+    /**
+     * Mark the current response as cacheable under {@code etag}
+     */
+    public static void markPending(HttpServletRequest request, String etag) {
+        request.setAttribute(PENDING_ATTRIBUTE, new Pending(key(request), etag));
+    }
+
+    static Pending pending(HttpServletRequest request) {
+        Object pending = request.getAttribute(PENDING_ATTRIBUTE);
+        return pending instanceof Pending ? (Pending) pending : null;
+    }
+
+    /**
+     * Stored body for a URL, only if it was built for the given ETag
+     */
+    public synchronized Entry get(String key, String etag) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.etag.equals(etag)) {
+            stats.recordHit();
+            return entry;
+        }
+        stats.recordMiss();
+        return null;
+    }
+
+    public synchronized void put(String key, String etag, String contentType, byte[] body, byte[] gzipBody) {
+        Entry entry = new Entry(etag, contentType, body, gzipBody);
+        if (entry.size() > maxBytes / 4) {
+            return;
+        }
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            bytes -= previous.size();
+        }
+        bytes += entry.size();
+
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().getValue().size();
+            eldest.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public CacheStats getStats() {
+        return stats;
+    }
+}
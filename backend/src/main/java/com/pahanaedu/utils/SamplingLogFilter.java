@@ -0,0 +1,85 @@
+package com.pahanaedu.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Filter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Lets through at most {@code perSecond} records a second for each message, so a message
+ * repeated in a burst does not flood the log. The first record let through after a quiet
+ * second says how many were held back. Messages are told apart by their text before
+ * parameters are filled in, so parameterised messages are sampled together. SEVERE records
+ * are never held back.
+ */
+public final class SamplingLogFilter implements Filter {
+    private static final int MAX_MESSAGES = 1000;
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final int perSecond;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private final LongAdder suppressed = new LongAdder();
+
+    /**
+     * Current second and records let through in it, packed into one long, and records held back
+     */
+    private static final class Window {
+        private final AtomicLong state = new AtomicLong();
+        private final LongAdder held = new LongAdder();
+    }
+
+    /**
+     * @param perSecond records let through per message each second; 0 or less turns sampling off
+     */
+    public SamplingLogFilter(int perSecond) {
+        this.perSecond = (int) Math.min(perSecond, COUNT_MASK);
+    }
+
+    @Override
+    public boolean isLoggable(LogRecord record) {
+        String message = record.getMessage();
+        if (perSecond <= 0 || message == null || record.getLevel().intValue() >= Level.SEVERE.intValue()) {
+            return true;
+        }
+        Window window = windows.get(message);
+        if (window == null) {
+            if (windows.size() >= MAX_MESSAGES) {
+                // Mostly one-off messages; start over rather than grow without bound
+                windows.clear();
+            }
+            window = windows.computeIfAbsent(message, key -> new Window());
+        }
+
+        long second = record.getMillis() / 1000;
+        while (true) {
+            long state = window.state.get();
+            long count = state & COUNT_MASK;
+            if (second > state >>> COUNT_BITS) {
+                if (window.state.compareAndSet(state, second << COUNT_BITS | 1)) {
+                    long held = window.held.sumThenReset();
+                    if (held > 0) {
+                        record.setMessage(message + " (" + held + " similar messages suppressed)");
+                    }
+                    return true;
+                }
+            } else if (count >= perSecond) {
+                window.held.increment();
+                suppressed.increment();
+                return false;
+            } else if (window.state.compareAndSet(state, state + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Records held back since startup
+     */
+    public long getSuppressed() {
+        return suppressed.sum();
+    }
+}
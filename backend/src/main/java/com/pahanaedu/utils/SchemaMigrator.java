@@ -0,0 +1,392 @@
+package com.pahanaedu.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies the versioned SQL migrations under db/migration once each, recording them in the
+ * schema_version table with a checksum of the script.
+ * <p>
+ * The files are listed in order in db/migration/migrations.txt and named V{version}__{description}.sql.
+ * On startup only the versions missing from schema_version are run, so a current schema costs one
+ * query. A script that changed after it was applied stops the migration. The demo data in
+ * db/seed/demo-data.sql is loaded only when the database had no users and no recorded versions.
+ * <p>
+ * Each migration runs in a transaction, but MySQL commits DDL statements as they run, so a failed
+ * migration can leave earlier statements applied and must be written to be re-runnable.
+ * A MySQL named lock keeps two servers starting together from migrating at the same time.
+ */
+public class SchemaMigrator {
+    private static final Logger LOGGER = Logger.getLogger(SchemaMigrator.class.getName());
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final String LOCK_NAME = "pahana_edu_schema_migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 60;
+
+    private static final String CREATE_VERSION_TABLE = "CREATE TABLE IF NOT EXISTS schema_version (" +
+            "version INT PRIMARY KEY, " +
+            "description VARCHAR(200) NOT NULL, " +
+            "script VARCHAR(200) NOT NULL, " +
+            "checksum CHAR(64) NOT NULL, " +
+            "execution_ms INT NOT NULL, " +
+            "installed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)";
+    private static final String SELECT_VERSIONS = "SELECT version, checksum FROM schema_version";
+    private static final String INSERT_VERSION = "INSERT INTO schema_version " +
+            "(version, description, script, checksum, execution_ms) VALUES (?, ?, ?, ?, ?)";
+
+    /**
+     * One migration script read from the classpath
+     */
+    public static final class Migration {
+        private final int version;
+        private final String description;
+        private final String script;
+        private final String sql;
+        private final String checksum;
+
+        private Migration(int version, String description, String script, String sql) {
+            this.version = version;
+            this.description = description;
+            this.script = script;
+            this.sql = sql;
+            this.checksum = checksum(sql);
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public String getScript() {
+            return script;
+        }
+
+        public String getChecksum() {
+            return checksum;
+        }
+    }
+
+    private final ClassLoader classLoader;
+    private final String migrationPath;
+    private final String seedScript;
+
+    /**
+     * @param migrationPath classpath directory holding migrations.txt and the scripts
+     * @param seedScript classpath script loaded into an empty database, or null for none
+     */
+    public SchemaMigrator(ClassLoader classLoader, String migrationPath, String seedScript) {
+        this.classLoader = classLoader;
+        this.migrationPath = migrationPath;
+        this.seedScript = seedScript;
+    }
+
+    /**
+     * The application's migrations, with the demo data unless app.datasource.seed-demo-data is false
+     */
+    public static SchemaMigrator fromClasspath() {
+        boolean seed = Boolean.parseBoolean(AppConfig.getString("app.datasource.seed-demo-data", "true"));
+        return new SchemaMigrator(SchemaMigrator.class.getClassLoader(), "db/migration",
+                seed ? "db/seed/demo-data.sql" : null);
+    }
+
+    /**
+     * Bring the schema up to date
+     *
+     * @return the number of migrations applied; 0 when the schema was already current
+     */
+    public int migrate(Connection connection) throws SQLException, IOException {
+        List<Migration> migrations = loadMigrations();
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(CREATE_VERSION_TABLE);
+        }
+
+        acquireLock(connection);
+        try {
+            Map<Integer, String> applied = readAppliedVersions(connection);
+            verifyChecksums(migrations, applied);
+
+            boolean emptyDatabase = applied.isEmpty() && !hasUsers(connection);
+            int count = 0;
+            for (Migration migration : migrations) {
+                if (!applied.containsKey(migration.version)) {
+                    apply(connection, migration);
+                    count++;
+                }
+            }
+
+            if (emptyDatabase && seedScript != null) {
+                long started = System.currentTimeMillis();
+                runInTransaction(connection, splitStatements(readResource(seedScript)));
+                LOGGER.info("Loaded " + seedScript + " into the empty database in "
+                        + (System.currentTimeMillis() - started) + " ms");
+            }
+
+            if (count == 0) {
+                LOGGER.info("Database schema is current at version " + latestVersion(migrations));
+            } else {
+                LOGGER.info("Applied " + count + " migrations, database schema is now at version "
+                        + latestVersion(migrations));
+            }
+            return count;
+        } finally {
+            releaseLock(connection);
+        }
+    }
+
+    /**
+     * Version of the last migration listed, which the schema is at after {@link #migrate}
+     */
+    public int getLatestVersion() throws IOException {
+        return latestVersion(loadMigrations());
+    }
+
+    /**
+     * Read the migrations named in migrations.txt, checking that versions only go up
+     */
+    public List<Migration> loadMigrations() throws IOException {
+        List<Migration> migrations = new ArrayList<>();
+        int previous = 0;
+
+        for (String line : readResource(migrationPath + "/migrations.txt").split("\n")) {
+            String fileName = line.trim();
+            if (fileName.isEmpty() || fileName.startsWith("#")) {
+                continue;
+            }
+            Matcher matcher = FILE_NAME.matcher(fileName);
+            if (!matcher.matches()) {
+                throw new IOException("Migration " + fileName + " is not named V{version}__{description}.sql");
+            }
+            int version = Integer.parseInt(matcher.group(1));
+            if (version <= previous) {
+                throw new IOException("Migration " + fileName + " must have a version above " + previous);
+            }
+            String description = matcher.group(2).replace('_', ' ');
+            migrations.add(new Migration(version, description, fileName,
+                    readResource(migrationPath + "/" + fileName)));
+            previous = version;
+        }
+        return migrations;
+    }
+
+    private void apply(Connection connection, Migration migration) throws SQLException {
+        LOGGER.info("Applying migration " + migration.script);
+        long started = System.currentTimeMillis();
+        List<String> statements = splitStatements(migration.sql);
+
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            try (Statement stmt = connection.createStatement()) {
+                for (String statement : statements) {
+                    stmt.execute(statement);
+                }
+            }
+            try (PreparedStatement stmt = connection.prepareStatement(INSERT_VERSION)) {
+                stmt.setInt(1, migration.version);
+                stmt.setString(2, migration.description);
+                stmt.setString(3, migration.script);
+                stmt.setString(4, migration.checksum);
+                stmt.setInt(5, (int) (System.currentTimeMillis() - started));
+                stmt.executeUpdate();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw new SQLException("Migration " + migration.script + " failed: " + e.getMessage(), e);
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static void runInTransaction(Connection connection, List<String> statements) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement stmt = connection.createStatement()) {
+            for (String statement : statements) {
+                stmt.execute(statement);
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static void verifyChecksums(List<Migration> migrations, Map<Integer, String> applied) {
+        for (Migration migration : migrations) {
+            String checksum = applied.get(migration.version);
+            if (checksum != null && !checksum.equals(migration.checksum)) {
+                throw new IllegalStateException("Migration " + migration.script
+                        + " has changed since it was applied; add a new migration instead");
+            }
+        }
+        int latest = latestVersion(migrations);
+        for (Integer version : applied.keySet()) {
+            if (version > latest) {
+                LOGGER.warning("Database has migration version " + version
+                        + ", newer than this build's version " + latest);
+            }
+        }
+    }
+
+    private static Map<Integer, String> readAppliedVersions(Connection connection) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(SELECT_VERSIONS)) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getString("checksum"));
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Whether a users table with rows exists, as in a database created before schema_version
+     */
+    private static boolean hasUsers(Connection connection) {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM users")) {
+            return rs.next() && rs.getLong(1) > 0;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static void acquireLock(Connection connection) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for the schema migration lock");
+                }
+            }
+        }
+    }
+
+    private static void releaseLock(Connection connection) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.executeQuery().close();
+        }
+    }
+
+    private static int latestVersion(List<Migration> migrations) {
+        return migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).version;
+    }
+
+    private String readResource(String name) throws IOException {
+        try (InputStream input = classLoader.getResourceAsStream(name)) {
+            if (input == null) {
+                throw new IOException("Could not find " + name + " in classpath");
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+            // Checksums must not depend on how the file was checked out
+            return bytes.toString(StandardCharsets.UTF_8.name()).replace("\r\n", "\n");
+        }
+    }
+
+    private static String checksum(String sql) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sql.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Split a script into statements on semicolons outside quotes, backticks and comments,
+     * dropping the comments. DELIMITER blocks (triggers, procedures) are a mysql client
+     * feature and are rejected.
+     */
+    public static List<String> splitStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int length = script.length();
+        int i = 0;
+
+        while (i < length) {
+            char c = script.charAt(i);
+            char next = i + 1 < length ? script.charAt(i + 1) : '\0';
+
+            if (c == '-' && next == '-' && (i + 2 >= length || Character.isWhitespace(script.charAt(i + 2)))
+                    || c == '#') {
+                while (i < length && script.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '/' && next == '*') {
+                int end = script.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+                current.append(' ');
+            } else if (c == '\'' || c == '"' || c == '`') {
+                int end = i + 1;
+                while (end < length) {
+                    char quoted = script.charAt(end);
+                    if (quoted == '\\' && c != '`') {
+                        end += 2;
+                    } else if (quoted == c && end + 1 < length && script.charAt(end + 1) == c) {
+                        end += 2;
+                    } else if (quoted == c) {
+                        break;
+                    } else {
+                        end++;
+                    }
+                }
+                end = Math.min(end + 1, length);
+                current.append(script, i, end);
+                i = end;
+            } else if (c == ';') {
+                addStatement(statements, current);
+                i++;
+            } else {
+                current.append(c);
+                i++;
+            }
+        }
+        addStatement(statements, current);
+        return statements;
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder current) {
+        String statement = current.toString().trim();
+        current.setLength(0);
+        if (statement.isEmpty()) {
+            return;
+        }
+        if (statement.regionMatches(true, 0, "DELIMITER", 0, "DELIMITER".length())) {
+            throw new IllegalArgumentException("DELIMITER is a mysql client command and cannot be run over JDBC");
+        }
+        statements.add(statement);
+    }
+}
@@ -0,0 +1,654 @@
+package com.pahanaedu.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Times the SQL the DAOs run, through proxies around the connections handed out by
+ * {@link DatabaseConnection} and the statements and result sets made from them.
+ * <p>
+ * Executions are grouped by normalised statement (literals and IN lists folded to {@code ?},
+ * whitespace collapsed) with their count, errors, execution time, rows read and time spent
+ * fetching them. Executions taking at least {@code app.sql-profiler.slow-query-ms} are logged
+ * with their bound parameters, and the slowest {@code app.sql-profiler.top-n} are kept. The
+ * first slow execution of each SELECT is explained in the background, with the same
+ * parameters, so its plan can be read next to it. Parameters of statements that mention a
+ * password are not shown.
+ */
+public final class SqlProfiler {
+    private static final Logger LOGGER = Logger.getLogger(SqlProfiler.class.getName());
+    private static final int MAX_STATEMENTS = 500;
+    private static final int MAX_PARAMETER_LENGTH = 100;
+    private static final String OTHER_STATEMENTS = "(other statements)";
+    private static final Object NULL = new Object();
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN\\s*\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern NUMBER = Pattern.compile("(?<![\\w.])-?\\d+(\\.\\d+)?\\b");
+
+    private static final SqlProfiler INSTANCE = new SqlProfiler(
+            AppConfig.getBoolean("app.sql-profiler.enabled", true),
+            AppConfig.getLong("app.sql-profiler.slow-query-ms", 100),
+            AppConfig.getInt("app.sql-profiler.top-n", 20),
+            SqlProfiler::explainOnPool,
+            BoundedExecutors.newBoundedExecutor("sql-explain", 1, 1, 8));
+
+    /**
+     * Runs EXPLAIN for a statement and returns the plan's rows
+     */
+    public interface Explainer {
+        List<Map<String, String>> explain(String sql, Object[] parameters) throws SQLException;
+    }
+
+    /**
+     * Totals for one normalised statement
+     */
+    public static final class Statistics {
+        private final String sql;
+        private final String example;
+        private final boolean sensitive;
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder fetchNanos = new LongAdder();
+        private final LatencyHistogram executionTime = new LatencyHistogram();
+        private final AtomicBoolean explainRequested = new AtomicBoolean();
+        private volatile List<Map<String, String>> plan;
+        private volatile String planError;
+
+        private Statistics(String sql, String example) {
+            this.sql = sql;
+            this.example = example;
+            this.sensitive = sql.toLowerCase(Locale.ROOT).contains("password");
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public long getExecutions() {
+            return executions.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getRows() {
+            return rows.sum();
+        }
+
+        public double getMeanMillis() {
+            long count = executionTime.getCount();
+            return count == 0 ? 0 : toMillis(executionTime.getSumNanos()) / count;
+        }
+
+        public double getPercentileMillis(double quantile) {
+            return toMillis(executionTime.getValueAtQuantile(quantile));
+        }
+
+        public double getMaxMillis() {
+            return toMillis(executionTime.getMaxNanos());
+        }
+
+        public double getFetchMillis() {
+            return toMillis(fetchNanos.sum());
+        }
+
+        /**
+         * Execution and fetch time over all executions
+         */
+        public double getTotalMillis() {
+            return toMillis(executionTime.getSumNanos() + fetchNanos.sum());
+        }
+
+        /**
+         * EXPLAIN output, once a slow execution has been explained
+         */
+        public List<Map<String, String>> getPlan() {
+            return plan;
+        }
+
+        public String getPlanError() {
+            return planError;
+        }
+    }
+
+    /**
+     * One slow execution
+     */
+    public static final class SlowQuery {
+        private final Statistics statement;
+        private final List<String> parameters;
+        private final long executionNanos;
+        private final long fetchNanos;
+        private final long rows;
+        private final long at;
+
+        private SlowQuery(Statistics statement, List<String> parameters, long executionNanos, long fetchNanos,
+                          long rows, long at) {
+            this.statement = statement;
+            this.parameters = parameters;
+            this.executionNanos = executionNanos;
+            this.fetchNanos = fetchNanos;
+            this.rows = rows;
+            this.at = at;
+        }
+
+        public Statistics getStatement() {
+            return statement;
+        }
+
+        public List<String> getParameters() {
+            return parameters;
+        }
+
+        public double getExecutionMillis() {
+            return toMillis(executionNanos);
+        }
+
+        public double getFetchMillis() {
+            return toMillis(fetchNanos);
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getAt() {
+            return at;
+        }
+
+        private long totalNanos() {
+            return executionNanos + fetchNanos;
+        }
+    }
+
+    private final boolean enabled;
+    private final long slowNanos;
+    private final int topN;
+    private final Explainer explainer;
+    private final ExecutorService explainExecutor;
+    private final Map<String, Statistics> bySql = new ConcurrentHashMap<>();
+    private final Map<String, Statistics> statements = new ConcurrentHashMap<>();
+    private final PriorityQueue<SlowQuery> slowest =
+            new PriorityQueue<>(Comparator.comparingLong(SlowQuery::totalNanos));
+    private final Counter slowCount = MetricsRegistry.getInstance().counter("sql_slow_statements",
+            "SQL executions slower than app.sql-profiler.slow-query-ms");
+
+    public SqlProfiler(boolean enabled, long slowQueryMillis, int topN, Explainer explainer,
+                       ExecutorService explainExecutor) {
+        this.enabled = enabled;
+        this.slowNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryMillis);
+        this.topN = topN;
+        this.explainer = explainer;
+        this.explainExecutor = explainExecutor;
+    }
+
+    public static SqlProfiler getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getSlowQueryMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(slowNanos);
+    }
+
+    /**
+     * A connection whose statements are profiled, or {@code connection} itself when profiling is off
+     */
+    public Connection wrap(Connection connection) {
+        if (!enabled) {
+            return connection;
+        }
+        return (Connection) Proxy.newProxyInstance(SqlProfiler.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ProfiledConnectionHandler(connection));
+    }
+
+    /**
+     * Statements by total time spent on them, highest first
+     */
+    public List<Statistics> getStatements() {
+        List<Statistics> list = new ArrayList<>(statements.values());
+        list.sort(Comparator.comparingDouble(Statistics::getTotalMillis).reversed());
+        return list;
+    }
+
+    /**
+     * The slowest executions kept, slowest first
+     */
+    public synchronized List<SlowQuery> getSlowest() {
+        List<SlowQuery> list = new ArrayList<>(slowest);
+        list.sort(Comparator.comparingLong(SlowQuery::totalNanos).reversed());
+        return list;
+    }
+
+    /**
+     * Forget all figures, for example before measuring a change
+     */
+    public synchronized void reset() {
+        bySql.clear();
+        statements.clear();
+        slowest.clear();
+    }
+
+    public void shutdown() {
+        explainExecutor.shutdownNow();
+    }
+
+    Statistics statisticsFor(String sql) {
+        Statistics stats = bySql.get(sql);
+        if (stats != null) {
+            return stats;
+        }
+        String normalised = normalise(sql);
+        stats = statements.get(normalised);
+        if (stats == null) {
+            String key = statements.size() < MAX_STATEMENTS ? normalised : OTHER_STATEMENTS;
+            stats = statements.computeIfAbsent(key, k -> new Statistics(k, sql));
+        }
+        if (bySql.size() < MAX_STATEMENTS * 2) {
+            bySql.put(sql, stats);
+        }
+        return stats;
+    }
+
+    void record(Statistics stats, long executionNanos, long fetchNanos, long rows, Object[] parameters,
+                boolean failed) {
+        stats.executions.increment();
+        if (failed) {
+            stats.errors.increment();
+        }
+        stats.rows.add(rows);
+        stats.fetchNanos.add(fetchNanos);
+        stats.executionTime.record(executionNanos);
+
+        long total = executionNanos + fetchNanos;
+        if (total < slowNanos) {
+            return;
+        }
+        slowCount.increment();
+        List<String> shown = render(stats, parameters);
+        LOGGER.log(Level.WARNING, "Slow SQL ({0} ms executing, {1} ms fetching {2} rows): {3} {4}",
+                new Object[]{TimeUnit.NANOSECONDS.toMillis(executionNanos), TimeUnit.NANOSECONDS.toMillis(fetchNanos),
+                        rows, stats.sql, shown});
+        keep(new SlowQuery(stats, shown, executionNanos, fetchNanos, rows, System.currentTimeMillis()));
+        requestPlan(stats, parameters);
+    }
+
+    private synchronized void keep(SlowQuery query) {
+        if (slowest.size() < topN) {
+            slowest.add(query);
+        } else if (topN > 0 && slowest.peek().totalNanos() < query.totalNanos()) {
+            slowest.poll();
+            slowest.add(query);
+        }
+    }
+
+    private void requestPlan(Statistics stats, Object[] parameters) {
+        if (!stats.sql.regionMatches(true, 0, "SELECT", 0, 6) || !stats.explainRequested.compareAndSet(false, true)) {
+            return;
+        }
+        Object[] values = parameters == null ? new Object[0] : Arrays.copyOf(parameters, boundCount(parameters));
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == NULL) {
+                values[i] = null;
+            }
+        }
+        // The SQL as first run, since the normalised text may have lost literals
+        String sql = stats.example;
+        try {
+            explainExecutor.execute(() -> {
+                try {
+                    stats.plan = explainer.explain(sql, values);
+                } catch (SQLException | RuntimeException e) {
+                    stats.planError = e.getMessage();
+                    LOGGER.log(Level.FINE, "Could not explain " + stats.sql, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Busy explaining others; try again on the next slow execution
+            stats.explainRequested.set(false);
+        }
+    }
+
+    private static List<String> render(Statistics stats, Object[] parameters) {
+        if (parameters == null) {
+            return Collections.emptyList();
+        }
+        int count = boundCount(parameters);
+        List<String> shown = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Object value = parameters[i];
+            if (stats.sensitive) {
+                shown.add("[redacted]");
+            } else if (value == null || value == NULL) {
+                shown.add("NULL");
+            } else {
+                String text = String.valueOf(value);
+                shown.add(text.length() > MAX_PARAMETER_LENGTH
+                        ? text.substring(0, MAX_PARAMETER_LENGTH) + "..." : text);
+            }
+        }
+        return shown;
+    }
+
+    /**
+     * Parameters set, leaving out the unused end of the array; those set to NULL are marked
+     */
+    private static int boundCount(Object[] parameters) {
+        int count = parameters.length;
+        while (count > 0 && parameters[count - 1] == null) {
+            count--;
+        }
+        return count;
+    }
+
+    /**
+     * Fold literals and IN lists to {@code ?} and collapse whitespace, so executions of the same
+     * statement are counted together
+     */
+    static String normalise(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        int i = 0;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"') {
+                int end = i + 1;
+                while (end < sql.length()) {
+                    char next = sql.charAt(end);
+                    if (next == '\\') {
+                        end += 2;
+                    } else if (next == c && end + 1 < sql.length() && sql.charAt(end + 1) == c) {
+                        end += 2;
+                    } else if (next == c) {
+                        break;
+                    } else {
+                        end++;
+                    }
+                }
+                out.append('?');
+                i = end + 1;
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        String text = WHITESPACE.matcher(out.toString().trim()).replaceAll(" ");
+        text = NUMBER.matcher(text).replaceAll("?");
+        return IN_LIST.matcher(text).replaceAll("IN (?)");
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static List<Map<String, String>> explainOnPool(String sql, Object[] parameters) throws SQLException {
+        // Straight from the pool, so the EXPLAIN is not profiled itself
+        try (Connection conn = DatabaseConnection.getInstance().getPool().getConnection();
+             PreparedStatement stmt = conn.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                stmt.setObject(i + 1, parameters[i]);
+            }
+            List<Map<String, String>> plan = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                while (rs.next()) {
+                    Map<String, String> row = new LinkedHashMap<>();
+                    for (int column = 1; column <= meta.getColumnCount(); column++) {
+                        row.put(meta.getColumnLabel(column), rs.getString(column));
+                    }
+                    plan.add(row);
+                }
+            }
+            return plan;
+        }
+    }
+
+    private static Object forward(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Hands out profiled statements; everything else goes straight to the connection
+     */
+    private final class ProfiledConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+
+        private ProfiledConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "prepareStatement": {
+                    PreparedStatement statement = (PreparedStatement) forward(connection, method, args);
+                    return Proxy.newProxyInstance(SqlProfiler.class.getClassLoader(),
+                            new Class<?>[]{PreparedStatement.class},
+                            new ProfiledStatementHandler(statement, statisticsFor((String) args[0])));
+                }
+                case "createStatement": {
+                    Statement statement = (Statement) forward(connection, method, args);
+                    return Proxy.newProxyInstance(SqlProfiler.class.getClassLoader(),
+                            new Class<?>[]{Statement.class}, new ProfiledStatementHandler(statement, null));
+                }
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return forward(connection, method, args);
+            }
+        }
+    }
+
+    /**
+     * Times executions and keeps the bound parameters. A query is recorded when its result set
+     * or statement is closed, so the time spent reading rows is included.
+     */
+    private final class ProfiledStatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final Statistics prepared;
+        private Object[] parameters;
+        private Statistics pending;
+        private long executionNanos;
+        private long fetchNanos;
+        private long rows;
+
+        private ProfiledStatementHandler(Statement statement, Statistics prepared) {
+            this.statement = statement;
+            this.prepared = prepared;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (prepared != null && name.startsWith("set") && args != null && args.length >= 2
+                    && args[0] instanceof Integer) {
+                bind((Integer) args[0], "setNull".equals(name) ? NULL : args[1]);
+                return forward(statement, method, args);
+            }
+            switch (name) {
+                case "clearParameters":
+                    if (parameters != null) {
+                        Arrays.fill(parameters, null);
+                    }
+                    return forward(statement, method, args);
+                case "executeQuery":
+                    return executeQuery(method, args);
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                case "execute":
+                case "executeBatch":
+                case "executeLargeBatch":
+                    return executeUpdate(method, args);
+                case "close":
+                    finish();
+                    return forward(statement, method, args);
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return forward(statement, method, args);
+            }
+        }
+
+        private void bind(int index, Object value) {
+            if (index < 1) {
+                return;
+            }
+            if (parameters == null || parameters.length < index) {
+                parameters = Arrays.copyOf(parameters == null ? new Object[0] : parameters, Math.max(index, 8));
+            }
+            parameters[index - 1] = value;
+        }
+
+        private Object executeQuery(Method method, Object[] args) throws Throwable {
+            finish();
+            Statistics stats = statisticsOf(args);
+            if (stats == null) {
+                return forward(statement, method, args);
+            }
+            long started = System.nanoTime();
+            ResultSet resultSet;
+            try {
+                resultSet = (ResultSet) forward(statement, method, args);
+            } catch (Throwable e) {
+                record(stats, System.nanoTime() - started, 0, 0, parameters, true);
+                throw e;
+            }
+            pending = stats;
+            executionNanos = System.nanoTime() - started;
+            fetchNanos = 0;
+            rows = 0;
+            return Proxy.newProxyInstance(SqlProfiler.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                    new ProfiledResultSetHandler(resultSet, this));
+        }
+
+        private Object executeUpdate(Method method, Object[] args) throws Throwable {
+            finish();
+            Statistics stats = statisticsOf(args);
+            if (stats == null) {
+                return forward(statement, method, args);
+            }
+            long started = System.nanoTime();
+            Object result;
+            try {
+                result = forward(statement, method, args);
+            } catch (Throwable e) {
+                record(stats, System.nanoTime() - started, 0, 0, parameters, true);
+                throw e;
+            }
+            record(stats, System.nanoTime() - started, 0, affectedRows(result), parameters, false);
+            return result;
+        }
+
+        private Statistics statisticsOf(Object[] args) {
+            return prepared != null || args == null || !(args[0] instanceof String)
+                    ? prepared : statisticsFor((String) args[0]);
+        }
+
+        private long affectedRows(Object result) {
+            if (result instanceof Number) {
+                return ((Number) result).longValue();
+            }
+            long total = 0;
+            if (result instanceof int[]) {
+                for (int count : (int[]) result) {
+                    total += Math.max(count, 0);
+                }
+            } else if (result instanceof long[]) {
+                for (long count : (long[]) result) {
+                    total += Math.max(count, 0);
+                }
+            }
+            return total;
+        }
+
+        private void fetched(long nanos, boolean row) {
+            fetchNanos += nanos;
+            if (row) {
+                rows++;
+            }
+        }
+
+        private void finish() {
+            if (pending != null) {
+                Statistics stats = pending;
+                pending = null;
+                record(stats, executionNanos, fetchNanos, rows, parameters, false);
+            }
+        }
+    }
+
+    /**
+     * Counts rows and the time spent in {@code next()}
+     */
+    private static final class ProfiledResultSetHandler implements InvocationHandler {
+        private final ResultSet resultSet;
+        private final ProfiledStatementHandler statement;
+
+        private ProfiledResultSetHandler(ResultSet resultSet, ProfiledStatementHandler statement) {
+            this.resultSet = resultSet;
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next": {
+                    long started = System.nanoTime();
+                    boolean row = (Boolean) forward(resultSet, method, args);
+                    statement.fetched(System.nanoTime() - started, row);
+                    return row;
+                }
+                case "close":
+                    try {
+                        return forward(resultSet, method, args);
+                    } finally {
+                        statement.finish();
+                    }
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return forward(resultSet, method, args);
+            }
+        }
+    }
+}
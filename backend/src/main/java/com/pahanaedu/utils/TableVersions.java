@@ -0,0 +1,92 @@
+package com.pahanaedu.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Modification counters for the tables behind cacheable GET endpoints.
+ * <p>
+ * DAOs call {@link #changed(String...)} after a write has committed; servlets turn the
+ * counters into an ETag and Last-Modified date. Counters restart with the application, so
+ * the startup time is part of every tag and tags from an earlier run never match. Writes
+ * made directly in the database are not seen.
+ */
+public final class TableVersions {
+    public static final String BOOKS = "books";
+    public static final String CATEGORIES = "categories";
+    public static final String PUBLISHERS = "publishers";
+    public static final String CUSTOMERS = "customers";
+
+    private static final TableVersions INSTANCE = new TableVersions(System::currentTimeMillis);
+
+    /**
+     * Counter and time of the last change for one table, or the sum over several
+     */
+    public static final class Version {
+        private final long counter;
+        private final long lastModified;
+
+        private Version(long counter, long lastModified) {
+            this.counter = counter;
+            this.lastModified = lastModified;
+        }
+
+        public long getCounter() {
+            return counter;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+
+    private final LongSupplier clock;
+    private final long startedAt;
+    private final Map<String, Version> versions = new ConcurrentHashMap<>();
+
+    public TableVersions(LongSupplier clock) {
+        this.clock = clock;
+        this.startedAt = clock.getAsLong();
+    }
+
+    public static TableVersions getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Record a committed change to each of the given tables
+     */
+    public void changed(String... tables) {
+        long now = clock.getAsLong();
+        for (String table : tables) {
+            versions.merge(table, new Version(1, now),
+                    (current, ignored) -> new Version(current.counter + 1, Math.max(current.lastModified, now)));
+        }
+    }
+
+    /**
+     * Combined version of the tables a response is built from. Every change raises one counter,
+     * so the sum changes whenever any of them does.
+     */
+    public Version current(String... tables) {
+        long counter = 0;
+        long lastModified = startedAt;
+        for (String table : tables) {
+            Version version = versions.get(table);
+            if (version != null) {
+                counter += version.counter;
+                lastModified = Math.max(lastModified, version.lastModified);
+            }
+        }
+        return new Version(counter, lastModified);
+    }
+
+    /**
+     * Strong entity tag for a response built from the given tables at {@code version}
+     */
+    public String etag(Version version, String... tables) {
+        return "\"" + String.join(".", tables) + "-" + Long.toString(startedAt, 36)
+                + "-" + version.counter + "\"";
+    }
+}
@@ -0,0 +1,128 @@
+package com.pahanaedu.utils;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Formats dates in JSON the way Gson's default adapters did, without a DateFormat.
+ * <p>
+ * Timestamps look like {@code Oct 18, 2026, 8:47:12 PM} and dates like {@code Oct 18, 2026},
+ * in the server's time zone, so existing clients keep parsing them unchanged. Formatting is
+ * plain arithmetic on the epoch value, so it needs no lock or per-thread instance.
+ */
+public final class TimestampFormat {
+    private static final String[] MONTHS = {
+            "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"
+    };
+
+    // Older JDKs put a plain space before AM/PM, newer ones a narrow no-break space
+    private static final Pattern TIMESTAMP = Pattern.compile(
+            "([A-Za-z]{3})[\\s\\u00A0\\u202F]+(\\d{1,2}),[\\s\\u00A0\\u202F]+(\\d{4}),?[\\s\\u00A0\\u202F]+"
+                    + "(\\d{1,2}):(\\d{2}):(\\d{2})[\\s\\u00A0\\u202F]*([AaPp][Mm])");
+    private static final Pattern DATE = Pattern.compile(
+            "([A-Za-z]{3})[\\s\\u00A0\\u202F]+(\\d{1,2}),[\\s\\u00A0\\u202F]+(\\d{4})");
+
+    private TimestampFormat() {
+    }
+
+    public static String format(Timestamp timestamp) {
+        long millis = timestamp.getTime();
+        ZoneOffset offset = ZoneId.systemDefault().getRules().getOffset(Instant.ofEpochMilli(millis));
+        LocalDateTime time = LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L), 0, offset);
+
+        int hour = time.getHour() % 12;
+        StringBuilder out = new StringBuilder(24);
+        appendDate(out, time.toLocalDate());
+        out.append(", ").append(hour == 0 ? 12 : hour).append(':');
+        appendTwoDigits(out, time.getMinute());
+        out.append(':');
+        appendTwoDigits(out, time.getSecond());
+        out.append(time.getHour() < 12 ? " AM" : " PM");
+        return out.toString();
+    }
+
+    public static String format(Date date) {
+        StringBuilder out = new StringBuilder(12);
+        appendDate(out, date.toLocalDate());
+        return out.toString();
+    }
+
+    /**
+     * Read a timestamp written by {@link #format(Timestamp)}; epoch milliseconds and
+     * {@code yyyy-mm-dd hh:mm:ss} are accepted as well
+     * @throws IllegalArgumentException if the text is in none of these forms
+     */
+    public static Timestamp parseTimestamp(String text) {
+        String value = text.trim();
+        Matcher matcher = TIMESTAMP.matcher(value);
+        if (matcher.matches()) {
+            int hour = Integer.parseInt(matcher.group(4)) % 12;
+            if (Character.toUpperCase(matcher.group(7).charAt(0)) == 'P') {
+                hour += 12;
+            }
+            LocalDateTime time = LocalDateTime.of(Integer.parseInt(matcher.group(3)), month(matcher.group(1)),
+                    Integer.parseInt(matcher.group(2)), hour, Integer.parseInt(matcher.group(5)),
+                    Integer.parseInt(matcher.group(6)));
+            return Timestamp.valueOf(time);
+        }
+        if (isDigits(value)) {
+            return new Timestamp(Long.parseLong(value));
+        }
+        return Timestamp.valueOf(value.replace('T', ' '));
+    }
+
+    /**
+     * Read a date written by {@link #format(Date)}, or {@code yyyy-mm-dd}
+     * @throws IllegalArgumentException if the text is in neither form
+     */
+    public static Date parseDate(String text) {
+        String value = text.trim();
+        Matcher matcher = DATE.matcher(value);
+        if (matcher.matches()) {
+            return Date.valueOf(LocalDate.of(Integer.parseInt(matcher.group(3)), month(matcher.group(1)),
+                    Integer.parseInt(matcher.group(2))));
+        }
+        return Date.valueOf(value);
+    }
+
+    private static void appendDate(StringBuilder out, LocalDate date) {
+        out.append(MONTHS[date.getMonthValue() - 1]).append(' ')
+                .append(date.getDayOfMonth()).append(", ")
+                .append(date.getYear());
+    }
+
+    private static void appendTwoDigits(StringBuilder out, int value) {
+        if (value < 10) {
+            out.append('0');
+        }
+        out.append(value);
+    }
+
+    private static int month(String name) {
+        for (int i = 0; i < MONTHS.length; i++) {
+            if (MONTHS[i].equalsIgnoreCase(name)) {
+                return i + 1;
+            }
+        }
+        throw new IllegalArgumentException("Unknown month: " + name);
+    }
+
+    private static boolean isDigits(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,177 @@
+package com.pahanaedu.utils;
+
+import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Encodings a response or request body can use, chosen by {@code Accept} and {@code Content-Type}.
+ * <p>
+ * Till clients on the busy billing endpoints can ask for CBOR or MessagePack instead of JSON.
+ * All three are written from the same Gson adapters, so the fields are identical; only the
+ * encoding differs. Anything else, including a missing header, gets JSON.
+ */
+public enum WireFormat {
+    JSON("application/json"),
+    CBOR("application/cbor"),
+    MESSAGE_PACK("application/msgpack", "application/x-msgpack", "application/vnd.msgpack");
+
+    private final String contentType;
+    private final String[] aliases;
+
+    WireFormat(String contentType, String... aliases) {
+        this.contentType = contentType;
+        this.aliases = aliases;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public boolean isBinary() {
+        return this != JSON;
+    }
+
+    /**
+     * The format for the response: the supported type with the highest {@code q} in
+     * {@code Accept}, earlier entries winning ties
+     */
+    public static WireFormat negotiate(HttpServletRequest request) {
+        String accept = request.getHeader("Accept");
+        if (accept == null) {
+            return JSON;
+        }
+        WireFormat best = JSON;
+        double bestQuality = 0;
+        for (String range : accept.split(",")) {
+            String[] parts = range.split(";");
+            WireFormat format = forMediaType(parts[0]);
+            if (format == null) {
+                continue;
+            }
+            double quality = quality(parts);
+            if (quality > bestQuality) {
+                best = format;
+                bestQuality = quality;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The format of the request body; JSON unless the Content-Type names a binary format
+     */
+    public static WireFormat ofRequestBody(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        if (contentType == null) {
+            return JSON;
+        }
+        WireFormat format = forMediaType(contentType.split(";")[0]);
+        return format != null ? format : JSON;
+    }
+
+    private static WireFormat forMediaType(String mediaType) {
+        String type = mediaType.trim().toLowerCase(Locale.ROOT);
+        for (WireFormat format : values()) {
+            if (format.contentType.equals(type)) {
+                return format;
+            }
+            for (String alias : format.aliases) {
+                if (alias.equals(type)) {
+                    return format;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * A reader for a body in this format
+     */
+    public JsonReader newReader(InputStream in, Charset charset) {
+        switch (this) {
+            case CBOR:
+                return BinaryJsonReader.cbor(in);
+            case MESSAGE_PACK:
+                return BinaryJsonReader.messagePack(in);
+            default:
+                return new JsonReader(new InputStreamReader(in, charset));
+        }
+    }
+
+    /**
+     * A writer for a binary format; JSON is written as text through the shared Gson instead
+     */
+    public JsonWriter newBinaryWriter(OutputStream out) {
+        switch (this) {
+            case CBOR:
+                return BinaryJsonWriter.cbor(out);
+            case MESSAGE_PACK:
+                return BinaryJsonWriter.messagePack(out);
+            default:
+                throw new IllegalStateException("JSON is not a binary format");
+        }
+    }
+
+    /**
+     * Encode a tree in this format
+     */
+    public byte[] encode(JsonElement body) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        if (isBinary()) {
+            try (JsonWriter out = newBinaryWriter(buffer)) {
+                JsonCodec.getGson().toJson(body, out);
+            }
+        } else {
+            buffer.write(JsonCodec.getGson().toJson(body).getBytes(StandardCharsets.UTF_8));
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Write a successful response body in this format. The status is left as set.
+     */
+    public void write(HttpServletResponse response, JsonElement body) throws IOException {
+        response.addHeader("Vary", "Accept");
+        if (!isBinary()) {
+            response.setContentType(contentType);
+            response.setCharacterEncoding("UTF-8");
+            PrintWriter out = response.getWriter();
+            out.print(JsonCodec.getGson().toJson(body));
+            out.flush();
+            return;
+        }
+        byte[] bytes = encode(body);
+        response.setContentType(contentType);
+        response.setContentLength(bytes.length);
+        OutputStream out = response.getOutputStream();
+        out.write(bytes);
+        out.flush();
+    }
+}
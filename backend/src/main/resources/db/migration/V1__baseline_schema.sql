@@ -0,0 +1,157 @@
+-- Baseline schema for the Pahana Edu Bookshop Management System.
+-- Tables use IF NOT EXISTS so databases created by the old schema.sql adopt this version as they are.
+-- The triggers from schema.sql are not part of the schema: JDBC cannot run DELIMITER blocks, so
+-- they were never created, and the stock triggers would repeat the updates InvoiceDAO makes.
+
+-- Create users table for authentication
+CREATE TABLE IF NOT EXISTS users (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    username VARCHAR(50) UNIQUE NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    full_name VARCHAR(100) NOT NULL,
+    role ENUM('ADMIN', 'CASHIER') NOT NULL,
+    email VARCHAR(100) UNIQUE,
+    active BOOLEAN DEFAULT TRUE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+-- Create customers table
+CREATE TABLE IF NOT EXISTS customers (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    account_number VARCHAR(20) UNIQUE NOT NULL,
+    name VARCHAR(100) NOT NULL,
+    address TEXT NOT NULL,
+    telephone VARCHAR(20) NOT NULL,
+    email VARCHAR(100),
+    registration_date DATE NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    INDEX idx_customers_account_number (account_number),
+    INDEX idx_customers_telephone (telephone)
+);
+
+-- Create book categories table
+CREATE TABLE IF NOT EXISTS categories (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(50) UNIQUE NOT NULL,
+    description TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+-- Create publishers table
+CREATE TABLE IF NOT EXISTS publishers (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(100) UNIQUE NOT NULL,
+    contact_person VARCHAR(100),
+    telephone VARCHAR(20),
+    email VARCHAR(100),
+    address TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+-- Create books table
+CREATE TABLE IF NOT EXISTS books (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    isbn VARCHAR(20) UNIQUE NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    author VARCHAR(100) NOT NULL,
+    category_id INT NOT NULL,
+    publisher_id INT NOT NULL,
+    publication_year INT,
+    price DECIMAL(10,2) NOT NULL,
+    stock_quantity INT NOT NULL DEFAULT 0,
+    description TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (category_id) REFERENCES categories(id) ON DELETE RESTRICT,
+    FOREIGN KEY (publisher_id) REFERENCES publishers(id) ON DELETE RESTRICT,
+    INDEX idx_books_isbn (isbn),
+    INDEX idx_books_title (title),
+    INDEX idx_books_author (author),
+    INDEX idx_books_category (category_id)
+);
+
+-- Create invoices table
+CREATE TABLE IF NOT EXISTS invoices (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    invoice_number VARCHAR(20) UNIQUE NOT NULL,
+    customer_id INT,
+    cashier_id INT NOT NULL,
+    invoice_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    subtotal DECIMAL(10,2) NOT NULL,
+    discount_amount DECIMAL(10,2) DEFAULT 0,
+    tax_amount DECIMAL(10,2) DEFAULT 0,
+    total_amount DECIMAL(10,2) NOT NULL,
+    payment_method ENUM('CASH', 'CARD', 'ONLINE') DEFAULT 'CASH',
+    notes TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (customer_id) REFERENCES customers(id) ON DELETE SET NULL,
+    FOREIGN KEY (cashier_id) REFERENCES users(id) ON DELETE RESTRICT,
+    INDEX idx_invoices_invoice_number (invoice_number),
+    INDEX idx_invoices_customer_id (customer_id),
+    INDEX idx_invoices_invoice_date (invoice_date)
+);
+
+-- Create invoice_items table
+CREATE TABLE IF NOT EXISTS invoice_items (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    invoice_id INT NOT NULL,
+    book_id INT NOT NULL,
+    quantity INT NOT NULL,
+    unit_price DECIMAL(10,2) NOT NULL,
+    discount_percent DECIMAL(5,2) DEFAULT 0,
+    total_price DECIMAL(10,2) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (invoice_id) REFERENCES invoices(id) ON DELETE CASCADE,
+    FOREIGN KEY (book_id) REFERENCES books(id) ON DELETE RESTRICT,
+    INDEX idx_invoice_items_invoice_id (invoice_id),
+    INDEX idx_invoice_items_book_id (book_id)
+);
+
+-- Create book change feed table; sequence numbers are assigned by the application
+CREATE TABLE IF NOT EXISTS book_changes (
+    sequence BIGINT PRIMARY KEY,
+    book_id INT NOT NULL,
+    change_type VARCHAR(10) NOT NULL,
+    title VARCHAR(255),
+    price DECIMAL(10,2),
+    stock_quantity INT,
+    changed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_book_changes_book_id (book_id)
+);
+
+-- Create stock alerts table for tracking inventory warnings
+CREATE TABLE IF NOT EXISTS stock_alerts (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    book_id INT NOT NULL,
+    alert_type ENUM('LOW_STOCK', 'OUT_OF_STOCK', 'RESTOCK_NEEDED') NOT NULL,
+    message TEXT NOT NULL,
+    is_resolved BOOLEAN DEFAULT FALSE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    resolved_at TIMESTAMP NULL,
+    FOREIGN KEY (book_id) REFERENCES books(id) ON DELETE CASCADE,
+    INDEX idx_stock_alerts_book_id (book_id),
+    INDEX idx_stock_alerts_type (alert_type),
+    INDEX idx_stock_alerts_resolved (is_resolved)
+);
+
+-- Create audit log table for tracking important database changes
+CREATE TABLE IF NOT EXISTS audit_log (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    table_name VARCHAR(50) NOT NULL,
+    operation ENUM('INSERT', 'UPDATE', 'DELETE') NOT NULL,
+    record_id INT NOT NULL,
+    old_values JSON,
+    new_values JSON,
+    user_id INT,
+    timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    ip_address VARCHAR(45),
+    user_agent TEXT,
+    INDEX idx_audit_table_name (table_name),
+    INDEX idx_audit_operation (operation),
+    INDEX idx_audit_timestamp (timestamp),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE SET NULL
+);
@@ -0,0 +1,10 @@
+-- Default administrator, so every installation can sign in without the demo data.
+-- Skipped when the database already has an administrator or an 'admin' account.
+-- Password: admin1234; change it after the first sign-in.
+INSERT INTO users (username, password, full_name, role, email)
+SELECT 'admin', 'o7VXRdJ9+T+AVqkJIaCkZA==:7dkfWdM+GgDdMyvVArJTaApO8/fWQZXhpapq71BzDi9JwF8FSbzXnsbJYPX3O1bjLXBcOe1jkVnNJSJgVTviNQ==',
+       'System Administrator', 'ADMIN', 'admin@pahanaedu.com'
+FROM DUAL
+WHERE NOT EXISTS (
+    SELECT 1 FROM users WHERE role = 'ADMIN' OR username = 'admin' OR email = 'admin@pahanaedu.com'
+);
@@ -0,0 +1,256 @@
+package com.pahanaedu.functional;
+
+import com.pahanaedu.utils.AsyncRequestExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Functional tests for async request handling on the business pool
+ */
+public class AsyncFunctionalTest {
+
+    /**
+     * Minimal request/response pair backed by dynamic proxies
+     */
+    private static class Exchange {
+        private final boolean asyncSupported;
+        private final StringWriter body = new StringWriter();
+        private final Map<String, String> headers = new HashMap<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private final AtomicInteger completions = new AtomicInteger();
+        private String httpMethod = "POST";
+        private AsyncContext asyncContext;
+        private AsyncListener listener;
+        private int status = 200;
+        private boolean asyncStarted = false;
+
+        Exchange(boolean asyncSupported) {
+            this.asyncSupported = asyncSupported;
+        }
+
+        /**
+         * What the container does when the async timeout expires
+         */
+        void timeOut() throws Exception {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+
+        HttpServletResponse response() {
+            return (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{HttpServletResponse.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "setStatus":
+                                status = (Integer) args[0];
+                                return null;
+                            case "setHeader":
+                                headers.put((String) args[0], (String) args[1]);
+                                return null;
+                            case "getWriter":
+                                return new PrintWriter(body);
+                            case "isCommitted":
+                                return false;
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        HttpServletRequest request(HttpServletResponse response) {
+            AsyncContext[] context = new AsyncContext[1];
+            HttpServletRequest[] self = new HttpServletRequest[1];
+            context[0] = (AsyncContext) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{AsyncContext.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getRequest":
+                                return self[0];
+                            case "getResponse":
+                                return response;
+                            case "addListener":
+                                listener = (AsyncListener) args[0];
+                                return null;
+                            case "complete":
+                                completions.incrementAndGet();
+                                completed.countDown();
+                                return null;
+                            default:
+                                return null;
+                        }
+                    });
+            asyncContext = context[0];
+            self[0] = (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{HttpServletRequest.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "isAsyncSupported":
+                                return asyncSupported;
+                            case "startAsync":
+                                asyncStarted = true;
+                                return context[0];
+                            case "getMethod":
+                                return httpMethod;
+                            case "getRequestURI":
+                                return "/api/invoices";
+                            default:
+                                return null;
+                        }
+                    });
+            return self[0];
+        }
+    }
+
+    private ThreadPoolExecutor executor;
+    private AsyncRequestExecutor asyncExecutor;
+
+    @BeforeEach
+    public void setUp() {
+        executor = AsyncRequestExecutor.createExecutor(1, 1);
+        asyncExecutor = new AsyncRequestExecutor(executor, 30000);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testWorkRunsOnBusinessPool() throws Exception {
+        Exchange exchange = new Exchange(true);
+        HttpServletResponse response = exchange.response();
+        AtomicReference<String> workerThread = new AtomicReference<>();
+
+        asyncExecutor.execute(exchange.request(response), response, (request, res) -> {
+            workerThread.set(Thread.currentThread().getName());
+            res.getWriter().print("{\"status\":\"success\"}");
+        });
+
+        assertTrue(exchange.completed.await(5, TimeUnit.SECONDS));
+        assertTrue(exchange.asyncStarted);
+        assertTrue(workerThread.get().startsWith("business-"));
+        assertEquals(200, exchange.status);
+        assertEquals("{\"status\":\"success\"}", exchange.body.toString());
+    }
+
+    @Test
+    public void testSaturatedPoolShedsLoad() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute(() -> { });
+
+        Exchange exchange = new Exchange(true);
+        HttpServletResponse response = exchange.response();
+        boolean[] ran = {false};
+        try {
+            asyncExecutor.execute(exchange.request(response), response, (request, res) -> ran[0] = true);
+        } finally {
+            release.countDown();
+        }
+
+        assertEquals(0, exchange.completed.getCount());
+        assertFalse(ran[0]);
+        assertEquals(503, exchange.status);
+        assertEquals("2", exchange.headers.get("Retry-After"));
+        assertTrue(exchange.body.toString().contains("\"status\":\"error\""));
+    }
+
+    @Test
+    public void testFailureIsReportedAsServerError() throws Exception {
+        Exchange exchange = new Exchange(true);
+        HttpServletResponse response = exchange.response();
+
+        asyncExecutor.execute(exchange.request(response), response, (request, res) -> {
+            throw new IllegalStateException("boom");
+        });
+
+        assertTrue(exchange.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(500, exchange.status);
+        assertTrue(exchange.body.toString().contains("boom"));
+    }
+
+    @Test
+    public void testTimedOutWriteIsNotRetriedAndWorkCannotWrite() throws Exception {
+        Exchange exchange = new Exchange(true);
+        HttpServletResponse response = exchange.response();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+
+        asyncExecutor.execute(exchange.request(response), response, (request, res) -> {
+            started.countDown();
+            release.await();
+            res.setStatus(201);
+            res.setHeader("Location", "/api/invoices/1");
+            res.getWriter().print("{\"status\":\"success\"}");
+            done.countDown();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        exchange.timeOut();
+        assertEquals(504, exchange.status);
+        assertNull(exchange.headers.get("Retry-After"));
+        assertTrue(exchange.body.toString().contains("may still complete"));
+
+        // The checkout carries on, but nothing it writes reaches the finished response
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(504, exchange.status);
+        assertNull(exchange.headers.get("Location"));
+        assertFalse(exchange.body.toString().contains("success"));
+        assertEquals(1, exchange.completions.get());
+    }
+
+    @Test
+    public void testTimedOutReadCanBeRetried() throws Exception {
+        Exchange exchange = new Exchange(true);
+        exchange.httpMethod = "GET";
+        HttpServletResponse response = exchange.response();
+        CountDownLatch release = new CountDownLatch(1);
+
+        asyncExecutor.execute(exchange.request(response), response, (request, res) -> release.await());
+        exchange.timeOut();
+        release.countDown();
+
+        assertEquals(503, exchange.status);
+        assertEquals("2", exchange.headers.get("Retry-After"));
+        assertTrue(exchange.body.toString().contains("please retry"));
+    }
+
+    @Test
+    public void testRunsInlineWithoutAsyncSupport() throws Exception {
+        Exchange exchange = new Exchange(false);
+        HttpServletResponse response = exchange.response();
+        String caller = Thread.currentThread().getName();
+        AtomicReference<String> workerThread = new AtomicReference<>();
+
+        asyncExecutor.execute(exchange.request(response), response,
+                (request, res) -> workerThread.set(Thread.currentThread().getName()));
+
+        assertFalse(exchange.asyncStarted);
+        assertEquals(caller, workerThread.get());
+    }
+}
@@ -0,0 +1,265 @@
+package com.pahanaedu.functional;
+
+import com.pahanaedu.dao.BookChangeDAO;
+import com.pahanaedu.dao.BookChangeLog;
+import com.pahanaedu.model.Book;
+import com.pahanaedu.model.BookChange;
+import com.pahanaedu.utils.EventStreamBroadcaster;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Functional tests for the book change feed
+ */
+public class BookChangeFunctionalTest {
+
+    private static class MockBookChangeDAO extends BookChangeDAO {
+        private final Map<Integer, Book> books = new HashMap<>();
+        private final List<BookChange> table = new ArrayList<>();
+        private long maxSequence = 0;
+        private int tableReads = 0;
+        private boolean failReads = false;
+        private boolean failMaxSequence = false;
+
+        @Override
+        public long findMaxSequence() throws SQLException {
+            if (failMaxSequence) {
+                throw new SQLException("Connection reset");
+            }
+            return maxSequence;
+        }
+
+        @Override
+        public List<BookChange> findAfter(long after, int limit) {
+            tableReads++;
+            List<BookChange> changes = new ArrayList<>();
+            for (BookChange change : table) {
+                if (change.getSequence() > after && changes.size() < limit) {
+                    changes.add(change);
+                }
+            }
+            return changes;
+        }
+
+        @Override
+        public boolean create(BookChange change) {
+            table.add(change);
+            return true;
+        }
+
+        @Override
+        public Book findBookState(int bookId) throws SQLException {
+            if (failReads) {
+                throw new SQLException("Connection reset");
+            }
+            return books.get(bookId);
+        }
+
+        void addBook(int id, String title, String price, int stock) {
+            Book book = new Book();
+            book.setId(id);
+            book.setTitle(title);
+            book.setPrice(new BigDecimal(price));
+            book.setStockQuantity(stock);
+            books.put(id, book);
+        }
+    }
+
+    private MockBookChangeDAO dao;
+    private BookChangeLog log;
+
+    @BeforeEach
+    public void setUp() {
+        dao = new MockBookChangeDAO();
+        dao.addBook(1, "Sinhala Grammar", "1200.00", 10);
+        dao.addBook(2, "Advanced Maths", "950.50", 4);
+        log = new BookChangeLog(dao, 4);
+    }
+
+    @Test
+    public void testChangesCarryStateInSequence() {
+        log.record(1, BookChange.CREATED);
+        dao.books.get(1).setStockQuantity(9);
+        log.record(1, BookChange.STOCK);
+
+        BookChangeLog.Page page = log.changesAfter(0, 10);
+        assertEquals(2, page.getChanges().size());
+        assertEquals(1, page.getChanges().get(0).getSequence());
+        assertEquals(2, page.getChanges().get(1).getSequence());
+        assertEquals(Integer.valueOf(10), page.getChanges().get(0).getStockQuantity());
+        assertEquals(Integer.valueOf(9), page.getChanges().get(1).getStockQuantity());
+        assertEquals(2, page.getLastSequence());
+        assertFalse(page.isHasMore());
+        assertFalse(page.isReset());
+        assertEquals(0, dao.tableReads);
+    }
+
+    @Test
+    public void testSequenceContinuesAfterRestart() {
+        dao.maxSequence = 41;
+        BookChange change = log.record(2, BookChange.UPDATED);
+
+        assertEquals(42, change.getSequence());
+        assertEquals(42, log.getLastSequence());
+    }
+
+    @Test
+    public void testSequenceIsNotGuessedWhenTableCannotBeRead() {
+        dao.maxSequence = 41;
+        dao.failMaxSequence = true;
+
+        assertNull(log.record(2, BookChange.UPDATED));
+        assertThrows(IllegalStateException.class, () -> log.getLastSequence());
+        assertTrue(dao.table.isEmpty());
+
+        // Started on the next call once the table can be read
+        dao.failMaxSequence = false;
+        assertEquals(42, log.record(2, BookChange.UPDATED).getSequence());
+        assertEquals(42, log.getLastSequence());
+    }
+
+    @Test
+    public void testPagesReportMore() {
+        log.recordAll(Arrays.asList(1, 2, 1), BookChange.STOCK);
+
+        BookChangeLog.Page page = log.changesAfter(0, 1);
+        assertEquals(1, page.getChanges().size());
+        assertTrue(page.isHasMore());
+
+        page = log.changesAfter(1, 1);
+        assertEquals(2, page.getChanges().get(0).getBookId());
+        assertFalse(page.isHasMore());
+    }
+
+    @Test
+    public void testOlderPositionsComeFromTable() {
+        for (int i = 0; i < 6; i++) {
+            log.record(1, BookChange.STOCK);
+        }
+
+        // Only sequences 3 to 6 are still in the ring of four
+        BookChangeLog.Page page = log.changesAfter(1, 10);
+        assertEquals(1, dao.tableReads);
+        assertEquals(5, page.getChanges().size());
+        assertEquals(2, page.getChanges().get(0).getSequence());
+        assertFalse(page.isReset());
+
+        log.changesAfter(2, 10);
+        assertEquals(1, dao.tableReads);
+    }
+
+    @Test
+    public void testMissingHistoryAsksForReset() {
+        log.record(1, BookChange.STOCK);
+        log.record(2, BookChange.STOCK);
+        dao.table.remove(0);
+
+        // Before this run's first change, with the table missing sequence 1
+        BookChangeLog fresh = new BookChangeLog(dao, 4);
+        dao.maxSequence = 2;
+        fresh.record(1, BookChange.UPDATED);
+        assertTrue(fresh.changesAfter(0, 10).isReset());
+
+        // Ahead of the feed, e.g. a position from another database
+        BookChangeLog.Page ahead = fresh.changesAfter(99, 10);
+        assertTrue(ahead.isReset());
+        assertEquals(3, ahead.getLastSequence());
+    }
+
+    @Test
+    public void testDeletedBookHasNoState() {
+        BookChange change = log.record(1, BookChange.DELETED);
+        assertEquals(BookChange.DELETED, change.getChangeType());
+        assertNull(change.getTitle());
+        assertNull(change.getStockQuantity());
+
+        // A book gone before its change was recorded is reported as deleted too
+        BookChange missing = log.record(7, BookChange.STOCK);
+        assertEquals(BookChange.DELETED, missing.getChangeType());
+    }
+
+    @Test
+    public void testUnreadableBookIsNotReportedDeleted() {
+        dao.failReads = true;
+        BookChange change = log.record(1, BookChange.STOCK);
+
+        // The book still exists, so the change keeps its type and only its state is unknown
+        assertEquals(BookChange.STOCK, change.getChangeType());
+        assertEquals(1, change.getSequence());
+        assertNull(change.getTitle());
+        assertNull(change.getStockQuantity());
+        assertEquals(BookChange.STOCK, dao.table.get(0).getChangeType());
+    }
+
+    @Test
+    public void testListenersSeeEachChange() {
+        List<Long> seen = new ArrayList<>();
+        BookChangeLog.Listener listener = change -> seen.add(change.getSequence());
+        log.addListener(listener);
+        log.addListener(change -> {
+            throw new IllegalStateException("broken listener");
+        });
+
+        log.record(1, BookChange.UPDATED);
+        log.removeListener(listener);
+        log.record(2, BookChange.UPDATED);
+
+        assertEquals(Arrays.asList(1L), seen);
+    }
+
+    @Test
+    public void testConcurrentChangesReachListenersInOrder() throws Exception {
+        List<Long> seen = Collections.synchronizedList(new ArrayList<>());
+        log.addListener(change -> seen.add(change.getSequence()));
+
+        int threads = 8;
+        int perThread = 200;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int bookId = t % 2 + 1;
+            Thread writer = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    log.record(bookId, BookChange.STOCK);
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join(10000);
+        }
+
+        assertEquals(threads * perThread, seen.size());
+        for (int i = 0; i < seen.size(); i++) {
+            assertEquals(i + 1, (long) seen.get(i));
+        }
+    }
+
+    @Test
+    public void testEventFrameFormat() {
+        String frame = new String(EventStreamBroadcaster.frame(7, "book-change", "{\"a\":1}\n{\"b\":2}"),
+                StandardCharsets.UTF_8);
+        assertEquals("id: 7\nevent: book-change\ndata: {\"a\":1}\ndata: {\"b\":2}\n\n", frame);
+    }
+}
@@ -0,0 +1,214 @@
+package com.pahanaedu.functional;
+
+import com.pahanaedu.dao.BookDAO;
+import com.pahanaedu.model.Book;
+import com.pahanaedu.model.Cart;
+import com.pahanaedu.model.Invoice;
+import com.pahanaedu.model.InvoiceItem;
+import com.pahanaedu.model.User;
+import com.pahanaedu.service.BillingService;
+import com.pahanaedu.service.CartService;
+import com.pahanaedu.service.CartStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Functional tests for server-side carts
+ */
+public class CartFunctionalTest {
+
+    private static class MockBookDAO extends BookDAO {
+        private final Map<Integer, Book> books = new HashMap<>();
+        private int lookups = 0;
+
+        void addBook(int id, String title, String price, int stock) {
+            Book book = new Book();
+            book.setId(id);
+            book.setIsbn("978000000000" + id);
+            book.setTitle(title);
+            book.setPrice(new BigDecimal(price));
+            book.setStockQuantity(stock);
+            books.put(id, book);
+        }
+
+        @Override
+        public Book findById(int id) {
+            lookups++;
+            return books.get(id);
+        }
+    }
+
+    private static class MockBillingService extends BillingService {
+        private final List<Invoice> created = new ArrayList<>();
+        private boolean shouldFail = false;
+
+        @Override
+        public boolean createValidatedInvoice(Invoice invoice) {
+            if (shouldFail) {
+                return false;
+            }
+            invoice.setId(created.size() + 1);
+            created.add(invoice);
+            return true;
+        }
+    }
+
+    private MockBookDAO mockBookDAO;
+    private MockBillingService mockBillingService;
+    private CartStore cartStore;
+    private AtomicLong clock;
+    private CartService cartService;
+    private User cashier;
+
+    @BeforeEach
+    public void setUp() {
+        mockBookDAO = new MockBookDAO();
+        mockBookDAO.addBook(1, "Clean Code", "2500.00", 10);
+        mockBookDAO.addBook(2, "Refactoring", "1800.00", 2);
+
+        mockBillingService = new MockBillingService();
+        clock = new AtomicLong(1_000_000L);
+        cartStore = new CartStore(3, 60_000L, clock::get);
+        cartService = new CartService(mockBookDAO, mockBillingService, cartStore);
+
+        cashier = new User("cashier", "hash", "Test Cashier", "CASHIER");
+        cashier.setId(7);
+    }
+
+    @Test
+    public void testAddLineUpdatesTotals() {
+        Cart cart = cartService.createCart(cashier, null, false, null);
+
+        cartService.updateLine(cart, 1, 2, null, null);
+        cartService.updateLine(cart, 2, null, 1, new BigDecimal("10"));
+
+        assertEquals(2, cart.getLineCount());
+        assertEquals(0, new BigDecimal("6620.00").compareTo(cart.getSubtotal()));
+        assertEquals(0, cart.getSubtotal().compareTo(cart.getTotalAmount()));
+    }
+
+    @Test
+    public void testLineEditsLookUpBookOnlyOnce() {
+        Cart cart = cartService.createCart(cashier, null, false, null);
+
+        cartService.updateLine(cart, 1, null, 1, null);
+        cartService.updateLine(cart, 1, null, 1, null);
+        cartService.updateLine(cart, 1, null, 1, null);
+
+        assertEquals(1, mockBookDAO.lookups);
+        assertEquals(3, cart.getLine(1).getQuantity());
+        assertEquals(0, new BigDecimal("7500.00").compareTo(cart.getSubtotal()));
+    }
+
+    @Test
+    public void testIncrementalTotalsMatchFullRecalculation() {
+        Cart cart = cartService.createCart(cashier, null, true, new BigDecimal("100"));
+
+        cartService.updateLine(cart, 1, 3, null, new BigDecimal("20"));
+        cartService.updateLine(cart, 2, 2, null, null);
+        cartService.updateLine(cart, 1, null, -1, null);
+        cartService.updateLine(cart, 2, 0, null, null);
+
+        Invoice invoice = new Invoice();
+        List<InvoiceItem> items = new ArrayList<>();
+        for (InvoiceItem line : cart.getLines()) {
+            items.add(new InvoiceItem(line.getBookId(), line.getQuantity(), line.getUnitPrice(), line.getDiscountPercent()));
+        }
+        invoice.setItems(items);
+        invoice.setDiscountAmount(new BigDecimal("100"));
+        new BillingService().calculateBill(invoice, true);
+
+        assertEquals(0, invoice.getSubtotal().compareTo(cart.getSubtotal()));
+        assertEquals(0, invoice.getTaxAmount().compareTo(cart.getTaxAmount()));
+        assertEquals(0, invoice.getTotalAmount().compareTo(cart.getTotalAmount()));
+    }
+
+    @Test
+    public void testQuantityBeyondStockIsRejected() {
+        Cart cart = cartService.createCart(cashier, null, false, null);
+        cartService.updateLine(cart, 2, 2, null, null);
+
+        assertThrows(IllegalArgumentException.class, () -> cartService.updateLine(cart, 2, null, 1, null));
+        assertEquals(2, cart.getLine(2).getQuantity());
+    }
+
+    @Test
+    public void testUnknownBookIsRejected() {
+        Cart cart = cartService.createCart(cashier, null, false, null);
+
+        assertThrows(IllegalArgumentException.class, () -> cartService.updateLine(cart, 99, 1, null, null));
+        assertEquals(0, cart.getLineCount());
+    }
+
+    @Test
+    public void testCartIsOnlyVisibleToOwner() {
+        Cart cart = cartService.createCart(cashier, null, false, null);
+
+        assertSame(cart, cartService.getCart(cart.getId(), cashier.getId()));
+        assertNull(cartService.getCart(cart.getId(), cashier.getId() + 1));
+    }
+
+    @Test
+    public void testCheckoutReusesValidatedLines() {
+        Cart cart = cartService.createCart(cashier, 5, false, null);
+        cartService.updateLine(cart, 1, 2, null, null);
+        int lookupsBeforeCheckout = mockBookDAO.lookups;
+
+        Invoice invoice = cartService.checkout(cart, null, "Till 1");
+
+        assertNotNull(invoice);
+        assertEquals(lookupsBeforeCheckout, mockBookDAO.lookups);
+        assertEquals("CASH", invoice.getPaymentMethod());
+        assertEquals(Integer.valueOf(5), invoice.getCustomerId());
+        assertEquals(1, invoice.getItems().size());
+        assertEquals(0, new BigDecimal("5000.00").compareTo(invoice.getTotalAmount()));
+        assertNull(cartService.getCart(cart.getId(), cashier.getId()));
+    }
+
+    @Test
+    public void testFailedCheckoutKeepsCart() {
+        Cart cart = cartService.createCart(cashier, null, false, null);
+        cartService.updateLine(cart, 1, 1, null, null);
+        mockBillingService.shouldFail = true;
+
+        assertNull(cartService.checkout(cart, "CARD", null));
+        assertSame(cart, cartService.getCart(cart.getId(), cashier.getId()));
+    }
+
+    @Test
+    public void testStoreEvictsLeastRecentlyUsedCart() {
+        Cart first = cartService.createCart(cashier, null, false, null);
+        Cart second = cartService.createCart(cashier, null, false, null);
+        Cart third = cartService.createCart(cashier, null, false, null);
+
+        // Touch the first cart so the second becomes the eldest
+        cartStore.get(first.getId());
+        Cart fourth = cartService.createCart(cashier, null, false, null);
+
+        assertEquals(3, cartStore.size());
+        assertNotNull(cartStore.get(first.getId()));
+        assertNull(cartStore.get(second.getId()));
+        assertNotNull(cartStore.get(third.getId()));
+        assertNotNull(cartStore.get(fourth.getId()));
+    }
+
+    @Test
+    public void testStoreExpiresIdleCarts() {
+        Cart idle = cartService.createCart(cashier, null, false, null);
+        clock.addAndGet(30_000L);
+        Cart active = cartService.createCart(cashier, null, false, null);
+        clock.addAndGet(31_000L);
+
+        assertNull(cartStore.get(idle.getId()));
+        assertNotNull(cartStore.get(active.getId()));
+    }
+}
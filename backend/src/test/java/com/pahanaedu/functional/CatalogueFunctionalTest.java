@@ -0,0 +1,287 @@
+package com.pahanaedu.functional;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.pahanaedu.model.Book;
+import com.pahanaedu.model.Customer;
+import com.pahanaedu.service.CatalogueCache;
+import com.pahanaedu.service.ParallelLoader;
+import com.pahanaedu.utils.BoundedExecutors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Functional tests for the billing-screen catalogue and its deltas
+ */
+public class CatalogueFunctionalTest {
+
+    private static class MockSource implements CatalogueCache.Source {
+        private final Map<Integer, Book> books = new LinkedHashMap<>();
+        private final Map<Integer, Customer> customers = new LinkedHashMap<>();
+        private int fullLoads = 0;
+        private volatile boolean failing = false;
+        private volatile CountDownLatch bookRead;
+        private volatile CountDownLatch releaseBookRead;
+
+        @Override
+        public List<Book> loadBooks() throws SQLException {
+            fullLoads++;
+            failIfAsked();
+            return new ArrayList<>(books.values());
+        }
+
+        @Override
+        public List<Customer> loadCustomers() throws SQLException {
+            failIfAsked();
+            return new ArrayList<>(customers.values());
+        }
+
+        @Override
+        public Book loadBook(int id) throws SQLException {
+            failIfAsked();
+            Book book = books.get(id);
+            CountDownLatch release = releaseBookRead;
+            if (release != null) {
+                // Hold this read back until the test lets it go
+                releaseBookRead = null;
+                bookRead.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return book;
+        }
+
+        @Override
+        public Customer loadCustomer(int id) throws SQLException {
+            failIfAsked();
+            return customers.get(id);
+        }
+
+        private void failIfAsked() throws SQLException {
+            if (failing) {
+                throw new SQLException("Connection reset");
+            }
+        }
+
+        void addBook(int id, String title, String price, int stock) {
+            Book book = new Book();
+            book.setId(id);
+            book.setIsbn("978-0-00-00000" + id);
+            book.setTitle(title);
+            book.setAuthor("Author " + id);
+            book.setDescription("A long description the till never shows");
+            book.setPrice(new BigDecimal(price));
+            book.setStockQuantity(stock);
+            books.put(id, book);
+        }
+
+        void addCustomer(int id, String name) {
+            Customer customer = new Customer();
+            customer.setId(id);
+            customer.setAccountNumber("ACC" + id);
+            customer.setName(name);
+            customer.setTelephone("077123456" + id);
+            customer.setEmail(name.toLowerCase() + "@example.com");
+            customers.put(id, customer);
+        }
+    }
+
+    private MockSource source;
+    private long now;
+    private ThreadPoolExecutor executor;
+    private CatalogueCache catalogue;
+
+    @BeforeEach
+    public void setUp() {
+        source = new MockSource();
+        source.addBook(1, "Sinhala Grammar", "1200.00", 10);
+        source.addBook(2, "Advanced Maths", "950.50", 4);
+        source.addCustomer(1, "Nimal");
+        source.addCustomer(2, "Kamala");
+
+        now = 1_792_355_696_000L;
+        executor = BoundedExecutors.newBoundedExecutor("catalogue-test", 2, 2, 4);
+        catalogue = new CatalogueCache(source, new ParallelLoader(executor, 5000), 600_000, () -> now);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testFullSnapshotIsCompact() {
+        CatalogueCache.Snapshot snapshot = catalogue.snapshot(-1);
+
+        assertTrue(snapshot.isFull());
+        assertEquals(2, snapshot.getBooks().size());
+        assertEquals(2, snapshot.getCustomers().size());
+
+        JsonObject book = new Gson().toJsonTree(snapshot.getBooks().get(0)).getAsJsonObject();
+        assertEquals(Arrays.asList("id", "isbn", "title", "price", "stockQuantity"), new ArrayList<>(book.keySet()));
+        JsonObject customer = new Gson().toJsonTree(snapshot.getCustomers().get(0)).getAsJsonObject();
+        assertEquals(Arrays.asList("id", "accountNumber", "name", "telephone"), new ArrayList<>(customer.keySet()));
+    }
+
+    @Test
+    public void testDeltaContainsOnlyChangedStock() {
+        long version = catalogue.snapshot(-1).getVersion();
+
+        source.books.get(2).setStockQuantity(3);
+        catalogue.booksChanged(Arrays.asList(2, 2));
+
+        CatalogueCache.Snapshot delta = catalogue.snapshot(version);
+        assertFalse(delta.isFull());
+        assertEquals(version + 1, delta.getVersion());
+        assertEquals(1, delta.getBooks().size());
+        assertEquals(2, delta.getBooks().get(0).getId());
+        assertEquals(3, delta.getBooks().get(0).getStockQuantity());
+        assertTrue(delta.getCustomers().isEmpty());
+
+        // Nothing changed since the latest version
+        CatalogueCache.Snapshot empty = catalogue.snapshot(delta.getVersion());
+        assertTrue(empty.getBooks().isEmpty());
+        assertEquals(delta.getVersion(), empty.getVersion());
+    }
+
+    @Test
+    public void testUnchangedRowDoesNotBumpVersion() {
+        long version = catalogue.getVersion();
+
+        catalogue.bookChanged(1);
+        catalogue.customerChanged(2);
+
+        assertEquals(version, catalogue.getVersion());
+    }
+
+    @Test
+    public void testRemovalsAppearInDelta() {
+        long version = catalogue.getVersion();
+
+        source.books.remove(1);
+        catalogue.bookChanged(1);
+        source.addCustomer(3, "Sunil");
+        catalogue.customerChanged(3);
+
+        CatalogueCache.Snapshot delta = catalogue.snapshot(version);
+        assertEquals(Arrays.asList(1), delta.getRemovedBooks());
+        assertEquals(1, delta.getCustomers().size());
+        assertEquals("Sunil", delta.getCustomers().get(0).getName());
+
+        JsonObject json = new Gson().toJsonTree(delta).getAsJsonObject();
+        JsonArray removed = json.getAsJsonArray("removedBooks");
+        assertEquals(1, removed.get(0).getAsInt());
+    }
+
+    @Test
+    public void testUnknownVersionGetsFullSnapshot() {
+        long version = catalogue.getVersion();
+
+        assertTrue(catalogue.snapshot(version + 100).isFull());
+        // A version handed out before a restart is below the new base
+        assertTrue(catalogue.snapshot(12345).isFull());
+        assertFalse(catalogue.snapshot(version).isFull());
+    }
+
+    @Test
+    public void testExpiredCatalogueIsReloadedAndDiffed() {
+        long version = catalogue.getVersion();
+        assertEquals(1, source.fullLoads);
+
+        // Changed directly in the database, not through the services
+        source.books.get(1).setPrice(new BigDecimal("1250.00"));
+        now += 600_000;
+
+        CatalogueCache.Snapshot delta = catalogue.snapshot(version);
+        assertEquals(2, source.fullLoads);
+        assertFalse(delta.isFull());
+        assertEquals(1, delta.getBooks().size());
+        assertEquals(1, delta.getBooks().get(0).getId());
+    }
+
+    @Test
+    public void testChangesBeforeFirstLoadAreIgnored() {
+        catalogue.bookChanged(1);
+        assertEquals(0, source.fullLoads);
+    }
+
+    @Test
+    public void testFailedReadKeepsCachedRows() {
+        long version = catalogue.snapshot(-1).getVersion();
+
+        source.failing = true;
+        catalogue.bookChanged(1);
+        catalogue.customerChanged(2);
+        now += 600_001;
+        catalogue.reload();
+
+        CatalogueCache.Snapshot delta = catalogue.snapshot(version);
+        assertEquals(version, delta.getVersion());
+        assertTrue(delta.getBooks().isEmpty());
+        assertTrue(delta.getRemovedBooks().isEmpty());
+        assertTrue(delta.getRemovedCustomers().isEmpty());
+
+        // Still due for reload, and picked up once the database is back
+        source.failing = false;
+        source.books.get(1).setStockQuantity(9);
+        int loads = source.fullLoads;
+        CatalogueCache.Snapshot after = catalogue.snapshot(version);
+        assertEquals(loads + 1, source.fullLoads);
+        assertEquals(1, after.getBooks().size());
+        assertEquals(9, after.getBooks().get(0).getStockQuantity());
+    }
+
+    @Test
+    public void testFailedFirstLoadIsNotCached() {
+        MockSource fresh = new MockSource();
+        fresh.addBook(1, "Sinhala Grammar", "1200.00", 10);
+        fresh.failing = true;
+        CatalogueCache cache = new CatalogueCache(fresh, new ParallelLoader(executor, 5000), 600_000, () -> now);
+
+        cache.snapshot(-1);
+        fresh.failing = false;
+        CatalogueCache.Snapshot snapshot = cache.snapshot(-1);
+
+        assertEquals(2, fresh.fullLoads);
+        assertEquals(1, snapshot.getBooks().size());
+    }
+
+    @Test
+    public void testOlderReadDoesNotOverwriteNewerOne() throws Exception {
+        catalogue.snapshot(-1);
+
+        source.bookRead = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        source.releaseBookRead = release;
+        Thread slow = new Thread(() -> catalogue.bookChanged(2));
+        slow.start();
+        assertTrue(source.bookRead.await(5, TimeUnit.SECONDS));
+
+        // A second sale reads the newer stock and is applied while the first read is still in flight
+        source.addBook(2, "Advanced Maths", "950.50", 2);
+        catalogue.bookChanged(2);
+        release.countDown();
+        slow.join(5000);
+
+        CatalogueCache.Snapshot snapshot = catalogue.snapshot(-1);
+        assertEquals(2, snapshot.getBooks().get(1).getStockQuantity());
+    }
+}
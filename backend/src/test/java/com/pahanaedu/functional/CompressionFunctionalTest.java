@@ -0,0 +1,235 @@
+package com.pahanaedu.functional;
+
+import com.pahanaedu.utils.CompressionFilter;
+import com.pahanaedu.utils.ConditionalGet;
+import com.pahanaedu.utils.TableVersions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintWriter;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Functional tests for response compression and the compressed response cache
+ */
+public class CompressionFunctionalTest {
+
+    /**
+     * A request with headers and the container response it is answered on
+     */
+    private static class Exchange {
+        private final Map<String, String> requestHeaders = new HashMap<>();
+        private final Map<String, Object> attributes = new HashMap<>();
+        private final Map<String, String> responseHeaders = new HashMap<>();
+        private final ByteArrayOutputStream sent = new ByteArrayOutputStream();
+        private final String uri;
+        private String contentType;
+        private int status = 200;
+        private final ServletOutputStream output = new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+                sent.write(b);
+            }
+        };
+
+        Exchange(String uri, String acceptEncoding) {
+            this.uri = uri;
+            if (acceptEncoding != null) {
+                requestHeaders.put("Accept-Encoding", acceptEncoding);
+            }
+        }
+
+        HttpServletRequest request() {
+            return (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{HttpServletRequest.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getHeader":
+                                return requestHeaders.get((String) args[0]);
+                            case "getDateHeader":
+                                return -1L;
+                            case "getRequestURI":
+                                return uri;
+                            case "setAttribute":
+                                attributes.put((String) args[0], args[1]);
+                                return null;
+                            case "getAttribute":
+                                return attributes.get((String) args[0]);
+                            case "isAsyncStarted":
+                                return false;
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        HttpServletResponse response() {
+            return (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{HttpServletResponse.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "setHeader":
+                            case "addHeader":
+                                responseHeaders.put((String) args[0], (String) args[1]);
+                                return null;
+                            case "setDateHeader":
+                                responseHeaders.put((String) args[0], String.valueOf(args[1]));
+                                return null;
+                            case "getHeader":
+                                return responseHeaders.get((String) args[0]);
+                            case "setContentType":
+                                contentType = (String) args[0];
+                                return null;
+                            case "getContentType":
+                                return contentType;
+                            case "getCharacterEncoding":
+                                return "UTF-8";
+                            case "setContentLength":
+                                responseHeaders.put("Content-Length", String.valueOf(args[0]));
+                                return null;
+                            case "setStatus":
+                                status = (Integer) args[0];
+                                return null;
+                            case "getOutputStream":
+                                return output;
+                            case "isCommitted":
+                                return false;
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        void run(CompressionFilter filter, FilterChain chain) throws Exception {
+            filter.doFilter(request(), response(), chain);
+        }
+
+        String body() throws Exception {
+            byte[] bytes = sent.toByteArray();
+            if ("gzip".equals(responseHeaders.get("Content-Encoding"))) {
+                try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+                    bytes = in.readAllBytes();
+                }
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String json(int books) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 1; i <= books; i++) {
+            json.append(i > 1 ? "," : "").append("{\"id\":").append(i)
+                    .append(",\"title\":\"Sinhala Grammar\",\"price\":1200.00,\"stockQuantity\":10}");
+        }
+        return json.append("]").toString();
+    }
+
+    private static FilterChain writing(String body) {
+        return (request, response) -> {
+            response.setContentType("application/json");
+            PrintWriter out = response.getWriter();
+            out.print(body);
+            out.flush();
+        };
+    }
+
+    private CompressionFilter filter;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        filter = new CompressionFilter();
+        filter.init(null);
+    }
+
+    @Test
+    public void testLargeJsonIsGzipped() throws Exception {
+        String body = json(100);
+        Exchange exchange = new Exchange("/api/books", "gzip, deflate, br");
+        exchange.run(filter, writing(body));
+
+        assertEquals("gzip", exchange.responseHeaders.get("Content-Encoding"));
+        assertEquals("Accept-Encoding", exchange.responseHeaders.get("Vary"));
+        assertTrue(exchange.sent.size() < body.length() / 4);
+        assertEquals(String.valueOf(exchange.sent.size()), exchange.responseHeaders.get("Content-Length"));
+        assertEquals(body, exchange.body());
+    }
+
+    @Test
+    public void testSmallOrRefusedBodiesAreSentPlain() throws Exception {
+        Exchange small = new Exchange("/api/categories/1", "gzip");
+        small.run(filter, writing("{\"id\":1,\"name\":\"Fiction\"}"));
+        assertNull(small.responseHeaders.get("Content-Encoding"));
+        assertEquals("{\"id\":1,\"name\":\"Fiction\"}", small.body());
+
+        Exchange refused = new Exchange("/api/books", "gzip;q=0, identity");
+        refused.run(filter, writing(json(100)));
+        assertNull(refused.responseHeaders.get("Content-Encoding"));
+        assertEquals(json(100), refused.body());
+    }
+
+    @Test
+    public void testEventStreamPassesThrough() throws Exception {
+        Exchange exchange = new Exchange("/api/events", "gzip");
+        exchange.run(filter, (request, response) -> {
+            response.setContentType("text/event-stream");
+            assertSame(exchange.output, response.getOutputStream());
+        });
+        assertNull(exchange.responseHeaders.get("Content-Encoding"));
+    }
+
+    @Test
+    public void testCachedBodySkipsLoadingAndCompression() throws Exception {
+        TableVersions versions = TableVersions.getInstance();
+        AtomicInteger loads = new AtomicInteger();
+        String uri = "/api/publishers/cache-test";
+        FilterChain servlet = (request, response) -> {
+            HttpServletRequest httpRequest = (HttpServletRequest) request;
+            HttpServletResponse httpResponse = (HttpServletResponse) response;
+            if (ConditionalGet.handle(httpRequest, httpResponse, TableVersions.PUBLISHERS)) {
+                return;
+            }
+            loads.incrementAndGet();
+            writing(json(50)).doFilter(request, response);
+        };
+
+        Exchange first = new Exchange(uri, "gzip");
+        first.run(filter, servlet);
+        Exchange second = new Exchange(uri, "gzip");
+        second.run(filter, servlet);
+        Exchange plain = new Exchange(uri, null);
+        plain.run(filter, servlet);
+
+        assertEquals(1, loads.get());
+        assertArrayEquals(first.sent.toByteArray(), second.sent.toByteArray());
+        assertEquals("gzip", second.responseHeaders.get("Content-Encoding"));
+        assertEquals(json(50), second.body());
+        assertNull(plain.responseHeaders.get("Content-Encoding"));
+        assertEquals(json(50), plain.body());
+
+        // A write makes the stored body stale
+        versions.changed(TableVersions.PUBLISHERS);
+        new Exchange(uri, "gzip").run(filter, servlet);
+        assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,156 @@
+package com.pahanaedu.functional;
+
+import com.pahanaedu.utils.ConditionalGet;
+import com.pahanaedu.utils.TableVersions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Functional tests for ETag and Last-Modified handling on cacheable GET endpoints
+ */
+public class ConditionalGetFunctionalTest {
+
+    /**
+     * Request headers in, status and headers out
+     */
+    private static class Exchange {
+        private final Map<String, String> requestHeaders = new HashMap<>();
+        private final Map<String, Long> requestDates = new HashMap<>();
+        private final Map<String, Object> responseHeaders = new HashMap<>();
+        private int status = 200;
+
+        HttpServletRequest request() {
+            return (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{HttpServletRequest.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getHeader":
+                                return requestHeaders.get((String) args[0]);
+                            case "getDateHeader":
+                                return requestDates.getOrDefault((String) args[0], -1L);
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        HttpServletResponse response() {
+            return (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{HttpServletResponse.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "setHeader":
+                            case "setDateHeader":
+                                responseHeaders.put((String) args[0], args[1]);
+                                return null;
+                            case "setStatus":
+                                status = (Integer) args[0];
+                                return null;
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        boolean get(TableVersions versions, String... tables) {
+            return ConditionalGet.notModified(request(), response(), versions, tables);
+        }
+    }
+
+    private long now;
+    private TableVersions versions;
+
+    @BeforeEach
+    public void setUp() {
+        now = 1_792_355_696_000L;
+        versions = new TableVersions(() -> now);
+    }
+
+    @Test
+    public void testMatchingETagGets304() {
+        Exchange first = new Exchange();
+        assertFalse(first.get(versions, TableVersions.CATEGORIES));
+        String etag = (String) first.responseHeaders.get("ETag");
+        assertTrue(etag.startsWith("\"categories-"));
+        assertEquals("private, no-cache", first.responseHeaders.get("Cache-Control"));
+
+        Exchange second = new Exchange();
+        second.requestHeaders.put("If-None-Match", etag);
+        assertTrue(second.get(versions, TableVersions.CATEGORIES));
+        assertEquals(304, second.status);
+        assertEquals(etag, second.responseHeaders.get("ETag"));
+    }
+
+    @Test
+    public void testWriteChangesETag() {
+        Exchange first = new Exchange();
+        first.get(versions, TableVersions.CUSTOMERS);
+        String etag = (String) first.responseHeaders.get("ETag");
+
+        now += 5000;
+        versions.changed(TableVersions.CUSTOMERS);
+
+        Exchange second = new Exchange();
+        second.requestHeaders.put("If-None-Match", etag);
+        assertFalse(second.get(versions, TableVersions.CUSTOMERS));
+        assertEquals(200, second.status);
+        assertNotEquals(etag, second.responseHeaders.get("ETag"));
+        assertEquals(now, second.responseHeaders.get("Last-Modified"));
+    }
+
+    @Test
+    public void testBooksDependOnJoinedTables() {
+        String[] tables = {TableVersions.BOOKS, TableVersions.CATEGORIES, TableVersions.PUBLISHERS};
+        Exchange first = new Exchange();
+        first.get(versions, tables);
+        String etag = (String) first.responseHeaders.get("ETag");
+
+        // Renaming a publisher changes the publisherName in every book
+        versions.changed(TableVersions.PUBLISHERS);
+
+        Exchange second = new Exchange();
+        second.requestHeaders.put("If-None-Match", etag);
+        assertFalse(second.get(versions, tables));
+
+        // Unrelated tables leave the tag alone
+        String current = (String) second.responseHeaders.get("ETag");
+        versions.changed(TableVersions.CUSTOMERS);
+        Exchange third = new Exchange();
+        third.requestHeaders.put("If-None-Match", "\"other\", W/" + current);
+        assertTrue(third.get(versions, tables));
+    }
+
+    @Test
+    public void testIfModifiedSince() {
+        now += 1500;
+        versions.changed(TableVersions.PUBLISHERS);
+        long lastModified = now / 1000 * 1000;
+
+        Exchange current = new Exchange();
+        current.requestDates.put("If-Modified-Since", lastModified);
+        assertTrue(current.get(versions, TableVersions.PUBLISHERS));
+
+        Exchange stale = new Exchange();
+        stale.requestDates.put("If-Modified-Since", lastModified - 1000);
+        assertFalse(stale.get(versions, TableVersions.PUBLISHERS));
+    }
+
+    @Test
+    public void testTagFromEarlierRunDoesNotMatch() {
+        Exchange first = new Exchange();
+        first.get(versions, TableVersions.BOOKS);
+        String etag = (String) first.responseHeaders.get("ETag");
+
+        now += 60_000;
+        TableVersions restarted = new TableVersions(() -> now);
+        Exchange second = new Exchange();
+        second.requestHeaders.put("If-None-Match", etag);
+        assertFalse(second.get(restarted, TableVersions.BOOKS));
+    }
+}
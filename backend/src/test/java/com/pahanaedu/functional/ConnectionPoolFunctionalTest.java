@@ -0,0 +1,178 @@
+package com.pahanaedu.functional;
+
+import com.pahanaedu.utils.BoundedExecutors;
+import com.pahanaedu.utils.ConnectionPool;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Functional tests for the JDBC connection pool and worker pool factory
+ */
+public class ConnectionPoolFunctionalTest {
+
+    /**
+     * Records what the pool does to a physical connection
+     */
+    private static class FakeConnection {
+        private boolean autoCommit = true;
+        private boolean closed = false;
+        private int rollbacks = 0;
+
+        Connection proxy() {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getAutoCommit":
+                                return autoCommit;
+                            case "setAutoCommit":
+                                autoCommit = (Boolean) args[0];
+                                return null;
+                            case "rollback":
+                                rollbacks++;
+                                return null;
+                            case "close":
+                                closed = true;
+                                return null;
+                            case "isClosed":
+                                return closed;
+                            case "isValid":
+                                return !closed;
+                            default:
+                                return null;
+                        }
+                    });
+        }
+    }
+
+    private List<FakeConnection> opened;
+    private ConnectionPool pool;
+
+    @BeforeEach
+    public void setUp() {
+        opened = new ArrayList<>();
+        pool = new ConnectionPool(() -> {
+            FakeConnection connection = new FakeConnection();
+            opened.add(connection);
+            return connection.proxy();
+        }, 2, 200, 30000);
+    }
+
+    @Test
+    public void testClosedConnectionIsReused() throws Exception {
+        try (Connection connection = pool.getConnection()) {
+            assertFalse(connection.isClosed());
+        }
+        try (Connection connection = pool.getConnection()) {
+            assertFalse(connection.isClosed());
+        }
+
+        assertEquals(1, opened.size());
+        assertFalse(opened.get(0).closed);
+        assertEquals(1, pool.getIdleConnections());
+    }
+
+    @Test
+    public void testReturnedConnectionCannotBeUsed() throws Exception {
+        Connection connection = pool.getConnection();
+        connection.close();
+
+        assertTrue(connection.isClosed());
+        assertThrows(SQLException.class, () -> connection.createStatement());
+        // Closing twice must not return the physical connection twice
+        connection.close();
+        assertEquals(1, pool.getIdleConnections());
+    }
+
+    @Test
+    public void testOpenTransactionIsRolledBackOnReturn() throws Exception {
+        try (Connection connection = pool.getConnection()) {
+            connection.setAutoCommit(false);
+        }
+
+        FakeConnection physical = opened.get(0);
+        assertEquals(1, physical.rollbacks);
+        assertTrue(physical.autoCommit);
+    }
+
+    @Test
+    public void testExhaustedPoolTimesOut() throws Exception {
+        Connection first = pool.getConnection();
+        Connection second = pool.getConnection();
+
+        long start = System.nanoTime();
+        assertThrows(SQLTimeoutException.class, () -> pool.getConnection());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 150);
+        assertEquals(2, pool.getTotalConnections());
+
+        first.close();
+        second.close();
+    }
+
+    @Test
+    public void testWaitingBorrowerGetsReturnedConnection() throws Exception {
+        Connection first = pool.getConnection();
+        Connection second = pool.getConnection();
+
+        CountDownLatch borrowed = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread waiter = new Thread(() -> {
+            try (Connection connection = pool.getConnection()) {
+                borrowed.countDown();
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        waiter.start();
+        first.close();
+
+        assertTrue(borrowed.await(5, TimeUnit.SECONDS));
+        waiter.join();
+        assertNull(failure.get());
+        assertEquals(2, opened.size());
+        second.close();
+    }
+
+    @Test
+    public void testCloseShutsIdleAndReturnedConnections() throws Exception {
+        Connection inUse = pool.getConnection();
+        pool.getConnection().close();
+
+        pool.close();
+        assertTrue(opened.get(1).closed);
+        assertFalse(opened.get(0).closed);
+        assertThrows(SQLException.class, () -> pool.getConnection());
+
+        inUse.close();
+        assertTrue(opened.get(0).closed);
+        assertEquals(0, pool.getTotalConnections());
+    }
+
+    @Test
+    public void testBoundedExecutorSizesPoolForThreadMode() throws Exception {
+        boolean virtual = BoundedExecutors.isVirtualThreadsEnabled();
+
+        ThreadPoolExecutor executor = BoundedExecutors.newBoundedExecutor("test-pool", 3, 100, 5);
+        try {
+            assertEquals(virtual ? 100 : 3, executor.getMaximumPoolSize());
+            AtomicReference<Thread> worker = new AtomicReference<>();
+            executor.submit(() -> worker.set(Thread.currentThread())).get(5, TimeUnit.SECONDS);
+            assertEquals("test-pool-1", worker.get().getName());
+            assertTrue(worker.get().isDaemon());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.pahanaedu.functional;
+
+import com.pahanaedu.model.Invoice;
+import com.pahanaedu.model.InvoiceItem;
+import com.pahanaedu.service.BillingService;
+import com.pahanaedu.service.InvoiceDocumentService;
+import com.pahanaedu.service.ReceiptRenderer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Functional tests for PDF invoices and statements
+ */
+public class DocumentFunctionalTest {
+
+    private static class MockBillingService extends BillingService {
+        private final Map<Integer, Invoice> invoices = new HashMap<>();
+
+        @Override
+        public Invoice getInvoiceById(int id) {
+            return invoices.get(id);
+        }
+
+        @Override
+        public List<Invoice> getInvoicesByCustomer(int customerId) {
+            List<Invoice> result = new ArrayList<>();
+            for (Invoice invoice : invoices.values()) {
+                if (invoice.getCustomerId() != null && invoice.getCustomerId() == customerId) {
+                    result.add(invoice);
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Counts PDF renders so cache hits can be observed
+     */
+    private static class CountingRenderer extends ReceiptRenderer {
+        private int pdfRenders = 0;
+
+        @Override
+        public byte[] renderPdf(Invoice invoice) {
+            pdfRenders++;
+            return super.renderPdf(invoice);
+        }
+    }
+
+    @TempDir
+    Path cacheDir;
+
+    private MockBillingService mockBillingService;
+    private CountingRenderer renderer;
+    private ThreadPoolExecutor executor;
+    private InvoiceDocumentService documentService;
+
+    @BeforeEach
+    public void setUp() {
+        mockBillingService = new MockBillingService();
+        addInvoice(1, "INV-20260905-0001", 3, LocalDateTime.of(2026, 9, 5, 10, 30), "1200.00");
+        addInvoice(2, "INV-20260930-0002", 3, LocalDateTime.of(2026, 9, 30, 23, 45), "800.50");
+        addInvoice(3, "INV-20261001-0003", 3, LocalDateTime.of(2026, 10, 1, 9, 0), "99.00");
+        addInvoice(4, "INV-20260910-0004", 8, LocalDateTime.of(2026, 9, 10, 12, 0), "450.00");
+
+        renderer = new CountingRenderer();
+        executor = InvoiceDocumentService.createExecutor(1, 1);
+        documentService = new InvoiceDocumentService(mockBillingService, renderer, executor, cacheDir, 5000, 60_000);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private void addInvoice(int id, String number, int customerId, LocalDateTime date, String total) {
+        Invoice invoice = new Invoice();
+        invoice.setId(id);
+        invoice.setInvoiceNumber(number);
+        invoice.setCustomerId(customerId);
+        invoice.setCustomerName("Customer (" + customerId + ")");
+        invoice.setCashierName("Test Cashier");
+        invoice.setInvoiceDate(Timestamp.from(date.atZone(ZoneId.of("Asia/Kolkata")).toInstant()));
+
+        InvoiceItem item = new InvoiceItem(id, 1, new BigDecimal(total), BigDecimal.ZERO);
+        item.setBookTitle("Book " + id);
+        List<InvoiceItem> items = new ArrayList<>();
+        items.add(item);
+        invoice.setItems(items);
+        invoice.calculateTotals();
+        mockBillingService.invoices.put(id, invoice);
+    }
+
+    private static String pdfText(Path file) throws Exception {
+        return new String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1);
+    }
+
+    @Test
+    public void testInvoicePdfIsWellFormed() throws Exception {
+        Path file = documentService.getInvoicePdf(1);
+
+        assertNotNull(file);
+        String pdf = pdfText(file);
+        assertTrue(pdf.startsWith("%PDF-1.4\n"));
+        assertTrue(pdf.endsWith("%%EOF\n"));
+        assertTrue(pdf.contains("(Invoice #: INV-20260905-0001) Tj"));
+        assertTrue(pdf.contains("/BaseFont /Courier"));
+
+        // Every xref entry must point at the start of its object
+        Matcher startxref = Pattern.compile("startxref\n(\\d+)\n").matcher(pdf);
+        assertTrue(startxref.find());
+        int xref = Integer.parseInt(startxref.group(1));
+        assertTrue(pdf.startsWith("xref\n", xref));
+
+        Matcher entry = Pattern.compile("(\\d{10}) 00000 n \n").matcher(pdf.substring(xref));
+        int objectNumber = 1;
+        while (entry.find()) {
+            int offset = Integer.parseInt(entry.group(1));
+            assertTrue(pdf.startsWith(objectNumber + " 0 obj\n", offset), "Bad offset for object " + objectNumber);
+            objectNumber++;
+        }
+        assertEquals(8, objectNumber);
+    }
+
+    @Test
+    public void testUnknownInvoiceReturnsNull() throws Exception {
+        assertNull(documentService.getInvoicePdf(99));
+        assertEquals(0, renderer.pdfRenders);
+    }
+
+    @Test
+    public void testCachedPdfIsServedWithoutRendering() throws Exception {
+        Path first = documentService.getInvoicePdf(1);
+        Path second = documentService.getInvoicePdf(1);
+
+        assertEquals(first, second);
+        assertEquals(1, renderer.pdfRenders);
+        assertTrue(first.getFileName().toString().matches("invoice-1-[0-9a-f]{16}\\.pdf"));
+    }
+
+    @Test
+    public void testChangedInvoiceReplacesCachedPdf() throws Exception {
+        Path original = documentService.getInvoicePdf(1);
+
+        mockBillingService.invoices.get(1).setCashierName("Another Cashier");
+        Path updated = documentService.getInvoicePdf(1);
+
+        assertNotEquals(original, updated);
+        assertEquals(2, renderer.pdfRenders);
+        // Handed out moments ago, so kept for a reader that has not opened it yet
+        assertTrue(Files.exists(original));
+        assertTrue(Files.exists(updated));
+
+        // Removed by the next replacement once it has not been used for the render timeout
+        Files.setLastModifiedTime(original, FileTime.fromMillis(System.currentTimeMillis() - 10_000));
+        mockBillingService.invoices.get(1).setCashierName("Third Cashier");
+        Path latest = documentService.getInvoicePdf(1);
+
+        assertFalse(Files.exists(original));
+        assertTrue(Files.exists(updated));
+        assertTrue(Files.exists(latest));
+    }
+
+    @Test
+    public void testCompletedStatementKeepsItsFile() throws Exception {
+        YearMonth september = YearMonth.of(2026, 9);
+        InvoiceDocumentService.StatementJob first = documentService.submitStatement(3, september);
+        waitForCompletion(first);
+
+        addInvoice(5, "INV-20260915-0005", 3, LocalDateTime.of(2026, 9, 15, 11, 0), "300.00");
+        InvoiceDocumentService.StatementJob second = documentService.submitStatement(3, september);
+        waitForCompletion(second);
+
+        assertNotEquals(first.getFile(), second.getFile());
+        assertTrue(Files.exists(first.getFile()));
+        assertTrue(pdfText(first.getFile()).contains("2000.50) Tj"));
+    }
+
+    private static void waitForCompletion(InvoiceDocumentService.StatementJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (job.getStatus() != InvoiceDocumentService.JobStatus.COMPLETED) {
+            assertNotEquals(InvoiceDocumentService.JobStatus.FAILED, job.getStatus());
+            assertTrue(System.currentTimeMillis() < deadline, "Statement did not complete in time");
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void testSaturatedPoolRejectsWork() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute(() -> { });
+
+        try {
+            assertThrows(RejectedExecutionException.class, () -> documentService.getInvoicePdf(1));
+            assertThrows(RejectedExecutionException.class, () -> documentService.submitStatement(3, YearMonth.of(2026, 9)));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testStatementCoversOnlyCustomerMonth() throws Exception {
+        InvoiceDocumentService.StatementJob job = documentService.submitStatement(3, YearMonth.of(2026, 9));
+        assertSame(job, documentService.getStatementJob(job.getId()));
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(InvoiceDocumentService.JobStatus.COMPLETED, job.getStatus());
+        assertEquals(2, job.getInvoiceCount());
+
+        String pdf = pdfText(job.getFile());
+        assertTrue(pdf.contains("(INV-20260905-0001"));
+        // Late on the last day of the month in local time still belongs to that month
+        assertTrue(pdf.contains("(INV-20260930-0002"));
+        assertFalse(pdf.contains("INV-20261001-0003"));
+        assertFalse(pdf.contains("INV-20260910-0004"));
+        assertTrue(pdf.contains("2000.50) Tj"));
+    }
+
+    @Test
+    public void testUnknownStatementJob() {
+        assertNull(documentService.getStatementJob("missing"));
+    }
+}
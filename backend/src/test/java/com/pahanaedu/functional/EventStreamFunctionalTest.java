@@ -0,0 +1,330 @@
+package com.pahanaedu.functional;
+
+import com.pahanaedu.dao.BookChangeDAO;
+import com.pahanaedu.dao.BookChangeLog;
+import com.pahanaedu.model.Book;
+import com.pahanaedu.model.BookChange;
+import com.pahanaedu.model.Invoice;
+import com.pahanaedu.service.DashboardEvents;
+import com.pahanaedu.utils.EventStreamBroadcaster;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Functional tests for Server-Sent Event streams and the dashboard events
+ */
+public class EventStreamFunctionalTest {
+
+    /**
+     * Non-blocking output whose readiness the test controls, like a socket that stops accepting data
+     */
+    private static class FakeOutput extends ServletOutputStream {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private volatile boolean ready = true;
+        private WriteListener listener;
+
+        @Override
+        public synchronized boolean isReady() {
+            return ready;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            this.listener = writeListener;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            if (!ready) {
+                throw new IllegalStateException("Write while not ready");
+            }
+            bytes.write(b);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            if (!ready) {
+                throw new IllegalStateException("Write while not ready");
+            }
+            bytes.write(b, off, len);
+        }
+
+        synchronized String text() {
+            return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        }
+
+        void becomeWritable() throws IOException {
+            ready = true;
+            listener.onWritePossible();
+        }
+    }
+
+    /**
+     * One connected browser
+     */
+    private static class Connection {
+        private final FakeOutput output = new FakeOutput();
+        private volatile boolean completed = false;
+
+        EventStreamBroadcaster.Client open(EventStreamBroadcaster broadcaster) throws Exception {
+            HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(
+                    getClass().getClassLoader(), new Class<?>[]{HttpServletResponse.class},
+                    (proxy, method, args) -> "getOutputStream".equals(method.getName()) ? output : null);
+            AsyncContext context = (AsyncContext) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{AsyncContext.class}, (proxy, method, args) -> {
+                        if ("complete".equals(method.getName())) {
+                            completed = true;
+                        } else if ("getResponse".equals(method.getName())) {
+                            return response;
+                        }
+                        return null;
+                    });
+            HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(
+                    getClass().getClassLoader(), new Class<?>[]{HttpServletRequest.class},
+                    (proxy, method, args) -> "startAsync".equals(method.getName()) ? context : null);
+            return broadcaster.open(request, response);
+        }
+    }
+
+    private static class MockBookChangeDAO extends BookChangeDAO {
+        private final Book book = new Book();
+
+        @Override
+        public long findMaxSequence() {
+            return 0;
+        }
+
+        @Override
+        public boolean create(BookChange change) {
+            return true;
+        }
+
+        @Override
+        public Book findBookState(int bookId) {
+            return book;
+        }
+    }
+
+    private EventStreamBroadcaster broadcaster;
+
+    @BeforeEach
+    public void setUp() {
+        broadcaster = new EventStreamBroadcaster("test-events", 3, 60000);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met in time");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void testBacklogGoesOutBeforeLiveEvents() throws Exception {
+        Connection connection = new Connection();
+        EventStreamBroadcaster.Client client = connection.open(broadcaster);
+
+        // Published while the backlog is being prepared: held, then sent after it
+        broadcaster.publish(3, "book-change", "{\"live\":3}");
+        broadcaster.publish(2, "book-change", "{\"dup\":2}");
+        client.sendFirst(1, "book-change", "{\"old\":1}");
+        client.sendFirst(2, "book-change", "{\"old\":2}");
+        Thread.sleep(50);
+        assertEquals("", connection.output.text());
+
+        client.resume(2);
+        waitFor(() -> connection.output.text().contains("live"));
+
+        String text = connection.output.text();
+        assertTrue(text.startsWith("id: 1\nevent: book-change\ndata: {\"old\":1}\n\n"));
+        assertTrue(text.indexOf("old\":2") < text.indexOf("live\":3"));
+        assertFalse(text.contains("dup"));
+    }
+
+    @Test
+    public void testWritesWaitForSlowSocket() throws Exception {
+        Connection connection = new Connection();
+        connection.open(broadcaster).resume(0);
+        connection.output.ready = false;
+
+        broadcaster.publish(1, "stock-changed", "{}");
+        broadcaster.publish(2, "stock-changed", "{}");
+        Thread.sleep(100);
+        assertEquals("", connection.output.text());
+        assertFalse(connection.completed);
+
+        connection.output.becomeWritable();
+        assertTrue(connection.output.text().contains("id: 1\n"));
+        assertTrue(connection.output.text().contains("id: 2\n"));
+    }
+
+    @Test
+    public void testSlowConsumerIsDroppedWithoutHoldingOthers() throws Exception {
+        Connection slow = new Connection();
+        Connection fast = new Connection();
+        slow.open(broadcaster).resume(0);
+        fast.open(broadcaster).resume(0);
+        slow.output.ready = false;
+
+        for (int id = 1; id <= 5; id++) {
+            broadcaster.publish(id, "stock-changed", "{}");
+        }
+
+        waitFor(() -> slow.completed);
+        waitFor(() -> fast.output.text().contains("id: 5\n"));
+        assertFalse(fast.completed);
+        assertEquals(1, broadcaster.getClientCount());
+    }
+
+    @Test
+    public void testLateEventAsksClientToReload() throws Exception {
+        Connection connection = new Connection();
+        connection.open(broadcaster).resume(0);
+
+        broadcaster.publish(2, "book-change", "{\"seq\":2}");
+        broadcaster.publish(1, "book-change", "{\"seq\":1}");
+        waitFor(() -> connection.output.text().contains("event: reset"));
+
+        // The client is already past 1, so it is told to reload rather than silently missing it
+        String text = connection.output.text();
+        assertTrue(text.startsWith("id: 2\nevent: book-change\n"));
+        assertTrue(text.contains("id: 2\nevent: reset\ndata: {}\n\n"));
+        assertFalse(text.contains("id: 1\n"));
+    }
+
+    @Test
+    public void testDroppedEventAsksEveryClientToReload() throws Exception {
+        EventStreamBroadcaster small = new EventStreamBroadcaster("overflow-test", 2000, 60000);
+        try {
+            Connection connection = new Connection();
+            EventStreamBroadcaster.Client client = connection.open(small);
+            client.resume(0);
+
+            // Holding the client stalls the dispatcher in its first write, so its queue fills up
+            synchronized (client) {
+                for (int id = 1; id <= 2100; id++) {
+                    small.publish(id, "stock-changed", "{}");
+                }
+            }
+            waitFor(() -> connection.output.text().contains("event: reset"));
+            small.publish(2101, "stock-changed", "{}");
+            waitFor(() -> connection.output.text().contains("id: 2101\n"));
+
+            String text = connection.output.text();
+            int reset = text.indexOf("id: 2100\nevent: reset\ndata: {}\n\n");
+            assertTrue(reset > 0);
+            assertTrue(text.indexOf("id: 2000\n") < reset);
+            assertTrue(text.indexOf("id: 2101\n") > reset);
+            assertFalse(connection.completed);
+        } finally {
+            small.shutdown();
+        }
+    }
+
+    @Test
+    public void testDashboardEventsForInvoicesAndLowStock() throws Exception {
+        MockBookChangeDAO dao = new MockBookChangeDAO();
+        BookChangeLog changeLog = new BookChangeLog(dao, 16);
+        DashboardEvents events = new DashboardEvents(broadcaster, changeLog, 5);
+
+        Connection connection = new Connection();
+        connection.open(broadcaster).resume(events.getLastEventId());
+
+        dao.book.setTitle("Advanced Maths");
+        dao.book.setStockQuantity(12);
+        changeLog.record(2, BookChange.STOCK);
+        dao.book.setStockQuantity(4);
+        changeLog.record(2, BookChange.STOCK);
+
+        Invoice invoice = new Invoice();
+        invoice.setId(9);
+        invoice.setInvoiceNumber("INV-2026-0009");
+        invoice.setTotalAmount(new BigDecimal("2400.00"));
+        events.invoiceCreated(invoice);
+
+        waitFor(() -> connection.output.text().contains("invoice-created"));
+        String text = connection.output.text();
+        assertEquals(2, text.split("event: stock-changed", -1).length - 1);
+        assertEquals(1, text.split("event: low-stock", -1).length - 1);
+        assertTrue(text.contains("\"stockQuantity\":4"));
+        assertTrue(text.contains("\"invoiceNumber\":\"INV-2026-0009\""));
+        assertTrue(text.contains("\"totalAmount\":2400.00"));
+    }
+
+    @Test
+    public void testConcurrentDashboardEventsGoOutInIdOrder() throws Exception {
+        EventStreamBroadcaster wide = new EventStreamBroadcaster("dashboard-test", 1000, 60000);
+        try {
+            DashboardEvents events = new DashboardEvents(wide, new BookChangeLog(new MockBookChangeDAO(), 16), 5);
+            Connection connection = new Connection();
+            connection.open(wide).resume(events.getLastEventId());
+
+            int threads = 8;
+            int perThread = 100;
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> publishers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Thread publisher = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int i = 0; i < perThread; i++) {
+                        Invoice invoice = new Invoice();
+                        invoice.setId(i);
+                        events.invoiceCreated(invoice);
+                    }
+                });
+                publisher.start();
+                publishers.add(publisher);
+            }
+            start.countDown();
+            for (Thread publisher : publishers) {
+                publisher.join(10000);
+            }
+
+            String last = "id: " + threads * perThread + "\n";
+            waitFor(() -> connection.output.text().contains(last));
+            String text = connection.output.text();
+            assertFalse(text.contains("event: reset"));
+            Matcher ids = Pattern.compile("^id: (\\d+)$", Pattern.MULTILINE).matcher(text);
+            long expected = 1;
+            while (ids.find()) {
+                assertEquals(expected++, Long.parseLong(ids.group(1)));
+            }
+            assertEquals(threads * perThread + 1, expected);
+        } finally {
+            wide.shutdown();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.pahanaedu.functional;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.pahanaedu.dao.BookDAO;
+import com.pahanaedu.dao.CustomerDAO;
+import com.pahanaedu.dao.InvoiceDAO;
+import com.pahanaedu.model.Book;
+import com.pahanaedu.model.Invoice;
+import com.pahanaedu.model.InvoiceItem;
+import com.pahanaedu.utils.FieldProjection;
+import com.pahanaedu.utils.JsonCodec;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Functional tests for the {@code ?fields=} projection of list and detail endpoints
+ */
+public class FieldProjectionFunctionalTest {
+
+    private static Book book(int id, String title) {
+        Book book = new Book();
+        book.setId(id);
+        book.setIsbn("978-955-0000-0" + id + "-1");
+        book.setTitle(title);
+        book.setAuthor("K. Perera");
+        book.setCategoryId(2);
+        book.setPublisherId(3);
+        book.setPrice(new BigDecimal("1200.00"));
+        book.setStockQuantity(15);
+        book.setCategoryName("Language");
+        return book;
+    }
+
+    @Test
+    public void testParseKeepsDeclarationOrderAndRejectsUnknownFields() {
+        FieldProjection fields = BookDAO.FIELDS.parse(" stockQuantity,title, id,price,title ");
+        assertFalse(fields.isAll());
+        assertEquals("id,title,price,stockQuantity", fields.toString());
+        assertTrue(fields.includes("price"));
+        assertFalse(fields.includes("description"));
+
+        assertTrue(BookDAO.FIELDS.parse(null).isAll());
+        assertTrue(BookDAO.FIELDS.parse(" , ").isAll());
+        assertSame(BookDAO.FIELDS.all(), BookDAO.FIELDS.parse(""));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> CustomerDAO.FIELDS.parse("id,password"));
+        assertTrue(e.getMessage().startsWith("Unknown field 'password'"), e.getMessage());
+    }
+
+    @Test
+    public void testSelectListHasOnlyRequestedColumns() {
+        assertEquals("b.id, b.title, b.price, b.stock_quantity",
+                BookDAO.FIELDS.parse("id,title,price,stockQuantity").selectList());
+        assertEquals("b.title, c.name AS category_name", BookDAO.FIELDS.parse("categoryName,title").selectList());
+        assertEquals("account_number, name", CustomerDAO.FIELDS.parse("name,accountNumber").selectList());
+
+        // Items are loaded by invoice ID, which is selected once however many fields need it
+        assertEquals("i.id", InvoiceDAO.FIELDS.parse("items").selectList());
+        assertEquals("i.id, i.total_amount", InvoiceDAO.FIELDS.parse("items,totalAmount,id").selectList());
+
+        String all = BookDAO.FIELDS.all().selectList();
+        assertTrue(all.startsWith("b.id, b.isbn, "), all);
+        assertTrue(all.endsWith("c.name AS category_name, p.name AS publisher_name"), all);
+    }
+
+    @Test
+    public void testJsonContainsOnlyProjectedFields() {
+        FieldProjection fields = BookDAO.FIELDS.parse("id,title,price,stockQuantity");
+        List<Book> books = Arrays.asList(book(1, "Sinhala Grammar <Advanced>"), book(2, "Mathematics"));
+
+        JsonArray array = JsonParser.parseString(JsonCodec.toJsonArray(books, Book.class, fields)).getAsJsonArray();
+        assertEquals(2, array.size());
+        JsonObject first = array.get(0).getAsJsonObject();
+        assertEquals(Set.of("id", "title", "price", "stockQuantity"), first.keySet());
+        assertEquals(1, first.get("id").getAsInt());
+        assertEquals("1200.00", first.get("price").getAsString());
+
+        // Escaped like the shared instance escapes it
+        assertEquals(JsonCodec.getGson().toJson("Sinhala Grammar <Advanced>"),
+                JsonCodec.toJson(book(1, "Sinhala Grammar <Advanced>"), Book.class,
+                        BookDAO.FIELDS.parse("title")).replace("{\"title\":", "").replace("}", ""));
+
+        // Without a projection the output is the usual one
+        assertEquals(JsonCodec.getGson().toJson(books), JsonCodec.toJsonArray(books, Book.class, BookDAO.FIELDS.all()));
+        assertEquals("[]", JsonCodec.toJsonArray(Collections.emptyList(), Book.class, fields));
+    }
+
+    @Test
+    public void testInvoiceItemsAreWrittenOnlyWhenRequested() {
+        InvoiceItem item = new InvoiceItem();
+        item.setBookId(3);
+        item.setQuantity(2);
+        Invoice invoice = new Invoice();
+        invoice.setId(4);
+        invoice.setInvoiceNumber("INV-20261018-0004");
+        invoice.setCashierId(1);
+        invoice.setTotalAmount(new BigDecimal("3400.00"));
+        invoice.setItems(Collections.singletonList(item));
+
+        JsonObject header = JsonParser.parseString(JsonCodec.toJson(invoice, Invoice.class,
+                InvoiceDAO.FIELDS.parse("invoiceNumber,totalAmount"))).getAsJsonObject();
+        assertEquals(Set.of("invoiceNumber", "totalAmount"), header.keySet());
+
+        JsonObject withItems = JsonParser.parseString(JsonCodec.toJson(invoice, Invoice.class,
+                InvoiceDAO.FIELDS.parse("id,items"))).getAsJsonObject();
+        assertEquals(Set.of("id", "items"), withItems.keySet());
+        assertEquals(2, withItems.getAsJsonArray("items").get(0).getAsJsonObject().get("quantity").getAsInt());
+    }
+}
@@ -0,0 +1,279 @@
+package com.pahanaedu.functional;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.pahanaedu.controller.ApiDispatcherServlet;
+import com.pahanaedu.controller.HealthController;
+import com.pahanaedu.model.User;
+import com.pahanaedu.service.StartupWarmup;
+import com.pahanaedu.utils.DatabaseProbe;
+import com.pahanaedu.utils.MigrationStatus;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Functional tests for the liveness, readiness and details endpoints and the database probe
+ */
+public class HealthFunctionalTest {
+
+    @Test
+    public void testProbeResultIsReusedWithinTheCacheInterval() throws Exception {
+        AtomicInteger checks = new AtomicInteger();
+        AtomicBoolean up = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        DatabaseProbe probe = new DatabaseProbe(() -> {
+            checks.incrementAndGet();
+            if (!up.get()) {
+                throw new SQLException("Communications link failure");
+            }
+        }, executor, 100, 1000);
+
+        assertTrue(probe.check().isUp());
+        up.set(false);
+        assertTrue(probe.check().isUp());
+        assertEquals(1, checks.get());
+
+        Thread.sleep(150);
+        DatabaseProbe.Result down = probe.check();
+        assertFalse(down.isUp());
+        assertEquals("Communications link failure", down.getError());
+        assertEquals(2, checks.get());
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testProbeKeepsItsOwnConnectionAndReplacesABrokenOne() throws Exception {
+        List<AtomicBoolean> valid = new ArrayList<>();
+        List<AtomicBoolean> closed = new ArrayList<>();
+        AtomicBoolean reachable = new AtomicBoolean(true);
+        DatabaseProbe.DedicatedConnectionCheck check = new DatabaseProbe.DedicatedConnectionCheck(() -> {
+            if (!reachable.get()) {
+                throw new SQLException("Communications link failure");
+            }
+            AtomicBoolean isValid = new AtomicBoolean(true);
+            AtomicBoolean isClosed = new AtomicBoolean(false);
+            valid.add(isValid);
+            closed.add(isClosed);
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "isValid":
+                                return isValid.get();
+                            case "close":
+                                isClosed.set(true);
+                                return null;
+                            default:
+                                return null;
+                        }
+                    });
+        });
+
+        // One connection, opened outside the pool and reused between checks
+        check.run();
+        check.run();
+        assertEquals(1, valid.size());
+
+        valid.get(0).set(false);
+        check.run();
+        assertEquals(2, valid.size());
+        assertTrue(closed.get(0).get());
+
+        valid.get(1).set(false);
+        reachable.set(false);
+        SQLException down = assertThrows(SQLException.class, check::run);
+        assertEquals("Communications link failure", down.getMessage());
+        assertTrue(closed.get(1).get());
+
+        reachable.set(true);
+        check.run();
+        check.close();
+        assertTrue(closed.get(2).get());
+    }
+
+    @Test
+    public void testSlowProbeIsReportedDownWithinTheTimeout() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger checks = new AtomicInteger();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        DatabaseProbe probe = new DatabaseProbe(() -> {
+            checks.incrementAndGet();
+            release.await();
+        }, executor, 60000, 100);
+
+        long started = System.nanoTime();
+        DatabaseProbe.Result timedOut = probe.check();
+        assertFalse(timedOut.isUp());
+        assertEquals("No answer within 100 ms", timedOut.getError());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 1000);
+
+        // The hung check is not started again, and its own result replaces the timeout
+        assertFalse(probe.check().isUp());
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(probe.check().isUp());
+        assertEquals(1, checks.get());
+    }
+
+    private static final class Exchange {
+        private final StringWriter body = new StringWriter();
+        private final Map<String, String> headers = new HashMap<>();
+        private int status = HttpServletResponse.SC_OK;
+
+        JsonObject json() {
+            return JsonParser.parseString(body.toString()).getAsJsonObject();
+        }
+    }
+
+    private static Exchange get(ApiDispatcherServlet servlet, String path, String role) throws Exception {
+        Exchange exchange = new Exchange();
+        PrintWriter writer = new PrintWriter(exchange.body);
+        User user = new User();
+        user.setUsername("tester");
+        user.setRole(role);
+        HttpSession session = role == null ? null : (HttpSession) Proxy.newProxyInstance(
+                HealthFunctionalTest.class.getClassLoader(), new Class<?>[]{HttpSession.class},
+                (proxy, m, args) -> "getAttribute".equals(m.getName()) ? user : null);
+
+        HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(
+                HealthFunctionalTest.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class},
+                (proxy, m, args) -> {
+                    switch (m.getName()) {
+                        case "getMethod":
+                            return "GET";
+                        case "getServletPath":
+                            return path;
+                        case "getSession":
+                            return session;
+                        case "getProtocol":
+                            return "HTTP/1.1";
+                        case "isAsyncStarted":
+                            return false;
+                        case "getDateHeader":
+                            return -1L;
+                        default:
+                            return null;
+                    }
+                });
+        HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(
+                HealthFunctionalTest.class.getClassLoader(), new Class<?>[]{HttpServletResponse.class},
+                (proxy, m, args) -> {
+                    switch (m.getName()) {
+                        case "setStatus":
+                            exchange.status = (Integer) args[0];
+                            return null;
+                        case "getStatus":
+                            return exchange.status;
+                        case "setHeader":
+                            exchange.headers.put((String) args[0], (String) args[1]);
+                            return null;
+                        case "getWriter":
+                            return writer;
+                        case "isCommitted":
+                            return false;
+                        default:
+                            return null;
+                    }
+                });
+
+        servlet.service(request, response);
+        writer.flush();
+        return exchange;
+    }
+
+    @Test
+    public void testReadinessFollowsWarmupDatabaseAndMigrations() throws Exception {
+        AtomicBoolean up = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        DatabaseProbe probe = new DatabaseProbe(() -> {
+            if (!up.get()) {
+                throw new SQLException("Connection refused");
+            }
+        }, executor, 0, 1000);
+        StartupWarmup warmup = new StartupWarmup(new ArrayList<>());
+        MigrationStatus migrations = new MigrationStatus();
+        ApiDispatcherServlet servlet = new ApiDispatcherServlet(new HealthController(warmup, probe, migrations));
+        servlet.init();
+
+        // Liveness does not depend on anything
+        assertEquals(200, get(servlet, "/health/live", null).status);
+
+        Exchange warming = get(servlet, "/health/ready", null);
+        assertEquals(503, warming.status);
+        assertEquals("Warming up", warming.json().get("message").getAsString());
+        assertNotNull(warming.headers.get("Retry-After"));
+
+        warmup.start();
+        assertTrue(warmup.awaitReady(5000));
+        Exchange ready = get(servlet, "/health/ready", null);
+        assertEquals(200, ready.status);
+        assertEquals("no-store", ready.headers.get("Cache-Control"));
+
+        up.set(false);
+        Exchange noDatabase = get(servlet, "/health/ready", null);
+        assertEquals(503, noDatabase.status);
+        assertEquals("Database unreachable", noDatabase.json().get("message").getAsString());
+        assertEquals(200, get(servlet, "/health/live", null).status);
+
+        up.set(true);
+        migrations.skipped("Database unavailable at startup");
+        assertEquals(200, get(servlet, "/health/ready", null).status);
+        migrations.failed("Checksum of V1__baseline_schema.sql changed");
+        Exchange failedMigration = get(servlet, "/health/ready", null);
+        assertEquals(503, failedMigration.status);
+        assertEquals("Schema migration failed", failedMigration.json().get("message").getAsString());
+
+        // Administrators still see the underlying error
+        assertEquals("Schema migration failed: Checksum of V1__baseline_schema.sql changed",
+                get(servlet, "/health/details", "ADMIN").json().get("message").getAsString());
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testDetailsAreForAdministrators() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        DatabaseProbe probe = new DatabaseProbe(() -> { }, executor, 0, 1000);
+        StartupWarmup warmup = new StartupWarmup(new ArrayList<>());
+        warmup.start();
+        assertTrue(warmup.awaitReady(5000));
+        MigrationStatus migrations = new MigrationStatus();
+        migrations.succeeded(1, 0);
+        ApiDispatcherServlet servlet = new ApiDispatcherServlet(new HealthController(warmup, probe, migrations));
+        servlet.init();
+
+        assertEquals(401, get(servlet, "/health/details", null).status);
+        assertEquals(403, get(servlet, "/health/details", "CASHIER").status);
+
+        Exchange details = get(servlet, "/health/details", "ADMIN");
+        assertEquals(200, details.status);
+        JsonObject json = details.json();
+        assertTrue(json.get("ready").getAsBoolean());
+        assertTrue(json.getAsJsonObject("database").get("up").getAsBoolean());
+        assertEquals("CURRENT", json.getAsJsonObject("migrations").get("state").getAsString());
+        assertEquals(1, json.getAsJsonObject("migrations").get("version").getAsInt());
+        assertTrue(json.getAsJsonObject("pool").has("utilisation"));
+        assertTrue(json.getAsJsonObject("caches").getAsJsonObject("responses").has("hitRatio"));
+        assertTrue(json.getAsJsonObject("executors").getAsJsonObject("business").has("queueDepth"));
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,166 @@
+package com.pahanaedu.functional;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.pahanaedu.model.Book;
+import com.pahanaedu.model.BookChange;
+import com.pahanaedu.model.Cart;
+import com.pahanaedu.model.Category;
+import com.pahanaedu.model.Customer;
+import com.pahanaedu.model.Invoice;
+import com.pahanaedu.model.InvoiceItem;
+import com.pahanaedu.model.Publisher;
+import com.pahanaedu.model.User;
+import com.pahanaedu.utils.JsonCodec;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Functional tests for the shared Gson instance and its model adapters
+ */
+public class JsonCodecFunctionalTest {
+
+    // Whole seconds, since the default format has no milliseconds
+    private static final Timestamp CREATED = new Timestamp(1792355696000L);
+    private static final Timestamp UPDATED = new Timestamp(1792399999000L);
+
+    private final Gson reflective = new Gson();
+    private final Gson codec = JsonCodec.getGson();
+
+    private static Book book() {
+        Book book = new Book();
+        book.setId(7);
+        book.setIsbn("978-955-0000-01-1");
+        book.setTitle("Sinhala Grammar \"Advanced\"");
+        book.setAuthor("K. Perera");
+        book.setCategoryId(2);
+        book.setPublisherId(3);
+        book.setPublicationYear(2021);
+        book.setPrice(new BigDecimal("1200.00"));
+        book.setStockQuantity(15);
+        book.setCreatedAt(CREATED);
+        book.setUpdatedAt(UPDATED);
+        book.setCategoryName("Language");
+        book.setPublisherName("Sarasavi");
+        return book;
+    }
+
+    private static InvoiceItem item(int bookId, int quantity, String unitPrice) {
+        InvoiceItem item = new InvoiceItem();
+        item.setId(bookId * 10);
+        item.setInvoiceId(4);
+        item.setBookId(bookId);
+        item.setQuantity(quantity);
+        item.setUnitPrice(new BigDecimal(unitPrice));
+        item.setDiscountPercent(BigDecimal.ZERO);
+        item.setTotalPrice(new BigDecimal(unitPrice).multiply(BigDecimal.valueOf(quantity)));
+        item.setCreatedAt(CREATED);
+        item.setBookTitle("Book " + bookId);
+        return item;
+    }
+
+    private static Invoice invoice() {
+        Invoice invoice = new Invoice();
+        invoice.setId(4);
+        invoice.setInvoiceNumber("INV-20261018-0004");
+        invoice.setCashierId(1);
+        invoice.setInvoiceDate(CREATED);
+        invoice.setSubtotal(new BigDecimal("3400.00"));
+        invoice.setDiscountAmount(BigDecimal.ZERO);
+        invoice.setTaxAmount(BigDecimal.ZERO);
+        invoice.setTotalAmount(new BigDecimal("3400.00"));
+        invoice.setPaymentMethod("CASH");
+        invoice.setCreatedAt(CREATED);
+        invoice.setCashierName("Cashier One");
+        invoice.setItems(Arrays.asList(item(1, 2, "1200.00"), item(2, 1, "1000.00")));
+        return invoice;
+    }
+
+    @Test
+    public void testModelsMatchReflectiveOutput() {
+        Category category = new Category(2, "Language", null, CREATED, UPDATED);
+
+        Customer customer = new Customer();
+        customer.setId(9);
+        customer.setAccountNumber("CUST-0009");
+        customer.setName("Nimal Silva");
+        customer.setTelephone("0771234567");
+        customer.setRegistrationDate(Date.valueOf("2026-10-05"));
+        customer.setCreatedAt(CREATED);
+
+        Publisher publisher = new Publisher();
+        publisher.setId(3);
+        publisher.setName("Sarasavi");
+        publisher.setEmail("info@sarasavi.lk");
+
+        BookChange change = new BookChange();
+        change.setSequence(42L);
+        change.setBookId(7);
+        change.setChangeType("STOCK");
+        change.setStockQuantity(13);
+        change.setChangedAt(UPDATED);
+
+        Cart cart = new Cart("cart-1", 1, "Cashier One", new BigDecimal("0.08"));
+        cart.setCreatedAt(CREATED);
+        cart.putLine(item(1, 2, "1200.00"), 13);
+        cart.putLine(item(5, 1, "450.50"), 2);
+        cart.setApplyTax(true);
+
+        for (Object model : new Object[]{book(), new Book(), category, customer, publisher,
+                item(1, 2, "1200.00"), invoice(), new Invoice(), change, cart}) {
+            assertEquals(reflective.toJson(model), codec.toJson(model), model.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    public void testUserIsWrittenWithoutPassword() {
+        User user = new User(1, "cashier", "pbkdf2$hash", "Cashier One", "CASHIER",
+                "cashier@pahanaedu.lk", true, CREATED, null);
+
+        JsonObject expected = JsonParser.parseString(reflective.toJson(user)).getAsJsonObject();
+        expected.remove("password");
+        assertEquals(expected.toString(), codec.toJson(user));
+    }
+
+    @Test
+    public void testRoundTripAndUnknownFields() {
+        Invoice read = codec.fromJson(codec.toJson(invoice()), Invoice.class);
+        assertEquals(codec.toJson(invoice()), codec.toJson(read));
+        assertEquals(2, read.getItems().size());
+        assertEquals(CREATED, read.getInvoiceDate());
+
+        // Output of the reflective path, plus fields the model does not have
+        JsonObject json = JsonParser.parseString(reflective.toJson(book())).getAsJsonObject();
+        json.addProperty("rating", 5);
+        json.add("tags", JsonParser.parseString("[\"grammar\",{\"nested\":true}]"));
+        Book book = codec.fromJson(json, Book.class);
+        assertEquals(reflective.toJson(book()), reflective.toJson(book));
+
+        Cart cart = new Cart("cart-2", 1, "Cashier One", new BigDecimal("0.08"));
+        cart.setCreatedAt(CREATED);
+        cart.putLine(item(1, 2, "1200.00"), 13);
+        cart.setApplyTax(true);
+        Cart copy = codec.fromJson(codec.toJson(cart), Cart.class);
+        assertEquals(cart.getTotalAmount(), copy.getTotalAmount());
+        assertEquals(Integer.valueOf(13), copy.getAvailableStock(1));
+    }
+
+    @Test
+    public void testTimestampsReadInOtherForms() {
+        Book book = codec.fromJson("{\"id\":1,\"createdAt\":\"2026-10-18 20:34:56\",\"updatedAt\":"
+                + CREATED.getTime() + ",\"description\":null}", Book.class);
+        assertEquals(Timestamp.valueOf("2026-10-18 20:34:56"), book.getCreatedAt());
+        assertEquals(CREATED, book.getUpdatedAt());
+        assertNull(book.getDescription());
+
+        assertThrows(RuntimeException.class,
+                () -> codec.fromJson("{\"createdAt\":\"yesterday\"}", Book.class));
+    }
+}
@@ -0,0 +1,161 @@
+package com.pahanaedu.functional;
+
+import com.pahanaedu.utils.AsyncLogHandler;
+import com.pahanaedu.utils.LogSetup;
+import com.pahanaedu.utils.SamplingLogFilter;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Functional tests for asynchronous logging, message sampling and per-category levels
+ */
+public class LoggingFunctionalTest {
+
+    /**
+     * Keeps what it is given, and the thread it was given it on
+     */
+    private static final class CollectingHandler extends Handler {
+        private final List<LogRecord> records = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch release;
+
+        private CollectingHandler(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void publish(LogRecord record) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            records.add(record);
+            threads.add(Thread.currentThread().getName());
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static LogRecord record(Level level, String message, Object... parameters) {
+        LogRecord record = new LogRecord(level, message);
+        record.setLoggerName("com.pahanaedu.service.BillingService");
+        record.setParameters(parameters);
+        return record;
+    }
+
+    @Test
+    public void testRecordsAreWrittenInOrderOffTheLoggingThread() {
+        CollectingHandler target = new CollectingHandler(new CountDownLatch(0));
+        AsyncLogHandler handler = new AsyncLogHandler(1024, target);
+        for (int i = 0; i < 1000; i++) {
+            handler.publish(record(Level.INFO, "Invoice {0} created", i));
+        }
+        handler.close();
+
+        assertEquals(0, handler.getDropped());
+        assertEquals(1000, target.records.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, target.records.get(i).getParameters()[0]);
+        }
+        assertTrue(target.threads.stream().allMatch("async-log-writer"::equals));
+        assertEquals("com.pahanaedu.service.BillingService", target.records.get(0).getSourceClassName());
+
+        // Nothing is taken after closing
+        handler.publish(record(Level.INFO, "Too late"));
+        assertEquals(1000, target.records.size());
+    }
+
+    @Test
+    public void testFullBufferDropsRecordsWithoutBlocking() {
+        CountDownLatch release = new CountDownLatch(1);
+        CollectingHandler target = new CollectingHandler(release);
+        AsyncLogHandler handler = new AsyncLogHandler(4, target);
+
+        long started = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            handler.publish(record(Level.INFO, "Item {0} processed", i));
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 1000);
+        assertTrue(handler.getDropped() > 0);
+
+        release.countDown();
+        handler.close();
+        long written = target.records.stream().filter(r -> "Item {0} processed".equals(r.getMessage())).count();
+        assertEquals(100, written + handler.getDropped());
+        LogRecord warning = target.records.get(target.records.size() - 1);
+        assertEquals(Level.WARNING, warning.getLevel());
+        assertEquals("Dropped " + handler.getDropped() + " log records; the log buffer was full", warning.getMessage());
+    }
+
+    @Test
+    public void testRepeatedMessagesAreSampled() {
+        SamplingLogFilter filter = new SamplingLogFilter(3);
+        Instant second = Instant.ofEpochSecond(1700000000);
+
+        int passed = 0;
+        for (int i = 0; i < 10; i++) {
+            LogRecord record = record(Level.WARNING, "Business pool saturated (queue depth {0})", i);
+            record.setInstant(second.plusMillis(i));
+            if (filter.isLoggable(record)) {
+                passed++;
+            }
+        }
+        assertEquals(3, passed);
+        assertEquals(7, filter.getSuppressed());
+
+        // Other messages and SEVERE records are counted separately
+        LogRecord other = record(Level.INFO, "Fetching all books");
+        other.setInstant(second);
+        assertTrue(filter.isLoggable(other));
+        LogRecord severe = record(Level.SEVERE, "Business pool saturated (queue depth {0})", 11);
+        severe.setInstant(second);
+        assertTrue(filter.isLoggable(severe));
+
+        LogRecord later = record(Level.WARNING, "Business pool saturated (queue depth {0})", 12);
+        later.setInstant(second.plusSeconds(1));
+        assertTrue(filter.isLoggable(later));
+        assertEquals("Business pool saturated (queue depth {0}) (7 similar messages suppressed)", later.getMessage());
+
+        assertTrue(new SamplingLogFilter(0).isLoggable(record(Level.INFO, "Unsampled")));
+    }
+
+    @Test
+    public void testInstallAppliesCategoryLevelsAndRoutesApplicationLogs() {
+        System.setProperty("app.logging.level.com.pahanaedu.logtest", "fine");
+        System.setProperty("app.logging.level.com.pahanaedu.logtest.quiet", "SEVERE");
+        Logger application = Logger.getLogger("com.pahanaedu");
+        try {
+            LogSetup.install();
+            assertEquals(Level.FINE, Logger.getLogger("com.pahanaedu.logtest").getLevel());
+            assertEquals(Level.SEVERE, Logger.getLogger("com.pahanaedu.logtest.quiet").getLevel());
+            assertFalse(application.getUseParentHandlers());
+            assertTrue(Arrays.stream(application.getHandlers()).anyMatch(h -> h instanceof AsyncLogHandler));
+        } finally {
+            LogSetup.uninstall();
+            System.clearProperty("app.logging.level.com.pahanaedu.logtest");
+            System.clearProperty("app.logging.level.com.pahanaedu.logtest.quiet");
+        }
+        assertTrue(application.getUseParentHandlers());
+        assertFalse(Arrays.stream(application.getHandlers()).anyMatch(h -> h instanceof AsyncLogHandler));
+    }
+}
@@ -0,0 +1,250 @@
+package com.pahanaedu.functional;
+
+import com.pahanaedu.controller.ApiDispatcherServlet;
+import com.pahanaedu.model.User;
+import com.pahanaedu.utils.ApiResponses;
+import com.pahanaedu.utils.ConnectionPool;
+import com.pahanaedu.utils.Counter;
+import com.pahanaedu.utils.LatencyHistogram;
+import com.pahanaedu.utils.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Functional tests for the latency histograms, the metrics registry and GET /metrics
+ */
+public class MetricsFunctionalTest {
+
+    @Test
+    public void testHistogramQuantilesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 1000; millis++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1000), histogram.getMaxNanos());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500500), histogram.getSumNanos());
+        assertWithin(500, histogram.getValueAtQuantile(0.5));
+        assertWithin(990, histogram.getValueAtQuantile(0.99));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1000), histogram.getValueAtQuantile(1));
+
+        // 1 ms, 10 ms and 100 ms as Prometheus bounds, in microseconds
+        long[] cumulative = histogram.getCumulativeCounts(new long[]{1000, 10000, 100000});
+        assertTrue(cumulative[0] <= 1);
+        assertTrue(cumulative[1] >= 9 && cumulative[1] <= 10);
+        assertTrue(cumulative[2] >= 94 && cumulative[2] <= 100);
+
+        // Values past the top of the range are kept in the last bucket
+        histogram.record(TimeUnit.HOURS.toNanos(2));
+        assertEquals(1001, histogram.getCount());
+        assertEquals(TimeUnit.HOURS.toNanos(2), histogram.getMaxNanos());
+    }
+
+    private static void assertWithin(long expectedMillis, long actualNanos) {
+        double actualMillis = actualNanos / 1e6;
+        assertTrue(Math.abs(actualMillis - expectedMillis) <= expectedMillis / 16.0,
+                "expected about " + expectedMillis + " ms but was " + actualMillis);
+    }
+
+    @Test
+    public void testRecordingDoesNotAllocate() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long thread = Thread.currentThread().getId();
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        Counter counter = new Counter();
+        for (int i = 0; i < 10000; i++) {
+            histogram.record(i * 997L);
+            counter.increment();
+        }
+
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < 100000; i++) {
+            histogram.record(i * 997L);
+            counter.increment();
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+        assertTrue(allocated < 4096, "Recording allocated " + allocated + " bytes");
+    }
+
+    @Test
+    public void testRegistryWritesPrometheusText() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Counter created = registry.counter("test_invoices_created", "Invoices created", "channel", "till");
+        assertSame(created, registry.counter("test_invoices_created", "Invoices created", "channel", "till"));
+        created.add(3);
+        registry.gauge("test_queue_depth", "Queued jobs", () -> 7, "path", "/a\"b");
+        LatencyHistogram latency = registry.histogram("test_latency_seconds", "Latency", "route", "/books");
+        latency.record(TimeUnit.MILLISECONDS.toNanos(2));
+        latency.record(TimeUnit.MILLISECONDS.toNanos(200));
+
+        String text = registry.scrape();
+        assertTrue(text.contains("# TYPE test_invoices_created counter\n"));
+        assertTrue(text.contains("test_invoices_created_total{channel=\"till\"} 3\n"));
+        assertTrue(text.contains("# TYPE test_queue_depth gauge\n"));
+        assertTrue(text.contains("test_queue_depth{path=\"/a\\\"b\"} 7\n"));
+        assertTrue(text.contains("# TYPE test_latency_seconds histogram\n"));
+        assertTrue(text.contains("test_latency_seconds_bucket{route=\"/books\",le=\"0.001\"} 0\n"));
+        assertTrue(text.contains("test_latency_seconds_bucket{route=\"/books\",le=\"0.005\"} 1\n"));
+        assertTrue(text.contains("test_latency_seconds_bucket{route=\"/books\",le=\"0.25\"} 2\n"));
+        assertTrue(text.contains("test_latency_seconds_bucket{route=\"/books\",le=\"+Inf\"} 2\n"));
+        assertTrue(text.contains("test_latency_seconds_sum{route=\"/books\"} 0.202\n"));
+        assertTrue(text.contains("test_latency_seconds_count{route=\"/books\"} 2\n"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> registry.histogram("test_invoices_created", "Invoices created"));
+    }
+
+    @Test
+    public void testDaoConnectionsAreTimedUntilClosed() throws Exception {
+        Connection physical = (Connection) Proxy.newProxyInstance(MetricsFunctionalTest.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, m, args) -> {
+                    switch (m.getName()) {
+                        case "getAutoCommit":
+                            return true;
+                        case "isClosed":
+                            return false;
+                        default:
+                            return null;
+                    }
+                });
+        ConnectionPool pool = new ConnectionPool(() -> physical, 1, 1000, 30000);
+        LatencyHistogram timer = new LatencyHistogram();
+
+        try (Connection connection = pool.getConnection(timer)) {
+            assertEquals(0, timer.getCount());
+            Thread.sleep(5);
+        }
+        assertEquals(1, timer.getCount());
+        assertTrue(timer.getMaxNanos() >= TimeUnit.MILLISECONDS.toNanos(5));
+
+        // Untimed borrows record nothing
+        pool.getConnection().close();
+        assertEquals(1, timer.getCount());
+        pool.close();
+    }
+
+    private static final class Exchange {
+        private final StringWriter body = new StringWriter();
+        private int status = HttpServletResponse.SC_OK;
+        private String contentType;
+    }
+
+    private static Exchange get(ApiDispatcherServlet servlet, String path, String role, String authorization)
+            throws Exception {
+        Exchange exchange = new Exchange();
+        PrintWriter writer = new PrintWriter(exchange.body);
+        User user = new User();
+        user.setUsername("tester");
+        user.setRole(role);
+        HttpSession session = role == null ? null : (HttpSession) Proxy.newProxyInstance(
+                MetricsFunctionalTest.class.getClassLoader(), new Class<?>[]{HttpSession.class},
+                (proxy, m, args) -> "getAttribute".equals(m.getName()) ? user : null);
+
+        HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(
+                MetricsFunctionalTest.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class},
+                (proxy, m, args) -> {
+                    switch (m.getName()) {
+                        case "getMethod":
+                            return "GET";
+                        case "getServletPath":
+                            return path;
+                        case "getSession":
+                            return session;
+                        case "getHeader":
+                            return "Authorization".equals(args[0]) ? authorization : null;
+                        case "getProtocol":
+                            return "HTTP/1.1";
+                        case "isAsyncStarted":
+                            return false;
+                        case "getDateHeader":
+                            return -1L;
+                        default:
+                            return null;
+                    }
+                });
+        HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(
+                MetricsFunctionalTest.class.getClassLoader(), new Class<?>[]{HttpServletResponse.class},
+                (proxy, m, args) -> {
+                    switch (m.getName()) {
+                        case "setStatus":
+                            exchange.status = (Integer) args[0];
+                            return null;
+                        case "getStatus":
+                            return exchange.status;
+                        case "setContentType":
+                            exchange.contentType = (String) args[0];
+                            return null;
+                        case "getWriter":
+                            return writer;
+                        case "isCommitted":
+                            return false;
+                        default:
+                            return null;
+                    }
+                });
+
+        servlet.service(request, response);
+        writer.flush();
+        return exchange;
+    }
+
+    @Test
+    public void testMetricsEndpointServesRouteHistogramsToAdministrators() throws Exception {
+        ApiDispatcherServlet servlet = new ApiDispatcherServlet(router -> {
+            router.get("/metrics-test/ok", (request, response, route) ->
+                    ApiResponses.sendJson(response, "{}")).publicAccess();
+            router.get("/metrics-test/missing", (request, response, route) ->
+                    ApiResponses.sendNotFound(response, "Missing")).publicAccess();
+        });
+        servlet.init();
+        get(servlet, "/metrics-test/ok", null, null);
+        get(servlet, "/metrics-test/ok", null, null);
+        get(servlet, "/metrics-test/missing", null, null);
+
+        assertEquals(401, get(servlet, "/metrics", null, null).status);
+        assertEquals(401, get(servlet, "/metrics", null, "Bearer guess").status);
+        assertEquals(403, get(servlet, "/metrics", "CASHIER", null).status);
+
+        Exchange metrics = get(servlet, "/metrics", "ADMIN", null);
+        assertEquals(200, metrics.status);
+        assertEquals("text/plain; version=0.0.4; charset=utf-8", metrics.contentType);
+        String text = metrics.body.toString();
+        assertTrue(text.contains("http_server_requests_seconds_count"
+                + "{method=\"GET\",route=\"/metrics-test/ok\",status=\"200\"} 2\n"));
+        assertTrue(text.contains("http_server_requests_seconds_count"
+                + "{method=\"GET\",route=\"/metrics-test/missing\",status=\"404\"} 1\n"));
+        assertTrue(text.contains("http_server_unmatched_requests_total{reason=\"not_found\"}"));
+    }
+
+    @Test
+    public void testScrapeTokenAllowsPrometheusWithoutSession() throws Exception {
+        System.setProperty("app.metrics.scrape-token", "s3cret");
+        ApiDispatcherServlet servlet;
+        try {
+            servlet = new ApiDispatcherServlet(router -> { });
+        } finally {
+            System.clearProperty("app.metrics.scrape-token");
+        }
+        servlet.init();
+
+        assertEquals(200, get(servlet, "/metrics", null, "Bearer s3cret").status);
+        assertEquals(401, get(servlet, "/metrics", null, "Bearer s3cre").status);
+    }
+}
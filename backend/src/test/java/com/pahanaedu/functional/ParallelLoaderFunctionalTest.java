@@ -0,0 +1,133 @@
+package com.pahanaedu.functional;
+
+import com.pahanaedu.service.ParallelLoader;
+import com.pahanaedu.utils.BoundedExecutors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Functional tests for concurrent loading of composite views
+ */
+public class ParallelLoaderFunctionalTest {
+
+    private ThreadPoolExecutor executor;
+    private ParallelLoader loader;
+
+    @BeforeEach
+    public void setUp() {
+        executor = BoundedExecutors.newBoundedExecutor("loader-test", 2, 2, 1);
+        loader = new ParallelLoader(executor, 5000);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testQueriesRunConcurrently() {
+        // Each query waits for the other, so this only finishes if both run at once
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        ParallelLoader.Batch batch = loader.batch();
+        CompletableFuture<String> header = batch.submit(() -> {
+            bothStarted.countDown();
+            assertTrue(bothStarted.await(2, TimeUnit.SECONDS));
+            return "header";
+        });
+        CompletableFuture<Integer> items = batch.submit(() -> {
+            bothStarted.countDown();
+            assertTrue(bothStarted.await(2, TimeUnit.SECONDS));
+            return 3;
+        });
+
+        batch.await();
+        assertEquals("header", header.join());
+        assertEquals(3, items.join());
+    }
+
+    @Test
+    public void testDeadlineCancelsSlowQuery() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        ParallelLoader.Batch batch = loader.batch(100);
+        CompletableFuture<String> slow = batch.submit(() -> {
+            try {
+                Thread.sleep(10_000);
+                return "late";
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+        });
+
+        ParallelLoader.LoadException e = assertThrows(ParallelLoader.LoadException.class, batch::await);
+        assertTrue(e.getMessage().contains("100 ms"));
+        assertTrue(slow.isCancelled());
+        assertTrue(interrupted.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testFailureCancelsSiblings() throws Exception {
+        CountDownLatch siblingStarted = new CountDownLatch(1);
+        CountDownLatch siblingInterrupted = new CountDownLatch(1);
+        ParallelLoader.Batch batch = loader.batch();
+        batch.submit(() -> {
+            siblingStarted.countDown();
+            try {
+                Thread.sleep(10_000);
+                return null;
+            } catch (InterruptedException e) {
+                siblingInterrupted.countDown();
+                throw e;
+            }
+        });
+        batch.submit(() -> {
+            assertTrue(siblingStarted.await(2, TimeUnit.SECONDS));
+            throw new IllegalStateException("items query failed");
+        });
+
+        ParallelLoader.LoadException e = assertThrows(ParallelLoader.LoadException.class, batch::await);
+        assertTrue(e.getCause() instanceof IllegalStateException);
+        assertTrue(siblingInterrupted.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testSaturatedPoolRunsOnCaller() {
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable block = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        executor.execute(block);
+        executor.execute(block);
+        executor.execute(() -> { });
+
+        String caller = Thread.currentThread().getName();
+        AtomicBoolean ranOnCaller = new AtomicBoolean();
+        try {
+            ParallelLoader.Batch batch = loader.batch();
+            CompletableFuture<String> result = batch.submit(() -> {
+                ranOnCaller.set(caller.equals(Thread.currentThread().getName()));
+                return "ok";
+            });
+            batch.await();
+            assertEquals("ok", result.join());
+        } finally {
+            release.countDown();
+        }
+
+        assertTrue(ranOnCaller.get());
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+}
@@ -0,0 +1,169 @@
+package com.pahanaedu.functional;
+
+import com.pahanaedu.model.Invoice;
+import com.pahanaedu.model.InvoiceItem;
+import com.pahanaedu.service.BillingService;
+import com.pahanaedu.service.ReceiptRenderer;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Functional tests for printable receipts.
+ * The fixtures were produced by the original String.format based implementation.
+ */
+public class ReceiptFunctionalTest {
+
+    private final ReceiptRenderer renderer = new ReceiptRenderer();
+
+    static Invoice sampleInvoice() {
+        Invoice invoice = new Invoice();
+        invoice.setInvoiceNumber("INV-20261018-0042");
+        invoice.setInvoiceDate(new Timestamp(1792310400000L + 45296000L));
+        invoice.setCustomerId(3);
+        invoice.setCustomerName("Nimal Perera");
+        invoice.setCashierName("Test Cashier");
+
+        List<InvoiceItem> items = new ArrayList<>();
+        items.add(item(1, 2, "2500.00", "10", "Clean Code"));
+        items.add(item(2, 1, "1800.5", "0", "Refactoring: Improving the Design of Existing Code"));
+        items.add(item(1, 5, "2500.00", "0", "Clean Code (duplicate)"));
+        items.add(item(4, 12345, "0.125", "33.333", "Exactly twenty-two ch"));
+        invoice.setItems(items);
+        invoice.calculateTotals();
+
+        invoice.setDiscountAmount(new BigDecimal("250.005"));
+        invoice.setTaxAmount(invoice.getSubtotal().multiply(BillingService.TAX_RATE));
+        invoice.setTotalAmount(invoice.getSubtotal().subtract(invoice.getDiscountAmount()).add(invoice.getTaxAmount()));
+        return invoice;
+    }
+
+    static Invoice walkInInvoice() {
+        Invoice invoice = new Invoice();
+        invoice.setInvoiceNumber("PREVIEW-1");
+        invoice.setInvoiceDate(new Timestamp(1792310400000L));
+        invoice.setCashierName("Admin");
+        invoice.setItems(new ArrayList<>(Collections.singletonList(item(9, 1, "950", "0", "Sinhala Reader"))));
+        invoice.calculateTotals();
+        return invoice;
+    }
+
+    private static InvoiceItem item(int bookId, int quantity, String price, String discount, String title) {
+        InvoiceItem item = new InvoiceItem(bookId, quantity, new BigDecimal(price), new BigDecimal(discount));
+        item.setBookTitle(title);
+        return item;
+    }
+
+    static String fixture(String name) throws IOException {
+        try (InputStream in = ReceiptFunctionalTest.class.getResourceAsStream("/fixtures/" + name)) {
+            assertNotNull(in, "Missing fixture " + name);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    static byte[] hexFixture(String name) throws IOException {
+        String hex = fixture(name).replaceAll("\\s+", "");
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+
+    private byte[] renderEscPos(Invoice invoice) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        renderer.renderEscPos(invoice, out);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testReceiptMatchesOriginalLayout() throws IOException {
+        assertEquals(fixture("receipt-full.txt"), renderer.render(sampleInvoice()));
+    }
+
+    @Test
+    public void testWalkInReceiptMatchesOriginalLayout() throws IOException {
+        assertEquals(fixture("receipt-walkin.txt"), renderer.render(walkInInvoice()));
+    }
+
+    @Test
+    public void testBillingServiceUsesRenderer() throws IOException {
+        assertEquals(fixture("receipt-full.txt"), new BillingService().generatePrintableBill(sampleInvoice()));
+    }
+
+    @Test
+    public void testDuplicateBooksArePrintedOnce() {
+        String receipt = renderer.render(sampleInvoice());
+
+        assertTrue(receipt.contains("Clean Code    "));
+        assertFalse(receipt.contains("duplicate"));
+    }
+
+    @Test
+    public void testRendererBufferIsReusedSafely() {
+        String first = renderer.render(sampleInvoice());
+        String second = renderer.render(walkInInvoice());
+        String third = renderer.render(sampleInvoice());
+
+        assertEquals(first, third);
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    public void testEscPosReceiptMatchesFixture() throws IOException {
+        assertArrayEquals(hexFixture("receipt-full.escpos.hex"), renderEscPos(sampleInvoice()));
+    }
+
+    @Test
+    public void testEscPosWalkInReceiptMatchesFixture() throws IOException {
+        assertArrayEquals(hexFixture("receipt-walkin.escpos.hex"), renderEscPos(walkInInvoice()));
+    }
+
+    @Test
+    public void testEscPosMatchesTextLayout() throws IOException {
+        byte[] bytes = renderEscPos(sampleInvoice());
+        String printable = new String(bytes, StandardCharsets.US_ASCII);
+
+        // Initialise printer first, feed and cut last
+        assertEquals(0x1B, bytes[0]);
+        assertEquals('@', bytes[1]);
+        assertTrue(printable.endsWith("\u001Bd\u0003\u001DVB\u0000"));
+
+        for (String line : renderer.render(sampleInvoice()).split("\n")) {
+            assertTrue(printable.contains(line.trim()), "Missing line: " + line);
+        }
+    }
+
+    @Test
+    public void testEscPosReplacesUnprintableCharacters() throws IOException {
+        Invoice invoice = walkInInvoice();
+        invoice.getItems().get(0).setBookTitle("\u0dc3\u0dd2\u0d82\u0dc4\u0dbd Reader");
+
+        String printable = new String(renderEscPos(invoice), StandardCharsets.US_ASCII);
+
+        assertTrue(printable.contains("????? Reader"));
+    }
+
+    @Test
+    public void testNegativeAndMissingValues() {
+        Invoice invoice = walkInInvoice();
+        invoice.setInvoiceDate(null);
+        invoice.getItems().get(0).setBookTitle(null);
+        invoice.setTotalAmount(new BigDecimal("-12.345"));
+
+        String receipt = renderer.render(invoice);
+
+        assertTrue(receipt.contains("Date: N/A\n"));
+        assertTrue(receipt.contains("TOTAL:                             -12.35\n"));
+    }
+}
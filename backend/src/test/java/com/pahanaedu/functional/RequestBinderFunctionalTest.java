@@ -0,0 +1,195 @@
+package com.pahanaedu.functional;
+
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.pahanaedu.model.Book;
+import com.pahanaedu.utils.RequestBinder;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Functional tests for binding JSON request bodies from the input stream
+ */
+public class RequestBinderFunctionalTest {
+
+    /**
+     * A request whose body is produced on demand, optionally without a Content-Length
+     */
+    private static HttpServletRequest request(InputStream body, long contentLength) {
+        ServletInputStream input = new ServletInputStream() {
+            @Override
+            public boolean isFinished() {
+                return false;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+            }
+
+            @Override
+            public int read() throws IOException {
+                return body.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return body.read(b, off, len);
+            }
+        };
+        return (HttpServletRequest) Proxy.newProxyInstance(RequestBinderFunctionalTest.class.getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getInputStream":
+                            return input;
+                        case "getContentLengthLong":
+                            return contentLength;
+                        case "getContentLength":
+                            return (int) contentLength;
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private static HttpServletRequest request(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return request(new ByteArrayInputStream(bytes), bytes.length);
+    }
+
+    /**
+     * An object holding an endless array of strings, counting how many bytes were asked for
+     */
+    private static class EndlessArray extends InputStream {
+        private final byte[] start = "{\"items\":[".getBytes(StandardCharsets.UTF_8);
+        private final byte[] element = "\"Sinhala Grammar for grade eleven students\",".getBytes(StandardCharsets.UTF_8);
+        private long served;
+
+        @Override
+        public int read() {
+            int b = served < start.length
+                    ? start[(int) served] : element[(int) ((served - start.length) % element.length)];
+            served++;
+            return b;
+        }
+    }
+
+    private static boolean readBook(Book book, String name, JsonReader in) throws IOException {
+        switch (name) {
+            case "title":
+                book.setTitle(RequestBinder.readText(in, "Book title is required"));
+                return true;
+            case "price":
+                book.setPrice(RequestBinder.readAmount(in, "Book price must be zero or more"));
+                return true;
+            case "categoryId":
+                book.setCategoryId(RequestBinder.readPositiveInt(in, "Category ID must be a positive number"));
+                return true;
+            case "publicationYear":
+                book.setPublicationYear(RequestBinder.readInteger(in));
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Test
+    public void testBindsFieldsAndSkipsUnknownOnes() throws Exception {
+        Book book = new Book();
+        RequestBinder.bind(request("{\"title\":\"Sinhala Grammar\",\"tags\":[{\"a\":[1,2]},\"x\"],"
+                + "\"price\":\"1200.50\",\"categoryId\":3,\"publicationYear\":null,\"extra\":{\"deep\":true}}"),
+                (name, in) -> readBook(book, name, in));
+
+        assertEquals("Sinhala Grammar", book.getTitle());
+        assertEquals(new BigDecimal("1200.50"), book.getPrice());
+        assertEquals(3, book.getCategoryId());
+        assertNull(book.getPublicationYear());
+    }
+
+    @Test
+    public void testInvalidValuesAreRejectedWhileParsing() {
+        String[][] cases = {
+                {"{\"title\":\"  \"}", "Book title is required"},
+                {"{\"price\":-1}", "Book price must be zero or more"},
+                {"{\"price\":\"cheap\"}", "Expected a number at $.price"},
+                {"{\"categoryId\":1.5}", "Expected a whole number at $.categoryId"},
+                {"{\"title\":{\"text\":\"x\"}}", "Expected text at $.title"},
+                {"[1,2]", "Request body must be a JSON object"},
+                {"{\"title\":\"x\"", "Request body is incomplete or empty"},
+                {"", "Request body is incomplete or empty"},
+                {"{\"title\" \"x\"}", "Invalid JSON format at $.title"},
+                {"{\"title\":\"x\"} {}", "Unexpected content after the JSON object"},
+        };
+        for (String[] c : cases) {
+            RequestBinder.BindingException e = assertThrows(RequestBinder.BindingException.class,
+                    () -> RequestBinder.bind(request(c[0]), (name, in) -> readBook(new Book(), name, in)), c[0]);
+            assertEquals(400, e.getStatus(), c[0]);
+            assertEquals(c[1], e.getMessage(), c[0]);
+        }
+    }
+
+    @Test
+    public void testOversizedBodyStopsReading() {
+        // Declared too large: refused before reading anything
+        EndlessArray declared = new EndlessArray();
+        RequestBinder.BindingException e = assertThrows(RequestBinder.BindingException.class,
+                () -> RequestBinder.bind(request(declared, 50L * 1024 * 1024), (name, in) -> false));
+        assertEquals(413, e.getStatus());
+        assertEquals(0, declared.served);
+
+        // No Content-Length: reading stops just past the limit
+        EndlessArray streamed = new EndlessArray();
+        e = assertThrows(RequestBinder.BindingException.class,
+                () -> RequestBinder.bind(request(streamed, -1), (name, in) -> false));
+        assertEquals(413, e.getStatus());
+        assertTrue(streamed.served < 1024 * 1024 + 64 * 1024, "read " + streamed.served + " bytes");
+
+        // The same limit applies to tree reads
+        assertThrows(RequestBinder.BindingException.class,
+                () -> RequestBinder.readTree(request(new EndlessArray(), -1)));
+    }
+
+    @Test
+    public void testArraysAreCapped() throws Exception {
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < 1001; i++) {
+            json.append(i > 0 ? "," : "").append(i);
+        }
+        json.append("]}");
+
+        RequestBinder.BindingException e = assertThrows(RequestBinder.BindingException.class,
+                () -> RequestBinder.bind(request(json.toString()),
+                        (name, in) -> RequestBinder.readArray(in, RequestBinder::readInteger) != null));
+        assertEquals(413, e.getStatus());
+
+        Object[] items = new Object[1];
+        RequestBinder.bind(request("{\"items\":[3,1,2]}"), (name, in) -> {
+            items[0] = RequestBinder.readArray(in, RequestBinder::readInteger);
+            return true;
+        });
+        assertEquals(List.of(3, 1, 2), items[0]);
+    }
+
+    @Test
+    public void testTreeReadOfEmptyBody() throws Exception {
+        assertEquals(new JsonObject(), RequestBinder.readTree(request(" \n")));
+        assertEquals(2, RequestBinder.readTree(request("{\"quantity\":2}")).get("quantity").getAsInt());
+        assertThrows(RequestBinder.BindingException.class, () -> RequestBinder.readTree(request("[1]")));
+    }
+}
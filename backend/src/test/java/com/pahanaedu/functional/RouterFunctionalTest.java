@@ -0,0 +1,253 @@
+package com.pahanaedu.functional;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.pahanaedu.controller.ApiController;
+import com.pahanaedu.controller.ApiDispatcherServlet;
+import com.pahanaedu.controller.Route;
+import com.pahanaedu.controller.RouteContext;
+import com.pahanaedu.controller.Router;
+import com.pahanaedu.model.User;
+import com.pahanaedu.utils.ApiResponses;
+import com.pahanaedu.utils.RequestBinder;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Functional tests for the route table and the API dispatcher
+ */
+public class RouterFunctionalTest {
+
+    private static Router bookRoutes() {
+        Router router = new Router();
+        router.get("/books", (request, response, route) -> { });
+        router.get("/books/{id:int}", (request, response, route) -> { });
+        router.get("/books/isbn/{isbn}", (request, response, route) -> { });
+        router.get("/books/changes", (request, response, route) -> { });
+        router.put("/books/{id:int}", (request, response, route) -> { });
+        router.delete("/books/{id:int}", (request, response, route) -> { });
+        router.post("/carts/{id}/checkout", (request, response, route) -> { });
+        return router;
+    }
+
+    @Test
+    public void testTypedParametersAndLiteralPrecedence() {
+        Router router = bookRoutes();
+
+        RouteContext byId = router.match("GET", "/books/42");
+        assertEquals("/books/{id:int}", byId.getRoute().getPattern());
+        assertEquals(42, byId.getInt("id"));
+
+        RouteContext changes = router.match("GET", "/books/changes");
+        assertEquals("/books/changes", changes.getRoute().getPattern());
+
+        RouteContext byIsbn = router.match("GET", "/books/isbn/978-955-1234");
+        assertEquals("978-955-1234", byIsbn.get("isbn"));
+
+        RouteContext checkout = router.match("POST", "/carts/5f0c-a1/checkout");
+        assertEquals("5f0c-a1", checkout.get("id"));
+
+        // Only digits match an int parameter, up to the int range
+        assertNull(router.match("GET", "/books/abc"));
+        assertNull(router.match("GET", "/books/-1"));
+        assertNull(router.match("GET", "/books/99999999999"));
+        assertNull(router.match("GET", "/authors"));
+        assertNull(router.match("GET", "/books/42/extra"));
+    }
+
+    @Test
+    public void testSlashesAreIgnoredAndOtherMethodsReported() {
+        Router router = bookRoutes();
+
+        assertEquals("/books", router.match("GET", "/books/").getRoute().getPattern());
+        assertEquals(7, router.match("PUT", "//books/7/").getInt("id"));
+
+        RouteContext post = router.match("POST", "/books/7");
+        assertNotNull(post);
+        assertNull(post.getRoute());
+        assertEquals("GET, PUT, DELETE", post.getAllowedMethods());
+    }
+
+    @Test
+    public void testInvalidRoutesAreRejected() {
+        Router router = bookRoutes();
+        assertThrows(IllegalArgumentException.class, () -> router.get("/books/{bookId:int}", (q, r, c) -> { }));
+        assertThrows(IllegalArgumentException.class, () -> router.get("/books/{id:uuid}/x", (q, r, c) -> { }));
+        assertThrows(IllegalArgumentException.class, () -> router.get("/a/{id}/{id}", (q, r, c) -> { }));
+    }
+
+    /**
+     * Two routes with the same controller and access rules as the real ones
+     */
+    private static final class EchoController implements ApiController {
+        @Override
+        public void registerRoutes(Router router) {
+            router.get("/echo/{id:int}", (request, response, route) -> {
+                if (route.getInt("id") == 0) {
+                    throw new RequestBinder.BindingException("ID must be positive");
+                }
+                if (route.getInt("id") == 13) {
+                    throw new IllegalStateException("unlucky");
+                }
+                JsonObject json = new JsonObject();
+                json.addProperty("id", route.getInt("id"));
+                json.addProperty("user", route.getUser().getUsername());
+                ApiResponses.sendJson(response, json);
+            });
+            router.delete("/echo/{id:int}", (request, response, route) -> ApiResponses.sendJson(response, "{}"))
+                    .adminOnly("Only administrators can delete echoes");
+        }
+    }
+
+    private static final class Exchange {
+        private final Map<String, String> headers = new HashMap<>();
+        private final StringWriter body = new StringWriter();
+        private int status = HttpServletResponse.SC_OK;
+
+        JsonObject json() {
+            return JsonParser.parseString(body.toString()).getAsJsonObject();
+        }
+    }
+
+    private static Exchange send(ApiDispatcherServlet servlet, String method, String path, User user)
+            throws Exception {
+        Exchange exchange = new Exchange();
+        PrintWriter writer = new PrintWriter(exchange.body);
+        HttpSession session = user == null ? null : (HttpSession) Proxy.newProxyInstance(
+                RouterFunctionalTest.class.getClassLoader(), new Class<?>[]{HttpSession.class},
+                (proxy, m, args) -> "getAttribute".equals(m.getName()) ? user : null);
+
+        HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(
+                RouterFunctionalTest.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class},
+                (proxy, m, args) -> {
+                    switch (m.getName()) {
+                        case "getMethod":
+                            return method;
+                        case "getServletPath":
+                            return path;
+                        case "getSession":
+                            return session;
+                        case "getProtocol":
+                            return "HTTP/1.1";
+                        case "isAsyncStarted":
+                            return false;
+                        case "getDateHeader":
+                            return -1L;
+                        default:
+                            return null;
+                    }
+                });
+        HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(
+                RouterFunctionalTest.class.getClassLoader(), new Class<?>[]{HttpServletResponse.class},
+                (proxy, m, args) -> {
+                    switch (m.getName()) {
+                        case "setStatus":
+                            exchange.status = (Integer) args[0];
+                            return null;
+                        case "getStatus":
+                            return exchange.status;
+                        case "setHeader":
+                            exchange.headers.put((String) args[0], (String) args[1]);
+                            return null;
+                        case "getWriter":
+                            return writer;
+                        case "isCommitted":
+                            return false;
+                        case "resetBuffer":
+                            exchange.body.getBuffer().setLength(0);
+                            return null;
+                        default:
+                            return null;
+                    }
+                });
+
+        servlet.service(request, response);
+        return exchange;
+    }
+
+    private static User user(String role) {
+        User user = new User();
+        user.setUsername(role.toLowerCase());
+        user.setRole(role);
+        return user;
+    }
+
+    @Test
+    public void testDispatcherChecksAccessAndSharesTheErrorBody() throws Exception {
+        ApiDispatcherServlet servlet = new ApiDispatcherServlet(new EchoController());
+        servlet.init();
+        User cashier = user("CASHIER");
+
+        Exchange ok = send(servlet, "GET", "/echo/7", cashier);
+        assertEquals(200, ok.status);
+        assertEquals(7, ok.json().get("id").getAsInt());
+        assertEquals("cashier", ok.json().get("user").getAsString());
+
+        Exchange anonymous = send(servlet, "GET", "/echo/7", null);
+        assertEquals(401, anonymous.status);
+        assertEquals("Authentication required", anonymous.json().get("message").getAsString());
+
+        Exchange forbidden = send(servlet, "DELETE", "/echo/7", cashier);
+        assertEquals(403, forbidden.status);
+        assertEquals("Only administrators can delete echoes", forbidden.json().get("message").getAsString());
+        assertEquals(200, send(servlet, "DELETE", "/echo/7", user("ADMIN")).status);
+
+        Exchange invalid = send(servlet, "GET", "/echo/0", cashier);
+        assertEquals(400, invalid.status);
+        assertEquals("error", invalid.json().get("status").getAsString());
+        assertEquals("ID must be positive", invalid.json().get("message").getAsString());
+
+        Exchange failed = send(servlet, "GET", "/echo/13", cashier);
+        assertEquals(500, failed.status);
+        assertEquals("Error processing request: unlucky", failed.json().get("message").getAsString());
+
+        Exchange missing = send(servlet, "GET", "/echo/abc", cashier);
+        assertEquals(404, missing.status);
+        assertEquals("No resource at /echo/abc", missing.json().get("message").getAsString());
+
+        Exchange wrongMethod = send(servlet, "PUT", "/echo/7", cashier);
+        assertEquals(405, wrongMethod.status);
+        assertEquals("GET, DELETE", wrongMethod.headers.get("Allow"));
+    }
+
+    @Test
+    public void testDispatcherRecordsMetricsPerRoute() throws Exception {
+        ApiDispatcherServlet servlet = new ApiDispatcherServlet(new EchoController());
+        servlet.init();
+        User cashier = user("CASHIER");
+
+        send(servlet, "GET", "/echo/1", cashier);
+        send(servlet, "GET", "/echo/2", cashier);
+        send(servlet, "GET", "/echo/0", cashier);
+        send(servlet, "GET", "/echo/13", cashier);
+        send(servlet, "PUT", "/echo/1", cashier);
+
+        Route echo = servlet.getRouter().match("GET", "/echo/1").getRoute();
+        assertEquals(4, echo.getRequests());
+        assertEquals(1, echo.getClientErrors());
+        assertEquals(1, echo.getServerErrors());
+        assertTrue(echo.getMaxMillis() >= echo.getMeanMillis());
+
+        assertEquals(403, send(servlet, "GET", "/metrics/routes", cashier).status);
+        Exchange metrics = send(servlet, "GET", "/metrics/routes", user("ADMIN"));
+        assertEquals(200, metrics.status);
+        assertEquals("no-store", metrics.headers.get("Cache-Control"));
+
+        JsonArray routes = metrics.json().getAsJsonArray("routes");
+        JsonObject first = routes.get(0).getAsJsonObject();
+        assertEquals("GET", first.get("method").getAsString());
+        assertEquals("/echo/{id:int}", first.get("pattern").getAsString());
+        assertEquals(4, first.get("requests").getAsLong());
+    }
+}
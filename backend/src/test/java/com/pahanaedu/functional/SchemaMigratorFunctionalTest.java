@@ -0,0 +1,271 @@
+package com.pahanaedu.functional;
+
+import com.pahanaedu.utils.SchemaMigrator;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Functional tests for versioned schema migrations and the SQL script splitter
+ */
+public class SchemaMigratorFunctionalTest {
+
+    /**
+     * Serves scripts from memory instead of the classpath
+     */
+    private static final class Scripts extends ClassLoader {
+        private final Map<String, String> files = new HashMap<>();
+
+        Scripts put(String name, String content) {
+            files.put(name, content);
+            return this;
+        }
+
+        @Override
+        public InputStream getResourceAsStream(String name) {
+            String content = files.get(name);
+            return content == null ? null : new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Records statements and keeps schema_version rows and a users count
+     */
+    private static final class FakeDatabase {
+        private final List<String> executed = new ArrayList<>();
+        private final Map<Integer, String> versions = new LinkedHashMap<>();
+        private boolean usersTable;
+        private long users;
+        private int commits;
+
+        Connection connection() {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "createStatement":
+                                return statement();
+                            case "prepareStatement":
+                                return preparedStatement((String) args[0]);
+                            case "getAutoCommit":
+                                return true;
+                            case "commit":
+                                commits++;
+                                return null;
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        private Statement statement() {
+            return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{Statement.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "execute":
+                                String sql = (String) args[0];
+                                executed.add(sql);
+                                if (sql.startsWith("CREATE TABLE IF NOT EXISTS users")) {
+                                    usersTable = true;
+                                } else if (sql.startsWith("INSERT INTO users")) {
+                                    users++;
+                                }
+                                return false;
+                            case "executeQuery":
+                                String query = (String) args[0];
+                                if (query.startsWith("SELECT COUNT(*) FROM users")) {
+                                    if (!usersTable) {
+                                        throw new SQLException("Table 'users' doesn't exist");
+                                    }
+                                    return resultSet(Arrays.<Map<String, Object>>asList(row(1, users)));
+                                }
+                                List<Map<String, Object>> rows = new ArrayList<>();
+                                versions.forEach((version, checksum) -> {
+                                    Map<String, Object> row = new HashMap<>();
+                                    row.put("version", version);
+                                    row.put("checksum", checksum);
+                                    rows.add(row);
+                                });
+                                return resultSet(rows);
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        private PreparedStatement preparedStatement(String sql) {
+            Map<Integer, Object> parameters = new HashMap<>();
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "setInt":
+                            case "setString":
+                                parameters.put((Integer) args[0], args[1]);
+                                return null;
+                            case "executeUpdate":
+                                versions.put((Integer) parameters.get(1), (String) parameters.get(4));
+                                return 1;
+                            case "executeQuery":
+                                // GET_LOCK and RELEASE_LOCK succeed
+                                return resultSet(Arrays.<Map<String, Object>>asList(row(1, 1)));
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        private static Map<String, Object> row(int column, Object value) {
+            Map<String, Object> row = new HashMap<>();
+            row.put(String.valueOf(column), value);
+            return row;
+        }
+
+        private ResultSet resultSet(List<Map<String, Object>> rows) {
+            Iterator<Map<String, Object>> iterator = rows.iterator();
+            Object[] current = new Object[1];
+            return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                        @SuppressWarnings("unchecked")
+                        Map<String, Object> row = (Map<String, Object>) current[0];
+                        switch (method.getName()) {
+                            case "next":
+                                current[0] = iterator.hasNext() ? iterator.next() : null;
+                                return current[0] != null;
+                            case "getInt":
+                                return ((Number) row.get(String.valueOf(args[0]))).intValue();
+                            case "getLong":
+                                return ((Number) row.get(String.valueOf(args[0]))).longValue();
+                            case "getString":
+                                return row.get(String.valueOf(args[0]));
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        long migrationStatements() {
+            return executed.stream().filter(sql -> !sql.startsWith("CREATE TABLE IF NOT EXISTS schema_version")).count();
+        }
+    }
+
+    private static Scripts twoVersions() {
+        return new Scripts()
+                .put("db/migration/migrations.txt", "# applied in order\nV1__baseline.sql\n\nV2__add_book_notes.sql\n")
+                .put("db/migration/V1__baseline.sql", "CREATE TABLE IF NOT EXISTS users (id INT);\n"
+                        + "CREATE TABLE IF NOT EXISTS books (id INT);\n")
+                .put("db/migration/V2__add_book_notes.sql", "ALTER TABLE books ADD COLUMN notes TEXT;")
+                .put("db/seed/demo-data.sql", "INSERT INTO users (id) VALUES (1);\nINSERT INTO books (id) VALUES (1);");
+    }
+
+    @Test
+    public void testEmptyDatabaseIsMigratedAndSeededOnce() throws Exception {
+        FakeDatabase database = new FakeDatabase();
+        SchemaMigrator migrator = new SchemaMigrator(twoVersions(), "db/migration", "db/seed/demo-data.sql");
+
+        assertEquals(2, migrator.migrate(database.connection()));
+        assertEquals(Arrays.asList(1, 2), new ArrayList<>(database.versions.keySet()));
+        assertEquals(migrator.loadMigrations().get(1).getChecksum(), database.versions.get(2));
+        assertEquals(Arrays.asList(
+                "CREATE TABLE IF NOT EXISTS users (id INT)",
+                "CREATE TABLE IF NOT EXISTS books (id INT)",
+                "ALTER TABLE books ADD COLUMN notes TEXT",
+                "INSERT INTO users (id) VALUES (1)",
+                "INSERT INTO books (id) VALUES (1)"),
+                database.executed.subList(1, database.executed.size()));
+        assertEquals(3, database.commits);
+
+        // A current schema runs nothing but the version check
+        long before = database.migrationStatements();
+        assertEquals(0, migrator.migrate(database.connection()));
+        assertEquals(before, database.migrationStatements());
+        assertEquals(1, database.users);
+    }
+
+    @Test
+    public void testExistingDatabaseAdoptsBaselineWithoutSeed() throws Exception {
+        FakeDatabase database = new FakeDatabase();
+        database.usersTable = true;
+        database.users = 3;
+
+        new SchemaMigrator(twoVersions(), "db/migration", "db/seed/demo-data.sql").migrate(database.connection());
+
+        assertEquals(2, database.versions.size());
+        assertTrue(database.executed.stream().noneMatch(sql -> sql.startsWith("INSERT")));
+        assertEquals(3, database.users);
+    }
+
+    @Test
+    public void testNewVersionIsAppliedAndChangedScriptsAreRejected() throws Exception {
+        FakeDatabase database = new FakeDatabase();
+        Scripts scripts = twoVersions().put("db/migration/migrations.txt", "V1__baseline.sql\n");
+        new SchemaMigrator(scripts, "db/migration", null).migrate(database.connection());
+        assertEquals(1, database.versions.size());
+
+        scripts.put("db/migration/migrations.txt", "V1__baseline.sql\nV2__add_book_notes.sql\n");
+        assertEquals(1, new SchemaMigrator(scripts, "db/migration", null).migrate(database.connection()));
+        assertEquals("ALTER TABLE books ADD COLUMN notes TEXT", database.executed.get(database.executed.size() - 1));
+
+        scripts.put("db/migration/V1__baseline.sql", "CREATE TABLE IF NOT EXISTS users (id BIGINT);");
+        assertThrows(IllegalStateException.class,
+                () -> new SchemaMigrator(scripts, "db/migration", null).migrate(database.connection()));
+
+        scripts.put("db/migration/migrations.txt", "V2__add_book_notes.sql\nV1__baseline.sql\n");
+        assertThrows(IOException.class, () -> new SchemaMigrator(scripts, "db/migration", null).loadMigrations());
+        scripts.put("db/migration/migrations.txt", "baseline.sql\n");
+        assertThrows(IOException.class, () -> new SchemaMigrator(scripts, "db/migration", null).loadMigrations());
+    }
+
+    @Test
+    public void testSplitsOnSemicolonsOutsideQuotesAndComments() {
+        List<String> statements = SchemaMigrator.splitStatements(
+                "-- header; with a semicolon\n"
+                        + "INSERT INTO notes VALUES ('a;b', 'it''s', \"x\\\";y\", `odd;name`); # trailing; comment\n"
+                        + "/* block; comment */ UPDATE books SET price = 1;\n"
+                        + "SELECT 5--1;\n"
+                        + ";;  \n");
+
+        assertEquals(Arrays.asList(
+                "INSERT INTO notes VALUES ('a;b', 'it''s', \"x\\\";y\", `odd;name`)",
+                "UPDATE books SET price = 1",
+                "SELECT 5--1"), statements);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> SchemaMigrator.splitStatements("DELIMITER $$\nCREATE TRIGGER t BEGIN END$$"));
+    }
+
+    @Test
+    public void testApplicationScriptsLoad() throws Exception {
+        SchemaMigrator migrator = SchemaMigrator.fromClasspath();
+        List<SchemaMigrator.Migration> migrations = migrator.loadMigrations();
+
+        assertEquals(1, migrations.get(0).getVersion());
+        assertEquals("baseline schema", migrations.get(0).getDescription());
+        assertEquals(64, migrations.get(0).getChecksum().length());
+        assertEquals("default admin", migrations.get(1).getDescription());
+
+        FakeDatabase database = new FakeDatabase();
+        new SchemaMigrator(getClass().getClassLoader(), "db/migration", "db/seed/demo-data.sql")
+                .migrate(database.connection());
+        long tables = database.executed.stream().filter(sql -> sql.startsWith("CREATE TABLE")).count();
+        long inserts = database.executed.stream().filter(sql -> sql.startsWith("INSERT INTO")).count();
+        assertEquals(11, tables);
+        assertEquals(8, inserts);
+    }
+}
@@ -0,0 +1,312 @@
+package com.pahanaedu.functional;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.pahanaedu.controller.ApiDispatcherServlet;
+import com.pahanaedu.controller.SqlProfileController;
+import com.pahanaedu.model.User;
+import com.pahanaedu.utils.SqlProfiler;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Functional tests for the SQL profiler and GET /metrics/sql
+ */
+public class SqlProfilerFunctionalTest {
+
+    /**
+     * A connection whose queries return {@code rows} rows, each taking {@code rowMillis} to fetch
+     */
+    private static Connection fakeConnection(int rows, long rowMillis) {
+        return (Connection) Proxy.newProxyInstance(SqlProfilerFunctionalTest.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (connection, m, args) -> {
+                    switch (m.getName()) {
+                        case "prepareStatement":
+                            return fakeStatement(PreparedStatement.class, rows, rowMillis);
+                        case "createStatement":
+                            return fakeStatement(Statement.class, rows, rowMillis);
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private static Object fakeStatement(Class<?> type, int rows, long rowMillis) {
+        return Proxy.newProxyInstance(SqlProfilerFunctionalTest.class.getClassLoader(), new Class<?>[]{type},
+                (statement, m, args) -> {
+                    switch (m.getName()) {
+                        case "executeQuery":
+                            return fakeResultSet(rows, rowMillis);
+                        case "executeUpdate":
+                            return 2;
+                        case "execute":
+                            throw new SQLException("Deadlock found");
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private static ResultSet fakeResultSet(int rows, long rowMillis) {
+        AtomicInteger read = new AtomicInteger();
+        return (ResultSet) Proxy.newProxyInstance(SqlProfilerFunctionalTest.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (resultSet, m, args) -> {
+                    if ("next".equals(m.getName())) {
+                        Thread.sleep(rowMillis);
+                        return read.incrementAndGet() <= rows;
+                    }
+                    return null;
+                });
+    }
+
+    @Test
+    public void testStatementsAreNormalisedAndTotalled() throws Exception {
+        ExecutorService explains = Executors.newSingleThreadExecutor();
+        SqlProfiler profiler = new SqlProfiler(true, 60000, 5, (sql, parameters) -> null, explains);
+
+        try (Connection conn = profiler.wrap(fakeConnection(3, 0))) {
+            for (int id = 1; id <= 4; id++) {
+                try (PreparedStatement stmt = conn.prepareStatement("SELECT *  FROM books\n WHERE id = ?")) {
+                    stmt.setInt(1, id);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            assertNull(rs.getString("title"));
+                        }
+                    }
+                }
+            }
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeQuery("SELECT * FROM books WHERE id IN (1, 2, 3) AND title = 'It''s'").close();
+                stmt.executeQuery("SELECT * FROM books WHERE id IN (7) AND title = \"Dune\"").close();
+            }
+            try (PreparedStatement stmt = conn.prepareStatement("UPDATE books SET stock_quantity = ? WHERE id = ?")) {
+                stmt.setInt(1, 5);
+                stmt.setInt(2, 1);
+                assertEquals(2, stmt.executeUpdate());
+                assertThrows(SQLException.class, stmt::execute);
+            }
+        }
+
+        Map<String, SqlProfiler.Statistics> bySql = new LinkedHashMap<>();
+        for (SqlProfiler.Statistics statement : profiler.getStatements()) {
+            bySql.put(statement.getSql(), statement);
+        }
+        SqlProfiler.Statistics byId = bySql.get("SELECT * FROM books WHERE id = ?");
+        assertEquals(4, byId.getExecutions());
+        assertEquals(12, byId.getRows());
+
+        SqlProfiler.Statistics literals = bySql.get("SELECT * FROM books WHERE id IN (?) AND title = ?");
+        assertEquals(2, literals.getExecutions());
+
+        SqlProfiler.Statistics update = bySql.get("UPDATE books SET stock_quantity = ? WHERE id = ?");
+        assertEquals(2, update.getExecutions());
+        assertEquals(1, update.getErrors());
+        assertEquals(2, update.getRows());
+
+        // Nothing was slow
+        assertTrue(profiler.getSlowest().isEmpty());
+        profiler.reset();
+        assertTrue(profiler.getStatements().isEmpty());
+        explains.shutdownNow();
+    }
+
+    @Test
+    public void testSlowestQueriesKeepParametersAndPlans() throws Exception {
+        List<String> explained = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService explains = Executors.newSingleThreadExecutor();
+        SqlProfiler profiler = new SqlProfiler(true, 5, 2, (sql, parameters) -> {
+            explained.add(sql + " " + Arrays.toString(parameters));
+            Map<String, String> row = new LinkedHashMap<>();
+            row.put("table", "b");
+            row.put("type", "ALL");
+            return Collections.singletonList(row);
+        }, explains);
+
+        try (Connection conn = profiler.wrap(fakeConnection(2, 5))) {
+            for (String term : new String[]{"%dune%", "%emma%", "%ivanhoe%"}) {
+                try (PreparedStatement stmt = conn.prepareStatement("SELECT * FROM books WHERE title LIKE ?")) {
+                    stmt.setString(1, term);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        int read = 0;
+                        while (rs.next()) {
+                            read++;
+                        }
+                        assertEquals(2, read);
+                    }
+                }
+            }
+            // Closing the statement without the result set still records the fetch
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT * FROM users WHERE password = ?")) {
+                stmt.setString(1, "hash");
+                ResultSet rs = stmt.executeQuery();
+                assertTrue(rs.next());
+                assertTrue(rs.next());
+                assertFalse(rs.next());
+            }
+        }
+        explains.shutdown();
+        assertTrue(explains.awaitTermination(5, TimeUnit.SECONDS));
+
+        List<SqlProfiler.SlowQuery> slowest = profiler.getSlowest();
+        assertEquals(2, slowest.size());
+        assertTrue(slowest.get(0).getFetchMillis() >= slowest.get(1).getFetchMillis());
+        for (SqlProfiler.SlowQuery query : slowest) {
+            assertEquals(2, query.getRows());
+            assertTrue(query.getFetchMillis() >= 10);
+        }
+
+        SqlProfiler.Statistics search = profiler.getStatements().stream()
+                .filter(s -> s.getSql().contains("LIKE")).findFirst().orElseThrow(AssertionError::new);
+        assertEquals(3, search.getExecutions());
+        assertEquals("ALL", search.getPlan().get(0).get("type"));
+
+        // Each statement is explained once, with the parameters of its first slow execution
+        assertTrue(explained.contains("SELECT * FROM books WHERE title LIKE ? [%dune%]"));
+        assertEquals(2, explained.size());
+
+        SqlProfiler.Statistics login = profiler.getStatements().stream()
+                .filter(s -> s.getSql().contains("password")).findFirst().orElseThrow(AssertionError::new);
+        assertEquals(1, login.getExecutions());
+        assertEquals(2, login.getRows());
+    }
+
+    @Test
+    public void testPasswordParametersAreRedacted() throws Exception {
+        ExecutorService explains = Executors.newSingleThreadExecutor();
+        SqlProfiler profiler = new SqlProfiler(true, 0, 5, (sql, parameters) -> null, explains);
+
+        try (Connection conn = profiler.wrap(fakeConnection(0, 0));
+             PreparedStatement stmt = conn.prepareStatement("UPDATE users SET password = ? WHERE id = ?")) {
+            stmt.setString(1, "$2a$10$secret");
+            stmt.setNull(2, java.sql.Types.INTEGER);
+            stmt.executeUpdate();
+        }
+        try (Connection conn = profiler.wrap(fakeConnection(0, 0));
+             PreparedStatement stmt = conn.prepareStatement("UPDATE books SET title = ? WHERE id = ?")) {
+            stmt.setString(1, "Dune");
+            stmt.setNull(2, java.sql.Types.INTEGER);
+            stmt.executeUpdate();
+        }
+
+        for (SqlProfiler.SlowQuery query : profiler.getSlowest()) {
+            if (query.getStatement().getSql().contains("password")) {
+                assertEquals(Arrays.asList("[redacted]", "[redacted]"), query.getParameters());
+            } else {
+                assertEquals(Arrays.asList("Dune", "NULL"), query.getParameters());
+            }
+        }
+        assertEquals(2, profiler.getSlowest().size());
+        explains.shutdownNow();
+    }
+
+    private static JsonObject get(ApiDispatcherServlet servlet, String method, String role, int expectedStatus)
+            throws Exception {
+        StringWriter body = new StringWriter();
+        PrintWriter writer = new PrintWriter(body);
+        int[] status = {HttpServletResponse.SC_OK};
+        User user = new User();
+        user.setUsername("tester");
+        user.setRole(role);
+        HttpSession session = (HttpSession) Proxy.newProxyInstance(
+                SqlProfilerFunctionalTest.class.getClassLoader(), new Class<?>[]{HttpSession.class},
+                (proxy, m, args) -> "getAttribute".equals(m.getName()) ? user : null);
+
+        HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(
+                SqlProfilerFunctionalTest.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class},
+                (proxy, m, args) -> {
+                    switch (m.getName()) {
+                        case "getMethod":
+                            return method;
+                        case "getServletPath":
+                            return "/metrics/sql";
+                        case "getSession":
+                            return session;
+                        case "getProtocol":
+                            return "HTTP/1.1";
+                        case "isAsyncStarted":
+                            return false;
+                        case "getDateHeader":
+                            return -1L;
+                        default:
+                            return null;
+                    }
+                });
+        HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(
+                SqlProfilerFunctionalTest.class.getClassLoader(), new Class<?>[]{HttpServletResponse.class},
+                (proxy, m, args) -> {
+                    switch (m.getName()) {
+                        case "setStatus":
+                            status[0] = (Integer) args[0];
+                            return null;
+                        case "getStatus":
+                            return status[0];
+                        case "getWriter":
+                            return writer;
+                        case "isCommitted":
+                            return false;
+                        default:
+                            return null;
+                    }
+                });
+
+        servlet.service(request, response);
+        writer.flush();
+        assertEquals(expectedStatus, status[0]);
+        return JsonParser.parseString(body.toString()).getAsJsonObject();
+    }
+
+    @Test
+    public void testProfileIsForAdministrators() throws Exception {
+        ExecutorService explains = Executors.newSingleThreadExecutor();
+        SqlProfiler profiler = new SqlProfiler(true, 0, 5, (sql, parameters) -> null, explains);
+        try (Connection conn = profiler.wrap(fakeConnection(1, 0));
+             PreparedStatement stmt = conn.prepareStatement("SELECT * FROM customers WHERE account_number = ?")) {
+            stmt.setString(1, "ACC-0001");
+            try (ResultSet rs = stmt.executeQuery()) {
+                assertTrue(rs.next());
+            }
+        }
+        ApiDispatcherServlet servlet = new ApiDispatcherServlet(new SqlProfileController(profiler));
+        servlet.init();
+
+        get(servlet, "GET", "CASHIER", 403);
+
+        JsonObject profile = get(servlet, "GET", "ADMIN", 200);
+        assertEquals(0, profile.get("slowQueryMillis").getAsLong());
+        JsonArray statements = profile.getAsJsonArray("statements");
+        assertEquals(1, statements.size());
+        assertEquals("SELECT * FROM customers WHERE account_number = ?",
+                statements.get(0).getAsJsonObject().get("sql").getAsString());
+        assertEquals(1, statements.get(0).getAsJsonObject().get("rows").getAsLong());
+        JsonObject slow = profile.getAsJsonArray("slowest").get(0).getAsJsonObject();
+        assertEquals("ACC-0001", slow.getAsJsonArray("parameters").get(0).getAsString());
+
+        get(servlet, "DELETE", "ADMIN", 200);
+        assertEquals(0, get(servlet, "GET", "ADMIN", 200).getAsJsonArray("statements").size());
+        explains.shutdownNow();
+    }
+}
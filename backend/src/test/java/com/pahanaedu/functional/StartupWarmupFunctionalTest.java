@@ -0,0 +1,121 @@
+package com.pahanaedu.functional;
+
+import com.pahanaedu.service.StartupWarmup;
+import com.pahanaedu.utils.ConnectionPool;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Functional tests for the startup warm-up and pool prefilling
+ */
+public class StartupWarmupFunctionalTest {
+
+    @Test
+    public void testReadyOnlyAfterEveryStepHasRun() throws Exception {
+        List<String> ran = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch inSecondStep = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        StartupWarmup warmup = new StartupWarmup(Arrays.asList(
+                new StartupWarmup.Step("first", () -> ran.add("first")),
+                new StartupWarmup.Step("second", () -> {
+                    inSecondStep.countDown();
+                    release.await();
+                    ran.add("second");
+                }),
+                new StartupWarmup.Step("broken", () -> {
+                    throw new SQLException("Communications link failure");
+                }),
+                new StartupWarmup.Step("last", () -> ran.add("last"))));
+
+        assertFalse(warmup.isReady());
+        warmup.start();
+        assertTrue(inSecondStep.await(5, TimeUnit.SECONDS));
+        assertFalse(warmup.isReady());
+        assertFalse(warmup.awaitReady(50));
+
+        release.countDown();
+        assertTrue(warmup.awaitReady(5000));
+        // A failed step is skipped, not fatal
+        assertEquals(Arrays.asList("first", "second", "last"), ran);
+    }
+
+    @Test
+    public void testNoStepsIsReadyAtOnce() throws Exception {
+        StartupWarmup warmup = new StartupWarmup(new ArrayList<>());
+        warmup.start();
+        assertTrue(warmup.awaitReady(5000));
+    }
+
+    /**
+     * A physical connection that counts the statements prepared on it
+     */
+    private static final class CountingConnection {
+        private final List<String> prepared = new ArrayList<>();
+        private int closedStatements = 0;
+
+        Connection proxy() {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "prepareStatement":
+                                prepared.add((String) args[0]);
+                                return Proxy.newProxyInstance(getClass().getClassLoader(),
+                                        new Class<?>[]{PreparedStatement.class}, (statement, call, callArgs) -> {
+                                            if ("close".equals(call.getName())) {
+                                                closedStatements++;
+                                            }
+                                            return null;
+                                        });
+                            case "getAutoCommit":
+                            case "isValid":
+                                return true;
+                            case "isClosed":
+                                return false;
+                            default:
+                                return null;
+                        }
+                    });
+        }
+    }
+
+    @Test
+    public void testPrefilledConnectionsEachPrepareTheHotStatements() throws Exception {
+        List<CountingConnection> opened = new ArrayList<>();
+        ConnectionPool pool = new ConnectionPool(() -> {
+            CountingConnection connection = new CountingConnection();
+            opened.add(connection);
+            return connection.proxy();
+        }, 3, 200, 30000);
+
+        // Capped at the pool size, and a second call opens nothing
+        assertEquals(3, pool.prefill(5));
+        assertEquals(0, pool.prefill(5));
+        assertEquals(3, pool.getIdleConnections());
+
+        List<String> statements = Arrays.asList("SELECT 1 FROM books WHERE id = ?", "SELECT 1 FROM users WHERE username = ?");
+        assertEquals(3, StartupWarmup.prepareOnEachConnection(pool, statements));
+
+        assertEquals(3, opened.size());
+        for (CountingConnection connection : opened) {
+            assertEquals(statements, connection.prepared);
+            assertEquals(statements.size(), connection.closedStatements);
+        }
+        assertEquals(3, pool.getIdleConnections());
+
+        pool.close();
+        assertEquals(0, pool.prefill(3));
+    }
+}
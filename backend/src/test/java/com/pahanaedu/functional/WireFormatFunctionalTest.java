@@ -0,0 +1,244 @@
+package com.pahanaedu.functional;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.pahanaedu.model.Book;
+import com.pahanaedu.model.Invoice;
+import com.pahanaedu.model.InvoiceItem;
+import com.pahanaedu.utils.JsonCodec;
+import com.pahanaedu.utils.RequestBinder;
+import com.pahanaedu.utils.WireFormat;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Functional tests for CBOR and MessagePack request and response bodies
+ */
+public class WireFormatFunctionalTest {
+
+    private final Gson gson = JsonCodec.getGson();
+
+    private static HttpServletRequest request(Map<String, String> headers, byte[] body) {
+        ByteArrayInputStream bytes = new ByteArrayInputStream(body);
+        ServletInputStream input = new ServletInputStream() {
+            @Override
+            public boolean isFinished() {
+                return bytes.available() == 0;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+            }
+
+            @Override
+            public int read() {
+                return bytes.read();
+            }
+        };
+        return (HttpServletRequest) Proxy.newProxyInstance(WireFormatFunctionalTest.class.getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getHeader":
+                            return headers.get(args[0]);
+                        case "getContentType":
+                            return headers.get("Content-Type");
+                        case "getInputStream":
+                            return input;
+                        case "getContentLengthLong":
+                            return (long) body.length;
+                        case "getContentLength":
+                            return body.length;
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private static HttpServletRequest accepting(String accept) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Accept", accept);
+        return request(headers, new byte[0]);
+    }
+
+    private static Invoice invoice() {
+        InvoiceItem first = new InvoiceItem();
+        first.setBookId(3);
+        first.setBookTitle("Sinhala Grammar");
+        first.setQuantity(2);
+        first.setUnitPrice(new BigDecimal("1200.00"));
+        first.setTotalPrice(new BigDecimal("2400.00"));
+        InvoiceItem second = new InvoiceItem();
+        second.setBookId(70000);
+        second.setQuantity(1);
+        second.setUnitPrice(new BigDecimal("0.05"));
+        second.setTotalPrice(new BigDecimal("0.05"));
+
+        Invoice invoice = new Invoice();
+        invoice.setId(4);
+        invoice.setInvoiceNumber("INV-20261018-0004");
+        invoice.setCashierId(1);
+        invoice.setTotalAmount(new BigDecimal("2400.05"));
+        invoice.setPaymentMethod("CASH");
+        invoice.setItems(Arrays.asList(first, second));
+        return invoice;
+    }
+
+    private JsonElement decode(WireFormat format, byte[] bytes) throws IOException {
+        try (JsonReader in = format.newReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8)) {
+            return gson.fromJson(in, JsonElement.class);
+        }
+    }
+
+    @Test
+    public void testSmallValuesUseTheStandardEncodings() throws Exception {
+        JsonObject body = new JsonObject();
+        body.addProperty("a", 1);
+        body.add("b", null);
+        body.addProperty("c", -500);
+
+        // Null properties are left out, as in the JSON output
+        assertArrayEquals(new byte[]{(byte) 0xA2, 0x61, 'a', 0x01, 0x61, 'c', 0x39, 0x01, (byte) 0xF3},
+                WireFormat.CBOR.encode(body));
+        assertArrayEquals(new byte[]{(byte) 0x82, (byte) 0xA1, 'a', 0x01, (byte) 0xA1, 'c', (byte) 0xD1, (byte) 0xFE, 0x0C},
+                WireFormat.MESSAGE_PACK.encode(body));
+    }
+
+    @Test
+    public void testInvoiceRoundTripsThroughEveryFormat() throws Exception {
+        JsonElement tree = gson.toJsonTree(invoice());
+        byte[] json = WireFormat.JSON.encode(tree);
+
+        for (WireFormat format : WireFormat.values()) {
+            byte[] encoded = format.encode(tree);
+            if (format.isBinary()) {
+                assertTrue(encoded.length < json.length, format + " is " + encoded.length + " bytes");
+            }
+            if (format != WireFormat.MESSAGE_PACK) {
+                assertEquals(gson.toJson(tree), gson.toJson(decode(format, encoded)), format.name());
+            } else {
+                // MessagePack has no decimal type, so amounts come back as their exact text
+                JsonObject decoded = decode(format, encoded).getAsJsonObject();
+                assertEquals("\"2400.05\"", decoded.get("totalAmount").toString());
+                assertEquals(70000, decoded.getAsJsonArray("items").get(1).getAsJsonObject().get("bookId").getAsInt());
+            }
+
+            // Read straight into the model, keeping the scale of the amounts
+            try (JsonReader in = format.newReader(new ByteArrayInputStream(encoded), StandardCharsets.UTF_8)) {
+                Invoice decoded = gson.fromJson(in, Invoice.class);
+                assertEquals("INV-20261018-0004", decoded.getInvoiceNumber());
+                assertEquals(new BigDecimal("2400.05"), decoded.getTotalAmount());
+                assertEquals(70000, decoded.getItems().get(1).getBookId());
+                assertEquals(new BigDecimal("0.05"), decoded.getItems().get(1).getUnitPrice());
+            }
+        }
+    }
+
+    @Test
+    public void testAcceptPicksTheBestSupportedFormat() {
+        assertEquals(WireFormat.JSON, WireFormat.negotiate(accepting(null)));
+        assertEquals(WireFormat.JSON, WireFormat.negotiate(accepting("*/*")));
+        assertEquals(WireFormat.CBOR, WireFormat.negotiate(accepting("application/cbor")));
+        assertEquals(WireFormat.MESSAGE_PACK, WireFormat.negotiate(accepting("text/html, application/x-msgpack")));
+        assertEquals(WireFormat.JSON,
+                WireFormat.negotiate(accepting("application/cbor;q=0.5, application/json")));
+        assertEquals(WireFormat.MESSAGE_PACK,
+                WireFormat.negotiate(accepting("application/msgpack, application/cbor")));
+        assertEquals(WireFormat.JSON, WireFormat.negotiate(accepting("application/cbor;q=0")));
+    }
+
+    @Test
+    public void testBindsBinaryBodiesAndWritesBinaryResponses() throws Exception {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Content-Type", "application/cbor");
+        JsonObject json = new JsonObject();
+        json.addProperty("title", "Sinhala Grammar");
+        json.addProperty("price", new BigDecimal("1200.50"));
+        json.addProperty("stockQuantity", 4);
+
+        Book book = new Book();
+        RequestBinder.bind(request(headers, WireFormat.CBOR.encode(json)), (name, in) -> {
+            switch (name) {
+                case "title":
+                    book.setTitle(RequestBinder.readText(in, "Book title is required"));
+                    return true;
+                case "price":
+                    book.setPrice(RequestBinder.readAmount(in, "Book price must be zero or more"));
+                    return true;
+                default:
+                    return false;
+            }
+        });
+        assertEquals("Sinhala Grammar", book.getTitle());
+        assertEquals(new BigDecimal("1200.50"), book.getPrice());
+
+        Map<String, String> responseHeaders = new HashMap<>();
+        ByteArrayOutputStream sent = new ByteArrayOutputStream();
+        ServletOutputStream output = new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+                sent.write(b);
+            }
+        };
+        HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(
+                WireFormatFunctionalTest.class.getClassLoader(), new Class<?>[]{HttpServletResponse.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "addHeader":
+                            responseHeaders.put((String) args[0], (String) args[1]);
+                            return null;
+                        case "setContentType":
+                            responseHeaders.put("Content-Type", (String) args[0]);
+                            return null;
+                        case "setContentLength":
+                            responseHeaders.put("Content-Length", String.valueOf(args[0]));
+                            return null;
+                        case "getOutputStream":
+                            return output;
+                        default:
+                            return null;
+                    }
+                });
+
+        WireFormat.MESSAGE_PACK.write(response, json);
+        assertEquals("application/msgpack", responseHeaders.get("Content-Type"));
+        assertEquals("Accept", responseHeaders.get("Vary"));
+        assertEquals(String.valueOf(sent.size()), responseHeaders.get("Content-Length"));
+        JsonObject decoded = decode(WireFormat.MESSAGE_PACK, sent.toByteArray()).getAsJsonObject();
+        assertEquals("Sinhala Grammar", decoded.get("title").getAsString());
+        assertEquals("1200.50", decoded.get("price").getAsString());
+        assertEquals(4, decoded.get("stockQuantity").getAsInt());
+    }
+}
@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from "react";
+import React, { useState, useEffect, useRef } from "react";
 import { useForm, Controller } from "react-hook-form";
 import { zodResolver } from "@hookform/resolvers/zod";
 import { z } from "zod";
@@ -30,8 +30,6 @@ import { Label } from "@/components/ui/label";
 import { Separator } from "@/components/ui/separator";
 import { Plus, Trash2, PrinterIcon, Save, Loader2 } from "lucide-react";
 import PrintBillDialog from "@/components/print-bill-dialog";
-import customerAPI from "@/services/customerAPI";
-import bookAPI from "@/services/bookAPI";
 import billingAPI from "@/services/billingAPI";
 import { showToast } from "@/lib/toast";
 import { formatCurrency } from "@/services/utils";
@@ -46,6 +44,8 @@ const BillingSystem = () => {
 	const [isPrinting, setIsPrinting] = useState(false);
 	const [printDialogOpen, setPrintDialogOpen] = useState(false);
 	const [printContent, setPrintContent] = useState("");
+	const catalogueVersion = useRef(null);
+	const catalogueRows = useRef({ books: [], customers: [] });
 
 	const { user } = useAuth();
 
@@ -113,32 +113,42 @@ const BillingSystem = () => {
 		fetchData();
 	}, []);
 
+	const mergeRows = (current, changed = [], removed = []) => {
+		const byId = new Map(current.map((row) => [row.id, row]));
+		removed.forEach((id) => byId.delete(id));
+		changed.forEach((row) => byId.set(row.id, row));
+		return Array.from(byId.values());
+	};
+
+	// Loads the catalogue once, then only the rows changed since the last version
+	const refreshCatalogue = async () => {
+		const data = await billingAPI.getBootstrap(catalogueVersion.current);
+		const previous = catalogueRows.current;
+		const next = data.full
+			? { books: data.books || [], customers: data.customers || [] }
+			: {
+					books: mergeRows(previous.books, data.books, data.removedBooks),
+					customers: mergeRows(
+						previous.customers,
+						data.customers,
+						data.removedCustomers
+					),
+			  };
+
+		catalogueRows.current = next;
+		catalogueVersion.current = data.version;
+		setBooks(next.books);
+		setCustomers(next.customers);
+		return next;
+	};
+
 	const fetchData = async () => {
 		setIsLoading(true);
 		try {
-			let customersData = [];
-			let booksData = [];
-
-			try {
-				const customersResponse = await customerAPI.getAllCustomers();
-				customersData = customersResponse || [];
-			} catch (error) {
-				console.error("Error fetching customers:", error);
-				showToast.error("Failed to load customers data");
-			}
-
-			try {
-				const booksResponse = await bookAPI.getAllBooks();
-				booksData = booksResponse || [];
-			} catch (error) {
-				console.error("Error fetching books:", error);
-				showToast.error("Failed to load books data");
-			}
-
-			setCustomers(customersData);
-			setBooks(booksData);
+			await refreshCatalogue();
 		} catch (error) {
-			console.error("Error in fetchData:", error);
+			console.error("Error loading billing data:", error);
+			showToast.error("Failed to load customers and books");
 		} finally {
 			setIsLoading(false);
 		}
@@ -197,8 +207,7 @@ const BillingSystem = () => {
 		}
 
 		try {
-			const booksResponse = await bookAPI.getAllBooks();
-			const currentBooks = booksResponse || [];
+			const { books: currentBooks } = await refreshCatalogue();
 
 			const stockIssues = [];
 
@@ -291,6 +300,10 @@ const BillingSystem = () => {
 					setValue("selectedCustomer", "");
 					setBillItems([]);
 					setInvoiceNumber(billingAPI.generateInvoiceNumber());
+					// Pick up the stock rows this sale changed
+					refreshCatalogue().catch((error) =>
+						console.error("Error refreshing stock:", error)
+					);
 				} else {
 					showToast.error(
 						"Failed to create invoice: " +
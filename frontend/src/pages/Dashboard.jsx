@@ -20,6 +20,7 @@ import { useNavigate } from "react-router-dom";
 import customerAPI from "@/services/customerAPI";
 import bookAPI from "@/services/bookAPI";
 import billingAPI from "@/services/billingAPI";
+import { eventsAPI } from "@/services/api";
 import { formatCurrency } from "@/services/utils";
 import { showToast } from "@/lib/toast";
 
@@ -36,6 +37,49 @@ export default function Dashboard() {
 
 	useEffect(() => {
 		fetchDashboardData();
+
+		// Keep the figures current from pushed events instead of reloading every table
+		return eventsAPI.subscribe(
+			{
+				"invoice-created": (invoice) => {
+					setDashboardData((data) => ({
+						...data,
+						monthlySales:
+							data.monthlySales + parseFloat(invoice.totalAmount || 0),
+						orderCount: data.orderCount + 1,
+						recentInvoices: [
+							{
+								id: invoice.invoiceNumber,
+								customer: invoice.customerName || "Walk-in Customer",
+								amount: formatCurrency(invoice.totalAmount),
+								status: "Completed",
+							},
+							...data.recentInvoices,
+						].slice(0, 4),
+					}));
+				},
+				"stock-changed": (change) => {
+					const delta =
+						change.changeType === "CREATED"
+							? 1
+							: change.changeType === "DELETED"
+							? -1
+							: 0;
+					if (delta !== 0) {
+						setDashboardData((data) => ({
+							...data,
+							bookCount: data.bookCount + delta,
+						}));
+					}
+				},
+				"low-stock": (book) => {
+					showToast.warning(
+						`Low stock: ${book.title} (${book.stockQuantity} left)`
+					);
+				},
+			},
+			() => fetchDashboardData()
+		);
 	}, []);
 
 	const fetchDashboardData = async () => {
@@ -78,4 +78,30 @@ export const authAPI = {
 	},
 };
 
+// Live dashboard events (Server-Sent Events); handlers are keyed by event name
+export const eventsAPI = {
+	subscribe: (handlers, onReconnect) => {
+		const source = new EventSource(`${API_BASE_URL}/events`, {
+			withCredentials: true,
+		});
+		let dropped = false;
+
+		Object.entries(handlers).forEach(([event, handler]) => {
+			source.addEventListener(event, (message) => {
+				handler(JSON.parse(message.data));
+			});
+		});
+		source.onerror = () => {
+			dropped = true;
+		};
+		source.onopen = () => {
+			// Events sent while disconnected are not replayed
+			if (dropped && onReconnect) onReconnect();
+			dropped = false;
+		};
+
+		return () => source.close();
+	},
+};
+
 export default apiClient;
@@ -74,6 +74,94 @@ const billingAPI = {
 		});
 	},
 
+	getEscPosReceipt: async (id) => {
+		return withRetry(async () => {
+			const response = await apiClient.get(`/invoices/print/${id}`, {
+				params: { format: "escpos" },
+				responseType: "arraybuffer",
+			});
+			return response.data;
+		});
+	},
+
+	getInvoicePdf: async (id) => {
+		return withRetry(async () => {
+			const response = await apiClient.get(`/invoices/${id}/pdf`, {
+				responseType: "blob",
+			});
+			return response.data;
+		});
+	},
+
+	requestStatement: async (customerId, month) => {
+		const response = await apiClient.post("/invoices/statements", {
+			customerId,
+			month,
+		});
+		return response.data;
+	},
+
+	getStatementStatus: async (jobId) => {
+		return withRetry(async () => {
+			const response = await apiClient.get(`/invoices/statements/${jobId}`);
+			return response.data;
+		});
+	},
+
+	downloadStatement: async (jobId) => {
+		return withRetry(async () => {
+			const response = await apiClient.get(`/invoices/statements/${jobId}/pdf`, {
+				responseType: "blob",
+			});
+			return response.data;
+		});
+	},
+
+	createCart: async (cartData = {}) => {
+		const response = await apiClient.post("/carts", cartData);
+		return response.data;
+	},
+
+	getCart: async (cartId) => {
+		return withRetry(async () => {
+			const response = await apiClient.get(`/carts/${cartId}`);
+			return response.data;
+		});
+	},
+
+	updateCartLine: async (cartId, lineDelta) => {
+		const response = await apiClient.patch(`/carts/${cartId}/lines`, lineDelta);
+		return response.data;
+	},
+
+	updateCart: async (cartId, cartData) => {
+		const response = await apiClient.patch(`/carts/${cartId}`, cartData);
+		return response.data;
+	},
+
+	checkoutCart: async (cartId, checkoutData = {}) => {
+		const response = await apiClient.post(
+			`/carts/${cartId}/checkout`,
+			checkoutData
+		);
+		return response.data;
+	},
+
+	discardCart: async (cartId) => {
+		const response = await apiClient.delete(`/carts/${cartId}`);
+		return response.data;
+	},
+
+	// Compact books and customers for the till; pass the last version to get only changes
+	getBootstrap: async (since = null) => {
+		return withRetry(async () => {
+			const response = await apiClient.get("/billing/bootstrap", {
+				params: since != null ? { since } : {},
+			});
+			return response.data;
+		});
+	},
+
 	generateInvoiceNumber: () => {
 		const date = new Date();
 		const year = date.getFullYear();
@@ -83,6 +83,32 @@ const bookAPI = {
 			return response.data;
 		});
 	},
+
+	// Changes after a sequence number; without one, just the current position
+	getChanges: async (after = null) => {
+		return withRetry(async () => {
+			const response = await apiClient.get("/books/changes", {
+				params: after != null ? { after } : {},
+			});
+			return response.data;
+		});
+	},
+
+	// Live book changes; the browser resumes from the last event ID after a reconnect
+	openChangeStream: (after, onChange, onReset) => {
+		const query = after != null ? `?after=${after}` : "";
+		const source = new EventSource(
+			`${apiClient.defaults.baseURL}/books/changes/stream${query}`,
+			{ withCredentials: true }
+		);
+		source.addEventListener("book-change", (event) => {
+			onChange(JSON.parse(event.data));
+		});
+		source.addEventListener("reset", (event) => {
+			if (onReset) onReset(Number(event.lastEventId));
+		});
+		return source;
+	},
 };
 
 export default bookAPI;